@@ -0,0 +1,107 @@
+package org.interpreter.benchmarks;
+
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.linker.Linker;
+import org.interpreter.parser.Parser;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures channel throughput: producer tasks SEND {@value #MESSAGES} values in total, which the script
+ * RECEIVEs, so the reported throughput is in messages per millisecond. A small bounded channel makes the
+ * tasks block and wake each other, a large one mostly measures the queue itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelBenchmark {
+    private static final int MESSAGES = 10_000;
+
+    private Program unbounded;
+    private Program bounded;
+    private Program smallBounded;
+    private Program twoProducers;
+
+    @Setup
+    public void setUp() {
+        unbounded = new Program(producerConsumer("CHANNEL Q", 1));
+        bounded = new Program(producerConsumer("CHANNEL Q, 1024", 1));
+        smallBounded = new Program(producerConsumer("CHANNEL Q, 16", 1));
+        twoProducers = new Program(producerConsumer("CHANNEL Q, 1024", 2));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public Object unboundedChannel() {
+        return unbounded.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public Object boundedChannel() {
+        return bounded.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public Object smallBoundedChannel() {
+        return smallBounded.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public Object twoProducers() {
+        return twoProducers.run();
+    }
+
+    /**
+     * Builds a script that declares a channel, spawns producers that share the messages between them and
+     * receives every message.
+     */
+    private static String producerConsumer(String declaration, int producers) {
+        return """
+                %s
+                FOR P = 1 TO %d
+                    SPAWN Produce
+                NEXT
+                S = 0
+                FOR I = 1 TO %d
+                    RECEIVE Q, V
+                    S = S + V
+                NEXT
+                WAIT Produce
+
+                Produce:
+                FOR J = 1 TO %d
+                    SEND Q, J
+                NEXT
+                RETURN
+                """.formatted(declaration, producers, MESSAGES, MESSAGES / producers);
+    }
+
+    /**
+     * A parsed and linked program that can be executed repeatedly in the same environment.
+     */
+    private static final class Program {
+        private final RuntimeEnvironment env = new RuntimeEnvironment();
+        private final List<Statement> statements;
+
+        Program(String source) {
+            statements = new Parser(new BasicLexer(source), env).parse();
+            new Linker(env).link(statements);
+        }
+
+        Object run() {
+            env.execute(statements);
+            env.getTasks().joinAll();
+            return env.getVariable("S");
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.interpreter.benchmarks;
+
+import org.interpreter.SBasicInterpreter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Runs the end-to-end benchmark corpus in {@code src/main/resources/benchmarks} through
+ * {@link SBasicInterpreter} and compares the results against a stored baseline.
+ *
+ * <p>Each program is run a number of warmup iterations and then measured. For every program the harness
+ * reports the median wall time, the bytes allocated by the running thread, the allocation rate and a CRC-32
+ * checksum of the printed output. A program is flagged as a regression if its median time or its allocated
+ * bytes exceed the baseline by more than the threshold, and as changed if its output checksum differs.</p>
+ *
+ * <p>Options:</p>
+ * <ul>
+ *     <li>{@code --baseline <file>}: the baseline to compare against, {@code benchmarks/corpus-baseline.properties} by default;</li>
+ *     <li>{@code --update-baseline}: writes the measured results to the baseline instead of comparing;</li>
+ *     <li>{@code --threshold <fraction>}: the tolerated slowdown, 0.15 by default;</li>
+ *     <li>{@code --warmup <n>} and {@code --iterations <n>}: the number of warmup and measured runs, 5 and 10 by default;</li>
+ *     <li>any other argument selects a program of the corpus by name.</li>
+ * </ul>
+ *
+ * <p>The process exits with status 1 if a regression or a changed output was found.</p>
+ */
+public final class CorpusBenchmark {
+    /** The programs of the corpus, as resource names without the {@code .bas} extension. */
+    static final List<String> CORPUS = List.of("primes", "matrix", "mandelbrot", "strings", "recursion", "report");
+
+    private CorpusBenchmark() {
+        // Entry point only
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path baselinePath = Path.of("benchmarks", "corpus-baseline.properties");
+        boolean update = false;
+        double threshold = 0.15;
+        int warmup = 5;
+        int iterations = 10;
+        List<String> selected = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--baseline" -> baselinePath = Path.of(args[++i]);
+                case "--update-baseline" -> update = true;
+                case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                default -> selected.add(args[i]);
+            }
+        }
+        if (selected.isEmpty()) {
+            selected = CORPUS;
+        }
+
+        Properties baseline = new Properties();
+        if (Files.exists(baselinePath)) {
+            try (Reader reader = Files.newBufferedReader(baselinePath)) {
+                baseline.load(reader);
+            }
+        }
+
+        PrintStream console = System.out;
+        console.printf(Locale.ROOT, "%-12s %12s %14s %12s %10s  %s%n", "program", "median ms", "alloc bytes", "alloc MB/s", "checksum", "status");
+
+        boolean failed = false;
+        for (String name : selected) {
+            Result result = measure(name, load(name), warmup, iterations);
+            String status = update ? "recorded" : compare(result, baseline, threshold);
+            failed |= status.startsWith("REGRESSION") || status.startsWith("CHANGED");
+            console.printf(Locale.ROOT, "%-12s %12.2f %14d %12.1f %10s  %s%n", name, result.medianMillis(),
+                    result.allocatedBytes(), result.allocationRate(), result.checksum(), status);
+            if (update) {
+                result.store(baseline);
+            }
+        }
+
+        if (update) {
+            Files.createDirectories(baselinePath.toAbsolutePath().getParent());
+            try (Writer writer = Files.newBufferedWriter(baselinePath)) {
+                baseline.store(writer, "Benchmark corpus baseline, see CorpusBenchmark");
+            }
+            console.println("Baseline written to " + baselinePath);
+        } else if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a program repeatedly and measures every run after the warmup.
+     *
+     * @param name the name of the program
+     * @param source the source of the program
+     * @param warmup the number of runs that are not measured
+     * @param iterations the number of measured runs
+     * @return the measured result
+     */
+    static Result measure(String name, String source, int warmup, int iterations) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] times = new long[iterations];
+        long allocated = 0;
+        String checksum = null;
+
+        PrintStream console = System.out;
+        try {
+            for (int i = 0; i < warmup + iterations; i++) {
+                ChecksumOutputStream output = new ChecksumOutputStream();
+                System.setOut(new PrintStream(output, false, StandardCharsets.UTF_8));
+
+                long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+                new SBasicInterpreter(source).run();
+                System.out.flush();
+                long elapsed = System.nanoTime() - start;
+                long allocatedAfter = threads.getThreadAllocatedBytes(threadId);
+
+                String runChecksum = output.checksum();
+                if (checksum != null && !checksum.equals(runChecksum)) {
+                    throw new IllegalStateException("Output of " + name + " differs between runs");
+                }
+                checksum = runChecksum;
+                if (i >= warmup) {
+                    times[i - warmup] = elapsed;
+                    allocated += allocatedAfter - allocatedBefore;
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+
+        Arrays.sort(times);
+        long totalNanos = Arrays.stream(times).sum();
+        return new Result(name, times[iterations / 2], allocated / iterations, allocated * 1e3 / totalNanos, checksum);
+    }
+
+    /**
+     * Compares a result with its baseline entry.
+     *
+     * @param result the measured result
+     * @param baseline the baseline
+     * @param threshold the tolerated relative increase of time and allocation
+     * @return a status message, starting with {@code REGRESSION} or {@code CHANGED} for failures
+     */
+    static String compare(Result result, Properties baseline, double threshold) {
+        String name = result.name();
+        String expectedChecksum = baseline.getProperty(name + ".checksum");
+        if (expectedChecksum == null) {
+            return "no baseline";
+        }
+        if (!expectedChecksum.equals(result.checksum())) {
+            return "CHANGED output, expected checksum " + expectedChecksum;
+        }
+
+        List<String> regressions = new ArrayList<>();
+        double baselineNanos = Double.parseDouble(baseline.getProperty(name + ".medianNanos"));
+        double timeRatio = result.medianNanos() / baselineNanos;
+        if (timeRatio > 1 + threshold) {
+            regressions.add(String.format(Locale.ROOT, "time +%.0f%%", (timeRatio - 1) * 100));
+        }
+        double baselineBytes = Double.parseDouble(baseline.getProperty(name + ".allocatedBytes"));
+        double allocationRatio = baselineBytes == 0 ? (result.allocatedBytes() == 0 ? 1 : Double.POSITIVE_INFINITY)
+                : result.allocatedBytes() / baselineBytes;
+        if (allocationRatio > 1 + threshold) {
+            regressions.add(String.format(Locale.ROOT, "allocation +%.0f%%", (allocationRatio - 1) * 100));
+        }
+
+        if (!regressions.isEmpty()) {
+            return "REGRESSION " + String.join(", ", regressions);
+        }
+        return String.format(Locale.ROOT, "ok (%+.0f%% time)", (timeRatio - 1) * 100);
+    }
+
+    /**
+     * Reads a program of the corpus from the classpath.
+     *
+     * @param name the name of the program
+     * @return the source of the program
+     */
+    static String load(String name) {
+        String resource = "/benchmarks/" + name + ".bas";
+        try (InputStream input = CorpusBenchmark.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalArgumentException("Unknown benchmark program: " + name);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The measurements of one program.
+     *
+     * @param name the name of the program
+     * @param medianNanos the median wall time of a run
+     * @param allocatedBytes the average number of bytes allocated by a run
+     * @param allocationRate the allocated megabytes per second over all measured runs
+     * @param checksum the CRC-32 of the printed output
+     */
+    record Result(String name, long medianNanos, long allocatedBytes, double allocationRate, String checksum) {
+
+        double medianMillis() {
+            return medianNanos / 1e6;
+        }
+
+        void store(Properties baseline) {
+            baseline.setProperty(name + ".medianNanos", Long.toString(medianNanos));
+            baseline.setProperty(name + ".allocatedBytes", Long.toString(allocatedBytes));
+            baseline.setProperty(name + ".checksum", checksum);
+        }
+    }
+
+    /**
+     * Discards the bytes written to it while computing their CRC-32 checksum. Carriage returns are skipped,
+     * so the checksum does not depend on the platform's line separator.
+     */
+    private static final class ChecksumOutputStream extends OutputStream {
+        private final CRC32 crc = new CRC32();
+
+        @Override
+        public void write(int b) {
+            if (b != '\r') {
+                crc.update(b);
+            }
+        }
+
+        String checksum() {
+            return String.format("%08x", crc.getValue());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.interpreter.benchmarks;
+
+import org.interpreter.engine.InterpreterEngine;
+import org.interpreter.engine.Limits;
+import org.interpreter.engine.RunResult;
+import org.interpreter.engine.Script;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of quotas and time slicing: the same loop of {@value #ITERATIONS} iterations runs without
+ * limits, with every limit set, and submitted to an engine that suspends it every {@value #FUEL} instructions,
+ * so the reported time is per iteration. The three should be close, since the limits are only checked once
+ * per batch of statements and a suspended run keeps its state on its own call stack.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    private static final int ITERATIONS = 100_000;
+    private static final int FUEL = 10_000;
+
+    private InterpreterEngine engine;
+    private InterpreterEngine slicing;
+    private Script script;
+    private Limits limits;
+
+    @Setup
+    public void setUp() {
+        engine = new InterpreterEngine(1);
+        slicing = new InterpreterEngine(1, FUEL);
+        script = engine.compile("""
+                S = 0
+                FOR I = 1 TO %d
+                    S = S + I
+                NEXT
+                """.formatted(ITERATIONS));
+        limits = Limits.UNLIMITED
+                .withMaxInstructions(Long.MAX_VALUE - 1)
+                .withMaxWallTime(Duration.ofHours(1))
+                .withMaxOutputBytes(1 << 20)
+                .withMaxAllocatedBytes(Long.MAX_VALUE - 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        slicing.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public RunResult unlimited() {
+        return engine.run(script, Limits.UNLIMITED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public RunResult limited() {
+        return engine.run(script, limits);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public RunResult timeSliced() throws ExecutionException, InterruptedException {
+        return slicing.submit(script, Limits.UNLIMITED).get();
+    }
+}
@@ -0,0 +1,75 @@
+package org.interpreter.benchmarks;
+
+import org.interpreter.parser.expressions.AdditionExpression;
+import org.interpreter.parser.expressions.Expression;
+import org.interpreter.parser.expressions.NumericExpression;
+import org.interpreter.parser.expressions.RelationalExpression;
+import org.interpreter.parser.expressions.StringExpression;
+import org.interpreter.parser.variable.VariableReference;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.token.TokenType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the evaluation of individual expression nodes against a prepared runtime environment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+    private RuntimeEnvironment env;
+    private Expression variable;
+    private Expression integerAddition;
+    private Expression fractionAddition;
+    private Expression concatenation;
+    private Expression comparison;
+
+    @Setup
+    public void setUp() {
+        env = new RuntimeEnvironment();
+        int a = env.slotOf("A");
+        int b = env.slotOf("B");
+        int s = env.slotOf("S");
+        env.setVariable("A", 42L);
+        env.setVariable("B", 2.5);
+        env.setVariable("S", "text");
+
+        variable = new VariableReference("A", a);
+        integerAddition = new AdditionExpression(new VariableReference("A", a), new NumericExpression(1L));
+        fractionAddition = new AdditionExpression(new VariableReference("A", a), new VariableReference("B", b));
+        concatenation = new AdditionExpression(new VariableReference("S", s), new StringExpression("!"));
+        comparison = new RelationalExpression(new VariableReference("A", a), TokenType.LESS_THAN, new VariableReference("B", b));
+    }
+
+    @Benchmark
+    public long variableReference() {
+        return variable.evaluate(env);
+    }
+
+    @Benchmark
+    public long integerAddition() {
+        return integerAddition.evaluate(env);
+    }
+
+    @Benchmark
+    public long fractionAddition() {
+        return fractionAddition.evaluate(env);
+    }
+
+    @Benchmark
+    public long stringConcatenation() {
+        long result = concatenation.evaluate(env);
+        env.releaseReferences();
+        return result;
+    }
+
+    @Benchmark
+    public long relational() {
+        return comparison.evaluate(env);
+    }
+}
@@ -0,0 +1,149 @@
+package org.interpreter.benchmarks;
+
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.linker.Linker;
+import org.interpreter.parser.Parser;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures updates of global variables: tasks INCREMENT {@value #INCREMENTS} times in total, either one
+ * shared counter or a counter of their own, so the reported time is per increment. Comparing one task with
+ * four shows how the atomic cells scale under contention.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalBenchmark {
+    private static final int INCREMENTS = 100_000;
+
+    private Program localCounter;
+    private Program oneTask;
+    private Program sharedCounter;
+    private Program separateCounters;
+
+    @Setup
+    public void setUp() {
+        localCounter = new Program("""
+                C = 0
+                FOR I = 1 TO %d
+                    INCREMENT C
+                NEXT
+                """.formatted(INCREMENTS));
+        oneTask = new Program("""
+                GLOBAL C
+                C = 0
+                SPAWN Count
+                WAIT Count
+
+                Count:
+                FOR I = 1 TO %d
+                    INCREMENT C
+                NEXT
+                RETURN
+                """.formatted(INCREMENTS));
+        sharedCounter = new Program("""
+                GLOBAL C
+                C = 0
+                FOR T = 1 TO 4
+                    SPAWN Count
+                NEXT
+                WAIT Count
+
+                Count:
+                FOR I = 1 TO %d
+                    INCREMENT C
+                NEXT
+                RETURN
+                """.formatted(INCREMENTS / 4));
+        separateCounters = new Program("""
+                GLOBAL A, B, C, D
+                A = 0
+                B = 0
+                C = 0
+                D = 0
+                SPAWN CountA
+                SPAWN CountB
+                SPAWN CountC
+                SPAWN CountD
+                WAIT CountA
+                WAIT CountB
+                WAIT CountC
+                WAIT CountD
+
+                CountA:
+                FOR I = 1 TO %1$d
+                    INCREMENT A
+                NEXT
+                RETURN
+
+                CountB:
+                FOR I = 1 TO %1$d
+                    INCREMENT B
+                NEXT
+                RETURN
+
+                CountC:
+                FOR I = 1 TO %1$d
+                    INCREMENT C
+                NEXT
+                RETURN
+
+                CountD:
+                FOR I = 1 TO %1$d
+                    INCREMENT D
+                NEXT
+                RETURN
+                """.formatted(INCREMENTS / 4));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INCREMENTS)
+    public Object localCounter() {
+        return localCounter.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INCREMENTS)
+    public Object globalCounterOneTask() {
+        return oneTask.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INCREMENTS)
+    public Object globalCounterFourTasks() {
+        return sharedCounter.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INCREMENTS)
+    public Object separateGlobalCountersFourTasks() {
+        return separateCounters.run();
+    }
+
+    /**
+     * A parsed and linked program that can be executed repeatedly in the same environment.
+     */
+    private static final class Program {
+        private final RuntimeEnvironment env = new RuntimeEnvironment();
+        private final List<Statement> statements;
+
+        Program(String source) {
+            statements = new Parser(new BasicLexer(source), env).parse();
+            new Linker(env).link(statements);
+        }
+
+        Object run() {
+            env.execute(statements);
+            env.getTasks().joinAll();
+            return env.getGlobals().size();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.interpreter.benchmarks;
+
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.token.Token;
+import org.interpreter.token.TokenType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link BasicLexer#nextToken()} over a whole script.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({"small", "large"})
+    public String size;
+
+    private String source;
+
+    @Setup
+    public void setUp() {
+        source = Scripts.of(size);
+    }
+
+    @Benchmark
+    public int tokenize(Blackhole blackhole) {
+        BasicLexer lexer = new BasicLexer(source);
+        int count = 0;
+        Token token;
+        while ((token = lexer.nextToken()).type() != TokenType.EOF) {
+            blackhole.consume(token);
+            count++;
+        }
+        return count;
+    }
+}
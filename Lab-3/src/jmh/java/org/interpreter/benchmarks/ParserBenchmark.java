@@ -0,0 +1,38 @@
+package org.interpreter.benchmarks;
+
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.parser.Parser;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Parser#parse()} on small and large scripts, including the label preprocessing
+ * done when the parser is constructed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"small", "large"})
+    public String size;
+
+    private String source;
+
+    @Setup
+    public void setUp() {
+        source = Scripts.of(size);
+    }
+
+    @Benchmark
+    public List<Statement> parse() {
+        return new Parser(new BasicLexer(source), new RuntimeEnvironment()).parse();
+    }
+}
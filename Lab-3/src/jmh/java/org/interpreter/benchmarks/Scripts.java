@@ -0,0 +1,72 @@
+package org.interpreter.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides the BASIC sources used by the benchmarks.
+ */
+final class Scripts {
+
+    private Scripts() {
+        // Utility class
+    }
+
+    /**
+     * Returns a script of the given size.
+     *
+     * @param size "small" for the bundled Test.bas, or "large" for a generated script of a few thousand lines
+     * @return the source of the script
+     */
+    static String of(String size) {
+        return switch (size) {
+            case "small" -> resource("/Test.bas");
+            case "large" -> generate(500);
+            default -> throw new IllegalArgumentException("Unknown script size: " + size);
+        };
+    }
+
+    /**
+     * Generates a script made of repeated blocks of assignments, conditionals, loops and subroutine calls.
+     *
+     * @param blocks the number of blocks to generate
+     * @return the source of the script
+     */
+    static String generate(int blocks) {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < blocks; i++) {
+            source.append("A").append(i).append(" = ").append(i).append(" + 2 * (3 - 1) / 4\n")
+                    .append("B").append(i).append(" = \"block \" + A").append(i).append('\n')
+                    .append("IF A").append(i).append(" >= 10 THEN C = A").append(i).append(" % 3 ELSE C = 0 ENDIF\n")
+                    .append("FOR I = 1 TO 3\n")
+                    .append("    C = C + I\n")
+                    .append("NEXT\n")
+                    .append("GOSUB Sub").append(i).append('\n');
+        }
+        for (int i = 0; i < blocks; i++) {
+            source.append("Sub").append(i).append(":\n")
+                    .append("D = C * 2\n")
+                    .append("RETURN\n");
+        }
+        return source.toString();
+    }
+
+    /**
+     * Reads a script from the classpath.
+     *
+     * @param name the resource name
+     * @return the content of the resource
+     */
+    private static String resource(String name) {
+        try (InputStream input = Scripts.class.getResourceAsStream(name)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing resource " + name);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
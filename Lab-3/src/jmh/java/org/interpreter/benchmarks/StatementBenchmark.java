@@ -0,0 +1,93 @@
+package org.interpreter.benchmarks;
+
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.linker.Linker;
+import org.interpreter.parser.Parser;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures statement execution: tight FOR loops and GOSUB dispatch. Each invocation runs
+ * {@value #ITERATIONS} loop iterations, so the reported time is per iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementBenchmark {
+    private static final int ITERATIONS = 10_000;
+
+    private Program forLoop;
+    private Program nestedForLoop;
+    private Program goSub;
+
+    @Setup
+    public void setUp() {
+        forLoop = new Program("""
+                S = 0
+                FOR I = 1 TO %d
+                    S = S + I
+                NEXT
+                """.formatted(ITERATIONS));
+        nestedForLoop = new Program("""
+                S = 0
+                FOR I = 1 TO 100
+                    FOR J = 1 TO %d
+                        IF J %% 2 = 0 THEN S = S + J ENDIF
+                    NEXT
+                NEXT
+                """.formatted(ITERATIONS / 100));
+        goSub = new Program("""
+                S = 0
+                FOR I = 1 TO %d
+                    GOSUB Add
+                NEXT
+
+                Add:
+                S = S + I
+                RETURN
+                """.formatted(ITERATIONS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object forLoop() {
+        return forLoop.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object nestedForLoopWithIf() {
+        return nestedForLoop.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object goSubDispatch() {
+        return goSub.run();
+    }
+
+    /**
+     * A parsed and linked program that can be executed repeatedly in the same environment.
+     */
+    private static final class Program {
+        private final RuntimeEnvironment env = new RuntimeEnvironment();
+        private final List<Statement> statements;
+
+        Program(String source) {
+            statements = new Parser(new BasicLexer(source), env).parse();
+            new Linker(env).link(statements);
+        }
+
+        Object run() {
+            env.execute(statements);
+            return env.getVariable("S");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.interpreter.benchmarks;
+
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.linker.Linker;
+import org.interpreter.parser.Parser;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a long string by concatenation in a loop: each invocation appends ten characters
+ * {@value #ITERATIONS} times and flattens the resulting 10 MB rope once. The program is only parsed and
+ * linked, not parallelized, so the loop appends to the rope sequentially.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringBenchmark {
+    private static final int ITERATIONS = 1_000_000;
+
+    private final RuntimeEnvironment env = new RuntimeEnvironment();
+    private List<Statement> statements;
+
+    @Setup
+    public void setUp() {
+        statements = new Parser(new BasicLexer("""
+                S = ""
+                FOR I = 1 TO %d
+                    S = S + "0123456789"
+                NEXT
+                """.formatted(ITERATIONS)), env).parse();
+        new Linker(env).link(statements);
+    }
+
+    @Benchmark
+    public int buildTenMegabyteString() {
+        env.execute(statements);
+        return ((String) env.getVariable("S")).length();
+    }
+}
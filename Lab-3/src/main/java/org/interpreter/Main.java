@@ -1,11 +1,48 @@
 package org.interpreter;
 
+import org.interpreter.metrics.MetricsServer;
+import org.interpreter.profiler.AllocationProfiler;
+import org.interpreter.profiler.ExecutionTrace;
+import org.interpreter.profiler.LineProfiler;
+import org.interpreter.profiler.SamplingProfiler;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
  * The Main class serves as the entry point for the SBasic interpreter application.
  * It prompts the user to enter the path to a file containing SBasic source code,
- * initializes the interpreter, and executes the script.
+ * initializes the interpreter, and executes the script. The interpreter is configured with these options:
+ * <ul>
+ *     <li>{@code --profile} enables the line profiler and prints its hot-spot report to the standard error
+ *     stream once the script ends;</li>
+ *     <li>{@code --allocations} prints the table of bytes allocated per statement type and line the same way;</li>
+ *     <li>{@code --trace} keeps a trace of the last executed statements, which is printed to the standard
+ *     error stream if the script fails;</li>
+ *     <li>{@code --sample=<file>} samples the BASIC call stack and writes the collapsed stacks to the file
+ *     for flame-graph tools;</li>
+ *     <li>{@code --jmx} registers the interpreter's metrics with the platform MBean server while the script
+ *     runs;</li>
+ *     <li>{@code --metrics-port=<port>} publishes the metrics for Prometheus at {@value MetricsServer#PATH}
+ *     on the port, on the loopback interface unless {@code --metrics-host=<address>} names another;</li>
+ *     <li>{@code --parallelism=<threads>} sets the number of threads that run PARALLEL FOR loops and
+ *     automatically parallelized loops;</li>
+ *     <li>{@code --no-auto-parallel} keeps every FOR loop sequential;</li>
+ *     <li>{@code --explain-parallel} prints why each FOR loop was parallelized or not to the standard
+ *     error stream;</li>
+ *     <li>{@code --checkpoint=<file>} writes a checkpoint of the running script to the file every
+ *     {@code --checkpoint-interval=<seconds>}, 60 by default; if the file exists when the script starts,
+ *     the script continues from it, and the file is deleted once the script completes; FOR loops then stay
+ *     sequential, so that they are checkpointed between iterations.</li>
+ * </ul>
  */
 public class Main {
 
@@ -22,18 +59,130 @@ public class Main {
      * It reads the path to the source code file from the user, initializes the interpreter,
      * and executes the script contained in the file.
      *
-     * @param args command-line arguments (not used).
+     * @param args command-line options, as listed in the {@link Main class description}.
      */
     public static void main(String[] args) {
+        LineProfiler profiler = flag(args, "--profile") ? new LineProfiler() : null;
+        AllocationProfiler allocations = flag(args, "--allocations") ? new AllocationProfiler() : null;
+        String samplesPath = option(args, "--sample", null);
+        SamplingProfiler sampler = samplesPath != null ? new SamplingProfiler() : null;
+        String metricsPort = option(args, "--metrics-port", null);
+        String metricsHost = option(args, "--metrics-host", null);
+        String parallelism = option(args, "--parallelism", null);
+        String checkpoint = option(args, "--checkpoint", null);
+        MetricsServer server = null;
+        SBasicInterpreter interpreter = null;
         Scanner scanner = new Scanner(System.in);
         System.out.print("Enter path to the file: ");
         String filePath = scanner.next();
         try {
-            SBasicInterpreter interpreter = new SBasicInterpreter();
+            interpreter = new SBasicInterpreter();
             interpreter.fromFile(filePath);
+            interpreter.setAutoParallelization(!flag(args, "--no-auto-parallel"));
+            interpreter.setLineProfiler(profiler);
+            interpreter.setSamplingProfiler(sampler);
+            interpreter.setAllocationProfiler(allocations);
+            if (parallelism != null) {
+                interpreter.setParallelism(Integer.parseInt(parallelism));
+            }
+            if (checkpoint != null) {
+                Path checkpointFile = Path.of(checkpoint);
+                Duration interval = Duration.ofSeconds(Long.parseLong(option(args, "--checkpoint-interval", "60")));
+                interpreter.setCheckpointing(checkpointFile, interval);
+                if (Files.exists(checkpointFile)) {
+                    interpreter.restoreFrom(checkpointFile);
+                }
+            }
+            if (flag(args, "--trace")) {
+                interpreter.setExecutionTrace(new ExecutionTrace());
+            }
+            if (flag(args, "--jmx")) {
+                interpreter.registerMBean();
+            }
+            if (metricsPort != null) {
+                server = startMetricsServer(interpreter, metricsHost, Integer.parseInt(metricsPort));
+            }
             interpreter.run();
         } catch (Exception exception) {
             System.out.println(exception.getMessage());
+        } finally {
+            if (flag(args, "--explain-parallel") && interpreter != null) {
+                interpreter.getParallelizationReport().forEach(System.err::println);
+            }
+            if (profiler != null) {
+                profiler.report(System.err);
+            }
+            if (allocations != null) {
+                allocations.report(System.err);
+            }
+            if (sampler != null) {
+                writeSamples(sampler, samplesPath);
+            }
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Returns whether a flag such as {@code --trace} is given.
+     *
+     * @param args the command-line arguments.
+     * @param name the flag, including its leading dashes.
+     * @return true if the flag is one of the arguments.
+     */
+    private static boolean flag(String[] args, String name) {
+        return Arrays.asList(args).contains(name);
+    }
+
+    /**
+     * Returns the value of an option given as {@code --name=value}.
+     *
+     * @param args the command-line arguments.
+     * @param name the option, including its leading dashes.
+     * @param defaultValue the value if the option is not given.
+     * @return the value of the first occurrence of the option, or the default value.
+     */
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = name + "=";
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith(prefix))
+                .map(arg -> arg.substring(prefix.length()))
+                .findFirst()
+                .orElse(defaultValue);
+    }
+
+    /**
+     * Starts the Prometheus endpoint for an interpreter. It is only reachable from the local machine
+     * unless an address of another interface is given explicitly.
+     *
+     * @param interpreter the interpreter whose metrics are published.
+     * @param host the address to listen on, or null for the loopback interface.
+     * @param port the port to listen on.
+     * @return the started server.
+     * @throws IOException if the server cannot be bound to the address.
+     */
+    private static MetricsServer startMetricsServer(SBasicInterpreter interpreter, String host, int port)
+            throws IOException {
+        InetSocketAddress address = host != null ? new InetSocketAddress(host, port)
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        MetricsServer server = new MetricsServer(address);
+        server.register(interpreter.getMetrics());
+        server.start();
+        return server;
+    }
+
+    /**
+     * Writes the samples of the sampling profiler to a file in collapsed-stack format.
+     *
+     * @param sampler the sampling profiler.
+     * @param path the path of the file to write.
+     */
+    private static void writeSamples(SamplingProfiler sampler, String path) {
+        try (PrintStream out = new PrintStream(path)) {
+            sampler.writeCollapsed(out);
+        } catch (FileNotFoundException exception) {
+            System.err.println("Cannot write samples to " + path + ": " + exception.getMessage());
         }
     }
 }
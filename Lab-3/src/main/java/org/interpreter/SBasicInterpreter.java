@@ -1,24 +1,61 @@
 package org.interpreter;
 
+import org.interpreter.analysis.LoopDiagnostic;
+import org.interpreter.analysis.LoopParallelizer;
+import org.interpreter.events.InterpreterErrorEvent;
+import org.interpreter.events.RunEvent;
+import org.interpreter.events.SourceLoadEvent;
 import org.interpreter.lexer.BasicLexer;
 import org.interpreter.lexer.Lexer;
+import org.interpreter.linker.Linker;
+import org.interpreter.metrics.InterpreterMetrics;
 import org.interpreter.parser.Parser;
 import org.interpreter.parser.statements.Statement;
+import org.interpreter.profiler.AllocationProfiler;
+import org.interpreter.profiler.ExecutionTrace;
+import org.interpreter.profiler.LineProfiler;
+import org.interpreter.profiler.SamplingProfiler;
+import org.interpreter.runtime.CallStack;
+import org.interpreter.runtime.Checkpoint;
+import org.interpreter.runtime.ProgramBlocks;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.SharedGlobals;
 import org.interpreter.token.Token;
 import org.interpreter.token.TokenType;
 
+import javax.management.ObjectName;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The SBasicInterpreter class is the main entry point for the SBasic interpreter.
  * It is responsible for setting up the lexer, parser, and runtime environment,
- * and for executing the parsed statements.
+ * and for linking and executing the parsed statements.
  */
 public class SBasicInterpreter {
+    /** The number of statements and loop iterations executed between two chances to take a checkpoint. */
+    private static final long CHECKPOINT_SLICE = 65_536;
+
     private Parser parser;
     private RuntimeEnvironment environment;
+    private int maxCallDepth = CallStack.DEFAULT_MAX_DEPTH;
+    private int parallelism;
+    private boolean autoParallelization = true;
+    private List<LoopDiagnostic> parallelizationReport = List.of();
+    private LineProfiler profiler;
+    private SamplingProfiler sampler;
+    private AllocationProfiler allocationProfiler;
+    private ExecutionTrace trace;
+    private final InterpreterMetrics metrics = new InterpreterMetrics();
+    private String source;
+    private Path checkpointFile;
+    private Duration checkpointInterval;
+    private Path restoreFile;
+    private volatile boolean checkpointRequested;
 
     /**
      * Default constructor. Creates an uninitialized interpreter.
@@ -33,8 +70,24 @@ public class SBasicInterpreter {
      * @param input the source code to be interpreted.
      */
     public SBasicInterpreter(String input) {
+        this.source = input;
+        Lexer lexer = new BasicLexer(input);
+        this.environment = new RuntimeEnvironment(metrics);
+        this.parser = new Parser(lexer, environment);
+    }
+
+    /**
+     * Constructs an interpreter with the provided input source code, whose GLOBAL variables are kept in
+     * the given store. Scripts that run at the same time in interpreters constructed with the same store
+     * share their global variables.
+     *
+     * @param input the source code to be interpreted.
+     * @param globals the store of the global variables.
+     */
+    public SBasicInterpreter(String input, SharedGlobals globals) {
+        this.source = input;
         Lexer lexer = new BasicLexer(input);
-        this.environment = new RuntimeEnvironment();
+        this.environment = new RuntimeEnvironment(metrics, globals);
         this.parser = new Parser(lexer, environment);
     }
 
@@ -46,8 +99,9 @@ public class SBasicInterpreter {
      */
     public void fromFile(String path) throws IOException {
         String input = readFile(path);
+        this.source = input;
         Lexer lexer = new BasicLexer(input);
-        this.environment = new RuntimeEnvironment();
+        this.environment = new RuntimeEnvironment(metrics);
         this.parser = new Parser(lexer, environment);
     }
 
@@ -59,6 +113,8 @@ public class SBasicInterpreter {
      * @throws IOException if an I/O error occurs reading from the file.
      */
     private String readFile(String filePath) throws IOException {
+        SourceLoadEvent event = new SourceLoadEvent();
+        event.begin();
         StringBuilder contentBuilder = new StringBuilder();
         FileReader fileReader = new FileReader(filePath);
         try (BufferedReader reader = new BufferedReader(fileReader)) {
@@ -70,12 +126,188 @@ public class SBasicInterpreter {
             System.err.println("Error reading the file: " + e.getMessage());
             throw e;
         }
+
+        if (event.shouldCommit()) {
+            event.path = filePath;
+            event.characters = contentBuilder.length();
+            event.commit();
+        }
         return contentBuilder.toString();
     }
 
+    /**
+     * Sets the maximum number of nested GOSUB calls. A script that exceeds it fails with a
+     * {@link org.interpreter.exceptions.CallStackOverflowException} instead of exhausting the Java thread stack.
+     *
+     * @param maxCallDepth the maximum call depth, which must be positive.
+     * @throws IllegalArgumentException if the depth is not positive.
+     */
+    public void setMaxCallDepth(int maxCallDepth) {
+        if (maxCallDepth <= 0) {
+            throw new IllegalArgumentException("Maximum call depth must be positive: " + maxCallDepth);
+        }
+        this.maxCallDepth = maxCallDepth;
+    }
+
+    /**
+     * Sets the number of threads that execute the iterations of PARALLEL FOR loops. By default, they
+     * run on the common {@link ForkJoinPool}.
+     *
+     * @param parallelism the number of threads, which must be positive.
+     * @throws IllegalArgumentException if the parallelism is not positive.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets whether FOR loops whose iterations are independent run in parallel automatically. It is enabled
+     * by default, and the loops are analyzed after the program is linked, unless a profiler or the execution
+     * trace is enabled, since they are not thread-safe, or checkpoints are enabled or restored, since a
+     * parallel loop runs as a single statement and could not be checkpointed before it completes.
+     * Parallelized loops produce the same results as sequential loops.
+     *
+     * @param autoParallelization true to parallelize independent loops, false to run every FOR loop sequentially.
+     * @see LoopParallelizer
+     */
+    public void setAutoParallelization(boolean autoParallelization) {
+        this.autoParallelization = autoParallelization;
+    }
+
+    /**
+     * Returns the diagnostics of the loop parallelizer for the last run, which explain for every FOR loop
+     * why it runs in parallel or sequentially.
+     *
+     * @return the diagnostics, or an empty list if the loops were not analyzed.
+     */
+    public List<LoopDiagnostic> getParallelizationReport() {
+        return parallelizationReport;
+    }
+
+    /**
+     * Enables line profiling for the next run. The program is instrumented after it is linked, and
+     * the profiler is finished once the program ends, so its report can be printed afterwards.
+     *
+     * @param profiler the profiler to record the run with, or null to run without profiling.
+     */
+    public void setLineProfiler(LineProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Enables sampling of the BASIC call stack for the next run. The sampler is started right before the
+     * program executes and stopped once it ends, so its samples can be exported afterwards.
+     *
+     * @param sampler the sampling profiler to record the run with, or null to run without sampling.
+     */
+    public void setSamplingProfiler(SamplingProfiler sampler) {
+        this.sampler = sampler;
+    }
+
+    /**
+     * Enables allocation tracking for the next run. The program is instrumented after it is linked,
+     * so the allocation table can be printed once the program ends.
+     *
+     * @param allocationProfiler the profiler to record the run with, or null to run without allocation tracking.
+     */
+    public void setAllocationProfiler(AllocationProfiler allocationProfiler) {
+        this.allocationProfiler = allocationProfiler;
+    }
+
+    /**
+     * Enables the execution trace for the next run. The trace is swapped into the program after it is
+     * linked, and if the run fails, the last statements it executed are printed to the standard error
+     * stream. The trace can be switched off and on again while the program runs through
+     * {@link ExecutionTrace#disable(List, RuntimeEnvironment)} and {@link ExecutionTrace#enable(List, RuntimeEnvironment)}.
+     *
+     * @param trace the trace to record the run with, or null to run without tracing.
+     */
+    public void setExecutionTrace(ExecutionTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Enables checkpoints for the next run. While the program runs, its state is written to the file at a
+     * statement boundary whenever the interval has passed since the last checkpoint, and whenever one is
+     * {@link #requestCheckpoint() requested}, except while tasks it spawned are running. The file is deleted
+     * once the program completes, and kept if it fails, so that a long batch script can be continued from its
+     * last checkpoint with {@link #restoreFrom(Path)}, also in another JVM. FOR loops are not parallelized
+     * automatically while checkpoints are enabled, so that a long loop is checkpointed between its iterations;
+     * a PARALLEL FOR loop still completes before the next checkpoint.
+     *
+     * @param file the checkpoint file, or null to run without checkpoints.
+     * @param interval the time between two checkpoints, which may be zero to take one as often as possible.
+     * @throws IllegalArgumentException if the interval is negative.
+     * @see Checkpoint
+     */
+    public void setCheckpointing(Path file, Duration interval) {
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("Checkpoint interval must not be negative: " + interval);
+        }
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Asks the running program to write a checkpoint at its next statement boundary, for example before the
+     * process is stopped for a deploy. It can be called from any thread, and has no effect unless
+     * checkpoints are {@link #setCheckpointing(Path, Duration) enabled}.
+     */
+    public void requestCheckpoint() {
+        checkpointRequested = true;
+    }
+
+    /**
+     * Continues the next run from a checkpoint instead of from the start of the program. The program is
+     * parsed, linked and parallelized as usual, and then its variables, global variables, channels and call
+     * stack, with the position of every block, the GOSUB return addresses and the loop counters, are restored.
+     *
+     * @param file the checkpoint file, or null to run the program from its start.
+     */
+    public void restoreFrom(Path file) {
+        this.restoreFile = file;
+    }
+
+    /**
+     * Returns the metrics of this interpreter. They accumulate over every program the interpreter runs
+     * and can be read from any thread while a program executes.
+     *
+     * @return the metrics of this interpreter.
+     */
+    public InterpreterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registers the metrics of this interpreter as an MBean with the platform MBean server, so that
+     * tools such as JConsole can watch a long-running script. Registering twice has no further effect.
+     *
+     * @return the name the MBean is registered under.
+     * @throws IllegalStateException if the MBean cannot be registered.
+     */
+    public ObjectName registerMBean() {
+        return metrics.register();
+    }
+
+    /**
+     * Removes the MBean of this interpreter from the platform MBean server, if it is registered.
+     */
+    public void unregisterMBean() {
+        metrics.unregister();
+    }
+
     /**
      * Executes the parsed statements using the runtime environment.
-     * Ensures that the parser and runtime environment are initialized before execution.
+     * Ensures that the parser and runtime environment are initialized before execution,
+     * and links the program first, so that jumps to undefined labels are reported before
+     * any statement runs, and then parallelizes the independent loops if that is enabled. The run waits
+     * for the tasks the script started with SPAWN before it ends. An exception that ends the run cancels
+     * those tasks, and is counted in the metrics and recorded
+     * for JDK Flight Recorder before it is rethrown, and the execution trace, if it is enabled,
+     * is printed to the standard error stream.
      */
     public void run() {
         if(parser == null || environment == null) {
@@ -83,10 +315,133 @@ public class SBasicInterpreter {
             return;
         }
 
-        List<Statement> statements = parser.parse();
-        for (Statement statement : statements) {
-            statement.execute(environment);
+        ForkJoinPool pool = null;
+        try {
+            long parseStart = System.nanoTime();
+            List<Statement> statements = parser.parse();
+            new Linker(environment).link(statements);
+            metrics.parsed(System.nanoTime() - parseStart);
+            if (autoParallelization && profiler == null && sampler == null && allocationProfiler == null && trace == null
+                    && checkpointFile == null && restoreFile == null) {
+                parallelizationReport = new LoopParallelizer(environment).parallelize(statements);
+            }
+            environment.getCallStack().setMaxDepth(maxCallDepth);
+            if (parallelism > 0) {
+                pool = new ForkJoinPool(parallelism);
+                environment.setPool(pool);
+            }
+            execute(statements);
+        } catch (RuntimeException exception) {
+            environment.getTasks().cancelAll();
+            metrics.exceptionThrown(exception);
+            if (trace != null && trace.isEnabled()) {
+                trace.dump(System.err);
+            }
+            InterpreterErrorEvent event = new InterpreterErrorEvent();
+            if (event.shouldCommit()) {
+                event.exceptionClass = exception.getClass();
+                event.message = exception.getMessage();
+                event.commit();
+            }
+            throw exception;
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+                environment.setPool(null);
+            }
         }
     }
-}
 
+    /**
+     * Executes a linked program, with the profilers that are enabled, and records the run
+     * in the metrics and for JDK Flight Recorder.
+     *
+     * @param statements the statements of the main program.
+     */
+    private void execute(List<Statement> statements) {
+        // Numbered before the profilers wrap statements, as a restoring interpreter numbers them
+        ProgramBlocks blocks = new ProgramBlocks(statements, environment.getLabels());
+        RunEvent event = new RunEvent();
+        event.begin();
+        boolean succeeded = false;
+        try {
+            if (profiler != null) {
+                profiler.instrument(statements, environment);
+            }
+            if (allocationProfiler != null) {
+                allocationProfiler.instrument(statements, environment);
+            }
+            if (trace != null) {
+                trace.enable(statements, environment);
+            }
+            if (sampler != null) {
+                sampler.start(environment);
+            }
+            long start = System.nanoTime();
+            long executed = metrics.getStatementsExecuted();
+            try {
+                if (checkpointFile == null && restoreFile == null) {
+                    environment.execute(statements);
+                } else {
+                    executeWithCheckpoints(statements, blocks);
+                }
+                environment.getTasks().joinAll();
+                succeeded = true;
+            } finally {
+                metrics.ran(System.nanoTime() - start, metrics.getStatementsExecuted() - executed);
+                if (sampler != null) {
+                    sampler.stop();
+                }
+                if (profiler != null) {
+                    profiler.finish();
+                }
+            }
+        } finally {
+            if (event.shouldCommit()) {
+                event.statements = statements.size();
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Executes a linked program in slices, restoring it from a checkpoint first if that is enabled, and
+     * writes a checkpoint between two slices when one is due. The checkpoint file is deleted once the
+     * program completes.
+     *
+     * @param statements the statements of the main program.
+     * @param blocks the numbered blocks of the program.
+     * @throws UncheckedIOException if a checkpoint cannot be read or written.
+     * @throws IllegalArgumentException if the checkpoint was taken from another program.
+     */
+    private void executeWithCheckpoints(List<Statement> statements, ProgramBlocks blocks) {
+        String fingerprint = Checkpoint.fingerprint(source);
+        try {
+            if (restoreFile != null) {
+                Checkpoint checkpoint = Checkpoint.read(restoreFile);
+                if (!checkpoint.getFingerprint().equals(fingerprint)) {
+                    throw new IllegalArgumentException("Checkpoint " + restoreFile + " was taken from another program.");
+                }
+                environment.restore(checkpoint.getState(), blocks);
+            } else {
+                environment.start(statements);
+            }
+
+            long due = checkpointFile != null ? System.nanoTime() + checkpointInterval.toNanos() : Long.MAX_VALUE;
+            while (!environment.resume(CHECKPOINT_SLICE)) {
+                if (checkpointFile != null && (checkpointRequested || System.nanoTime() - due >= 0)
+                        && environment.getTasks().size() == 0) {
+                    checkpointRequested = false;
+                    new Checkpoint(fingerprint, environment.capture(blocks)).write(checkpointFile);
+                    due = System.nanoTime() + checkpointInterval.toNanos();
+                }
+            }
+            if (checkpointFile != null) {
+                Files.deleteIfExists(checkpointFile);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
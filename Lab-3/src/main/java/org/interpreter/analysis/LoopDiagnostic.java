@@ -0,0 +1,28 @@
+package org.interpreter.analysis;
+
+/**
+ * Explains the decision the {@link LoopParallelizer} made for a FOR loop.
+ *
+ * @param lineNumber the source line of the loop
+ * @param variableName the name of the loop variable
+ * @param parallelized whether the loop was replaced by an automatic parallel loop
+ * @param minIterations the number of iterations from which the loop runs in parallel, or 0 if it stays sequential
+ * @param reason the reductions of a parallelized loop, or why the loop stays sequential
+ */
+public record LoopDiagnostic(int lineNumber, String variableName, boolean parallelized, long minIterations, String reason) {
+
+    /**
+     * Formats the diagnostic as a single line, for example
+     * {@code line 3: FOR I runs in parallel from 40 iterations (reduces S by +)}.
+     *
+     * @return the formatted diagnostic
+     */
+    @Override
+    public String toString() {
+        if (parallelized) {
+            return String.format("line %d: FOR %s runs in parallel from %d iterations (%s)",
+                    lineNumber, variableName, minIterations, reason);
+        }
+        return String.format("line %d: FOR %s stays sequential: %s", lineNumber, variableName, reason);
+    }
+}
@@ -0,0 +1,519 @@
+package org.interpreter.analysis;
+
+import org.interpreter.parser.expressions.AdditionExpression;
+import org.interpreter.parser.expressions.DivisionExpression;
+import org.interpreter.parser.expressions.Expression;
+import org.interpreter.parser.expressions.NumericExpression;
+import org.interpreter.parser.expressions.RelationalExpression;
+import org.interpreter.parser.statements.AssignmentStatement;
+import org.interpreter.parser.statements.ChannelStatement;
+import org.interpreter.parser.statements.CompareAndSetStatement;
+import org.interpreter.parser.statements.ForStatement;
+import org.interpreter.parser.statements.GlobalAssignmentStatement;
+import org.interpreter.parser.statements.GoToStatement;
+import org.interpreter.parser.statements.IfStatement;
+import org.interpreter.parser.statements.IncrementStatement;
+import org.interpreter.parser.statements.InputStatement;
+import org.interpreter.parser.statements.ParallelForStatement;
+import org.interpreter.parser.statements.PrintStatement;
+import org.interpreter.parser.statements.ReceiveStatement;
+import org.interpreter.parser.statements.Reduction;
+import org.interpreter.parser.statements.SendStatement;
+import org.interpreter.parser.statements.SpawnStatement;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.parser.statements.WaitStatement;
+import org.interpreter.parser.variable.VariableReference;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+import org.interpreter.token.TokenType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Finds FOR loops whose iterations are independent of each other and replaces them with automatic
+ * {@link ParallelForStatement}s, which run the iterations in parallel and behave exactly like the loops
+ * they replace. The analysis runs on a linked program and inlines the subroutines that a loop body calls.
+ *
+ * <p>A loop is parallelized if its body has no side effects and no loop-carried dependencies:</p>
+ * <ul>
+ *     <li>it contains no PRINT, INPUT, SPAWN, WAIT, channel statement or PARALLEL FOR, and no recursive GOSUB;</li>
+ *     <li>it does not assign the loop variable;</li>
+ *     <li>every variable it assigns is assigned in an iteration before that iteration reads it, and is not
+ *     read anywhere outside the loop, except in subroutines only the loop calls;</li>
+ *     <li>or the variable is a reduction: every use of it has the form {@code R = R + ...}, where R does not
+ *     occur again on the right, or {@code IF X < R THEN R = X ENDIF} for a minimum and
+ *     {@code IF X > R THEN R = X ENDIF} for a maximum, with either operand order. A sum whose terms
+ *     divide or contain a fractional number is not a reduction, since the chunks of a parallel loop would
+ *     add its terms in another order and round differently.</li>
+ * </ul>
+ *
+ * <p>A small loop is not worth the workers it forks, so every parallelized loop gets a threshold: the
+ * body's cost, the number of its statements and expression nodes, with subroutines inlined and nested
+ * loops weighted by {@value #NESTED_LOOP_WEIGHT}, is multiplied by the iterations, and the loop runs in
+ * parallel only if the product reaches {@value #MIN_WORK}. Every loop that is analyzed gets a
+ * {@link LoopDiagnostic} that explains the decision.</p>
+ */
+public class LoopParallelizer {
+    /** The work, in statements and expression nodes, a loop must do to run in parallel. */
+    public static final long MIN_WORK = 20_000;
+
+    /** The largest body, in statements and expression nodes with subroutines inlined, that is analyzed. */
+    public static final int MAX_BODY_SIZE = 10_000;
+
+    /** The weight of the body of a nested loop, whose number of iterations is not known. */
+    public static final int NESTED_LOOP_WEIGHT = 8;
+
+    private final RuntimeEnvironment environment;
+    private final Map<Statement, Integer> claimed = new IdentityHashMap<>();
+    private final List<LoopDiagnostic> diagnostics = new ArrayList<>();
+    private ProgramIndex index;
+
+    /**
+     * Constructs a parallelizer for the programs of a runtime environment.
+     *
+     * @param environment the runtime environment holding the labelled blocks and the variables
+     */
+    public LoopParallelizer(RuntimeEnvironment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Analyzes every FOR loop of a linked program and of the labelled blocks registered in its environment,
+     * outer loops first, and replaces the loops that can run in parallel in place. Loops that run inside a
+     * parallelized loop, including the loops of the subroutines it calls, stay sequential.
+     *
+     * @param program the statements of the main program
+     * @return the diagnostics of every analyzed loop, in the order the loops were analyzed
+     */
+    public List<LoopDiagnostic> parallelize(List<Statement> program) {
+        index = new ProgramIndex(program);
+        transform(program);
+        environment.getLabels().values().forEach(this::transform);
+        return getDiagnostics();
+    }
+
+    /**
+     * Returns the diagnostics of the loops analyzed so far.
+     *
+     * @return the diagnostics, in the order the loops were analyzed
+     */
+    public List<LoopDiagnostic> getDiagnostics() {
+        return List.copyOf(diagnostics);
+    }
+
+    /**
+     * Analyzes the loops of a block and its nested blocks, and replaces the ones that can run in parallel.
+     */
+    private void transform(List<Statement> block) {
+        for (int i = 0; i < block.size(); i++) {
+            Statement statement = block.get(i);
+            if (statement instanceof ForStatement loop) {
+                Integer outer = claimed.get(loop);
+                if (outer != null) {
+                    diagnostics.add(new LoopDiagnostic(loop.getLineNumber(), loop.getVariableName(), false, 0,
+                            "it runs inside the parallel loop at line " + outer));
+                } else {
+                    Analysis analysis = new Analysis(loop);
+                    LoopDiagnostic diagnostic = analysis.run();
+                    diagnostics.add(diagnostic);
+                    if (diagnostic.parallelized()) {
+                        block.set(i, new ParallelForStatement(loop, loop.getWrittenSlot(), analysis.reductions,
+                                diagnostic.minIterations()));
+                        analysis.statements.forEach(nested -> claimed.put(nested, loop.getLineNumber()));
+                    }
+                }
+            }
+            statement.getBlocks().forEach(this::transform);
+        }
+    }
+
+    /**
+     * Counts the nodes of an expression.
+     */
+    private static int size(Expression expression) {
+        int size = 1;
+        for (Expression operand : expression.getOperands()) {
+            size += size(operand);
+        }
+        return size;
+    }
+
+    /**
+     * Adds the slot of every variable an expression reads to a list, once for every occurrence.
+     */
+    private static void reads(Expression expression, List<VariableReference> references) {
+        if (expression instanceof VariableReference reference) {
+            references.add(reference);
+        }
+        for (Expression operand : expression.getOperands()) {
+            reads(operand, references);
+        }
+    }
+
+    /**
+     * A jump to a label, or a read of a variable, by a statement of the program.
+     *
+     * @param statement the statement
+     * @param label the label of the block that holds the statement, or null for the main program
+     * @param reference the variable the statement reads, or null for a jump
+     * @param order the position of the use in the program, main program first
+     */
+    private record Use(Statement statement, String label, VariableReference reference, int order) {
+    }
+
+    /**
+     * The jumps to every label and the reads of every variable in a program and its labelled blocks,
+     * collected once, so that the analysis of a loop takes time in proportion to its own uses and not to the
+     * size of the program.
+     */
+    private final class ProgramIndex {
+        private final Map<String, List<Use>> callers = new HashMap<>();
+        private final Map<Integer, List<Use>> readers = new HashMap<>();
+        private int order;
+
+        ProgramIndex(List<Statement> program) {
+            collect(program, null);
+            environment.getLabels().forEach((label, block) -> collect(block, label));
+        }
+
+        /**
+         * Returns the jumps to a label.
+         */
+        List<Use> callers(String label) {
+            return callers.getOrDefault(label, List.of());
+        }
+
+        /**
+         * Returns the reads of a variable, in the order of the program.
+         */
+        List<Use> readers(int slot) {
+            return readers.getOrDefault(slot, List.of());
+        }
+
+        private void collect(List<Statement> block, String label) {
+            for (Statement statement : block) {
+                if (statement instanceof GoToStatement jump) {
+                    callers.computeIfAbsent(jump.getLabel(), key -> new ArrayList<>())
+                            .add(new Use(statement, label, null, order++));
+                }
+                List<VariableReference> references = new ArrayList<>();
+                statement.getExpressions().forEach(expression -> reads(expression, references));
+                for (VariableReference reference : references) {
+                    readers.computeIfAbsent(reference.getSlot(), key -> new ArrayList<>())
+                            .add(new Use(statement, label, reference, order++));
+                }
+                statement.getBlocks().forEach(nested -> collect(nested, label));
+            }
+        }
+    }
+
+    /**
+     * The analysis of a single loop.
+     */
+    private final class Analysis {
+        private final ForStatement loop;
+        private final int loopSlot;
+        private final List<Statement> statements = new ArrayList<>();
+        private final Set<Statement> body = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<String> callees = new HashSet<>();
+        private final Deque<String> calls = new ArrayDeque<>();
+        private final List<Reduction> reductions = new ArrayList<>();
+        private final Set<Integer> written = new HashSet<>();
+        private long cost;
+        private int size;
+        private String rejection;
+
+        Analysis(ForStatement loop) {
+            this.loop = loop;
+            this.loopSlot = loop.getWrittenSlot();
+        }
+
+        /**
+         * Runs the analysis and returns its diagnostic; the reductions are collected on the way.
+         */
+        LoopDiagnostic run() {
+            collect(loop.getBody(), 1, true);
+            if (rejection == null) {
+                findReductions();
+            }
+            if (rejection == null) {
+                checkIterations(loop.getBody(), new HashSet<>(Set.of(loopSlot)));
+            }
+            if (rejection == null) {
+                checkUsesOutside();
+            }
+            if (rejection != null) {
+                return new LoopDiagnostic(loop.getLineNumber(), loop.getVariableName(), false, 0, rejection);
+            }
+
+            long minIterations = Math.max(2, (MIN_WORK + cost - 1) / Math.max(1, cost));
+            String reason = reductions.isEmpty() ? "its iterations are independent" : reductions.stream()
+                    .map(reduction -> reduction.variableName() + " with "
+                            + (reduction.operator() == Reduction.Operator.ADD ? "+" : reduction.operator().name()))
+                    .collect(Collectors.joining(", ", "reduces ", ""));
+            return new LoopDiagnostic(loop.getLineNumber(), loop.getVariableName(), true, minIterations, reason);
+        }
+
+        /**
+         * Collects the statements the body executes, inlining subroutines, and sums their cost.
+         */
+        private void collect(List<Statement> block, long weight, boolean lexical) {
+            for (Statement statement : block) {
+                if (rejection != null) {
+                    return;
+                }
+                if (lexical) {
+                    body.add(statement);
+                }
+                statements.add(statement);
+                int nodes = 1;
+                for (Expression expression : statement.getExpressions()) {
+                    nodes += size(expression);
+                }
+                cost += weight * nodes;
+                size += nodes;
+                int line = statement.getLineNumber();
+
+                if (size > MAX_BODY_SIZE) {
+                    reject("the body has more than %d statements and operands with its subroutines inlined", MAX_BODY_SIZE);
+                } else if (statement instanceof PrintStatement) {
+                    reject("PRINT at line %d writes output", line);
+                } else if (statement instanceof InputStatement) {
+                    reject("INPUT at line %d reads input", line);
+                } else if (statement instanceof SpawnStatement || statement instanceof WaitStatement) {
+                    reject("%s at line %d coordinates tasks", statement instanceof SpawnStatement ? "SPAWN" : "WAIT", line);
+                } else if (statement instanceof SendStatement || statement instanceof ReceiveStatement
+                        || statement instanceof ChannelStatement) {
+                    reject("line %d uses a channel", line);
+                } else if (statement instanceof GlobalAssignmentStatement assignment) {
+                    reject("line %d assigns the global variable %s", line, assignment.getVariableName());
+                } else if (statement instanceof IncrementStatement increment) {
+                    reject("INCREMENT at line %d updates %s in place", line, increment.getVariableName());
+                } else if (statement instanceof CompareAndSetStatement update) {
+                    reject("CAS at line %d updates %s in place", line, update.getVariableName());
+                } else if (statement instanceof ParallelForStatement) {
+                    reject("it contains the parallel loop at line %d", line);
+                } else if (statement instanceof GoToStatement jump) {
+                    List<Statement> target = environment.getLabels().get(jump.getLabel());
+                    if (target == null) {
+                        reject("the jump to '%s' at line %d has no target", jump.getLabel(), line);
+                    } else if (calls.contains(jump.getLabel())) {
+                        reject("the jump to '%s' at line %d is recursive", jump.getLabel(), line);
+                    } else {
+                        calls.push(jump.getLabel());
+                        callees.add(jump.getLabel());
+                        collect(target, weight, false);
+                        calls.pop();
+                    }
+                } else if (statement instanceof ForStatement nested) {
+                    collect(nested.getBody(), Math.min(weight * NESTED_LOOP_WEIGHT, MIN_WORK), lexical);
+                } else if (statement instanceof IfStatement) {
+                    statement.getBlocks().forEach(branch -> collect(branch, weight, lexical));
+                } else if (!(statement instanceof AssignmentStatement)) {
+                    reject("%s at line %d cannot be analyzed", statement.getClass().getSimpleName(), line);
+                }
+            }
+        }
+
+        /**
+         * Finds the variables the body only reduces, and the variables it assigns otherwise.
+         */
+        private void findReductions() {
+            Map<Integer, Reduction> candidates = new LinkedHashMap<>();
+            Set<Integer> conflicting = new HashSet<>();
+            Map<Integer, Integer> owned = new HashMap<>();
+            Map<Integer, Integer> uses = new HashMap<>();
+            Map<Integer, Integer> fractional = new HashMap<>();
+            for (Statement statement : statements) {
+                List<VariableReference> references = new ArrayList<>();
+                statement.getExpressions().forEach(expression -> reads(expression, references));
+                references.forEach(reference -> uses.merge(reference.getSlot(), 1, Integer::sum));
+                if (statement.getWrittenSlot() >= 0) {
+                    uses.merge(statement.getWrittenSlot(), 1, Integer::sum);
+                }
+
+                Reduction reduction = match(statement);
+                if (reduction != null) {
+                    Reduction previous = candidates.putIfAbsent(reduction.slot(), reduction);
+                    if (previous != null && previous.operator() != reduction.operator()) {
+                        conflicting.add(reduction.slot());
+                    }
+                    owned.merge(reduction.slot(), 2, Integer::sum);
+                    if (reduction.operator() == Reduction.Operator.ADD && isFractional(statement.getExpressions().get(0))) {
+                        fractional.putIfAbsent(reduction.slot(), statement.getLineNumber());
+                    }
+                }
+            }
+
+            for (Reduction reduction : candidates.values()) {
+                int slot = reduction.slot();
+                if (slot != loopSlot && !conflicting.contains(slot) && owned.get(slot).equals(uses.get(slot))) {
+                    if (fractional.containsKey(slot)) {
+                        reject("the sum %s at line %d may add fractional numbers, which parallel chunks would round differently",
+                                reduction.variableName(), fractional.get(slot));
+                        return;
+                    }
+                    reductions.add(reduction);
+                }
+            }
+            Set<Integer> reduced = reductions.stream().map(Reduction::slot).collect(Collectors.toSet());
+            for (Statement statement : statements) {
+                int slot = statement.getWrittenSlot();
+                if (slot >= 0 && !reduced.contains(slot)) {
+                    written.add(slot);
+                }
+            }
+        }
+
+        /**
+         * Matches a statement against the reduction patterns. Each match accounts for two uses of the
+         * reduced variable: the read and the assignment.
+         */
+        private Reduction match(Statement statement) {
+            if (statement instanceof AssignmentStatement assignment
+                    && assignment.getExpressions().get(0) instanceof AdditionExpression addition) {
+                Expression leftmost = addition;
+                while (leftmost instanceof AdditionExpression) {
+                    leftmost = leftmost.getOperands().get(0);
+                }
+                int slot = assignment.getWrittenSlot();
+                List<VariableReference> references = new ArrayList<>();
+                reads(addition, references);
+                if (leftmost instanceof VariableReference variable && variable.getSlot() == slot
+                        && references.stream().filter(reference -> reference.getSlot() == slot).count() == 1) {
+                    return new Reduction(Reduction.Operator.ADD, environment.nameOf(slot), slot);
+                }
+            } else if (statement instanceof IfStatement conditional
+                    && conditional.getBlocks().size() == 1
+                    && conditional.getBlocks().get(0).size() == 1
+                    && conditional.getBlocks().get(0).get(0) instanceof AssignmentStatement assignment
+                    && assignment.getExpressions().get(0) instanceof VariableReference candidate
+                    && conditional.getExpressions().get(0) instanceof RelationalExpression comparison
+                    && comparison.getOperands().get(0) instanceof VariableReference left
+                    && comparison.getOperands().get(1) instanceof VariableReference right) {
+                int slot = assignment.getWrittenSlot();
+                boolean less = comparison.getOperator() == TokenType.LESS_THAN;
+                if (candidate.getSlot() == slot || !less && comparison.getOperator() != TokenType.GREATER_THAN) {
+                    return null;
+                }
+                Reduction.Operator operator = null;
+                if (left.getSlot() == candidate.getSlot() && right.getSlot() == slot) {
+                    operator = less ? Reduction.Operator.MIN : Reduction.Operator.MAX;
+                } else if (left.getSlot() == slot && right.getSlot() == candidate.getSlot()) {
+                    operator = less ? Reduction.Operator.MAX : Reduction.Operator.MIN;
+                }
+                return operator == null ? null : new Reduction(operator, environment.nameOf(slot), slot);
+            }
+            return null;
+        }
+
+        /**
+         * Returns whether an expression may compute a fractional number: whether it divides or contains
+         * a literal that is not an integer.
+         */
+        private boolean isFractional(Expression expression) {
+            if (expression instanceof DivisionExpression
+                    || expression instanceof NumericExpression literal && !Value.isInteger(literal.evaluate(environment))) {
+                return true;
+            }
+            for (Expression operand : expression.getOperands()) {
+                if (isFractional(operand)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Checks that every variable the body assigns is assigned in an iteration before the iteration
+         * reads it, and returns the variables that are assigned whenever the block completes.
+         */
+        private Set<Integer> checkIterations(List<Statement> block, Set<Integer> defined) {
+            for (Statement statement : block) {
+                if (rejection != null) {
+                    return defined;
+                }
+                int line = statement.getLineNumber();
+                for (Expression expression : statement.getExpressions()) {
+                    List<VariableReference> references = new ArrayList<>();
+                    reads(expression, references);
+                    for (VariableReference reference : references) {
+                        if (written.contains(reference.getSlot()) && !defined.contains(reference.getSlot())) {
+                            reject("%s is read at line %d before the iteration assigns it, so it depends on the previous iteration",
+                                    reference.getVariableName(), line);
+                            return defined;
+                        }
+                    }
+                }
+
+                int slot = statement.getWrittenSlot();
+                if (slot == loopSlot) {
+                    reject("line %d assigns the loop variable %s", line, loop.getVariableName());
+                } else if (statement instanceof ForStatement nested) {
+                    Set<Integer> inner = new HashSet<>(defined);
+                    inner.add(slot);
+                    checkIterations(nested.getBody(), inner);
+                } else if (statement instanceof IfStatement) {
+                    List<List<Statement>> branches = statement.getBlocks();
+                    Set<Integer> taken = checkIterations(branches.get(0), new HashSet<>(defined));
+                    if (branches.size() == 2) {
+                        taken.retainAll(checkIterations(branches.get(1), new HashSet<>(defined)));
+                        defined = taken;
+                    }
+                } else if (statement instanceof GoToStatement jump) {
+                    defined = checkIterations(environment.getLabels().get(jump.getLabel()), defined);
+                } else if (slot >= 0) {
+                    defined.add(slot);
+                }
+            }
+            return defined;
+        }
+
+        /**
+         * Checks that no variable the body assigns is read outside the loop, except in the subroutines that
+         * are only called by the loop.
+         */
+        private void checkUsesOutside() {
+            Set<String> inner = new HashSet<>(callees);
+            boolean changed = true;
+            while (changed) {
+                changed = inner.removeIf(label -> index.callers(label).stream().anyMatch(jump ->
+                        !body.contains(jump.statement()) && !inner.contains(jump.label())));
+            }
+
+            Use first = null;
+            for (int slot : written) {
+                for (Use use : index.readers(slot)) {
+                    if (first != null && use.order() > first.order()) {
+                        break;
+                    }
+                    if (!body.contains(use.statement()) && (use.label() == null || !inner.contains(use.label()))) {
+                        first = use;
+                        break;
+                    }
+                }
+            }
+            if (first != null) {
+                reject("%s is assigned in the loop and read at line %d outside of it",
+                        first.reference().getVariableName(), first.statement().getLineNumber());
+            }
+        }
+
+        private void reject(String format, Object... arguments) {
+            if (rejection == null) {
+                rejection = String.format(format, arguments);
+            }
+        }
+    }
+}
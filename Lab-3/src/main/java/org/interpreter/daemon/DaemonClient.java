@@ -0,0 +1,112 @@
+package org.interpreter.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a script on an {@link InterpreterDaemon}. The client sends the path of the script and its arguments,
+ * forwards its standard input to the script while it runs, and writes the output of the script to its own
+ * standard output and standard error. The client exits with the status the daemon reports.
+ *
+ * <p>Usage: {@code DaemonClient <socket> <script> [arguments...]}</p>
+ */
+public final class DaemonClient {
+    private static final int BUFFER_SIZE = 8192;
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Runs a script on a daemon and waits for it to end.
+     *
+     * @param socket the socket of the daemon
+     * @param script the path of the script
+     * @param arguments the arguments of the run
+     * @param stdin the input INPUT reads from, forwarded while the script runs
+     * @param stdout the stream the output of the script is written to
+     * @param stderr the stream the errors of the script are written to
+     * @return the exit status of the script: 0 if it completed and 1 if it failed
+     * @throws IOException if the daemon cannot be reached or closes the connection
+     */
+    public static int run(Path socket, Path script, List<String> arguments, InputStream stdin, OutputStream stdout,
+                          OutputStream stderr) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(DaemonProtocol.input(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(DaemonProtocol.output(channel)));
+            DaemonProtocol.writeRequest(out, new DaemonProtocol.Request(script.toAbsolutePath().toString(), arguments));
+
+            Thread pump = new Thread(() -> forward(stdin, out), "sbasic-client-stdin");
+            pump.setDaemon(true);
+            pump.start();
+
+            while (true) {
+                int type = in.readUnsignedByte();
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                switch (type) {
+                    case DaemonProtocol.STDOUT -> {
+                        stdout.write(payload);
+                        stdout.flush();
+                    }
+                    case DaemonProtocol.STDERR -> {
+                        stderr.write(payload);
+                        stderr.flush();
+                    }
+                    case DaemonProtocol.EXIT -> {
+                        return ByteBuffer.wrap(payload).getInt();
+                    }
+                    default -> throw new IOException("Unexpected frame of type " + type + ".");
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the standard input to the daemon as frames, followed by the frame that ends the input. The daemon
+     * may end the connection before the input ends, once the script no longer reads it.
+     */
+    private static void forward(InputStream stdin, DataOutputStream out) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            int read;
+            while ((read = stdin.read(buffer)) >= 0) {
+                if (read > 0) {
+                    DaemonProtocol.writeFrame(out, DaemonProtocol.STDIN, buffer, 0, read);
+                    out.flush();
+                }
+            }
+            DaemonProtocol.writeFrame(out, DaemonProtocol.STDIN, buffer, 0, 0);
+            out.flush();
+        } catch (IOException exception) {
+            // The script ended; the rest of the input is not needed
+        }
+    }
+
+    /**
+     * Runs a script on a daemon and exits with its status.
+     *
+     * @param args the socket of the daemon, the path of the script and its arguments
+     * @throws IOException if the daemon cannot be reached
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: DaemonClient <socket> <script> [arguments...]");
+            System.exit(2);
+        }
+        List<String> arguments = Arrays.asList(args).subList(2, args.length);
+        System.exit(run(Path.of(args[0]), Path.of(args[1]), arguments, System.in, System.out, System.err));
+    }
+}
@@ -0,0 +1,189 @@
+package org.interpreter.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The protocol between an {@link InterpreterDaemon} and a {@link DaemonClient}. A client opens a connection,
+ * sends a request with the path of the script and its arguments, and then the lines of its standard input
+ * as frames. The daemon answers with frames of standard output and standard error while the script runs,
+ * and an exit frame with the exit status once it ends.
+ *
+ * <p>A frame is a type byte and a length, followed by the bytes of its payload. A standard input frame of
+ * length 0 marks the end of the input.</p>
+ */
+final class DaemonProtocol {
+    /** Starts every request: "SBD1". */
+    static final int MAGIC = 0x53424431;
+
+    static final int STDIN = 0;
+    static final int STDOUT = 1;
+    static final int STDERR = 2;
+    static final int EXIT = 3;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * A request to run a script.
+     *
+     * @param path the absolute path of the script
+     * @param arguments the arguments of the run
+     */
+    record Request(String path, List<String> arguments) {
+    }
+
+    static void writeRequest(DataOutputStream out, Request request) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeUTF(request.path());
+        out.writeInt(request.arguments().size());
+        for (String argument : request.arguments()) {
+            out.writeUTF(argument);
+        }
+        out.flush();
+    }
+
+    static Request readRequest(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a request of a daemon client.");
+        }
+        String path = in.readUTF();
+        int count = in.readInt();
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            arguments.add(in.readUTF());
+        }
+        return new Request(path, arguments);
+    }
+
+    static void writeFrame(DataOutputStream out, int type, byte[] bytes, int offset, int length) throws IOException {
+        out.writeByte(type);
+        out.writeInt(length);
+        out.write(bytes, offset, length);
+    }
+
+    static void writeExit(DataOutputStream out, int status) throws IOException {
+        out.writeByte(EXIT);
+        out.writeInt(Integer.BYTES);
+        out.writeInt(status);
+        out.flush();
+    }
+
+    /**
+     * Writes everything written to it as frames of one type, one frame per write.
+     */
+    static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final int type;
+
+        FrameOutputStream(DataOutputStream out, int type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > 0) {
+                writeFrame(out, type, bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads the payloads of the standard input frames of a connection, until the frame that ends the input.
+     */
+    static final class FrameInputStream extends InputStream {
+        private final DataInputStream in;
+        private int remaining;
+        private boolean ended;
+
+        FrameInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            while (remaining == 0 && !ended) {
+                int type = in.readUnsignedByte();
+                int size = in.readInt();
+                if (type != STDIN) {
+                    throw new IOException("Unexpected frame of type " + type + ".");
+                }
+                remaining = size;
+                ended = size == 0;
+            }
+            if (ended) {
+                return -1;
+            }
+            int read = in.read(bytes, offset, Math.min(length, remaining));
+            if (read < 0) {
+                throw new EOFException("The connection ended within a frame.");
+            }
+            remaining -= read;
+            return read;
+        }
+    }
+
+    /**
+     * Returns a stream that reads from a socket channel. Unlike {@link java.nio.channels.Channels#newInputStream},
+     * it does not hold the blocking lock of the channel while it waits, so another thread can write at the same time.
+     */
+    static InputStream input(SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                return length == 0 ? 0 : channel.read(ByteBuffer.wrap(bytes, offset, length));
+            }
+        };
+    }
+
+    /**
+     * Returns a stream that writes to a socket channel, while another thread may be reading from it.
+     */
+    static OutputStream output(SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        };
+    }
+}
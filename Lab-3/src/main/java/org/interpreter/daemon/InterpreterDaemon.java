@@ -0,0 +1,321 @@
+package org.interpreter.daemon;
+
+import jdk.net.ExtendedSocketOptions;
+import org.interpreter.engine.InterpreterEngine;
+import org.interpreter.engine.Limits;
+import org.interpreter.engine.RunResult;
+import org.interpreter.engine.Script;
+import org.interpreter.runtime.Checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a warm interpreter in a long-running process, so that short scripts started by cron jobs or shell
+ * scripts do not pay for JVM startup and JIT warm-up on every run. The daemon listens on a Unix-domain
+ * socket, and a {@link DaemonClient} sends it the path of a script, its arguments and its standard input,
+ * and receives the output of the script as it runs.
+ *
+ * <p>Compiled scripts are cached by the fingerprint of their source, so a script that has not changed is
+ * parsed and linked once, and a script that has changed is compiled again on its next run. The
+ * {@value #CACHE_SIZE} most recently used scripts are kept. Every run has variables of its own, and runs of
+ * different clients execute at the same time, each on the thread of its connection.</p>
+ *
+ * <p>Before it accepts connections, the daemon runs a small script that exercises loops, subroutines,
+ * arithmetic and text a few hundred times, so that the first clients already find the hot paths compiled.</p>
+ *
+ * <p>The daemon reads the scripts its clients name with its own privileges, so it only serves its own user:
+ * the socket file is readable and writable by its owner only, and a connection from a process of another
+ * user is closed without reading its request. Every run is held to the daemon's {@link Limits}, and at most
+ * a given number of connections are served at the same time; the others wait in the backlog of the socket.</p>
+ */
+public final class InterpreterDaemon implements AutoCloseable {
+    /** The number of compiled scripts the daemon keeps. */
+    static final int CACHE_SIZE = 256;
+
+    /** The limits of a run of the standalone daemon, unless they are given on its command line. */
+    public static final Limits DEFAULT_LIMITS = Limits.UNLIMITED
+            .withMaxInstructions(1_000_000_000)
+            .withMaxWallTime(Duration.ofMinutes(5))
+            .withMaxOutputBytes(64L << 20)
+            .withMaxAllocatedBytes(1L << 30)
+            .withMaxParallelism(1);
+
+    /** The number of connections the daemon serves at the same time, unless it is given another. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+
+    private static final int WARM_UP_RUNS = 200;
+    private static final String WARM_UP = """
+            S = 0
+            T = ""
+            FOR I = 1 TO 500
+                GOSUB Step
+                IF I < 10 THEN
+                    T = T + I
+                ENDIF
+            NEXT
+
+            Step:
+            S = S + I * 2 - I / 2
+            RETURN
+            """;
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final Path socket;
+    private final Limits limits;
+    private final InterpreterEngine engine = new InterpreterEngine(1);
+    private final Semaphore permits;
+    private final ExecutorService connections;
+    private final Map<String, Script> scripts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Script> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private ServerSocketChannel server;
+    private UserPrincipal owner;
+    private Thread acceptor;
+
+    /**
+     * Constructs a daemon that listens on a socket file once it is started, and serves at most
+     * {@value #DEFAULT_MAX_CONNECTIONS} connections at the same time.
+     *
+     * @param socket the path of the Unix-domain socket
+     * @param limits the resources every run may use
+     */
+    public InterpreterDaemon(Path socket, Limits limits) {
+        this(socket, limits, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * Constructs a daemon that listens on a socket file once it is started.
+     *
+     * @param socket the path of the Unix-domain socket
+     * @param limits the resources every run may use
+     * @param maxConnections the number of connections served at the same time
+     * @throws IllegalArgumentException if the number of connections is not positive
+     */
+    public InterpreterDaemon(Path socket, Limits limits, int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("The number of connections must be positive: " + maxConnections);
+        }
+        this.socket = socket;
+        this.limits = limits;
+        this.permits = new Semaphore(maxConnections);
+        this.connections = Executors.newFixedThreadPool(maxConnections, runnable -> {
+            Thread thread = new Thread(runnable, "sbasic-daemon-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Warms up the interpreter, binds the socket, replacing a socket file left by a daemon that did not shut
+     * down, restricts the socket file to its owner and starts accepting connections on a thread of its own.
+     *
+     * @throws IOException if the socket cannot be bound or its permissions cannot be set
+     */
+    public synchronized void start() throws IOException {
+        Script warmUp = engine.compile(WARM_UP);
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            engine.run(warmUp, Limits.UNLIMITED);
+        }
+        Files.deleteIfExists(socket);
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        if (Files.getFileStore(socket).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(socket, EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+        }
+        owner = Files.getOwner(socket);
+        acceptor = new Thread(this::accept, "sbasic-daemon-acceptor");
+        acceptor.start();
+    }
+
+    /**
+     * Stops accepting connections and removes the socket file. Runs in progress complete.
+     *
+     * @throws IOException if the socket cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (server != null) {
+            server.close();
+            acceptor.interrupt();
+            Files.deleteIfExists(socket);
+        }
+        connections.shutdown();
+        engine.close();
+    }
+
+    /**
+     * Accepts connections until the socket is closed, while fewer than the maximum number are served.
+     */
+    private void accept() {
+        try {
+            while (true) {
+                permits.acquire();
+                SocketChannel channel = server.accept();
+                if (!isOwner(channel)) {
+                    channel.close();
+                    permits.release();
+                    continue;
+                }
+                connections.execute(() -> {
+                    try {
+                        serve(channel);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (ClosedChannelException closed) {
+            // The daemon was closed
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        } catch (IOException exception) {
+            System.err.println("Daemon stopped accepting connections: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether a connection comes from a process of the user that owns the socket. On a system that
+     * does not report the credentials of a peer, the permissions of the socket file are relied on.
+     */
+    private boolean isOwner(SocketChannel channel) throws IOException {
+        if (!channel.supportedOptions().contains(ExtendedSocketOptions.SO_PEERCRED)) {
+            return true;
+        }
+        return channel.getOption(ExtendedSocketOptions.SO_PEERCRED).user().equals(owner);
+    }
+
+    /**
+     * Runs the script a client requests and streams its output back, followed by its exit status: 0 if it
+     * completed and 1 if it could not be compiled or failed.
+     */
+    private void serve(SocketChannel channel) {
+        try (channel) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(DaemonProtocol.input(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(DaemonProtocol.output(channel)));
+            DaemonProtocol.Request request = DaemonProtocol.readRequest(in);
+            PrintStream stdout = new PrintStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDOUT),
+                    true, StandardCharsets.UTF_8);
+            BufferedReader stdin = new BufferedReader(new InputStreamReader(
+                    new DaemonProtocol.FrameInputStream(in), StandardCharsets.UTF_8));
+            String error = null;
+            try {
+                RunResult result = engine.run(compile(Path.of(request.path())), limits, request.arguments(), stdin, stdout);
+                if (result.error() != null) {
+                    error = result.error().getMessage();
+                }
+            } catch (IOException | RuntimeException exception) {
+                error = exception.getMessage();
+            }
+            stdout.flush();
+            if (error != null) {
+                byte[] message = (error + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+                DaemonProtocol.writeFrame(out, DaemonProtocol.STDERR, message, 0, message.length);
+            }
+            DaemonProtocol.writeExit(out, error == null ? 0 : 1);
+        } catch (IOException exception) {
+            // The client went away; there is nobody to report to
+        }
+    }
+
+    /**
+     * Returns the compiled script of a file, compiling it only if its source is not in the cache.
+     */
+    private Script compile(Path path) throws IOException {
+        String source = Files.readString(path);
+        String fingerprint = Checkpoint.fingerprint(source);
+        Script script;
+        synchronized (scripts) {
+            script = scripts.get(fingerprint);
+        }
+        if (script == null) {
+            script = engine.compile(source);
+            synchronized (scripts) {
+                scripts.put(fingerprint, script);
+            }
+        }
+        return script;
+    }
+
+    /**
+     * Starts a daemon and keeps it running until the process is stopped. The limits of every run and the
+     * number of connections can be given as options after the socket:
+     * <ul>
+     *     <li>{@code --max-instructions=<count>}: the statements and loop iterations a run may execute;</li>
+     *     <li>{@code --max-wall-time=<seconds>}: the time a run may take;</li>
+     *     <li>{@code --max-output=<bytes>}: the output a run may print, in UTF-8;</li>
+     *     <li>{@code --max-allocated=<bytes>}: the memory a run may allocate;</li>
+     *     <li>{@code --max-parallelism=<threads>}: the threads the PARALLEL FOR loops of a run may use;</li>
+     *     <li>{@code --max-connections=<count>}: the connections served at the same time.</li>
+     * </ul>
+     * Options that are not given default to {@link #DEFAULT_LIMITS} and {@value #DEFAULT_MAX_CONNECTIONS}.
+     *
+     * @param args the path of the socket, followed by the options
+     * @throws IOException if the socket cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args[0].startsWith("--")) {
+            System.err.println("Usage: InterpreterDaemon <socket> [--max-instructions=<count>] [--max-wall-time=<seconds>]"
+                    + " [--max-output=<bytes>] [--max-allocated=<bytes>] [--max-parallelism=<threads>]"
+                    + " [--max-connections=<count>]");
+            System.exit(2);
+        }
+        Limits limits = DEFAULT_LIMITS
+                .withMaxInstructions(option(args, "--max-instructions", DEFAULT_LIMITS.maxInstructions()))
+                .withMaxWallTime(Duration.ofSeconds(option(args, "--max-wall-time", DEFAULT_LIMITS.maxWallTime().toSeconds())))
+                .withMaxOutputBytes(option(args, "--max-output", DEFAULT_LIMITS.maxOutputBytes()))
+                .withMaxAllocatedBytes(option(args, "--max-allocated", DEFAULT_LIMITS.maxAllocatedBytes()))
+                .withMaxParallelism((int) option(args, "--max-parallelism", DEFAULT_LIMITS.maxParallelism()));
+        int maxConnections = (int) option(args, "--max-connections", DEFAULT_MAX_CONNECTIONS);
+        InterpreterDaemon daemon = new InterpreterDaemon(Path.of(args[0]), limits, maxConnections);
+        daemon.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.close();
+            } catch (IOException exception) {
+                System.err.println("Cannot close the daemon: " + exception.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * Returns the value of a numeric option given as {@code --name=value}, or a default if it is not given.
+     */
+    private static long option(String[] args, String name, long defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return Long.parseLong(arg.substring(name.length() + 1));
+            }
+        }
+        return defaultValue;
+    }
+}
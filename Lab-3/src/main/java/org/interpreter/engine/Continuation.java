@@ -0,0 +1,58 @@
+package org.interpreter.engine;
+
+import org.interpreter.runtime.ExecutionState;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A run of a script that is suspended at INPUT. A continuation holds the whole state of the run and no
+ * thread, so a service can keep thousands of idle sessions, and it can be serialized, for example to evict
+ * an idle session to disk. The run continues when the input is passed to
+ * {@link InterpreterEngine#resume(Script, Continuation, String, Limits)}, with the script it was started from.
+ */
+public final class Continuation implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String fingerprint;
+    private final ExecutionState state;
+
+    /**
+     * Constructs a continuation.
+     *
+     * @param fingerprint the fingerprint of the script the run executes
+     * @param state the state of the suspended run
+     */
+    Continuation(String fingerprint, ExecutionState state) {
+        this.fingerprint = fingerprint;
+        this.state = state;
+    }
+
+    /**
+     * Returns the fingerprint of the script the run executes.
+     *
+     * @return the fingerprint of the script
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the variable the run waits for.
+     *
+     * @return the name of the variable that receives the input
+     */
+    public String getAwaitedInput() {
+        return state.getAwaitedInput();
+    }
+
+    /**
+     * Returns the state of the suspended run.
+     *
+     * @return the variables, channels and frames of the run
+     */
+    ExecutionState getState() {
+        return state;
+    }
+}
@@ -0,0 +1,425 @@
+package org.interpreter.engine;
+
+import org.interpreter.exceptions.QuotaExceededException;
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.linker.Linker;
+import org.interpreter.metrics.InterpreterMetrics;
+import org.interpreter.parser.Parser;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.Quota;
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many scripts side by side for a service that embeds the interpreter. Scripts are {@link #compile(String)
+ * compiled} once and can then be run any number of times, each run in an environment of its own and within
+ * its own {@link Limits}: the number of instructions, the wall time, the printed output and the allocated
+ * bytes. A run that exceeds a limit is stopped and reported, and never affects the other runs.
+ *
+ * <p>Runs execute on the executor the engine was constructed with. By default it is a fixed pool of daemon
+ * carrier threads; on a JDK with virtual threads, an executor that starts a virtual thread per task can be
+ * passed instead.</p>
+ *
+ * <p>A submitted run is time-sliced: it executes a number of statements and loop iterations, its fuel, and
+ * then yields its thread and queues up again behind the other runs, so that a script stuck in a long loop
+ * cannot monopolize a thread and many scripts share few threads fairly. A run is suspended between two
+ * statements or at the back-edge of a loop, where its whole state is held by its {@link RuntimeEnvironment}
+ * and can be resumed on any thread of the pool. A statement that blocks, such as RECEIVE or WAIT, holds its
+ * thread until it returns, and the tasks a script spawns run on threads of their own.</p>
+ *
+ * <p>A run that reaches INPUT does not block its thread either. It ends as
+ * {@link RunResult.Status#AWAITING_INPUT} with a {@link Continuation} that holds its state, and continues
+ * when the host {@link #resume(Script, Continuation, String, Limits) resumes} it with the input, so that idle
+ * interactive sessions hold no thread and, once their continuations are serialized, no memory.</p>
+ *
+ * <p>The limits are checked at the checkpoints of the {@link RuntimeEnvironment}, which counts statements and
+ * loop iterations locally and charges them to the run's {@link Quota} once per
+ * {@value InterpreterMetrics#STATEMENT_BATCH} of them, so the checks add no cost to the statements of a loop.
+ * A run that is blocked, for example receiving from an empty channel, is interrupted once its wall time is
+ * over. The output of a run is collected and returned with its result. Runs do not parallelize loops
+ * automatically, so that a run uses no more threads than it asks for.</p>
+ *
+ * <p>The PARALLEL FOR loops of a run execute on a pool of its own, of at most
+ * {@link Limits#maxParallelism()} threads, which is shut down when the run ends, so that a run cannot take
+ * the threads of the others. The workers charge their statements, iterations and allocations to the
+ * run's quota, but a PARALLEL FOR loop is a single statement, so it executes within one slice.</p>
+ */
+public final class InterpreterEngine implements AutoCloseable {
+    /** The default number of statements and loop iterations a run executes before it yields its thread. */
+    public static final long DEFAULT_FUEL = 100_000;
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final long fuel;
+    private final ScheduledExecutorService watchdog;
+    private final InterpreterMetrics metrics = new InterpreterMetrics();
+
+    /**
+     * Constructs an engine that runs scripts on a fixed pool of daemon threads, with the default fuel.
+     *
+     * @param threads the number of runs that execute at the same time, which must be positive
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public InterpreterEngine(int threads) {
+        this(threads, DEFAULT_FUEL);
+    }
+
+    /**
+     * Constructs an engine that runs scripts on a fixed pool of daemon threads.
+     *
+     * @param threads the number of runs that execute at the same time, which must be positive
+     * @param fuel the number of statements and loop iterations a run executes before it yields its thread
+     * @throws IllegalArgumentException if the number of threads or the fuel is not positive
+     */
+    public InterpreterEngine(int threads, long fuel) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+        if (fuel <= 0) {
+            throw new IllegalArgumentException("Fuel must be positive: " + fuel);
+        }
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> daemon(runnable, "sbasic-engine-" + THREADS.incrementAndGet()));
+        this.ownsExecutor = true;
+        this.fuel = fuel;
+        this.watchdog = newWatchdog();
+    }
+
+    /**
+     * Constructs an engine that runs scripts on the given executor, which the caller shuts down, with the
+     * default fuel.
+     *
+     * @param executor the executor that runs the scripts
+     */
+    public InterpreterEngine(ExecutorService executor) {
+        this(executor, DEFAULT_FUEL);
+    }
+
+    /**
+     * Constructs an engine that runs scripts on the given executor, which the caller shuts down.
+     *
+     * @param executor the executor that runs the scripts
+     * @param fuel the number of statements and loop iterations a run executes before it yields its thread
+     * @throws IllegalArgumentException if the fuel is not positive
+     */
+    public InterpreterEngine(ExecutorService executor, long fuel) {
+        if (fuel <= 0) {
+            throw new IllegalArgumentException("Fuel must be positive: " + fuel);
+        }
+        this.executor = executor;
+        this.ownsExecutor = false;
+        this.fuel = fuel;
+        this.watchdog = newWatchdog();
+    }
+
+    /**
+     * Parses and links a script.
+     *
+     * @param source the source code of the script
+     * @return the compiled script
+     * @throws RuntimeException if the script has a syntax error or jumps to a label that does not exist
+     */
+    public Script compile(String source) {
+        long start = System.nanoTime();
+        RuntimeEnvironment prototype = new RuntimeEnvironment(new InterpreterMetrics());
+        List<Statement> statements = new Parser(new BasicLexer(source), prototype).parse();
+        new Linker(prototype).link(statements);
+        metrics.parsed(System.nanoTime() - start);
+        return new Script(source, prototype, statements);
+    }
+
+    /**
+     * Starts a run of a script on the executor of the engine. The run executes in slices of the engine's
+     * fuel, and after every slice it is queued behind the runs that are waiting for a thread. Its wall time
+     * starts now, so it includes the time the run waits for a thread.
+     *
+     * @param script the script to run
+     * @param limits the resources the run may use
+     * @return the result of the run, which completes normally even if the script fails
+     */
+    public Future<RunResult> submit(Script script, Limits limits) {
+        Run run = new Run(script, limits, null, null);
+        CompletableFuture<RunResult> result = new CompletableFuture<>();
+        executor.execute(() -> proceed(run, result));
+        return result;
+    }
+
+    /**
+     * Resumes a run that is suspended at INPUT, on the executor of the engine. The input is assigned to the
+     * variable INPUT waits for, and the run continues with the statement after INPUT, within new limits.
+     *
+     * @param script the script the run was started from
+     * @param continuation the suspended run
+     * @param input the line of input
+     * @param limits the resources the resumed run may use until it ends or is suspended again
+     * @return the result of the resumed run, which fails if the input is not a valid number
+     * @throws IllegalArgumentException if the continuation belongs to another script
+     */
+    public Future<RunResult> resume(Script script, Continuation continuation, String input, Limits limits) {
+        if (!script.getFingerprint().equals(continuation.getFingerprint())) {
+            throw new IllegalArgumentException("The continuation belongs to another script.");
+        }
+        Run run = new Run(script, limits, continuation, input);
+        CompletableFuture<RunResult> result = new CompletableFuture<>();
+        executor.execute(() -> proceed(run, result));
+        return result;
+    }
+
+    /**
+     * Runs a script on the calling thread, without yielding it to other runs.
+     *
+     * @param script the script to run
+     * @param limits the resources the run may use
+     * @return the result of the run
+     */
+    public RunResult run(Script script, Limits limits) {
+        Run run = new Run(script, limits, null, null);
+        run.slice(Long.MAX_VALUE);
+        return run.result();
+    }
+
+    /**
+     * Runs a script on the calling thread for a caller that streams its input and output, such as a client
+     * of a daemon. PRINT writes to the output as the script runs, so the output of the result is empty, and
+     * INPUT reads lines from the input instead of suspending the run. The arguments are assigned to the
+     * variables ARGC and ARG1 to ARGn that the script uses, as numbers if they are numeric and as text otherwise.
+     *
+     * @param script the script to run
+     * @param limits the resources the run may use
+     * @param arguments the arguments of the run
+     * @param input the reader INPUT reads lines from
+     * @param output the stream PRINT writes to
+     * @return the result of the run
+     */
+    public RunResult run(Script script, Limits limits, List<String> arguments, BufferedReader input, PrintStream output) {
+        Run run = new Run(script, limits, null, null);
+        run.connect(arguments, input, output);
+        run.slice(Long.MAX_VALUE);
+        return run.result();
+    }
+
+    /**
+     * Returns the metrics of the engine, to which every run reports.
+     *
+     * @return the metrics of all runs
+     */
+    public InterpreterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops the engine. Runs that have started complete, and the pool of the engine is shut down if the
+     * engine created it.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Executes the next slice of a run, and either completes its result or queues the next slice.
+     */
+    private void proceed(Run run, CompletableFuture<RunResult> result) {
+        try {
+            if (run.slice(fuel)) {
+                result.complete(run.result());
+            } else {
+                executor.execute(() -> proceed(run, result));
+            }
+        } catch (Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+    }
+
+    /**
+     * A run of a script, with the environment that holds its state between slices, the quota that limits it
+     * and the output it has printed.
+     */
+    private final class Run {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final Script script;
+        private final Limits limits;
+        private final Quota quota;
+        private final RuntimeEnvironment env;
+        private final Supervision supervision;
+        private final ScheduledFuture<?> timeout;
+        private final ForkJoinPool pool;
+        private String input;
+        private RuntimeException error;
+        private Continuation continuation;
+
+        /**
+         * Prepares a run of a script from its start, or from a continuation with its input.
+         */
+        Run(Script script, Limits limits, Continuation continuation, String input) {
+            this.script = script;
+            this.limits = limits;
+            this.input = input;
+            this.quota = new Quota(limits.maxInstructions(), limits.maxWallNanos(), limits.maxOutputBytes(),
+                    limits.maxAllocatedBytes());
+            this.env = script.instantiate(metrics);
+            env.setOutput(new PrintStream(buffer, false, StandardCharsets.UTF_8));
+            env.setQuota(quota);
+            env.setSuspendOnInput(true);
+            this.pool = script.hasParallelLoops() ? new ForkJoinPool(limits.parallelism()) : null;
+            env.setPool(pool);
+            if (continuation != null) {
+                env.restore(continuation.getState(), script.getBlocks());
+            } else {
+                env.start(script.getStatements());
+            }
+            this.supervision = new Supervision(quota);
+            this.timeout = limits.maxWallNanos() == Quota.UNLIMITED ? null
+                    : watchdog.schedule(supervision::expire, limits.maxWallNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Connects the run to the streams of its caller and assigns its arguments, before its first slice.
+         */
+        void connect(List<String> arguments, BufferedReader input, PrintStream output) {
+            env.setSuspendOnInput(false);
+            env.setInput(input);
+            env.setOutput(output);
+            if (env.usesVariable("ARGC")) {
+                env.setVariable("ARGC", (long) arguments.size());
+            }
+            for (int i = 0; i < arguments.size(); i++) {
+                String name = "ARG" + (i + 1);
+                if (env.usesVariable(name)) {
+                    env.setVariable(name, argument(arguments.get(i)));
+                }
+            }
+        }
+
+        /**
+         * Executes the script on the calling thread until it ends, is suspended at INPUT or has used the fuel.
+         *
+         * @param fuel the number of statements and loop iterations to execute in this slice
+         * @return true if the run ended or waits for input, false if it yielded and has to be resumed
+         */
+        boolean slice(long fuel) {
+            quota.attach();
+            supervision.enter(Thread.currentThread());
+            try {
+                quota.charge(0);
+                if (input != null) {
+                    String line = input;
+                    input = null;
+                    env.provideInput(line);
+                }
+                if (env.resume(fuel)) {
+                    env.getTasks().joinAll();
+                } else if (env.isAwaitingInput()) {
+                    continuation = new Continuation(script.getFingerprint(), env.capture(script.getBlocks()));
+                } else {
+                    return false;
+                }
+            } catch (RuntimeException exception) {
+                env.getTasks().cancelAll();
+                error = quota.isExpired() && !(exception instanceof QuotaExceededException)
+                        ? new QuotaExceededException(QuotaExceededException.Resource.WALL_TIME, limits.maxWallTime().toMillis())
+                        : exception;
+                metrics.exceptionThrown(error);
+            } finally {
+                supervision.leave();
+                quota.detach();
+            }
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            if (pool != null) {
+                pool.shutdown();
+            }
+            metrics.ran(quota.getElapsedNanos(), quota.getInstructions());
+            return true;
+        }
+
+        /**
+         * Returns the result of a run that has ended.
+         */
+        RunResult result() {
+            RunResult.Status status = error != null
+                    ? error instanceof QuotaExceededException ? RunResult.Status.QUOTA_EXCEEDED : RunResult.Status.FAILED
+                    : continuation != null ? RunResult.Status.AWAITING_INPUT : RunResult.Status.COMPLETED;
+            env.getOutput().flush();
+            return new RunResult(status, buffer.toString(StandardCharsets.UTF_8), error, quota.getInstructions(),
+                    quota.getOutputBytes(), quota.getAllocatedBytes(), Duration.ofNanos(quota.getElapsedNanos()),
+                    continuation);
+        }
+    }
+
+    /**
+     * Interrupts a run once its wall time is over, if one of its slices is executing, so that the interrupt
+     * never reaches another run on the same thread. A run that is queued fails when its next slice starts.
+     */
+    private static final class Supervision {
+        private final Quota quota;
+        private Thread thread;
+
+        Supervision(Quota quota) {
+            this.quota = quota;
+        }
+
+        synchronized void expire() {
+            quota.expire();
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        synchronized void enter(Thread thread) {
+            this.thread = thread;
+        }
+
+        synchronized void leave() {
+            thread = null;
+            if (quota.isExpired()) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Converts an argument to a number if it is numeric.
+     */
+    private static Object argument(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException notLong) {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException notNumber) {
+                return text;
+            }
+        }
+    }
+
+    private static ScheduledExecutorService newWatchdog() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "sbasic-engine-watchdog"));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,107 @@
+package org.interpreter.engine;
+
+import org.interpreter.runtime.Quota;
+
+import java.time.Duration;
+
+/**
+ * The resources a single run of a script may use. A run that exceeds a limit is stopped and reported
+ * as {@link RunResult.Status#QUOTA_EXCEEDED}. Start from {@link #UNLIMITED} and set the limits that apply,
+ * for example {@code Limits.UNLIMITED.withMaxInstructions(1_000_000).withMaxWallTime(Duration.ofSeconds(1))}.
+ *
+ * @param maxInstructions the number of statements and loop iterations a run may execute
+ * @param maxWallTime the time a run may take
+ * @param maxOutputBytes the number of bytes a run may print, in UTF-8 and including line separators
+ * @param maxAllocatedBytes the number of bytes the threads that run the script may allocate
+ * @param maxParallelism the number of threads the PARALLEL FOR loops of a run may use, at most one per processor
+ */
+public record Limits(long maxInstructions, Duration maxWallTime, long maxOutputBytes, long maxAllocatedBytes,
+                     int maxParallelism) {
+    /** The limits of a run that may use any amount of every resource. */
+    public static final Limits UNLIMITED = new Limits(Quota.UNLIMITED, Duration.ofNanos(Quota.UNLIMITED),
+            Quota.UNLIMITED, Quota.UNLIMITED, Integer.MAX_VALUE);
+
+    /**
+     * Validates the limits.
+     *
+     * @throws IllegalArgumentException if a limit is not positive or the wall time is missing
+     */
+    public Limits {
+        if (maxInstructions <= 0 || maxOutputBytes <= 0 || maxAllocatedBytes <= 0 || maxParallelism <= 0
+                || maxWallTime == null || maxWallTime.isNegative() || maxWallTime.isZero()) {
+            throw new IllegalArgumentException("Limits must be positive.");
+        }
+    }
+
+    /**
+     * Returns these limits with another instruction limit.
+     *
+     * @param maxInstructions the number of statements and loop iterations a run may execute
+     * @return the new limits
+     */
+    public Limits withMaxInstructions(long maxInstructions) {
+        return new Limits(maxInstructions, maxWallTime, maxOutputBytes, maxAllocatedBytes, maxParallelism);
+    }
+
+    /**
+     * Returns these limits with another wall time limit.
+     *
+     * @param maxWallTime the time a run may take
+     * @return the new limits
+     */
+    public Limits withMaxWallTime(Duration maxWallTime) {
+        return new Limits(maxInstructions, maxWallTime, maxOutputBytes, maxAllocatedBytes, maxParallelism);
+    }
+
+    /**
+     * Returns these limits with another output limit.
+     *
+     * @param maxOutputBytes the number of bytes a run may print, in UTF-8 and including line separators
+     * @return the new limits
+     */
+    public Limits withMaxOutputBytes(long maxOutputBytes) {
+        return new Limits(maxInstructions, maxWallTime, maxOutputBytes, maxAllocatedBytes, maxParallelism);
+    }
+
+    /**
+     * Returns these limits with another allocation limit.
+     *
+     * @param maxAllocatedBytes the number of bytes the threads that run the script may allocate
+     * @return the new limits
+     */
+    public Limits withMaxAllocatedBytes(long maxAllocatedBytes) {
+        return new Limits(maxInstructions, maxWallTime, maxOutputBytes, maxAllocatedBytes, maxParallelism);
+    }
+
+    /**
+     * Returns these limits with another parallelism limit.
+     *
+     * @param maxParallelism the number of threads the PARALLEL FOR loops of a run may use
+     * @return the new limits
+     */
+    public Limits withMaxParallelism(int maxParallelism) {
+        return new Limits(maxInstructions, maxWallTime, maxOutputBytes, maxAllocatedBytes, maxParallelism);
+    }
+
+    /**
+     * Returns the number of threads of the pool that runs the PARALLEL FOR loops of a run.
+     *
+     * @return the parallelism limit, but no more than the number of processors
+     */
+    int parallelism() {
+        return Math.min(maxParallelism, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the wall time limit in nanoseconds, saturating at {@link Quota#UNLIMITED}.
+     *
+     * @return the wall time limit in nanoseconds
+     */
+    long maxWallNanos() {
+        try {
+            return maxWallTime.toNanos();
+        } catch (ArithmeticException e) {
+            return Quota.UNLIMITED;
+        }
+    }
+}
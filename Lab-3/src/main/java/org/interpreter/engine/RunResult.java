@@ -0,0 +1,37 @@
+package org.interpreter.engine;
+
+import java.time.Duration;
+
+/**
+ * The outcome of a run of a script by an {@link InterpreterEngine}, with the resources it used. For a run that
+ * was resumed from a {@link Continuation}, the output and the resources are those since it was resumed.
+ *
+ * @param status how the run ended
+ * @param output the text the script printed before it ended or was suspended
+ * @param error the exception that ended the run, or null if it completed
+ * @param instructions the number of statements and loop iterations the run executed
+ * @param outputBytes the number of bytes the run printed, in UTF-8 and including line separators
+ * @param allocatedBytes the bytes the thread that ran the script allocated, including the engine's own bookkeeping
+ * @param elapsed the time the run took
+ * @param continuation the suspended run if it waits for input, otherwise null
+ */
+public record RunResult(Status status, String output, RuntimeException error, long instructions, long outputBytes,
+                        long allocatedBytes, Duration elapsed, Continuation continuation) {
+
+    /**
+     * Distinguishes how a run ended.
+     */
+    public enum Status {
+        /** The script ran to its end. */
+        COMPLETED,
+
+        /** The script failed with an error of its own, such as an uninitialized variable. */
+        FAILED,
+
+        /** The script was stopped because it exceeded one of its {@link Limits}. */
+        QUOTA_EXCEEDED,
+
+        /** The script reached INPUT and was suspended until it is resumed with the input. */
+        AWAITING_INPUT
+    }
+}
@@ -0,0 +1,89 @@
+package org.interpreter.engine;
+
+import org.interpreter.metrics.InterpreterMetrics;
+import org.interpreter.parser.statements.ParallelForStatement;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.Checkpoint;
+import org.interpreter.runtime.ProgramBlocks;
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A script that an {@link InterpreterEngine} has parsed and linked. The statements are not modified by
+ * runs, so a script can be run any number of times, also concurrently, and every run starts with
+ * variables, channels and global variables of its own.
+ *
+ * <p>A script is identified by a fingerprint of its source, so that a {@link Continuation} saved by one
+ * process is only resumed with the same script, compiled again by another.</p>
+ */
+public final class Script {
+    private final RuntimeEnvironment prototype;
+    private final List<Statement> statements;
+    private final ProgramBlocks blocks;
+    private final String fingerprint;
+    private final boolean parallel;
+
+    /**
+     * Constructs a script from a linked program.
+     *
+     * @param source the source code of the script
+     * @param prototype the environment the program was parsed into, which holds its labels and slots
+     * @param statements the statements of the main program
+     */
+    Script(String source, RuntimeEnvironment prototype, List<Statement> statements) {
+        this.prototype = prototype;
+        this.statements = List.copyOf(statements);
+        this.blocks = new ProgramBlocks(this.statements, prototype.getLabels());
+        this.fingerprint = Checkpoint.fingerprint(source);
+        this.parallel = IntStream.range(0, blocks.size())
+                .anyMatch(i -> blocks.get(i).stream().anyMatch(ParallelForStatement.class::isInstance));
+    }
+
+    /**
+     * Returns the fingerprint of the source of the script.
+     *
+     * @return the SHA-256 digest of the source, in hexadecimal
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the statements of the main program.
+     *
+     * @return an unmodifiable list of the statements
+     */
+    List<Statement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Returns the numbered blocks of the script, which the frames of a continuation refer to.
+     *
+     * @return the blocks of the script
+     */
+    ProgramBlocks getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Returns whether the script has PARALLEL FOR loops, whose runs need a pool of their own.
+     *
+     * @return true if a block of the script contains a PARALLEL FOR loop
+     */
+    boolean hasParallelLoops() {
+        return parallel;
+    }
+
+    /**
+     * Creates the environment of a new run.
+     *
+     * @param metrics the metrics the run reports to
+     * @return a fresh environment for the script
+     */
+    RuntimeEnvironment instantiate(InterpreterMetrics metrics) {
+        return prototype.instantiate(metrics);
+    }
+}
@@ -0,0 +1,13 @@
+package org.interpreter.events;
+
+/**
+ * Holds the category names under which the interpreter's events appear in JDK Mission Control.
+ */
+final class Categories {
+    /** The category shared by all interpreter events. */
+    static final String INTERPRETER = "SBasic Interpreter";
+
+    private Categories() {
+        // Constants only
+    }
+}
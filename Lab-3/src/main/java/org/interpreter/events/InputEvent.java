@@ -0,0 +1,22 @@
+package org.interpreter.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by JDK Flight Recorder while an INPUT statement waits for a line of input.
+ */
+@Name("org.interpreter.Input")
+@Label("Input Wait")
+@Category(Categories.INTERPRETER)
+@Description("Time an INPUT statement spent waiting for input")
+public final class InputEvent extends jdk.jfr.Event {
+
+    @Label("Variable")
+    public String variable;
+
+    @Label("Line")
+    public int line;
+}
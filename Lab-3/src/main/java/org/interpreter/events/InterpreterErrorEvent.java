@@ -0,0 +1,22 @@
+package org.interpreter.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by JDK Flight Recorder when an exception ends a run of the interpreter.
+ */
+@Name("org.interpreter.Error")
+@Label("Interpreter Error")
+@Category(Categories.INTERPRETER)
+@Description("Exception that ended the parsing, linking or execution of a script")
+public final class InterpreterErrorEvent extends jdk.jfr.Event {
+
+    @Label("Exception Class")
+    public Class<?> exceptionClass;
+
+    @Label("Message")
+    public String message;
+}
@@ -0,0 +1,23 @@
+package org.interpreter.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by JDK Flight Recorder when the parser scans the tokens of a script for labels,
+ * which lexes the whole source once before it is parsed.
+ */
+@Name("org.interpreter.Lex")
+@Label("Lex")
+@Category(Categories.INTERPRETER)
+@Description("Lexing of a script and registration of its labels")
+public final class LexEvent extends jdk.jfr.Event {
+
+    @Label("Tokens")
+    public long tokens;
+
+    @Label("Labels")
+    public int labels;
+}
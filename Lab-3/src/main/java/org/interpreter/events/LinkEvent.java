@@ -0,0 +1,19 @@
+package org.interpreter.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by JDK Flight Recorder when the linker binds the jumps of a program to their labels.
+ */
+@Name("org.interpreter.Link")
+@Label("Link")
+@Category(Categories.INTERPRETER)
+@Description("Binding of GOTO and GOSUB statements to their labels")
+public final class LinkEvent extends jdk.jfr.Event {
+
+    @Label("Jumps")
+    public int jumps;
+}
@@ -0,0 +1,19 @@
+package org.interpreter.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by JDK Flight Recorder when the parser builds the statements of a script.
+ */
+@Name("org.interpreter.Parse")
+@Label("Parse")
+@Category(Categories.INTERPRETER)
+@Description("Parsing of the main program of a script")
+public final class ParseEvent extends jdk.jfr.Event {
+
+    @Label("Statements")
+    public int statements;
+}
@@ -0,0 +1,23 @@
+package org.interpreter.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by JDK Flight Recorder for each top-level run of a program.
+ */
+@Name("org.interpreter.Run")
+@Label("Run")
+@Category(Categories.INTERPRETER)
+@Description("Execution of a program from its first statement until it ends")
+public final class RunEvent extends jdk.jfr.Event {
+
+    @Label("Statements")
+    @Description("Number of top-level statements of the program")
+    public int statements;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
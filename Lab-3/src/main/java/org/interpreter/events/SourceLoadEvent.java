@@ -0,0 +1,21 @@
+package org.interpreter.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by JDK Flight Recorder when a script is read from a file.
+ */
+@Name("org.interpreter.SourceLoad")
+@Label("Source Load")
+@Category(Categories.INTERPRETER)
+@Description("Reading of a script file")
+public final class SourceLoadEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Characters")
+    public long characters;
+}
@@ -0,0 +1,35 @@
+package org.interpreter.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by JDK Flight Recorder for a subroutine call, from the GOSUB or GOTO that enters the label
+ * until its block returns. The call stack creates these events only while the event type is enabled,
+ * so that calls do not allocate otherwise.
+ */
+@Name("org.interpreter.Subroutine")
+@Label("Subroutine Call")
+@Category(Categories.INTERPRETER)
+@Description("Execution of a labelled block entered through GOSUB or GOTO")
+public final class SubroutineEvent extends jdk.jfr.Event {
+    private static final EventType TYPE = EventType.getEventType(SubroutineEvent.class);
+
+    @Label("Label")
+    public String label;
+
+    @Label("Call Depth")
+    public int depth;
+
+    /**
+     * Checks whether subroutine events are currently recorded.
+     *
+     * @return true if a recording has enabled this event type
+     */
+    public static boolean isTypeEnabled() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,22 @@
+package org.interpreter.exceptions;
+
+/**
+ * Exception thrown when nested GOSUB calls exceed the maximum depth of the interpreter's call stack.
+ * This typically occurs when a subroutine calls itself recursively without reaching a terminating condition.
+ *
+ * <p>The interpreter keeps its own call stack instead of relying on Java recursion, so this exception
+ * replaces the {@link StackOverflowError} that deep recursion would otherwise cause. The limit can be
+ * raised through {@link org.interpreter.runtime.CallStack#setMaxDepth(int)}.</p>
+ */
+public class CallStackOverflowException extends InterpreterRuntimeException {
+
+    /**
+     * Constructs a CallStackOverflowException for the subroutine whose call exceeded the limit.
+     *
+     * @param label the label of the subroutine that was being called.
+     * @param maxDepth the maximum number of nested subroutine calls.
+     */
+    public CallStackOverflowException(String label, int maxDepth) {
+        super(String.format("Call stack overflow: calling subroutine '%s' exceeds the maximum depth of %d nested calls", label, maxDepth));
+    }
+}
@@ -0,0 +1,65 @@
+package org.interpreter.exceptions;
+
+/**
+ * Exception thrown when a run exceeds one of the limits an {@link org.interpreter.engine.InterpreterEngine}
+ * enforces, such as the number of instructions or the wall time. The run stops at the point where the
+ * limit was detected, and the tasks it started are cancelled.
+ */
+public class QuotaExceededException extends InterpreterRuntimeException {
+
+    /**
+     * Identifies the limit a run exceeded.
+     */
+    public enum Resource {
+        /** The number of statements and loop iterations. */
+        INSTRUCTIONS("%d instructions"),
+
+        /** The time since the run started, in milliseconds. */
+        WALL_TIME("%d ms of wall time"),
+
+        /** The characters written by PRINT, including line separators. */
+        OUTPUT_BYTES("%d bytes of output"),
+
+        /** The bytes allocated by the thread that runs the script. */
+        ALLOCATED_BYTES("%d allocated bytes");
+
+        private final String format;
+
+        Resource(String format) {
+            this.format = format;
+        }
+    }
+
+    private final Resource resource;
+    private final long limit;
+
+    /**
+     * Constructs a QuotaExceededException for the exceeded limit.
+     *
+     * @param resource the resource whose limit was exceeded.
+     * @param limit the limit, in the unit of the resource.
+     */
+    public QuotaExceededException(Resource resource, long limit) {
+        super(String.format("Script exceeded its limit of " + resource.format, limit));
+        this.resource = resource;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the resource whose limit was exceeded.
+     *
+     * @return the exceeded resource.
+     */
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * Returns the limit that was exceeded.
+     *
+     * @return the limit, in the unit of the resource.
+     */
+    public long getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,18 @@
+package org.interpreter.exceptions;
+
+/**
+ * Exception thrown inside a task started by SPAWN once the task has been cancelled, which happens when
+ * the script that started it fails. The interpreter checks for cancellation between statements, so a
+ * cancelled task stops within a few statements unless it is blocked reading INPUT.
+ */
+public class TaskCancelledException extends InterpreterRuntimeException {
+
+    /**
+     * Constructs a TaskCancelledException for the task that was cancelled.
+     *
+     * @param label the label of the cancelled task.
+     */
+    public TaskCancelledException(String label) {
+        super(String.format("Task '%s' was cancelled", label));
+    }
+}
@@ -1,5 +1,8 @@
 package org.interpreter.exceptions;
 
+import java.util.Collection;
+import java.util.stream.Collectors;
+
 /**
  * Exception thrown when an attempt is made to call a subroutine that has not been initialized or defined.
  * This typically occurs when the interpreter tries to execute a GOSUB command for a subroutine label
@@ -21,4 +24,17 @@ public class UninitializedSubroutineException extends RuntimeException {
     public UninitializedSubroutineException(String name) {
         super(String.format("Runtime error: Subroutine '%s' not initialized", name));
     }
+
+    /**
+     * Constructs an UninitializedSubroutineException listing every subroutine that was referenced
+     * but not defined, as reported by the linker when the program is loaded.
+     *
+     * @param names the names of the missing subroutines, in the order they are referenced.
+     */
+    public UninitializedSubroutineException(Collection<String> names) {
+        super(names.size() == 1 ?
+                String.format("Runtime error: Subroutine '%s' not initialized", names.iterator().next()) :
+                String.format("Runtime error: Subroutines %s not initialized",
+                        names.stream().map(name -> "'" + name + "'").collect(Collectors.joining(", "))));
+    }
 }
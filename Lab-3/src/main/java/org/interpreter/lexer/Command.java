@@ -69,7 +69,77 @@ public enum Command {
     /**
      * Command to take input and store in a variable.
      */
-    INPUT;
+    INPUT,
+
+    /**
+     * Precedes FOR to execute the iterations of a loop in parallel.
+     */
+    PARALLEL,
+
+    /**
+     * Follows the range of a parallel loop to list the variables it reduces.
+     */
+    REDUCE,
+
+    /**
+     * Starts a labeled block as a task that runs concurrently with the script.
+     */
+    SPAWN,
+
+    /**
+     * Follows SPAWN to list the variables a task hands back to the script.
+     */
+    SHARE,
+
+    /**
+     * Waits for the tasks started for a label.
+     */
+    WAIT,
+
+    /**
+     * Declares a channel and its capacity.
+     */
+    CHANNEL,
+
+    /**
+     * Sends a value to a channel, waiting while it is full.
+     */
+    SEND,
+
+    /**
+     * Sends a value to a channel if it has room.
+     */
+    TRYSEND,
+
+    /**
+     * Receives a value from a channel, waiting while it is empty.
+     */
+    RECEIVE,
+
+    /**
+     * Receives a value from a channel if it holds one.
+     */
+    TRYRECEIVE,
+
+    /**
+     * Declares variables shared by every task of the program.
+     */
+    GLOBAL,
+
+    /**
+     * Adds a number to a variable, atomically for a global variable.
+     */
+    INCREMENT,
+
+    /**
+     * Follows INCREMENT to specify the number to add.
+     */
+    BY,
+
+    /**
+     * Assigns a value to a variable if it holds an expected value.
+     */
+    CAS;
 
     /**
      * Converts a string representation of a command into its corresponding {@link Command} enum constant.
@@ -0,0 +1,100 @@
+package org.interpreter.linker;
+
+import org.interpreter.events.LinkEvent;
+import org.interpreter.exceptions.UninitializedSubroutineException;
+import org.interpreter.parser.statements.GoToStatement;
+import org.interpreter.parser.statements.SpawnStatement;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.parser.statements.WaitStatement;
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Links a parsed program before it is executed. The linker walks the main program and every labeled
+ * block registered in the runtime environment, and binds each GOTO, GOSUB and SPAWN statement directly to
+ * the block of its target label. Jumps then run without a label lookup, and references to labels that do
+ * not exist, including the labels of WAIT, are reported when the program is loaded instead of when the
+ * statement is first executed.
+ */
+public class Linker {
+    private final RuntimeEnvironment environment;
+
+    /**
+     * Constructs a Linker that resolves labels registered in the given runtime environment.
+     *
+     * @param environment the runtime environment holding the labeled blocks of the program
+     */
+    public Linker(RuntimeEnvironment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Binds every jump in the program to its target block.
+     *
+     * @param program the statements of the main program
+     * @throws UninitializedSubroutineException listing every label that is referenced but not defined
+     */
+    public void link(List<Statement> program) {
+        LinkEvent event = new LinkEvent();
+        event.begin();
+
+        Map<String, List<Statement>> labels = environment.getLabels();
+        Set<String> unknownLabels = new LinkedHashSet<>();
+
+        int jumps = link(program, labels, unknownLabels);
+        for (List<Statement> block : labels.values()) {
+            jumps += link(block, labels, unknownLabels);
+        }
+
+        if (!unknownLabels.isEmpty()) {
+            throw new UninitializedSubroutineException(unknownLabels);
+        }
+
+        if (event.shouldCommit()) {
+            event.jumps = jumps;
+            event.commit();
+        }
+    }
+
+    /**
+     * Binds the jumps of a block and of the blocks nested in it, depth first, so that unknown labels are
+     * collected in the order they appear in the source.
+     *
+     * @param block the statements to link
+     * @param labels the labeled blocks of the program
+     * @param unknownLabels collects the labels that are referenced but not defined
+     * @return the number of jumps that were bound
+     */
+    private int link(List<Statement> block, Map<String, List<Statement>> labels, Set<String> unknownLabels) {
+        int jumps = 0;
+        for (Statement statement : block) {
+            if (statement instanceof GoToStatement jump) {
+                List<Statement> target = labels.get(jump.getLabel());
+                if (target == null) {
+                    unknownLabels.add(jump.getLabel());
+                } else {
+                    jump.link(target);
+                    jumps++;
+                }
+            } else if (statement instanceof SpawnStatement spawn) {
+                List<Statement> target = labels.get(spawn.getLabel());
+                if (target == null) {
+                    unknownLabels.add(spawn.getLabel());
+                } else {
+                    spawn.link(target);
+                    jumps++;
+                }
+            } else if (statement instanceof WaitStatement wait && !labels.containsKey(wait.getLabel())) {
+                unknownLabels.add(wait.getLabel());
+            }
+            for (List<Statement> nested : statement.getBlocks()) {
+                jumps += link(nested, labels, unknownLabels);
+            }
+        }
+        return jumps;
+    }
+}
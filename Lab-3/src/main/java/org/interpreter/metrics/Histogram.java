@@ -0,0 +1,127 @@
+package org.interpreter.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with fixed bucket bounds. Its memory is allocated once, when it is constructed, and
+ * recording a duration is a binary search followed by two atomic increments, so any number of threads can
+ * record and read it without locking.
+ *
+ * <p>Every bucket counts the durations up to its bound that did not fit into a smaller bucket, and a final
+ * bucket counts the durations above the largest bound. A reader that runs concurrently with a recording
+ * may see the bucket of the new duration updated before its sum, or the other way around.</p>
+ */
+public final class Histogram {
+    /** The default bucket bounds, in nanoseconds, from 100 microseconds to 10 seconds. */
+    public static final long[] LATENCY_BOUNDS = {
+            100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000,
+            10_000_000, 25_000_000, 50_000_000,
+            100_000_000, 250_000_000, 500_000_000,
+            1_000_000_000, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private final long[] bounds;
+    private final AtomicLongArray buckets;
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Constructs a histogram with the default latency bounds.
+     */
+    public Histogram() {
+        this(LATENCY_BOUNDS);
+    }
+
+    /**
+     * Constructs a histogram with the given bucket bounds.
+     *
+     * @param bounds the upper bounds of the buckets in nanoseconds, in strictly ascending order
+     * @throws IllegalArgumentException if the bounds are empty or not strictly ascending
+     */
+    public Histogram(long[] bounds) {
+        if (bounds.length == 0) {
+            throw new IllegalArgumentException("A histogram needs at least one bucket bound");
+        }
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("Bucket bounds must be strictly ascending: " + bounds[i]);
+            }
+        }
+        this.bounds = bounds.clone();
+        this.buckets = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int low = 0;
+        int high = bounds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (bounds[middle] < nanos) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        buckets.incrementAndGet(low);
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Returns the number of bucket bounds. The histogram has one more bucket, for the durations above
+     * the largest bound.
+     *
+     * @return the number of bounds
+     */
+    public int boundCount() {
+        return bounds.length;
+    }
+
+    /**
+     * Returns the upper bound of a bucket.
+     *
+     * @param index the index of the bucket, from 0 to {@link #boundCount()} - 1
+     * @return the bound in nanoseconds
+     */
+    public long bound(int index) {
+        return bounds[index];
+    }
+
+    /**
+     * Returns the number of durations recorded in a bucket, not including the smaller buckets.
+     *
+     * @param index the index of the bucket, from 0 to {@link #boundCount()}
+     * @return the number of durations in the bucket
+     */
+    public long bucket(int index) {
+        return buckets.get(index);
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the number of durations
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded durations.
+     *
+     * @return the sum in seconds
+     */
+    public double sumSeconds() {
+        return sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,75 @@
+package org.interpreter.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of an interpreter instance, registered with the platform MBean server
+ * through {@link InterpreterMetrics#register()}. Every attribute can be read while a script runs.
+ */
+public interface InterpreterMXBean {
+
+    /**
+     * Returns the number of statements executed so far. The count is published in batches while
+     * a program runs, so it may lag behind by up to {@value InterpreterMetrics#STATEMENT_BATCH} statements.
+     *
+     * @return the number of executed statements
+     */
+    long getStatementsExecuted();
+
+    /**
+     * Returns the rate at which the most recent run executed statements.
+     *
+     * @return the statements executed per second, or 0 before the first run ends
+     */
+    double getStatementsPerSecond();
+
+    /**
+     * Returns the number of subroutine calls made through GOSUB or GOTO.
+     *
+     * @return the number of calls
+     */
+    long getSubroutineCalls();
+
+    /**
+     * Returns the number of subroutine calls currently on the call stack.
+     *
+     * @return the current call depth
+     */
+    int getCallDepth();
+
+    /**
+     * Returns the number of variables known to the runtime environment.
+     *
+     * @return the number of variables
+     */
+    int getVariableCount();
+
+    /**
+     * Returns an estimate of the memory held by the variables of the runtime environment,
+     * including the strings they refer to.
+     *
+     * @return the approximate footprint in bytes
+     */
+    long getApproximateFootprintBytes();
+
+    /**
+     * Returns the number of bytes written by PRINT statements and INPUT prompts, encoded in UTF-8.
+     *
+     * @return the number of printed bytes
+     */
+    long getBytesPrinted();
+
+    /**
+     * Returns the total time INPUT statements spent waiting for input.
+     *
+     * @return the input wait time in milliseconds
+     */
+    long getInputWaitMillis();
+
+    /**
+     * Returns how many runs ended with an exception, by the simple name of the exception class.
+     *
+     * @return the exception counts
+     */
+    Map<String, Long> getExceptions();
+}
@@ -0,0 +1,238 @@
+package org.interpreter.metrics;
+
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the live metrics of an interpreter instance. The counters are {@link LongAdder}s, so the
+ * interpreter thread updates them without contention and monitoring threads can read them at any time.
+ * Gauges such as the call depth and the variable count are read from the attached
+ * {@link RuntimeEnvironment} when they are requested.
+ *
+ * <p>The metrics can be exposed over JMX by {@link #register()}, which registers them with the platform
+ * MBean server under a name unique to the instance.</p>
+ */
+public final class InterpreterMetrics implements InterpreterMXBean {
+    /** The number of statements the runtime environment executes before it publishes its count. */
+    public static final int STATEMENT_BATCH = 1024;
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final int id = INSTANCES.incrementAndGet();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder subroutineCalls = new LongAdder();
+    private final LongAdder bytesPrinted = new LongAdder();
+    private final LongAdder inputWaitNanos = new LongAdder();
+    private final Map<String, LongAdder> exceptions = new ConcurrentHashMap<>();
+    private final Histogram parseLatency = new Histogram();
+    private final Histogram runLatency = new Histogram();
+    private volatile double statementsPerSecond;
+    private volatile RuntimeEnvironment environment;
+    private ObjectName name;
+
+    /**
+     * Constructs metrics with all counters at zero.
+     */
+    public InterpreterMetrics() {
+        // Default constructor
+    }
+
+    /**
+     * Attaches the runtime environment whose gauges are reported. An interpreter that loads a new
+     * script attaches its new environment, while the counters keep accumulating.
+     *
+     * @param environment the environment to report on
+     */
+    public void attach(RuntimeEnvironment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Adds executed statements to the count.
+     *
+     * @param count the number of statements executed since the last update
+     */
+    public void statementsExecuted(long count) {
+        statements.add(count);
+    }
+
+    /**
+     * Counts a subroutine call.
+     */
+    public void subroutineCalled() {
+        subroutineCalls.increment();
+    }
+
+    /**
+     * Counts output written by a PRINT statement or an INPUT prompt.
+     *
+     * @param bytes the number of bytes printed, encoded in UTF-8, including the line separator
+     */
+    public void printed(long bytes) {
+        bytesPrinted.add(bytes);
+    }
+
+    /**
+     * Adds the time an INPUT statement waited for input.
+     *
+     * @param nanos the wait time in nanoseconds
+     */
+    public void inputWaited(long nanos) {
+        inputWaitNanos.add(nanos);
+    }
+
+    /**
+     * Records the time it took to parse and link a program.
+     *
+     * @param nanos the parse time in nanoseconds
+     */
+    public void parsed(long nanos) {
+        parseLatency.record(nanos);
+    }
+
+    /**
+     * Records the time it took to execute a program, and the rate at which it executed statements.
+     *
+     * @param nanos the execution time in nanoseconds
+     * @param executed the number of statements the program executed
+     */
+    public void ran(long nanos, long executed) {
+        runLatency.record(nanos);
+        statementsPerSecond = nanos > 0 ? executed * 1e9 / nanos : 0;
+    }
+
+    /**
+     * Counts an exception that ended a run.
+     *
+     * @param exception the exception
+     */
+    public void exceptionThrown(Throwable exception) {
+        exceptions.computeIfAbsent(exception.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the number that identifies these metrics among all interpreters of the JVM.
+     *
+     * @return the identifier of these metrics
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the histogram of the times it took to parse and link programs.
+     *
+     * @return the parse latency histogram
+     */
+    public Histogram getParseLatency() {
+        return parseLatency;
+    }
+
+    /**
+     * Returns the histogram of the times it took to execute programs.
+     *
+     * @return the run latency histogram
+     */
+    public Histogram getRunLatency() {
+        return runLatency;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under
+     * {@code org.interpreter:type=Interpreter,id=<n>}, unless they are registered already.
+     *
+     * @return the name the metrics are registered under
+     * @throws IllegalStateException if the registration fails
+     */
+    public synchronized ObjectName register() {
+        if (name == null) {
+            try {
+                ObjectName objectName = new ObjectName("org.interpreter:type=Interpreter,id=" + id);
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+                name = objectName;
+            } catch (MalformedObjectNameException | InstanceAlreadyExistsException
+                     | MBeanRegistrationException | NotCompliantMBeanException e) {
+                throw new IllegalStateException("Cannot register interpreter MBean", e);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server if they are registered.
+     */
+    public synchronized void unregister() {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+                throw new IllegalStateException("Cannot unregister interpreter MBean", e);
+            } finally {
+                name = null;
+            }
+        }
+    }
+
+    @Override
+    public long getStatementsExecuted() {
+        return statements.sum();
+    }
+
+    @Override
+    public double getStatementsPerSecond() {
+        return statementsPerSecond;
+    }
+
+    @Override
+    public long getSubroutineCalls() {
+        return subroutineCalls.sum();
+    }
+
+    @Override
+    public int getCallDepth() {
+        RuntimeEnvironment env = environment;
+        return env == null ? 0 : env.getCallStack().sampleCallDepth();
+    }
+
+    @Override
+    public int getVariableCount() {
+        RuntimeEnvironment env = environment;
+        return env == null ? 0 : env.getVariableCount();
+    }
+
+    @Override
+    public long getApproximateFootprintBytes() {
+        RuntimeEnvironment env = environment;
+        return env == null ? 0 : env.estimateFootprint();
+    }
+
+    @Override
+    public long getBytesPrinted() {
+        return bytesPrinted.sum();
+    }
+
+    @Override
+    public long getInputWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(inputWaitNanos.sum());
+    }
+
+    @Override
+    public Map<String, Long> getExceptions() {
+        Map<String, Long> counts = new TreeMap<>();
+        exceptions.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+}
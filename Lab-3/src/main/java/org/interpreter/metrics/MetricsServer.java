@@ -0,0 +1,107 @@
+package org.interpreter.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An embedded HTTP endpoint that publishes the metrics of registered interpreters in the Prometheus text
+ * exposition format at {@value #PATH}. It is built on the JDK's {@code com.sun.net.httpserver} and needs
+ * no further dependencies. Scrapes read the metrics without stopping the interpreters.
+ *
+ * <p>A server bound to port 0 picks a free port, which {@link #getPort()} reports once it is created,
+ * for example to scrape it from a test on localhost.</p>
+ */
+public final class MetricsServer implements AutoCloseable {
+    /** The path at which the metrics are published. */
+    public static final String PATH = "/metrics";
+
+    /** The content type of the text exposition format. */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final CopyOnWriteArrayList<InterpreterMetrics> interpreters = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a server bound to an address. It does not accept requests until it is started.
+     *
+     * @param address the address to listen on
+     * @throws IOException if the server cannot be bound to the address
+     */
+    public MetricsServer(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext(PATH, this::handle);
+    }
+
+    /**
+     * Adds the metrics of an interpreter to the published ones, unless they are published already.
+     *
+     * @param metrics the metrics to publish
+     */
+    public void register(InterpreterMetrics metrics) {
+        interpreters.addIfAbsent(metrics);
+    }
+
+    /**
+     * Stops publishing the metrics of an interpreter.
+     *
+     * @param metrics the metrics to remove
+     */
+    public void unregister(InterpreterMetrics metrics) {
+        interpreters.remove(metrics);
+    }
+
+    /**
+     * Starts accepting requests on a background thread.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, without waiting for requests in progress.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * Answers a request with the current metrics. Only GET and HEAD requests are accepted.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = PrometheusWriter.write(interpreters).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (method.equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.interpreter.metrics;
+
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.exceptions.UninitializedSubroutineException;
+import org.interpreter.exceptions.UninitializedVariableException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Writes interpreter metrics in the Prometheus text exposition format, version 0.0.4. Every sample is
+ * labelled with the identifier of the interpreter it belongs to, so that one endpoint can publish the
+ * metrics of several interpreters.
+ */
+final class PrometheusWriter {
+    /** The failures that are published even before they first occur, so that alerts can rely on them. */
+    private static final List<String> KNOWN_FAILURES = List.of(
+            InterpreterRuntimeException.class.getSimpleName(),
+            UninitializedVariableException.class.getSimpleName(),
+            UninitializedSubroutineException.class.getSimpleName());
+
+    private final StringBuilder out = new StringBuilder();
+
+    /**
+     * Formats the metrics of a number of interpreters.
+     *
+     * @param interpreters the metrics to write
+     * @return the exposition text
+     */
+    static String write(List<InterpreterMetrics> interpreters) {
+        PrometheusWriter writer = new PrometheusWriter();
+        writer.family(interpreters, "sbasic_statements_total", "counter", "Statements executed.",
+                InterpreterMetrics::getStatementsExecuted);
+        writer.family(interpreters, "sbasic_statements_per_second", "gauge", "Statements executed per second by the most recent run.",
+                InterpreterMetrics::getStatementsPerSecond);
+        writer.family(interpreters, "sbasic_subroutine_calls_total", "counter", "Subroutine calls made through GOSUB or GOTO.",
+                InterpreterMetrics::getSubroutineCalls);
+        writer.family(interpreters, "sbasic_call_depth", "gauge", "Subroutine calls currently on the call stack.",
+                InterpreterMetrics::getCallDepth);
+        writer.family(interpreters, "sbasic_variables", "gauge", "Variables known to the runtime environment.",
+                InterpreterMetrics::getVariableCount);
+        writer.family(interpreters, "sbasic_footprint_bytes", "gauge", "Approximate memory held by variables.",
+                InterpreterMetrics::getApproximateFootprintBytes);
+        writer.family(interpreters, "sbasic_output_bytes_total", "counter", "Bytes written by PRINT statements and INPUT prompts, encoded in UTF-8.",
+                InterpreterMetrics::getBytesPrinted);
+        writer.family(interpreters, "sbasic_input_wait_seconds_total", "counter", "Time INPUT statements waited for input.",
+                metrics -> metrics.getInputWaitMillis() / 1e3);
+        writer.failures(interpreters);
+        writer.histogram(interpreters, "sbasic_parse_duration_seconds", "Time to parse and link a program.",
+                InterpreterMetrics::getParseLatency);
+        writer.histogram(interpreters, "sbasic_run_duration_seconds", "Time to execute a program.",
+                InterpreterMetrics::getRunLatency);
+        return writer.out.toString();
+    }
+
+    /**
+     * Writes a metric family with one sample per interpreter.
+     */
+    private void family(List<InterpreterMetrics> interpreters, String name, String type, String help,
+                       ToDoubleFunction<InterpreterMetrics> value) {
+        header(name, type, help);
+        for (InterpreterMetrics metrics : interpreters) {
+            sample(name, metrics, null, value.applyAsDouble(metrics));
+        }
+    }
+
+    /**
+     * Writes the failure counts of every interpreter, by exception class.
+     */
+    private void failures(List<InterpreterMetrics> interpreters) {
+        String name = "sbasic_failures_total";
+        header(name, "counter", "Runs that ended with an exception, by exception class.");
+        for (InterpreterMetrics metrics : interpreters) {
+            Map<String, Long> failures = new TreeMap<>(metrics.getExceptions());
+            KNOWN_FAILURES.forEach(type -> failures.putIfAbsent(type, 0L));
+            failures.forEach((type, count) -> sample(name, metrics, "exception=\"" + escape(type) + "\"", count));
+        }
+    }
+
+    /**
+     * Writes a histogram family, with cumulative buckets as the format requires.
+     */
+    private void histogram(List<InterpreterMetrics> interpreters, String name, String help,
+                           Function<InterpreterMetrics, Histogram> histogramOf) {
+        header(name, "histogram", help);
+        for (InterpreterMetrics metrics : interpreters) {
+            Histogram histogram = histogramOf.apply(metrics);
+            long cumulative = 0;
+            for (int i = 0; i < histogram.boundCount(); i++) {
+                cumulative += histogram.bucket(i);
+                sample(name + "_bucket", metrics, "le=\"" + histogram.bound(i) / 1e9 + "\"", cumulative);
+            }
+            cumulative += histogram.bucket(histogram.boundCount());
+            sample(name + "_bucket", metrics, "le=\"+Inf\"", cumulative);
+            sample(name + "_sum", metrics, null, histogram.sumSeconds());
+            sample(name + "_count", metrics, null, cumulative);
+        }
+    }
+
+    private void header(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Writes a sample, printing integral values without a fraction.
+     */
+    private void sample(String name, InterpreterMetrics metrics, String label, double value) {
+        out.append(name).append("{interpreter=\"").append(metrics.getId()).append('"');
+        if (label != null) {
+            out.append(',').append(label);
+        }
+        out.append("} ");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Escapes a label value, as the format requires for backslashes, quotes and line feeds.
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
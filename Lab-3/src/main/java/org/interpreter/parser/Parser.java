@@ -1,12 +1,17 @@
 package org.interpreter.parser;
 
+import org.interpreter.events.LexEvent;
+import org.interpreter.events.ParseEvent;
 import org.interpreter.exceptions.InterpreterRuntimeException;
 import org.interpreter.lexer.Command;
 import org.interpreter.lexer.Lexer;
 import org.interpreter.parser.expressions.*;
 import org.interpreter.parser.statements.*;
+import org.interpreter.parser.variable.GlobalReference;
 import org.interpreter.parser.variable.VariableReference;
+import org.interpreter.runtime.Arithmetic;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
 import org.interpreter.token.Token;
 import org.interpreter.token.TokenType;
 
@@ -20,6 +25,7 @@ import java.util.*;
 public class Parser {
     private final Lexer lexer;
     private final RuntimeEnvironment environment;
+    private final Set<String> globals = new HashSet<>();
     private Token currentToken;
 
     /**
@@ -40,20 +46,37 @@ public class Parser {
      * Preprocesses all labels in the input script to establish jump points for GOTO and GOSUB statements.
      * This method scans the entire set of tokens from the lexer to find label definitions and registers them
      * in the runtime environment for quick access during execution. This is crucial for implementing efficient
-     * control flow in the interpreted language.
+     * control flow in the interpreted language. GLOBAL declarations are collected in the same scan, so that
+     * they apply to the main program and to the labeled blocks that follow them.
      */
     private void preprocessLabels() {
+        LexEvent event = new LexEvent();
+        event.begin();
+        long tokens = 0;
+        int labels = 0;
+
         while(!isType(TokenType.EOF)) {
             if(isType(TokenType.LABEL)) {
                 String label = currentToken.text();
                 processLabel(label, environment);
+                labels++;
+            } else if (isCommand(Command.GLOBAL)) {
+                parseGlobalStatement();
+                continue;
             }
 
             currentToken = lexer.nextToken();
+            tokens++;
         }
 
         lexer.reset();
         currentToken = lexer.nextToken();
+
+        if (event.shouldCommit()) {
+            event.tokens = tokens;
+            event.labels = labels;
+            event.commit();
+        }
     }
 
     /**
@@ -84,6 +107,9 @@ public class Parser {
      * @return a list of parsed statements, ready for execution.
      */
     public List<Statement> parse() {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+
         List<Statement> statements = new ArrayList<>();
         while (!isType(TokenType.EOF)) {
             Statement statement = parseStatement();
@@ -94,6 +120,11 @@ public class Parser {
             if(isType(TokenType.SEMICOLON))
                 currentToken = lexer.nextToken();
         }
+
+        if (event.shouldCommit()) {
+            event.statements = statements.size();
+            event.commit();
+        }
         return statements;
     }
 
@@ -131,9 +162,18 @@ public class Parser {
             case PRINT -> parsePrintStatement();
             case IF -> parseIfStatement();
             case FOR -> parseForStatement();
+            case PARALLEL -> parseParallelForStatement();
             case INPUT -> parseInputStatement();
             case GOTO -> parseGotoStatement();
             case GOSUB -> parseGosubStatement();
+            case SPAWN -> parseSpawnStatement();
+            case WAIT -> parseWaitStatement();
+            case CHANNEL -> parseChannelStatement();
+            case SEND, TRYSEND -> parseSendStatement(command == Command.TRYSEND);
+            case RECEIVE, TRYRECEIVE -> parseReceiveStatement(command == Command.TRYRECEIVE);
+            case GLOBAL -> parseGlobalStatement();
+            case INCREMENT -> parseIncrementStatement();
+            case CAS -> parseCompareAndSetStatement();
             default -> throw new InterpreterRuntimeException(String.format("Command not supported '%s' at line %s", command, currentToken.lineNumber()));
         };
     }
@@ -145,12 +185,15 @@ public class Parser {
      * @return a new PrintStatement constructed with the parsed elements
      */
     private PrintStatement parsePrintStatement() {
+        int lineNumber = currentToken.lineNumber();
         List<Object> elements = new ArrayList<>();
         currentToken = lexer.nextToken();
 
         while (isParseable() &&
                 !isType(TokenType.LABEL) &&
-                !isValueOnTheList(getCommandFromCurrentToken(), List.of(Command.INPUT, Command.FOR, Command.GOTO, Command.GOSUB, Command.RETURN, Command.PRINT, Command.END))
+                !isValueOnTheList(getCommandFromCurrentToken(), List.of(Command.INPUT, Command.FOR, Command.PARALLEL, Command.GOTO, Command.GOSUB,
+                        Command.SPAWN, Command.WAIT, Command.CHANNEL, Command.SEND, Command.TRYSEND, Command.RECEIVE, Command.TRYRECEIVE,
+                        Command.GLOBAL, Command.INCREMENT, Command.CAS, Command.RETURN, Command.PRINT, Command.END))
         ) {
             elements.add(parseExpression());
 
@@ -159,7 +202,7 @@ public class Parser {
             }
         }
 
-        return new PrintStatement(elements);
+        return new PrintStatement(elements, lineNumber);
     }
 
     /**
@@ -169,6 +212,7 @@ public class Parser {
      * @return the newly constructed IfStatement
      */
     private Statement parseIfStatement() {
+        int lineNumber = currentToken.lineNumber();
         expect(getCommandFromCurrentToken(), Command.IF, String.valueOf(currentToken.lineNumber()));
         currentToken = lexer.nextToken();
         Expression condition = parseExpression();
@@ -194,7 +238,7 @@ public class Parser {
         expect(getCommandFromCurrentToken(), Command.ENDIF, String.valueOf(currentToken.lineNumber()));
         currentToken = lexer.nextToken();
 
-        return new IfStatement(condition, trueBranch, falseBranch);
+        return new IfStatement(condition, trueBranch, falseBranch, lineNumber);
     }
 
     /**
@@ -204,6 +248,7 @@ public class Parser {
      * @return a new ForStatement representing the parsed FOR loop
      */
     private Statement parseForStatement() {
+        int lineNumber = currentToken.lineNumber();
         currentToken = lexer.nextToken();
         expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
 
@@ -226,7 +271,75 @@ public class Parser {
         }
         currentToken = lexer.nextToken();
 
-        return new ForStatement(variableName, startExpression, endExpression, body);
+        return new ForStatement(variableName, localSlotOf(variableName, lineNumber), startExpression, endExpression, body, lineNumber);
+    }
+
+    /**
+     * Parses a PARALLEL FOR command into a ParallelForStatement. It has the form of a FOR loop, optionally
+     * followed by REDUCE and a comma-separated list of reductions, each an operator (SUM, MIN, MAX or CONCAT)
+     * and a variable.
+     *
+     * @return a new ParallelForStatement representing the parsed loop
+     */
+    private Statement parseParallelForStatement() {
+        int lineNumber = currentToken.lineNumber();
+        currentToken = lexer.nextToken();
+        if (!isCommand(Command.FOR)) {
+            throw new InterpreterRuntimeException(String.format("Expected 'FOR' but found '%s' at line %s", currentToken.text(), currentToken.lineNumber()));
+        }
+        currentToken = lexer.nextToken();
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+
+        String variableName = currentToken.text();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.EQUAL, String.valueOf(currentToken.lineNumber()));
+        currentToken = lexer.nextToken();
+
+        Expression startExpression = parseExpression();
+
+        expect(getCommandFromCurrentToken(), Command.TO, String.valueOf(currentToken.lineNumber()));
+        currentToken = lexer.nextToken();
+
+        Expression endExpression = parseExpression();
+
+        List<Reduction> reductions = new ArrayList<>();
+        if (isCommand(Command.REDUCE)) {
+            do {
+                currentToken = lexer.nextToken();
+                reductions.add(parseReduction());
+            } while (isType(TokenType.COMMA));
+        }
+
+        List<Statement> body = new ArrayList<>();
+        while (!isCommand(Command.NEXT) && !isType(TokenType.EOF)) {
+            body.add(parseStatement());
+        }
+        currentToken = lexer.nextToken();
+
+        return new ParallelForStatement(variableName, localSlotOf(variableName, lineNumber), startExpression, endExpression,
+                reductions, body, lineNumber);
+    }
+
+    /**
+     * Parses a reduction of a parallel loop: an operator followed by the variable it reduces.
+     *
+     * @return the parsed reduction
+     */
+    private Reduction parseReduction() {
+        Reduction.Operator operator = isType(TokenType.VARIABLE) ? Reduction.Operator.fromString(currentToken.text()) : null;
+        if (operator == null) {
+            throw new InterpreterRuntimeException(String.format("Expected 'SUM', 'MIN', 'MAX' or 'CONCAT' but found '%s' at line %s",
+                    currentToken.text(), currentToken.lineNumber()));
+        }
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        String variableName = currentToken.text();
+        int slot = localSlotOf(variableName, currentToken.lineNumber());
+        currentToken = lexer.nextToken();
+
+        return new Reduction(operator, variableName, slot);
     }
 
     /**
@@ -236,6 +349,7 @@ public class Parser {
      * @return a new InputStatement constructed from the parsed components
      */
     private Statement parseInputStatement() {
+        int lineNumber = currentToken.lineNumber();
         currentToken = lexer.nextToken();
         String prompt = null;
 
@@ -251,7 +365,7 @@ public class Parser {
         String variableName = currentToken.text();
         currentToken = lexer.nextToken();
 
-        return new InputStatement(prompt, variableName);
+        return new InputStatement(prompt, variableName, localSlotOf(variableName, lineNumber), lineNumber);
     }
 
     /**
@@ -261,6 +375,7 @@ public class Parser {
      * @return a new GoToStatement that represents the jump to a label
      */
     private Statement parseGotoStatement() {
+        int lineNumber = currentToken.lineNumber();
         currentToken = lexer.nextToken();
 
         expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()), "DIMENSION");
@@ -270,7 +385,7 @@ public class Parser {
             currentToken = lexer.nextToken();
         }
 
-        return new GoToStatement(label);
+        return new GoToStatement(label, lineNumber);
     }
 
     /**
@@ -281,6 +396,7 @@ public class Parser {
      * @return a new GoToStatement, which acts as a subroutine call by jumping to a label
      */
     private Statement parseGosubStatement() {
+        int lineNumber = currentToken.lineNumber();
         currentToken = lexer.nextToken();
 
         expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()), "DIMENSION");
@@ -288,7 +404,213 @@ public class Parser {
 
         currentToken = lexer.nextToken();
 
-        return new GoToStatement(label);
+        return new GoToStatement(label, lineNumber);
+    }
+
+    /**
+     * Parses a SPAWN command into a SpawnStatement: the label of the block to start, optionally
+     * followed by SHARE and a comma-separated list of the variables the task hands back.
+     *
+     * @return a new SpawnStatement that starts the block of the label as a task
+     */
+    private Statement parseSpawnStatement() {
+        int lineNumber = currentToken.lineNumber();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        String label = currentToken.text();
+        currentToken = lexer.nextToken();
+
+        List<String> sharedNames = new ArrayList<>();
+        if (isCommand(Command.SHARE)) {
+            do {
+                currentToken = lexer.nextToken();
+                expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+                sharedNames.add(currentToken.text());
+                currentToken = lexer.nextToken();
+            } while (isType(TokenType.COMMA));
+        }
+
+        int[] sharedSlots = sharedNames.stream().mapToInt(name -> localSlotOf(name, lineNumber)).toArray();
+        return new SpawnStatement(label, sharedNames, sharedSlots, lineNumber);
+    }
+
+    /**
+     * Parses a WAIT command into a WaitStatement for the tasks of a label.
+     *
+     * @return a new WaitStatement that waits for the tasks of the label
+     */
+    private Statement parseWaitStatement() {
+        int lineNumber = currentToken.lineNumber();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        String label = currentToken.text();
+        currentToken = lexer.nextToken();
+
+        return new WaitStatement(label, lineNumber);
+    }
+
+    /**
+     * Parses a CHANNEL command into a ChannelStatement: the name of the channel, optionally followed by
+     * a comma and the capacity.
+     *
+     * @return a new ChannelStatement that declares the channel
+     */
+    private Statement parseChannelStatement() {
+        int lineNumber = currentToken.lineNumber();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        String channelName = currentToken.text();
+        currentToken = lexer.nextToken();
+
+        Expression capacity = null;
+        if (isType(TokenType.COMMA)) {
+            currentToken = lexer.nextToken();
+            capacity = parseExpression();
+        }
+
+        return new ChannelStatement(channelName, environment.getChannels().slotOf(channelName), capacity, lineNumber);
+    }
+
+    /**
+     * Parses a SEND or TRYSEND command into a SendStatement: the name of the channel, a comma and the
+     * expression to send, followed for TRYSEND by a comma and the variable that receives whether the
+     * value was sent.
+     *
+     * @param nonBlocking true for TRYSEND
+     * @return a new SendStatement that sends the value to the channel
+     */
+    private Statement parseSendStatement(boolean nonBlocking) {
+        int lineNumber = currentToken.lineNumber();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        String channelName = currentToken.text();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.COMMA, String.valueOf(currentToken.lineNumber()));
+        currentToken = lexer.nextToken();
+        Expression expression = parseExpression();
+
+        int resultSlot = nonBlocking ? parseResultVariable() : -1;
+        return new SendStatement(channelName, environment.getChannels().slotOf(channelName), expression, resultSlot, lineNumber);
+    }
+
+    /**
+     * Parses a RECEIVE or TRYRECEIVE command into a ReceiveStatement: the name of the channel, a comma and
+     * the variable that receives the value, followed for TRYRECEIVE by a comma and the variable that
+     * receives whether a value was received.
+     *
+     * @param nonBlocking true for TRYRECEIVE
+     * @return a new ReceiveStatement that receives a value from the channel
+     */
+    private Statement parseReceiveStatement(boolean nonBlocking) {
+        int lineNumber = currentToken.lineNumber();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        String channelName = currentToken.text();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.COMMA, String.valueOf(currentToken.lineNumber()));
+        currentToken = lexer.nextToken();
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        int slot = localSlotOf(currentToken.text(), lineNumber);
+        currentToken = lexer.nextToken();
+
+        int resultSlot = nonBlocking ? parseResultVariable() : -1;
+        return new ReceiveStatement(channelName, environment.getChannels().slotOf(channelName), slot, resultSlot, lineNumber);
+    }
+
+    /**
+     * Parses the comma and the variable that receive the outcome of a non-blocking channel operation or a CAS.
+     *
+     * @return the slot of the variable
+     */
+    private int parseResultVariable() {
+        expect(currentToken.type(), TokenType.COMMA, String.valueOf(currentToken.lineNumber()));
+        currentToken = lexer.nextToken();
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        int slot = localSlotOf(currentToken.text(), currentToken.lineNumber());
+        currentToken = lexer.nextToken();
+        return slot;
+    }
+
+    /**
+     * Parses a GLOBAL command into a GlobalStatement: a comma-separated list of the variables that every task
+     * of the program shares. From now on, the parser resolves these variables to the global variables of the
+     * runtime environment.
+     *
+     * @return a new GlobalStatement that records the declaration
+     */
+    private Statement parseGlobalStatement() {
+        int lineNumber = currentToken.lineNumber();
+        List<String> variableNames = new ArrayList<>();
+        do {
+            currentToken = lexer.nextToken();
+            expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+            variableNames.add(currentToken.text());
+            currentToken = lexer.nextToken();
+        } while (isType(TokenType.COMMA));
+
+        globals.addAll(variableNames);
+        variableNames.forEach(environment.getGlobals()::slotOf);
+        return new GlobalStatement(variableNames, lineNumber);
+    }
+
+    /**
+     * Parses an INCREMENT command into an IncrementStatement: the variable, optionally followed by BY and the
+     * expression to add, which defaults to 1.
+     *
+     * @return a new IncrementStatement that adds the step to the variable
+     */
+    private Statement parseIncrementStatement() {
+        int lineNumber = currentToken.lineNumber();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        String variableName = currentToken.text();
+        currentToken = lexer.nextToken();
+
+        Expression step = new NumericExpression(1L);
+        if (isCommand(Command.BY)) {
+            currentToken = lexer.nextToken();
+            step = parseExpression();
+        }
+
+        boolean global = globals.contains(variableName);
+        int slot = global ? environment.getGlobals().slotOf(variableName) : environment.slotOf(variableName);
+        return new IncrementStatement(variableName, slot, global, step, lineNumber);
+    }
+
+    /**
+     * Parses a CAS command into a CompareAndSetStatement: the variable, the expected value, the new value and
+     * the variable that receives whether the new value was assigned, separated by commas.
+     *
+     * @return a new CompareAndSetStatement that updates the variable if it holds the expected value
+     */
+    private Statement parseCompareAndSetStatement() {
+        int lineNumber = currentToken.lineNumber();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.VARIABLE, String.valueOf(currentToken.lineNumber()));
+        String variableName = currentToken.text();
+        currentToken = lexer.nextToken();
+
+        expect(currentToken.type(), TokenType.COMMA, String.valueOf(currentToken.lineNumber()));
+        currentToken = lexer.nextToken();
+        Expression expected = parseExpression();
+
+        expect(currentToken.type(), TokenType.COMMA, String.valueOf(currentToken.lineNumber()));
+        currentToken = lexer.nextToken();
+        Expression update = parseExpression();
+
+        int resultSlot = parseResultVariable();
+        boolean global = globals.contains(variableName);
+        int slot = global ? environment.getGlobals().slotOf(variableName) : environment.slotOf(variableName);
+        return new CompareAndSetStatement(variableName, slot, global, expected, update, resultSlot, lineNumber);
     }
 
     /**
@@ -377,8 +699,10 @@ public class Parser {
 
         return switch (type) {
             case QUOTEDSTR -> new StringExpression(value);
-            case VARIABLE -> new VariableReference(value);
-            case NUMBER -> new NumericExpression(Double.parseDouble(value));
+            case VARIABLE -> globals.contains(value) ?
+                    new GlobalReference(value, environment.getGlobals().slotOf(value)) :
+                    new VariableReference(value, environment.slotOf(value));
+            case NUMBER -> parseNumber(value);
             case OPEN_PAREN -> {
                 Expression expression = parseExpression();
                 if (!isType(TokenType.CLOSE_PAREN)) {
@@ -391,6 +715,19 @@ public class Parser {
         };
     }
 
+    /**
+     * Parses a numeric literal into a NumericExpression, keeping integral literals on the integer representation.
+     *
+     * @param text the text of the numeric literal
+     * @return a NumericExpression holding the literal's value
+     */
+    private Expression parseNumber(String text) {
+        long value = Arithmetic.parse(text);
+        return Value.isInteger(value) ?
+                new NumericExpression(Value.asInteger(value)) :
+                new NumericExpression(Value.asDouble(value));
+    }
+
     /**
      * Parses an assignment statement. It expects to find a variable followed by an '=' operator
      * and an expression that provides the value to be assigned to the variable.
@@ -399,6 +736,7 @@ public class Parser {
      *         to be assigned to it.
      */
     private Statement parseAssignment() {
+        int lineNumber = currentToken.lineNumber();
         String variableName = currentToken.text();
         currentToken = lexer.nextToken();
         expect(currentToken.type(), TokenType.EQUAL, String.valueOf(currentToken.lineNumber()));
@@ -406,7 +744,27 @@ public class Parser {
         currentToken = lexer.nextToken();
         Expression value = parseExpression();
 
-        return new AssignmentStatement(variableName, value);
+        if (globals.contains(variableName)) {
+            return new GlobalAssignmentStatement(variableName, environment.getGlobals().slotOf(variableName), value, lineNumber);
+        }
+        return new AssignmentStatement(variableName, environment.slotOf(variableName), value, lineNumber);
+    }
+
+    /**
+     * Returns the slot of a variable that a statement other than an assignment, INCREMENT or CAS writes.
+     * Such statements write the variables of the runtime environment only.
+     *
+     * @param name the name of the variable
+     * @param lineNumber the source line of the statement, for the error message
+     * @return the slot of the variable in the runtime environment
+     * @throws InterpreterRuntimeException if the variable was declared with GLOBAL
+     */
+    private int localSlotOf(String name, int lineNumber) {
+        if (globals.contains(name)) {
+            throw new InterpreterRuntimeException(String.format("Global variable '%s' can only be assigned with '=', INCREMENT or CAS at line %s",
+                    name, lineNumber));
+        }
+        return environment.slotOf(name);
     }
 
     /**
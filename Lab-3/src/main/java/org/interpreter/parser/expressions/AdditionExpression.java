@@ -1,13 +1,20 @@
 package org.interpreter.parser.expressions;
 
 import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.runtime.Arithmetic;
+import org.interpreter.runtime.Rope;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
 
 /**
  * Represents an addition expression in the parsed language. This class handles
  * the addition of two expressions which can be either numerical or string types.
  * The addition follows basic rules: if both operands are numbers, their sum is
  * returned; if either operand is a string, string concatenation is performed.
+ * Concatenation produces a {@link Rope}, so a string built up by repeated appends
+ * is extended in place instead of being copied on every step.
  */
 public class AdditionExpression implements Expression {
     private final Expression left;
@@ -26,24 +33,61 @@ public class AdditionExpression implements Expression {
 
     /**
      * Evaluates the addition expression within the provided runtime environment.
-     * If both operands evaluate to Double, their sum is computed and returned.
-     * If either operand is a String, concatenation is performed and the result is returned as a String.
+     * If both operands are numeric, their sum is computed and returned, staying on the integral
+     * representation when possible. If either operand is a String, concatenation is performed
+     * and the result is returned as a reference to a {@link Rope}, which shares the characters of
+     * the left operand when that is the latest rope of its buffer.
      *
      * @param env the runtime environment containing variable values
      * @return the result of the addition or concatenation, depending on the operand types
-     * @throws InterpreterRuntimeException if neither of the operands are Double or String
+     * @throws InterpreterRuntimeException if neither of the operands are numeric or String
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) throws InterpreterRuntimeException {
-        Object leftVal = left.evaluate(env);
-        Object rightVal = right.evaluate(env);
-
-        if (leftVal instanceof Double && rightVal instanceof Double) {
-            return (Double) leftVal + (Double) rightVal;
-        } else if (leftVal instanceof String || rightVal instanceof String) {
-            return leftVal.toString() + rightVal.toString();
+    public long evaluate(RuntimeEnvironment env) throws InterpreterRuntimeException {
+        long leftVal = left.evaluate(env);
+        long rightVal = right.evaluate(env);
+
+        if (Value.isNumber(leftVal) && Value.isNumber(rightVal)) {
+            return Arithmetic.add(leftVal, rightVal);
+        } else if (isString(env, leftVal) || isString(env, rightVal)) {
+            return env.reference(Rope.concat(toCharSequence(env, leftVal), toCharSequence(env, rightVal)));
         } else {
             throw new InterpreterRuntimeException("Invalid operand types for addition. Both operands must be numbers or at least one must be a string.");
         }
     }
+
+    /**
+     * Checks whether a tagged value refers to a string or a rope.
+     *
+     * @param env the runtime environment that resolves the reference
+     * @param value the tagged value to check
+     * @return true if the value is a reference to a character sequence
+     */
+    private boolean isString(RuntimeEnvironment env, long value) {
+        return Value.isReference(value) && env.dereference(value) instanceof CharSequence;
+    }
+
+    /**
+     * Converts an operand of a concatenation to characters without flattening ropes.
+     *
+     * @param env the runtime environment that resolves references
+     * @param value the tagged operand
+     * @return the referenced character sequence, or the printed form of any other value
+     */
+    private CharSequence toCharSequence(RuntimeEnvironment env, long value) {
+        if (isString(env, value)) {
+            return (CharSequence) env.dereference(value);
+        }
+        return env.toText(value);
+    }
+
+    /**
+     * Returns the left and the right operand.
+     *
+     * @return a list containing both operands.
+     */
+    @Override
+    public List<Expression> getOperands() {
+        return List.of(left, right);
+    }
 }
@@ -1,11 +1,15 @@
 package org.interpreter.parser.expressions;
 
 import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.runtime.Arithmetic;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
 
 /**
  * Represents a division expression in the parsed language. This class handles
- * the division of two expressions, both of which must evaluate to numeric (Double) types.
+ * the division of two expressions, both of which must evaluate to numeric types.
  * It includes handling for division by zero, which is a common runtime error in many programming languages.
  */
 public class DivisionExpression implements Expression {
@@ -25,26 +29,36 @@ public class DivisionExpression implements Expression {
 
     /**
      * Evaluates the division expression within the provided runtime environment.
-     * Both operands are evaluated, and if both are numeric (Double), division is performed.
+     * Both operands are evaluated, and if both are numeric, division is performed.
+     * Integral operands that divide evenly keep the integral representation.
      *
      * @param env the runtime environment containing variable values
-     * @return the result of the division as a Double
-     * @throws InterpreterRuntimeException if either operand is not a Double or if division by zero occurs
+     * @return the result of the division as an integer if it is integral, otherwise as a double
+     * @throws InterpreterRuntimeException if either operand is not numeric or if division by zero occurs
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) throws InterpreterRuntimeException {
-        Object leftVal = left.evaluate(env);
-        Object rightVal = right.evaluate(env);
+    public long evaluate(RuntimeEnvironment env) throws InterpreterRuntimeException {
+        long leftVal = left.evaluate(env);
+        long rightVal = right.evaluate(env);
 
-        if (!(leftVal instanceof Double && rightVal instanceof Double)) {
+        if (!(Value.isNumber(leftVal) && Value.isNumber(rightVal))) {
             throw new InterpreterRuntimeException("Dividing of non-numeric types is not supported.");
         }
 
-        double divisor = (Double) rightVal;
-        if (divisor == 0) {
+        if (Arithmetic.isZero(rightVal)) {
             throw new InterpreterRuntimeException("Dividing by zero is not allowed.");
         }
 
-        return (Double) leftVal / divisor;
+        return Arithmetic.divide(leftVal, rightVal);
+    }
+
+    /**
+     * Returns the left and the right operand.
+     *
+     * @return a list containing both operands.
+     */
+    @Override
+    public List<Expression> getOperands() {
+        return List.of(left, right);
     }
 }
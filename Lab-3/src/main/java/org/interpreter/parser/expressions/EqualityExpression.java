@@ -1,12 +1,17 @@
 package org.interpreter.parser.expressions;
 
+import org.interpreter.runtime.Arithmetic;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
 
 /**
  * Represents an equality expression in the language being parsed. This class
  * evaluates the equality of two expressions, checking whether their evaluated values
- * are equal to each other. It supports equality checks for all types that properly
- * implement the {@link Object#equals(Object)} method.
+ * are equal to each other. Numbers are equal when they denote the same value, whether they
+ * are held as integral or floating-point values; other types are compared using the
+ * {@link Object#equals(Object)} method.
  */
 public class EqualityExpression implements Expression {
     private final Expression left;
@@ -26,16 +31,25 @@ public class EqualityExpression implements Expression {
     /**
      * Evaluates the equality of the results of the left and right expressions.
      * This method first evaluates both the left and right expressions within the given
-     * runtime environment, then compares their results using the {@link Object#equals(Object)}
-     * method.
+     * runtime environment, then compares their results using {@link Arithmetic#areEqual(RuntimeEnvironment, long, long)}.
      *
      * @param env the runtime environment in which variable values and functions are defined
-     * @return {@code true} if the evaluated results of both expressions are equal, {@code false} otherwise
+     * @return a tagged {@code true} if the evaluated results of both expressions are equal, {@code false} otherwise
+     */
+    @Override
+    public long evaluate(RuntimeEnvironment env) {
+        long leftVal = left.evaluate(env);
+        long rightVal = right.evaluate(env);
+        return Value.ofBoolean(Arithmetic.areEqual(env, leftVal, rightVal));
+    }
+
+    /**
+     * Returns the left and the right operand.
+     *
+     * @return a list containing both operands.
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) {
-        Object leftVal = left.evaluate(env);
-        Object rightVal = right.evaluate(env);
-        return leftVal.equals(rightVal);
+    public List<Expression> getOperands() {
+        return List.of(left, right);
     }
 }
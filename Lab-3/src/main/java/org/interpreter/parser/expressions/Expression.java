@@ -1,6 +1,9 @@
 package org.interpreter.parser.expressions;
 
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
 
 /**
  * Represents a generic expression in the programming language being interpreted.
@@ -13,14 +16,25 @@ public interface Expression {
 
     /**
      * Evaluates this expression within the context of the specified runtime environment.
-     * The method returns the result of the expression, which can vary in type depending on
-     * the specific expression being evaluated. For example, numeric calculations might return
-     * {@link Double}, logical operations might return {@link Boolean}, and others might return
-     * {@link String} or complex data structures.
+     * The method returns the result of the expression as a tagged {@link Value}, whose type can vary
+     * depending on the specific expression being evaluated. For example, numeric calculations might return
+     * an integer or a double, logical operations might return a boolean, and others might return
+     * a reference to a {@link String} held by the environment.
      *
      * @param env the runtime environment providing context for variable values, functions, and other
      *            runtime configurations necessary for the evaluation of the expression.
-     * @return the result of evaluating the expression, whose type can vary based on the expression's nature.
+     * @return the tagged result of evaluating the expression, whose type can vary based on the expression's nature.
+     */
+    long evaluate(RuntimeEnvironment env);
+
+    /**
+     * Returns the sub-expressions this expression evaluates, such as the operands of an arithmetic
+     * operation. Tools that analyze a program, like the loop parallelizer, use this method to find
+     * every variable an expression reads.
+     *
+     * @return the operands of this expression, from left to right, or an empty list if it has none.
      */
-    Object evaluate(RuntimeEnvironment env);
+    default List<Expression> getOperands() {
+        return List.of();
+    }
 }
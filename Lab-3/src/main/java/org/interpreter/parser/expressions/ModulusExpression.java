@@ -1,7 +1,11 @@
 package org.interpreter.parser.expressions;
 
 import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.runtime.Arithmetic;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
 
 /**
  * Represents a modulus expression in the language being interpreted. This class
@@ -28,34 +32,44 @@ public class ModulusExpression implements Expression {
      * are evaluated to numeric values, and the modulus operation is performed.
      *
      * @param env the runtime environment in which variable values and functions are defined.
-     * @return the result of the modulus operation as a Double.
+     * @return the result of the modulus operation, as an integer for integral operands, otherwise as a double.
      * @throws InterpreterRuntimeException if the right operand evaluates to zero, as modulus by zero is undefined.
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) {
-        double leftVal = ensureNumeric(left.evaluate(env));
-        double rightVal = ensureNumeric(right.evaluate(env));
+    public long evaluate(RuntimeEnvironment env) {
+        long leftVal = ensureNumeric(left.evaluate(env));
+        long rightVal = ensureNumeric(right.evaluate(env));
 
-        if (rightVal == 0) {
+        if (Arithmetic.isZero(rightVal)) {
             throw new InterpreterRuntimeException("Modulus by zero is undefined.");
         }
 
-        return leftVal % rightVal;
+        return Arithmetic.modulus(leftVal, rightVal);
     }
 
     /**
-     * Ensures that the given object is a numeric value, casting it to Double if it is.
-     * If the object is not a Double, an InterpreterRuntimeException is thrown.
+     * Ensures that the given tagged value is a numeric value.
+     * If the value is neither an integer nor a double, an InterpreterRuntimeException is thrown.
      *
-     * @param value the object to check and cast.
-     * @return the numeric value as a Double.
-     * @throws InterpreterRuntimeException if the object is not a numeric value.
+     * @param value the tagged value to check.
+     * @return the numeric value unchanged.
+     * @throws InterpreterRuntimeException if the value is not a numeric value.
      */
-    private double ensureNumeric(Object value) {
-        if (value instanceof Double) {
-            return (Double) value;
+    private long ensureNumeric(long value) {
+        if (Value.isNumber(value)) {
+            return value;
         } else {
             throw new InterpreterRuntimeException("Expected numeric value for modulus operation.");
         }
     }
+
+    /**
+     * Returns the left and the right operand.
+     *
+     * @return a list containing both operands.
+     */
+    @Override
+    public List<Expression> getOperands() {
+        return List.of(left, right);
+    }
 }
@@ -1,7 +1,11 @@
 package org.interpreter.parser.expressions;
 
 import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.runtime.Arithmetic;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
 
 /**
  * Represents a multiplication expression in the interpreter.
@@ -26,18 +30,29 @@ public class MultiplicationExpression implements Expression {
      * Evaluates the multiplication expression in the given runtime environment.
      *
      * @param env the runtime environment in which to evaluate the expression.
-     * @return the result of multiplying the left and right expressions, if both are numeric.
+     * @return the result of multiplying the left and right expressions, if both are numeric,
+     *         as an integer if it is integral and representable, otherwise as a double.
      * @throws InterpreterRuntimeException if either operand is not a numeric value.
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) throws InterpreterRuntimeException {
-        Object leftVal = left.evaluate(env);
-        Object rightVal = right.evaluate(env);
+    public long evaluate(RuntimeEnvironment env) throws InterpreterRuntimeException {
+        long leftVal = left.evaluate(env);
+        long rightVal = right.evaluate(env);
 
-        if (leftVal instanceof Double && rightVal instanceof Double) {
-            return (Double) leftVal * (Double) rightVal;
+        if (Value.isNumber(leftVal) && Value.isNumber(rightVal)) {
+            return Arithmetic.multiply(leftVal, rightVal);
         } else {
             throw new InterpreterRuntimeException("Multiplication of non-numeric types is not supported.");
         }
     }
+
+    /**
+     * Returns the left and the right operand.
+     *
+     * @return a list containing both operands.
+     */
+    @Override
+    public List<Expression> getOperands() {
+        return List.of(left, right);
+    }
 }
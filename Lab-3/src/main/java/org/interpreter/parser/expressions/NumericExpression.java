@@ -1,15 +1,17 @@
 package org.interpreter.parser.expressions;
 
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
 
 /**
  * Represents a numeric literal expression within the interpreted language.
- * This class encapsulates a double value, which is returned as is when the expression
+ * This class encapsulates a number, held as a tagged integer for integral literals
+ * or as a tagged double otherwise, which is returned as is when the expression
  * is evaluated. It serves as the simplest form of expression, holding and returning
  * a constant numeric value.
  */
 public class NumericExpression implements Expression {
-    private final double value;
+    private final long value;
 
     /**
      * Constructs a new numeric expression with a specified double value.
@@ -17,21 +19,30 @@ public class NumericExpression implements Expression {
      * @param value the double value this expression will hold and return upon evaluation.
      */
     public NumericExpression(double value) {
-        this.value = value;
+        this.value = Value.ofDouble(value);
     }
 
     /**
-     * Evaluates this numeric expression and returns the encapsulated double value.
+     * Constructs a new numeric expression with a specified integral value.
+     *
+     * @param value the long value this expression will hold and return upon evaluation.
+     */
+    public NumericExpression(long value) {
+        this.value = Value.ofInteger(value);
+    }
+
+    /**
+     * Evaluates this numeric expression and returns the encapsulated value.
      * As this expression type holds a constant value, the evaluation simply returns
-     * this value, unaffected by the runtime environment.
+     * this value, encoded once at construction, unaffected by the runtime environment.
      *
      * @param env the runtime environment in which this expression is evaluated.
      *            This parameter is not used in this implementation because the
      *            numeric expression is independent of the environment.
-     * @return the double value encapsulated by this numeric expression.
+     * @return the tagged number encapsulated by this numeric expression.
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) {
+    public long evaluate(RuntimeEnvironment env) {
         return value;
     }
 }
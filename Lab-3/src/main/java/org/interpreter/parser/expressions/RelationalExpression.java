@@ -1,9 +1,13 @@
 package org.interpreter.parser.expressions;
 
 import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.runtime.Arithmetic;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
 import org.interpreter.token.TokenType;
 
+import java.util.List;
+
 /**
  * Represents a relational expression in the interpreted language.
  * This class evaluates relational comparisons (such as less than, greater than,
@@ -35,38 +39,57 @@ public class RelationalExpression implements Expression {
      * numeric comparisons for relational operators and equality checks for equality operators.
      *
      * @param env the runtime environment in which variable values and functions are defined.
-     * @return the result of the comparison as a Boolean, or throws an exception if the operation is not supported or operands are not of required types.
+     * @return the result of the comparison as a tagged boolean, or throws an exception if the operation is not supported or operands are not of required types.
      * @throws InterpreterRuntimeException if the operands are not suitable for the specified operator (e.g., non-numeric types for numeric comparisons).
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) {
-        Object leftVal = left.evaluate(env);
-        Object rightVal = right.evaluate(env);
+    public long evaluate(RuntimeEnvironment env) {
+        long leftVal = left.evaluate(env);
+        long rightVal = right.evaluate(env);
 
-        return switch (operator) {
-            case LESS_THAN -> checkDouble(leftVal, rightVal) && (Double) leftVal < (Double) rightVal;
-            case GREATER_THAN -> checkDouble(leftVal, rightVal) && (Double) leftVal > (Double) rightVal;
-            case LESS_EQUAL -> checkDouble(leftVal, rightVal) && (Double) leftVal <= (Double) rightVal;
-            case GREATER_EQUAL -> checkDouble(leftVal, rightVal) && (Double) leftVal >= (Double) rightVal;
-            case EQUAL -> leftVal.equals(rightVal);
-            case NOT_EQUAL -> !leftVal.equals(rightVal);
+        return Value.ofBoolean(switch (operator) {
+            case LESS_THAN -> checkNumeric(leftVal, rightVal) && Arithmetic.compare(leftVal, rightVal) < 0;
+            case GREATER_THAN -> checkNumeric(leftVal, rightVal) && Arithmetic.compare(leftVal, rightVal) > 0;
+            case LESS_EQUAL -> checkNumeric(leftVal, rightVal) && Arithmetic.compare(leftVal, rightVal) <= 0;
+            case GREATER_EQUAL -> checkNumeric(leftVal, rightVal) && Arithmetic.compare(leftVal, rightVal) >= 0;
+            case EQUAL -> Arithmetic.areEqual(env, leftVal, rightVal);
+            case NOT_EQUAL -> !Arithmetic.areEqual(env, leftVal, rightVal);
             default -> throw new InterpreterRuntimeException("Unsupported relational operation");
-        };
+        });
     }
 
     /**
-     * Checks if both provided values are instances of {@link Double}.
+     * Checks if both provided values are numeric, in either the integral or the floating-point representation.
      * This method is used to ensure that the operands are suitable for numeric comparisons.
      *
      * @param leftVal  the value of the left operand.
      * @param rightVal the value of the right operand.
-     * @return true if both operands are doubles.
-     * @throws InterpreterRuntimeException if either operand is not a double.
+     * @return true if both operands are numeric.
+     * @throws InterpreterRuntimeException if either operand is not numeric.
      */
-    private boolean checkDouble(Object leftVal, Object rightVal) {
-        if (!(leftVal instanceof Double && rightVal instanceof Double)) {
+    private boolean checkNumeric(long leftVal, long rightVal) {
+        if (!(Value.isNumber(leftVal) && Value.isNumber(rightVal))) {
             throw new InterpreterRuntimeException("Relational operations require numeric operands.");
         }
         return true;
     }
+
+    /**
+     * Returns the left and the right operand.
+     *
+     * @return a list containing both operands.
+     */
+    @Override
+    public List<Expression> getOperands() {
+        return List.of(left, right);
+    }
+
+    /**
+     * Returns the relational operator of this comparison.
+     *
+     * @return the token type of the operator.
+     */
+    public TokenType getOperator() {
+        return operator;
+    }
 }
@@ -21,17 +21,15 @@ public class StringExpression implements Expression {
     }
 
     /**
-     * Evaluates this string expression and returns the encapsulated string value.
-     * As this expression type holds a constant value, the evaluation simply returns
-     * this value, unaffected by the runtime environment.
+     * Evaluates this string expression and returns a reference to the encapsulated string value.
+     * As this expression type holds a constant value, the evaluation simply references
+     * this value in the environment's reference table.
      *
      * @param env the runtime environment in which this expression is evaluated.
-     *            This parameter is not used in this implementation because the
-     *            string expression is independent of the environment.
-     * @return the string value encapsulated by this string expression.
+     * @return a tagged reference to the string value encapsulated by this string expression.
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) {
-        return value;
+    public long evaluate(RuntimeEnvironment env) {
+        return env.reference(value);
     }
 }
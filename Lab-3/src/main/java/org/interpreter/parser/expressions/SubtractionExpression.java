@@ -1,11 +1,15 @@
 package org.interpreter.parser.expressions;
 
 import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.runtime.Arithmetic;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
 
 /**
  * Represents a subtraction expression in the interpreted language.
- * This class handles the subtraction of two expressions, which must both evaluate to numeric (Double) values.
+ * This class handles the subtraction of two expressions, which must both evaluate to numeric values.
  * It ensures that both operands are numeric and performs the subtraction operation.
  */
 public class SubtractionExpression implements Expression {
@@ -28,19 +32,29 @@ public class SubtractionExpression implements Expression {
      * Both operands are evaluated to numeric values, and the subtraction is performed.
      *
      * @param env the runtime environment in which variable values and functions are defined.
-     * @return the result of the subtraction as a Double.
-     * @throws InterpreterRuntimeException if either operand is not a Double, indicating
+     * @return the result of the subtraction, as an integer if it is integral and representable, otherwise as a double.
+     * @throws InterpreterRuntimeException if either operand is not numeric, indicating
      * that one or both operands are non-numeric, which is unsupported for subtraction.
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) {
-        Object leftVal = left.evaluate(env);
-        Object rightVal = right.evaluate(env);
+    public long evaluate(RuntimeEnvironment env) {
+        long leftVal = left.evaluate(env);
+        long rightVal = right.evaluate(env);
 
-        if (!(leftVal instanceof Double && rightVal instanceof Double)) {
+        if (!(Value.isNumber(leftVal) && Value.isNumber(rightVal))) {
             throw new InterpreterRuntimeException("Subtraction of non-numeric types is not supported.");
         }
 
-        return (Double) leftVal - (Double) rightVal;
+        return Arithmetic.subtract(leftVal, rightVal);
+    }
+
+    /**
+     * Returns the left and the right operand.
+     *
+     * @return a list containing both operands.
+     */
+    @Override
+    public List<Expression> getOperands() {
+        return List.of(left, right);
     }
 }
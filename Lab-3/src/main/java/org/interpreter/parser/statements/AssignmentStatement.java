@@ -3,6 +3,8 @@ package org.interpreter.parser.statements;
 import org.interpreter.parser.expressions.Expression;
 import org.interpreter.runtime.RuntimeEnvironment;
 
+import java.util.List;
+
 /**
  * Represents an assignment statement in the interpreted language. This statement
  * assigns the result of an expression to a specified variable within the runtime environment.
@@ -11,18 +13,39 @@ import org.interpreter.runtime.RuntimeEnvironment;
  */
 public class AssignmentStatement implements Statement {
     private final String variableName;
+    private final int slot;
     private final Expression expression;
+    private final int lineNumber;
 
     /**
      * Constructs an AssignmentStatement with a specific variable name and an associated expression.
      * The value evaluated from the expression will be assigned to the variable in the runtime environment.
      *
      * @param variableName the name of the variable that will receive the value of the evaluated expression
+     * @param slot the slot of the variable in the runtime environment
      * @param expression the expression to evaluate and assign to the variable
+     * @param lineNumber the source line on which the statement starts
      */
-    public AssignmentStatement(String variableName, Expression expression) {
+    public AssignmentStatement(String variableName, int slot, Expression expression, int lineNumber) {
         this.variableName = variableName;
+        this.slot = slot;
         this.expression = expression;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return slot;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return List.of(expression);
     }
 
     /**
@@ -34,7 +57,7 @@ public class AssignmentStatement implements Statement {
      */
     @Override
     public void execute(RuntimeEnvironment env) {
-        Object value = expression.evaluate(env);
-        env.setVariable(variableName, value);
+        long value = expression.evaluate(env);
+        env.store(slot, value);
     }
 }
@@ -0,0 +1,68 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.parser.expressions.Expression;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
+
+/**
+ * Represents a CHANNEL statement, which declares a channel with a capacity, for example
+ * {@code CHANNEL Jobs, 64}. Without a capacity, or with a capacity of 0, the channel is unbounded. A
+ * channel that is used without being declared is unbounded as well, and declaring a channel again has
+ * no effect as long as the capacity is the same.
+ *
+ * @see org.interpreter.runtime.Channel
+ */
+public class ChannelStatement implements Statement {
+    private final String channelName;
+    private final int channelSlot;
+    private final Expression capacity;
+    private final int lineNumber;
+
+    /**
+     * Constructs a ChannelStatement for a channel and its capacity.
+     *
+     * @param channelName the name of the channel
+     * @param channelSlot the slot of the channel in the channel registry
+     * @param capacity the expression for the capacity, or null for an unbounded channel
+     * @param lineNumber the source line on which the statement starts
+     */
+    public ChannelStatement(String channelName, int channelSlot, Expression capacity, int lineNumber) {
+        this.channelName = channelName;
+        this.channelSlot = channelSlot;
+        this.capacity = capacity;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return capacity == null ? List.of() : List.of(capacity);
+    }
+
+    /**
+     * Creates the channel, unless it exists already.
+     *
+     * @param env the runtime environment holding the channel registry
+     * @throws InterpreterRuntimeException if the capacity is not a non-negative number, or the channel exists
+     *                                     with another capacity
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        int size = 0;
+        if (capacity != null) {
+            long value = capacity.evaluate(env);
+            if (!Value.isNumber(value) || Value.asLong(value) > Integer.MAX_VALUE) {
+                throw new InterpreterRuntimeException(String.format("Capacity of channel '%s' must be a number.", channelName));
+            }
+            size = (int) Value.asLong(value);
+        }
+        env.getChannels().declare(channelSlot, size);
+    }
+}
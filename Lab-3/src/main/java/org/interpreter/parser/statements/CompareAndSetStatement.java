@@ -0,0 +1,92 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.parser.expressions.Expression;
+import org.interpreter.runtime.Arithmetic;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
+
+/**
+ * Represents a CAS statement, which assigns a value to a variable only if the variable holds an expected
+ * value, and records whether it did, for example {@code CAS Owner, 0, Id, OK}. Values are compared as the
+ * = operator compares them. On a variable declared with GLOBAL the comparison and the assignment are a
+ * single atomic step, so of several tasks that try to update the same value only one succeeds.
+ */
+public class CompareAndSetStatement implements Statement {
+    private final String variableName;
+    private final int slot;
+    private final boolean global;
+    private final Expression expected;
+    private final Expression update;
+    private final int resultSlot;
+    private final int lineNumber;
+
+    /**
+     * Constructs a CompareAndSetStatement for a variable, the value it must hold and the value to assign.
+     *
+     * @param variableName the name of the variable
+     * @param slot the slot of the variable in the runtime environment, or in the store of global variables
+     * @param global whether the variable was declared with GLOBAL
+     * @param expected the expression for the value the variable must hold
+     * @param update the expression for the value to assign
+     * @param resultSlot the slot of the variable that receives whether the value was assigned
+     * @param lineNumber the source line on which the statement starts
+     */
+    public CompareAndSetStatement(String variableName, int slot, boolean global, Expression expected, Expression update,
+                                  int resultSlot, int lineNumber) {
+        this.variableName = variableName;
+        this.slot = slot;
+        this.global = global;
+        this.expected = expected;
+        this.update = update;
+        this.resultSlot = resultSlot;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return resultSlot;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return List.of(expected, update);
+    }
+
+    /**
+     * Returns the name of the variable this statement updates.
+     *
+     * @return the variable name
+     */
+    public String getVariableName() {
+        return variableName;
+    }
+
+    /**
+     * Evaluates both values, assigns the new value if the variable holds the expected one, and stores
+     * the outcome in the result variable.
+     *
+     * @param env the runtime environment holding the variables
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        long expectedValue = expected.evaluate(env);
+        long updateValue = update.evaluate(env);
+        boolean updated;
+        if (global) {
+            updated = env.getGlobals().compareAndSet(slot, expectedValue, updateValue, env);
+        } else {
+            updated = Arithmetic.areEqual(env, env.load(slot), expectedValue);
+            if (updated) {
+                env.store(slot, updateValue);
+            }
+        }
+        env.store(resultSlot, Value.ofBoolean(updated));
+    }
+}
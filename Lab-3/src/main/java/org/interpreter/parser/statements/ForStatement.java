@@ -1,6 +1,8 @@
 package org.interpreter.parser.statements;
 
+import org.interpreter.exceptions.InterpreterRuntimeException;
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
 import org.interpreter.parser.expressions.Expression;
 import java.util.List;
 
@@ -13,43 +15,125 @@ import java.util.List;
  */
 public class ForStatement implements Statement {
     private final String variableName;
+    private final int slot;
     private final Expression startExpression;
     private final Expression endExpression;
     private final List<Statement> body;
+    private final int lineNumber;
 
     /**
      * Constructs a ForStatement with specified control expressions and a block of statements.
      *
      * @param variableName the name of the loop control variable.
+     * @param slot the slot of the loop control variable in the runtime environment.
      * @param startExpression the expression that determines the starting value of the loop.
      * @param endExpression the expression that determines the ending value of the loop.
      * @param body a list of statements that form the body of the loop, to be executed in each iteration.
+     * @param lineNumber the source line on which the statement starts.
      */
-    public ForStatement(String variableName, Expression startExpression, Expression endExpression, List<Statement> body) {
+    public ForStatement(String variableName, int slot, Expression startExpression, Expression endExpression, List<Statement> body, int lineNumber) {
         this.variableName = variableName;
+        this.slot = slot;
         this.startExpression = startExpression;
         this.endExpression = endExpression;
         this.body = body;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return slot;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return List.of(startExpression, endExpression);
+    }
+
+    /**
+     * Returns the name of the loop control variable.
+     *
+     * @return the variable name.
+     */
+    public String getVariableName() {
+        return variableName;
+    }
+
+    /**
+     * Returns the expression for the first value of the loop variable.
+     *
+     * @return the start expression.
+     */
+    public Expression getStartExpression() {
+        return startExpression;
+    }
+
+    /**
+     * Returns the expression for the last value of the loop variable.
+     *
+     * @return the end expression.
+     */
+    public Expression getEndExpression() {
+        return endExpression;
+    }
+
+    /**
+     * Returns the statements executed for each value of the loop variable.
+     *
+     * @return the loop body.
+     */
+    public List<Statement> getBody() {
+        return body;
     }
 
     /**
      * Executes the for loop within the given runtime environment.
      * The method evaluates both the start and end expressions to determine the loop's range,
-     * sets the loop variable to each integer value in the range, and executes the loop body for each value.
-     * The loop variable's value is updated in the environment at the start of each iteration.
+     * assigns the start value to the loop variable, and pushes a loop frame that executes the body
+     * for each integer value in the range. The counter is kept as a {@code long}, so the loop variable
+     * stays on the integral representation. The loop variable's value is updated in the environment
+     * at the start of each iteration.
      *
      * @param env the runtime environment in which the loop variable and body are executed.
+     * @throws InterpreterRuntimeException if either bound is not numeric.
      */
     @Override
     public void execute(RuntimeEnvironment env) {
-        int start = ((Double) startExpression.evaluate(env)).intValue();
-        int end = ((Double) endExpression.evaluate(env)).intValue();
-
-        for (int i = start; i <= end; i++) {
-            env.setVariable(variableName, (double) i);
-            for (Statement stmt : body) {
-                stmt.execute(env);
-            }
+        long start = ensureNumeric(startExpression.evaluate(env));
+        long end = ensureNumeric(endExpression.evaluate(env));
+
+        if (start <= end) {
+            env.store(slot, Value.ofInteger(start));
+            env.getCallStack().pushLoop(body, slot, start, end);
+        }
+    }
+
+    /**
+     * Returns the body of the loop as the only nested block.
+     *
+     * @return a list containing the loop body.
+     */
+    @Override
+    public List<List<Statement>> getBlocks() {
+        return List.of(body);
+    }
+
+    /**
+     * Ensures that a loop bound is numeric and converts it to a long, truncating any fractional part.
+     *
+     * @param value the tagged value of the bound.
+     * @return the bound as a long.
+     * @throws InterpreterRuntimeException if the value is not numeric.
+     */
+    private long ensureNumeric(long value) {
+        if (!Value.isNumber(value)) {
+            throw new InterpreterRuntimeException(String.format("FOR loop bounds of '%s' must be numeric.", variableName));
         }
+        return Value.asLong(value);
     }
 }
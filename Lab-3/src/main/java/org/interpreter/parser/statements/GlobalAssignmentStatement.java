@@ -0,0 +1,63 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.parser.expressions.Expression;
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.util.List;
+
+/**
+ * Represents an assignment to a variable declared with GLOBAL. The value is written to the
+ * {@link org.interpreter.runtime.SharedGlobals} of the environment, where every task and parallel worker
+ * sees it. The assignment itself is atomic, but reading a global and assigning it in two statements is not:
+ * use INCREMENT or CAS to update a global that other threads update as well.
+ */
+public class GlobalAssignmentStatement implements Statement {
+    private final String variableName;
+    private final int slot;
+    private final Expression expression;
+    private final int lineNumber;
+
+    /**
+     * Constructs a GlobalAssignmentStatement with a global variable and the expression assigned to it.
+     *
+     * @param variableName the name of the global variable
+     * @param slot the slot of the variable in the store of global variables
+     * @param expression the expression to evaluate and assign to the variable
+     * @param lineNumber the source line on which the statement starts
+     */
+    public GlobalAssignmentStatement(String variableName, int slot, Expression expression, int lineNumber) {
+        this.variableName = variableName;
+        this.slot = slot;
+        this.expression = expression;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return List.of(expression);
+    }
+
+    /**
+     * Returns the name of the assigned global variable.
+     *
+     * @return the variable name
+     */
+    public String getVariableName() {
+        return variableName;
+    }
+
+    /**
+     * Evaluates the expression and assigns its result to the global variable.
+     *
+     * @param env the runtime environment whose global variables are updated
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        env.getGlobals().store(slot, expression.evaluate(env), env);
+    }
+}
@@ -0,0 +1,47 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.util.List;
+
+/**
+ * Represents a GLOBAL declaration, such as {@code GLOBAL Hits, Total}, which makes variables shared by
+ * every task and parallel worker of the program instead of copied into each of them. The declaration
+ * takes effect while the program is parsed: the parser collects the declarations together with the labels,
+ * so a declaration applies to the main program and to the labeled blocks that follow it in the source.
+ * Executing the statement has no effect.
+ */
+public class GlobalStatement implements Statement {
+    private final List<String> variableNames;
+    private final int lineNumber;
+
+    /**
+     * Constructs a GlobalStatement for the declared variables.
+     *
+     * @param variableNames the names of the declared variables
+     * @param lineNumber the source line on which the statement starts
+     */
+    public GlobalStatement(List<String> variableNames, int lineNumber) {
+        this.variableNames = List.copyOf(variableNames);
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the names of the declared variables.
+     *
+     * @return an unmodifiable list of the names
+     */
+    public List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        // Declarations are resolved by the parser
+    }
+}
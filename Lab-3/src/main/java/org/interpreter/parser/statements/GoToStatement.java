@@ -8,9 +8,14 @@ import java.util.List;
  * unconditional jumps to a specified label within the program.
  * This control flow statement is used to redirect execution to another part
  * of the program based on a predefined label.
+ *
+ * <p>The linker binds each statement to the block of its label once the program is parsed,
+ * so executing the jump does not look the label up again.</p>
  */
 public class GoToStatement implements Statement {
     private final String label;
+    private final int lineNumber;
+    private List<Statement> target;
 
     /**
      * Constructs a GoToStatement that targets a specific label.
@@ -18,28 +23,62 @@ public class GoToStatement implements Statement {
      * @param label the label to which control should jump.
      *              This label corresponds to a predefined location in the program
      *              where a block of statements is defined.
+     * @param lineNumber the source line on which the statement starts
      */
-    public GoToStatement(String label) {
+    public GoToStatement(String label, int lineNumber) {
         this.label = label;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the label this statement jumps to.
+     *
+     * @return the target label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Binds this statement to the block of statements associated with its label.
+     *
+     * @param target the block of statements to jump to
+     */
+    public void link(List<Statement> target) {
+        this.target = target;
+    }
+
+    /**
+     * Checks whether this statement has been bound to its target block.
+     *
+     * @return true if the statement has been linked
+     */
+    public boolean isLinked() {
+        return target != null;
     }
 
     /**
      * Executes the goto statement within the given runtime environment by jumping
      * to the block of statements associated with the specified label.
-     * It retrieves the list of statements corresponding to the label from the
-     * runtime environment and executes them sequentially.
+     * It uses the block bound by the linker, or retrieves it from the runtime environment
+     * if the statement has not been linked, and pushes a call frame for it, so that
+     * execution returns to the statement after this one once the block completes.
      *
      * @param env the runtime environment in which the current program execution state is maintained.
      *            This environment is used to retrieve and execute the labeled block of statements.
      */
     @Override
     public void execute(RuntimeEnvironment env) {
-        // Retrieves the block of statements associated with the label
-        List<Statement> statementList = env.goToLabel(label);
+        // Uses the linked block, falling back to a lookup for unlinked statements
+        List<Statement> statementList = target != null ? target : env.goToLabel(label);
 
-        // Executes each statement in the retrieved list
-        for (Statement stmt : statementList) {
-            stmt.execute(env);
-        }
+        // Calls the block; the current frame keeps the return address
+        env.getCallStack().pushCall(label, statementList);
+        env.getMetrics().subroutineCalled();
     }
 }
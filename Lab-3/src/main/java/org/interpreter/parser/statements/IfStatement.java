@@ -1,6 +1,7 @@
 package org.interpreter.parser.statements;
 
 import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
 import org.interpreter.parser.expressions.Expression;
 import java.util.List;
 
@@ -14,6 +15,7 @@ public class IfStatement implements Statement {
     private final Expression condition;
     private final List<Statement> trueBranch;
     private final List<Statement> falseBranch;
+    private final int lineNumber;
 
     /**
      * Constructs an IfStatement with a condition and branches for both the true and false outcomes.
@@ -21,31 +23,62 @@ public class IfStatement implements Statement {
      * @param condition the condition expression that determines which branch of the statement is executed
      * @param trueBranch a list of statements to be executed if the condition evaluates to true
      * @param falseBranch a list of statements to be executed if the condition evaluates to false, may be null if no false branch is specified
+     * @param lineNumber the source line on which the statement starts
      */
-    public IfStatement(Expression condition, List<Statement> trueBranch, List<Statement> falseBranch) {
+    public IfStatement(Expression condition, List<Statement> trueBranch, List<Statement> falseBranch, int lineNumber) {
         this.condition = condition;
         this.trueBranch = trueBranch;
         this.falseBranch = falseBranch;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return List.of(condition);
     }
 
     /**
-     * Executes the appropriate block of statements based on the evaluation result of the condition.
-     * This method first evaluates the condition; if true, it executes the true branch; if false, it executes the false branch, if one exists.
+     * Schedules the appropriate block of statements based on the evaluation result of the condition.
+     * This method first evaluates the condition; if true, it pushes the true branch onto the call stack;
+     * if false, it pushes the false branch, if one exists.
      *
      * @param env the runtime environment in which the condition and the statement branches are executed
      */
     @Override
     public void execute(RuntimeEnvironment env) {
-        Object result = condition.evaluate(env);
-        // Ensure the result is a Boolean before attempting to cast
-        if (result instanceof Boolean && (Boolean) result) {
-            for (Statement stmt : trueBranch) {
-                stmt.execute(env);
-            }
+        long result = condition.evaluate(env);
+        // Only a boolean true selects the true branch
+        if (result == Value.TRUE) {
+            schedule(env, trueBranch);
         } else if (falseBranch != null) {
-            for (Statement stmt : falseBranch) {
-                stmt.execute(env);
-            }
+            schedule(env, falseBranch);
+        }
+    }
+
+    /**
+     * Returns the branches of the conditional as nested blocks.
+     *
+     * @return a list containing the true branch and, if present, the false branch
+     */
+    @Override
+    public List<List<Statement>> getBlocks() {
+        return falseBranch == null ? List.of(trueBranch) : List.of(trueBranch, falseBranch);
+    }
+
+    /**
+     * Pushes a branch onto the call stack, unless it has no statements.
+     *
+     * @param env the runtime environment whose call stack executes the branch
+     * @param branch the statements of the branch
+     */
+    private void schedule(RuntimeEnvironment env, List<Statement> branch) {
+        if (!branch.isEmpty()) {
+            env.getCallStack().pushBlock(branch);
         }
     }
 }
@@ -0,0 +1,86 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.parser.expressions.Expression;
+import org.interpreter.runtime.Arithmetic;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
+
+/**
+ * Represents an INCREMENT statement, which adds a number to a numeric variable, for example
+ * {@code INCREMENT Hits} or {@code INCREMENT Total BY N}. On a variable declared with GLOBAL the addition
+ * is atomic, so tasks and parallel workers can count into the same variable without losing updates.
+ */
+public class IncrementStatement implements Statement {
+    private final String variableName;
+    private final int slot;
+    private final boolean global;
+    private final Expression step;
+    private final int lineNumber;
+
+    /**
+     * Constructs an IncrementStatement for a variable and the step added to it.
+     *
+     * @param variableName the name of the variable
+     * @param slot the slot of the variable in the runtime environment, or in the store of global variables
+     * @param global whether the variable was declared with GLOBAL
+     * @param step the expression for the number to add
+     * @param lineNumber the source line on which the statement starts
+     */
+    public IncrementStatement(String variableName, int slot, boolean global, Expression step, int lineNumber) {
+        this.variableName = variableName;
+        this.slot = slot;
+        this.global = global;
+        this.step = step;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return global ? -1 : slot;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return List.of(step);
+    }
+
+    /**
+     * Returns the name of the incremented variable.
+     *
+     * @return the variable name
+     */
+    public String getVariableName() {
+        return variableName;
+    }
+
+    /**
+     * Adds the step to the variable.
+     *
+     * @param env the runtime environment holding the variable
+     * @throws InterpreterRuntimeException if the step or the variable is not numeric
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        long delta = step.evaluate(env);
+        if (!Value.isNumber(delta)) {
+            throw new InterpreterRuntimeException(String.format("INCREMENT step of '%s' must be numeric.", variableName));
+        }
+        if (global) {
+            env.getGlobals().add(slot, delta);
+            return;
+        }
+        long current = env.load(slot);
+        if (!Value.isNumber(current)) {
+            throw new InterpreterRuntimeException(String.format("Variable '%s' does not hold a number.", variableName));
+        }
+        env.store(slot, Arithmetic.add(current, delta));
+    }
+}
@@ -1,8 +1,8 @@
 package org.interpreter.parser.statements;
 
+import org.interpreter.events.InputEvent;
 import org.interpreter.exceptions.InterpreterRuntimeException;
 import org.interpreter.runtime.RuntimeEnvironment;
-import java.util.Scanner;
 
 /**
  * Represents an input statement in the interpreted language that prompts the user for input
@@ -12,6 +12,8 @@ import java.util.Scanner;
 public class InputStatement implements Statement {
     private final String prompt;
     private final String variableName;
+    private final int slot;
+    private final int lineNumber;
 
     /**
      * Constructs an InputStatement with a user prompt and the name of the variable where
@@ -19,36 +21,60 @@ public class InputStatement implements Statement {
      *
      * @param prompt the text displayed to the user as a prompt for input. Can be {@code null} if no prompt is needed.
      * @param variableName the name of the variable in the runtime environment that will store the user's input.
+     * @param slot the slot of the variable in the runtime environment.
+     * @param lineNumber the source line on which the statement starts.
      */
-    public InputStatement(String prompt, String variableName) {
+    public InputStatement(String prompt, String variableName, int slot, int lineNumber) {
         this.prompt = prompt;
         this.variableName = variableName;
+        this.slot = slot;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return slot;
     }
 
     /**
      * Executes this input statement by prompting the user for input and storing the input into a variable.
-     * The input is expected to be numeric (double), and an exception is thrown if the input cannot be parsed to a double.
+     * The input is expected to be numeric, and an exception is thrown if the input cannot be parsed to a number.
+     * Integral input is stored as an integer, any other number as a double. A program that suspends on input
+     * is suspended instead, and the variable is assigned when the program is resumed with the input.
      *
      * @param env the runtime environment in which the variable is stored.
-     * @throws InterpreterRuntimeException if the input is not a valid double.
+     * @throws InterpreterRuntimeException if the input is not a valid number.
      */
     @Override
     public void execute(RuntimeEnvironment env) {
         // Optionally display a prompt if it's provided
         if (prompt != null) {
-            System.out.print(prompt);
+            env.print(prompt);
         }
 
-        // Read the input from the user
-        Scanner scanner = new Scanner(System.in);
-        String input = scanner.nextLine();
+        // A program run by an engine gives up its thread until the host provides the input
+        if (env.isSuspendingOnInput()) {
+            env.awaitInput(slot, lineNumber);
+        }
 
-        // Attempt to convert the user input into a double and store it in the specified variable
-        try {
-            double value = Double.parseDouble(input);
-            env.setVariable(variableName, value);
-        } catch (NumberFormatException e) {
-            throw new InterpreterRuntimeException("Invalid input for a number: " + input);
+        // Read the input from the user, recording the wait for the metrics and the flight recorder
+        InputEvent event = new InputEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String input = env.readLine();
+        env.getMetrics().inputWaited(System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.variable = variableName;
+            event.line = lineNumber;
+            event.commit();
         }
+
+        // Attempt to convert the user input into a number and store it in the specified variable
+        env.assignInput(slot, input);
     }
 }
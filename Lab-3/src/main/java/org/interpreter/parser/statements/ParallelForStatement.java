@@ -0,0 +1,333 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.exceptions.CallStackOverflowException;
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.exceptions.QuotaExceededException;
+import org.interpreter.exceptions.TaskCancelledException;
+import org.interpreter.parser.expressions.Expression;
+import org.interpreter.runtime.Quota;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Represents a PARALLEL FOR loop, whose iterations are independent of each other and may run at the
+ * same time. The range is split into at most {@value #MAX_CHUNKS} consecutive chunks, which the
+ * environment's {@link java.util.concurrent.ForkJoinPool} executes, each in a {@link RuntimeEnvironment#fork()}
+ * of its own.
+ *
+ * <p>A worker sees the variables as they were when the loop started, and its assignments are private to
+ * its chunk, except for the reduction variables listed after REDUCE: their partial results are combined
+ * in the order of the chunks, for example {@code PARALLEL FOR I = 1 TO N REDUCE SUM S, MAX M}. The chunks
+ * depend only on the range, so the result is the same for every parallelism level and every schedule,
+ * although a SUM of fractional numbers may round differently than a sequential loop. After the loop, the
+ * loop variable holds the last value of the range, as it does after a FOR loop.</p>
+ *
+ * <p>The iterations are executed as plain blocks, so GOSUB can be used in the body, while the profilers
+ * and the execution trace, which are not thread-safe, must not be enabled for a program with parallel loops.
+ * If iterations fail, the exception of the earliest failing chunk is rethrown.</p>
+ *
+ * <p>The {@link org.interpreter.analysis.LoopParallelizer} also replaces FOR loops it proved independent
+ * with automatic parallel loops, which must behave exactly like the loop they replace. Such a loop runs
+ * sequentially, as a FOR loop, if it has fewer iterations than its threshold, if the pool has a single
+ * thread, or if a reduction variable does not hold a value it can be reduced exactly from. Otherwise its
+ * chunks run speculatively: their work is discarded and the loop is run sequentially if a chunk fails or
+ * a SUM is not exact, so errors are reported by the iteration that raises them. Once that happens, the loop
+ * keeps running sequentially every time it is executed, rather than repeating the wasted work. A chunk that exceeds a
+ * limit of the run, such as its quota or its call depth, or that is cancelled or interrupted, stops the
+ * run instead, since running the loop again would only repeat the work it was stopped for.</p>
+ */
+public class ParallelForStatement implements Statement {
+    /** The maximum number of chunks the range of a loop is split into. */
+    public static final int MAX_CHUNKS = 64;
+
+    private final String variableName;
+    private final int slot;
+    private final Expression startExpression;
+    private final Expression endExpression;
+    private final List<Reduction> reductions;
+    private final List<Statement> body;
+    private final int lineNumber;
+    private final boolean automatic;
+    private final long minIterations;
+    private volatile boolean sequentialOnly;
+
+    /**
+     * Constructs a ParallelForStatement with the loop variable, the range, the reductions and the body of the loop.
+     *
+     * @param variableName the name of the loop control variable.
+     * @param slot the slot of the loop control variable in the runtime environment.
+     * @param startExpression the expression for the first value of the loop variable.
+     * @param endExpression the expression for the last value of the loop variable.
+     * @param reductions the variables whose partial results are combined after the loop.
+     * @param body the statements executed for each value of the loop variable.
+     * @param lineNumber the source line on which the statement starts.
+     */
+    public ParallelForStatement(String variableName, int slot, Expression startExpression, Expression endExpression,
+                                List<Reduction> reductions, List<Statement> body, int lineNumber) {
+        this.variableName = variableName;
+        this.slot = slot;
+        this.startExpression = startExpression;
+        this.endExpression = endExpression;
+        this.reductions = List.copyOf(reductions);
+        this.body = body;
+        this.lineNumber = lineNumber;
+        this.automatic = false;
+        this.minIterations = 1;
+    }
+
+    /**
+     * Constructs an automatic parallel loop that replaces a FOR loop whose iterations are independent.
+     *
+     * @param loop the FOR loop to replace; its body is shared with the new statement.
+     * @param slot the slot of the loop control variable in the runtime environment.
+     * @param reductions the variables the body reduces.
+     * @param minIterations the number of iterations below which the loop runs sequentially.
+     */
+    public ParallelForStatement(ForStatement loop, int slot, List<Reduction> reductions, long minIterations) {
+        this.variableName = loop.getVariableName();
+        this.slot = slot;
+        this.startExpression = loop.getStartExpression();
+        this.endExpression = loop.getEndExpression();
+        this.reductions = List.copyOf(reductions);
+        this.body = loop.getBody();
+        this.lineNumber = loop.getLineNumber();
+        this.automatic = true;
+        this.minIterations = Math.max(1, minIterations);
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return slot;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return List.of(startExpression, endExpression);
+    }
+
+    /**
+     * Returns the variables the loop reduces.
+     *
+     * @return an unmodifiable list of the reductions.
+     */
+    public List<Reduction> getReductions() {
+        return reductions;
+    }
+
+    /**
+     * Returns whether this loop was parallelized automatically and must behave like a sequential loop.
+     *
+     * @return true for a loop created by the loop parallelizer.
+     */
+    public boolean isAutomatic() {
+        return automatic;
+    }
+
+    /**
+     * Returns the number of iterations from which an automatic loop runs in parallel.
+     *
+     * @return the threshold, or 1 for a PARALLEL FOR loop.
+     */
+    public long getMinIterations() {
+        return minIterations;
+    }
+
+    /**
+     * Returns whether an automatic loop has fallen back to running sequentially for good, because a
+     * speculative run of its chunks failed or its SUM was not exact.
+     *
+     * @return true if the loop no longer runs in parallel.
+     */
+    public boolean isSequentialOnly() {
+        return sequentialOnly;
+    }
+
+    /**
+     * Executes the loop. The chunks are forked on the calling thread, so that every worker starts from the
+     * same variables, and this method returns once every chunk has completed and the reductions are combined.
+     * An automatic loop that does not run in parallel pushes a loop frame, as a FOR loop does.
+     *
+     * @param env the runtime environment of the loop.
+     * @throws InterpreterRuntimeException if either bound is not numeric, a reduction finds a value it cannot
+     *                                     combine, or the thread is interrupted while it waits for the workers.
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        long start = ensureNumeric(startExpression.evaluate(env));
+        long end = ensureNumeric(endExpression.evaluate(env));
+        if (start > end) {
+            return;
+        }
+
+        long iterations = end - start + 1;
+        List<Reduction> active = automatic ? resolve(env, iterations) : reductions;
+        if (active == null) {
+            executeSequentially(env, start, end);
+            return;
+        }
+
+        Object[][] partials;
+        try {
+            partials = executeChunks(env, active, start, iterations);
+        } catch (RuntimeException e) {
+            if (!automatic || stopsRun(e)) {
+                throw e;
+            }
+            sequentialOnly = true;
+            executeSequentially(env, start, end);
+            return;
+        }
+        for (int i = 0; automatic && i < active.size(); i++) {
+            if (!active.get(i).isExact(env, partials[i])) {
+                sequentialOnly = true;
+                executeSequentially(env, start, end);
+                return;
+            }
+        }
+
+        for (int i = 0; i < active.size(); i++) {
+            active.get(i).combine(env, partials[i]);
+        }
+        env.store(slot, Value.ofInteger(end));
+    }
+
+    /**
+     * Returns the body of the loop as the only nested block.
+     *
+     * @return a list containing the loop body.
+     */
+    @Override
+    public List<List<Statement>> getBlocks() {
+        return List.of(body);
+    }
+
+    /**
+     * Resolves the reductions of an automatic loop, or returns null if the loop should run sequentially.
+     */
+    private List<Reduction> resolve(RuntimeEnvironment env, long iterations) {
+        if (sequentialOnly || iterations < minIterations || env.getPool().getParallelism() <= 1) {
+            return null;
+        }
+        List<Reduction> resolved = new ArrayList<>(reductions.size());
+        for (Reduction reduction : reductions) {
+            Reduction exact = reduction.resolve(env);
+            if (exact == null) {
+                return null;
+            }
+            resolved.add(exact);
+        }
+        return resolved;
+    }
+
+    /**
+     * Runs the loop on the call stack of the environment, exactly like a FOR loop.
+     */
+    private void executeSequentially(RuntimeEnvironment env, long start, long end) {
+        env.store(slot, Value.ofInteger(start));
+        env.getCallStack().pushLoop(body, slot, start, end);
+    }
+
+    /**
+     * Splits the range into chunks, executes them in the pool of the environment and returns the partial
+     * results of every reduction, indexed by reduction and chunk.
+     */
+    private Object[][] executeChunks(RuntimeEnvironment env, List<Reduction> active, long start, long iterations) {
+        int chunks = (int) Math.min(iterations, MAX_CHUNKS);
+        List<Callable<Object[]>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            long first = start + iterations * chunk / chunks;
+            long last = start + iterations * (chunk + 1) / chunks - 1;
+            RuntimeEnvironment worker = env.fork();
+            tasks.add(() -> executeChunk(worker, active, first, last));
+        }
+
+        Object[][] partials = new Object[active.size()][chunks];
+        List<Future<Object[]>> results = env.getPool().invokeAll(tasks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            Object[] partial = join(results.get(chunk));
+            for (int i = 0; i < partial.length; i++) {
+                partials[i][chunk] = partial[i];
+            }
+        }
+        return partials;
+    }
+
+    /**
+     * Executes the iterations of a chunk in a worker environment and returns the partial results of the
+     * reductions, in the order of the reductions.
+     */
+    private Object[] executeChunk(RuntimeEnvironment worker, List<Reduction> active, long first, long last) {
+        for (Reduction reduction : active) {
+            reduction.initialize(worker);
+        }
+        Quota quota = worker.getQuota();
+        boolean measured = quota != null && quota.enterWorker();
+        try {
+            worker.executeLoop(body, slot, first, last);
+            worker.getTasks().joinAll();
+        } finally {
+            if (measured) {
+                quota.leaveWorker();
+            }
+        }
+
+        Object[] partial = new Object[active.size()];
+        for (int i = 0; i < partial.length; i++) {
+            partial[i] = active.get(i).partial(worker);
+        }
+        return partial;
+    }
+
+    /**
+     * Returns whether a failed chunk stops the run, rather than leaving it to the sequential loop to report
+     * the error at the iteration that raises it.
+     */
+    private static boolean stopsRun(RuntimeException e) {
+        return e instanceof QuotaExceededException || e instanceof TaskCancelledException
+                || e instanceof CallStackOverflowException || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Waits for a chunk and returns its partial results, rethrowing the exception it failed with.
+     */
+    private Object[] join(Future<Object[]> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterpreterRuntimeException(String.format("PARALLEL FOR loop of '%s' was interrupted.", variableName));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new InterpreterRuntimeException(e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Ensures that a loop bound is numeric and converts it to a long, truncating any fractional part.
+     *
+     * @param value the tagged value of the bound.
+     * @return the bound as a long.
+     * @throws InterpreterRuntimeException if the value is not numeric.
+     */
+    private long ensureNumeric(long value) {
+        if (!Value.isNumber(value)) {
+            throw new InterpreterRuntimeException(String.format("FOR loop bounds of '%s' must be numeric.", variableName));
+        }
+        return Value.asLong(value);
+    }
+}
@@ -2,6 +2,7 @@ package org.interpreter.parser.statements;
 
 import org.interpreter.parser.expressions.Expression;
 import org.interpreter.runtime.RuntimeEnvironment;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,6 +12,7 @@ import java.util.List;
  */
 public class PrintStatement implements Statement {
     private final List<Object> elements;
+    private final int lineNumber;
 
     /**
      * Constructs a PrintStatement with a list of elements to be printed. Each element
@@ -18,14 +20,32 @@ public class PrintStatement implements Statement {
      *
      * @param elements a list of elements ({@link Object}), where each element can be either
      *                 a {@link String} or an {@link Expression}.
+     * @param lineNumber the source line on which the statement starts.
      */
-    public PrintStatement(List<Object> elements) {
+    public PrintStatement(List<Object> elements, int lineNumber) {
         this.elements = elements;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        List<Expression> expressions = new ArrayList<>();
+        for (Object element : elements) {
+            if (element instanceof Expression expression) {
+                expressions.add(expression);
+            }
+        }
+        return expressions;
     }
 
     /**
      * Executes the print statement by evaluating any expressions and concatenating their results
-     * with any strings, then printing the final concatenated result to the console. This method
+     * with any strings, then printing the final concatenated result to the output of the environment. This method
      * handles both the evaluation of expressions and the direct printing of string literals.
      *
      * @param env the runtime environment where expressions are evaluated. It provides the necessary
@@ -38,12 +58,12 @@ public class PrintStatement implements Statement {
             if (element instanceof String) {
                 output.append(element);
             } else if (element instanceof Expression) {
-                Object result = ((Expression) element).evaluate(env);
-                output.append(result);
+                long result = ((Expression) element).evaluate(env);
+                output.append(env.toText(result));
             }
             output.append(" ");  // Add a space between elements for better readability
         }
         // Print the final output string, trimming to remove the last space
-        System.out.println(output.toString().trim());
+        env.printLine(output.toString().trim());
     }
 }
@@ -0,0 +1,75 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.runtime.Channel;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+/**
+ * Represents a RECEIVE or TRYRECEIVE statement, which takes the oldest value from a channel and assigns it
+ * to a variable. {@code RECEIVE Jobs, N} waits while the channel is empty. {@code TRYRECEIVE Jobs, N, OK}
+ * never waits: it assigns true to OK if a value was received, and false, leaving N unchanged, if the
+ * channel was empty.
+ */
+public class ReceiveStatement implements Statement {
+    private final String channelName;
+    private final int channelSlot;
+    private final int slot;
+    private final int resultSlot;
+    private final int lineNumber;
+
+    /**
+     * Constructs a ReceiveStatement for a channel and the variable that receives the value.
+     *
+     * @param channelName the name of the channel
+     * @param channelSlot the slot of the channel in the channel registry
+     * @param slot the slot of the variable that receives the value
+     * @param resultSlot the slot of the variable that receives whether a value was received, or -1 to wait
+     *                   until a value arrives
+     * @param lineNumber the source line on which the statement starts
+     */
+    public ReceiveStatement(String channelName, int channelSlot, int slot, int resultSlot, int lineNumber) {
+        this.channelName = channelName;
+        this.channelSlot = channelSlot;
+        this.slot = slot;
+        this.resultSlot = resultSlot;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return slot;
+    }
+
+    /**
+     * Receives a value from the channel and assigns it to the variable.
+     *
+     * @param env the runtime environment holding the variable
+     * @throws InterpreterRuntimeException if the thread is interrupted while it waits for a value
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        Channel channel = env.getChannels().get(channelSlot);
+        Object value;
+        if (resultSlot >= 0) {
+            value = channel.poll();
+            env.store(resultSlot, Value.ofBoolean(value != null));
+            if (value == null) {
+                return;
+            }
+        } else {
+            try {
+                value = channel.receive();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterpreterRuntimeException(String.format("RECEIVE from channel '%s' was interrupted.", channelName));
+            }
+        }
+        env.store(slot, env.toValue(value));
+    }
+}
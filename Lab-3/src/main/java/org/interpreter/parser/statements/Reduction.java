@@ -0,0 +1,171 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.runtime.Arithmetic;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+/**
+ * Describes how a parallel loop combines the values a variable takes in the workers that execute
+ * its iterations. Each worker starts the variable at the identity of the operator, and the partial
+ * results are combined with the value the variable had before the loop, in the order of the iterations.
+ *
+ * @param operator the operator that combines the partial results
+ * @param variableName the name of the reduced variable
+ * @param slot the slot of the reduced variable
+ */
+public record Reduction(Operator operator, String variableName, int slot) {
+
+    /**
+     * The operators a parallel loop can reduce a variable with.
+     */
+    public enum Operator {
+        /** Adds the partial results. */
+        SUM,
+
+        /** Keeps the smallest partial result. */
+        MIN,
+
+        /** Keeps the largest partial result. */
+        MAX,
+
+        /** Concatenates the partial results as text. */
+        CONCAT,
+
+        /**
+         * Adds numbers or concatenates text, like the + operator: the variable is reduced with SUM if it
+         * holds a number when the loop starts and with CONCAT if it holds text. Only the loop parallelizer
+         * uses this operator, so it cannot be written after REDUCE.
+         */
+        ADD;
+
+        /**
+         * Finds an operator that can be written after REDUCE by its name, ignoring case.
+         *
+         * @param name the name of the operator
+         * @return the operator, or null if there is none with the name
+         */
+        public static Operator fromString(String name) {
+            for (Operator operator : values()) {
+                if (operator != ADD && operator.name().equalsIgnoreCase(name)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Resolves the operator for the value the variable holds when a loop starts, for loops that must behave
+     * exactly like a sequential loop. ADD becomes SUM for a number and CONCAT for text, and SUM, MIN and MAX
+     * need a number.
+     *
+     * @param env the environment of the loop
+     * @return the reduction to perform, or null if the variable's value does not allow an exact reduction
+     */
+    public Reduction resolve(RuntimeEnvironment env) {
+        long initial = env.peek(slot);
+        if (Value.isNumber(initial)) {
+            return operator == Operator.ADD ? new Reduction(Operator.SUM, variableName, slot)
+                    : operator == Operator.CONCAT ? null : this;
+        } else if (Value.isReference(initial) && env.dereference(initial) instanceof CharSequence) {
+            return operator == Operator.ADD ? new Reduction(Operator.CONCAT, variableName, slot)
+                    : operator == Operator.CONCAT ? this : null;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether combining the partial results gives exactly the result of a sequential loop. This is
+     * the case for every operator except a SUM that involves fractional numbers or leaves the integer range,
+     * since adding doubles in a different order may round differently.
+     *
+     * @param env the environment of the loop
+     * @param partials the partial results of the workers, in the order of their iterations
+     * @return true if the combined result is exact
+     */
+    public boolean isExact(RuntimeEnvironment env, Object[] partials) {
+        if (operator != Operator.SUM) {
+            return true;
+        }
+        long result = env.peek(slot);
+        for (Object partial : partials) {
+            long value = (Long) partial;
+            if (!Value.isInteger(result) || !Value.isInteger(value)) {
+                return false;
+            }
+            result = Arithmetic.add(result, value);
+        }
+        return Value.isInteger(result);
+    }
+
+    /**
+     * Sets the variable of a worker to the identity of the operator: 0 for SUM and ADD, positive and negative
+     * infinity for MIN and MAX, and the empty string for CONCAT.
+     *
+     * @param worker the environment of the worker
+     */
+    public void initialize(RuntimeEnvironment worker) {
+        long identity = switch (operator) {
+            case SUM, ADD -> Value.ofInteger(0);
+            case MIN -> Value.ofDouble(Double.POSITIVE_INFINITY);
+            case MAX -> Value.ofDouble(Double.NEGATIVE_INFINITY);
+            case CONCAT -> worker.reference("");
+        };
+        worker.store(slot, identity);
+    }
+
+    /**
+     * Reads the partial result of a worker in a form that can be combined on another thread:
+     * a tagged number for the numeric operators and a string for CONCAT.
+     *
+     * @param worker the environment of the worker
+     * @return the partial result
+     * @throws InterpreterRuntimeException if a numeric operator finds a value that is not a number
+     */
+    public Object partial(RuntimeEnvironment worker) {
+        long value = worker.load(slot);
+        if (operator == Operator.CONCAT) {
+            return worker.toText(value);
+        } else if (!Value.isNumber(value)) {
+            throw new InterpreterRuntimeException(String.format("Reduction %s of '%s' needs a number.", operator, variableName));
+        }
+        return value;
+    }
+
+    /**
+     * Combines the partial results of the workers, in order, with the value the variable had before the
+     * loop, and assigns the result to the variable. A variable that was not assigned before the loop
+     * starts at the first partial result.
+     *
+     * @param env the environment of the loop
+     * @param partials the partial results of the workers, in the order of their iterations
+     * @throws InterpreterRuntimeException if a numeric operator finds a value that is not a number
+     */
+    public void combine(RuntimeEnvironment env, Object[] partials) {
+        long initial = env.peek(slot);
+        if (operator == Operator.CONCAT) {
+            StringBuilder text = new StringBuilder(initial == Value.UNDEFINED ? "" : env.toText(initial));
+            for (Object partial : partials) {
+                text.append((String) partial);
+            }
+            env.store(slot, env.reference(text.toString()));
+            return;
+        }
+
+        if (initial != Value.UNDEFINED && !Value.isNumber(initial)) {
+            throw new InterpreterRuntimeException(String.format("Reduction %s of '%s' needs a number.", operator, variableName));
+        }
+        long result = initial;
+        for (Object partial : partials) {
+            long value = (Long) partial;
+            result = result == Value.UNDEFINED ? value : switch (operator) {
+                case SUM, ADD -> Arithmetic.add(result, value);
+                case MIN -> Arithmetic.compare(value, result) < 0 ? value : result;
+                case MAX -> Arithmetic.compare(value, result) > 0 ? value : result;
+                case CONCAT -> throw new IllegalStateException();
+            };
+        }
+        env.store(slot, result);
+    }
+}
@@ -0,0 +1,77 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.parser.expressions.Expression;
+import org.interpreter.runtime.Channel;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.util.List;
+
+/**
+ * Represents a SEND or TRYSEND statement, which hands the value of an expression to a channel.
+ * {@code SEND Jobs, N} waits while a bounded channel is full. {@code TRYSEND Jobs, N, OK} never waits:
+ * it assigns true to OK if the value was sent and false if the channel was full.
+ */
+public class SendStatement implements Statement {
+    private final String channelName;
+    private final int channelSlot;
+    private final Expression expression;
+    private final int resultSlot;
+    private final int lineNumber;
+
+    /**
+     * Constructs a SendStatement for a channel and the value to send.
+     *
+     * @param channelName the name of the channel
+     * @param channelSlot the slot of the channel in the channel registry
+     * @param expression the expression whose value is sent
+     * @param resultSlot the slot of the variable that receives whether the value was sent, or -1 to wait
+     *                   until the value can be sent
+     * @param lineNumber the source line on which the statement starts
+     */
+    public SendStatement(String channelName, int channelSlot, Expression expression, int resultSlot, int lineNumber) {
+        this.channelName = channelName;
+        this.channelSlot = channelSlot;
+        this.expression = expression;
+        this.resultSlot = resultSlot;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return resultSlot;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return List.of(expression);
+    }
+
+    /**
+     * Sends the value of the expression, converted to a plain Java value, to the channel.
+     *
+     * @param env the runtime environment in which the expression is evaluated
+     * @throws InterpreterRuntimeException if the thread is interrupted while it waits for room in the channel
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        Object value = env.toObject(expression.evaluate(env));
+        Channel channel = env.getChannels().get(channelSlot);
+        if (resultSlot >= 0) {
+            env.store(resultSlot, Value.ofBoolean(channel.offer(value)));
+            return;
+        }
+        try {
+            channel.send(value);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterpreterRuntimeException(String.format("SEND to channel '%s' was interrupted.", channelName));
+        }
+    }
+}
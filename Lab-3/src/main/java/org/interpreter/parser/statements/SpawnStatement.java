@@ -0,0 +1,83 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.util.List;
+
+/**
+ * Represents a SPAWN statement, which starts the block of a label as a task that runs concurrently with
+ * the script, for example {@code SPAWN LoadA SHARE A, B}. The task works on a copy of the variables, so
+ * the script and the task do not see each other's assignments, except for the variables listed after
+ * SHARE: WAIT copies their values from the task back into the script once the task completes.
+ *
+ * <p>Like GOSUB, the statement is bound to the block of its label by the linker. The task is waited for
+ * by {@link WaitStatement}, or when the script ends, and it is cancelled if the script fails.</p>
+ *
+ * @see org.interpreter.runtime.TaskScope
+ */
+public class SpawnStatement implements Statement {
+    private final String label;
+    private final List<String> sharedNames;
+    private final int[] sharedSlots;
+    private final int lineNumber;
+    private List<Statement> target;
+
+    /**
+     * Constructs a SpawnStatement that starts the block of a label.
+     *
+     * @param label the label whose block the task executes
+     * @param sharedNames the names of the variables the task hands back to the script
+     * @param sharedSlots the slots of those variables in the runtime environment
+     * @param lineNumber the source line on which the statement starts
+     */
+    public SpawnStatement(String label, List<String> sharedNames, int[] sharedSlots, int lineNumber) {
+        this.label = label;
+        this.sharedNames = List.copyOf(sharedNames);
+        this.sharedSlots = sharedSlots.clone();
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the label whose block the task executes.
+     *
+     * @return the target label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the names of the variables the task hands back to the script.
+     *
+     * @return an unmodifiable list of the shared variables
+     */
+    public List<String> getSharedNames() {
+        return sharedNames;
+    }
+
+    /**
+     * Binds this statement to the block of statements associated with its label.
+     *
+     * @param target the block of statements the task executes
+     */
+    public void link(List<Statement> target) {
+        this.target = target;
+    }
+
+    /**
+     * Starts the task. It uses the block bound by the linker, or retrieves it from the runtime environment
+     * if the statement has not been linked.
+     *
+     * @param env the runtime environment that starts the task and receives its shared variables
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        List<Statement> block = target != null ? target : env.goToLabel(label);
+        env.getTasks().spawn(label, block, sharedSlots);
+    }
+}
@@ -1,7 +1,10 @@
 package org.interpreter.parser.statements;
 
+import org.interpreter.parser.expressions.Expression;
 import org.interpreter.runtime.RuntimeEnvironment;
 
+import java.util.List;
+
 /**
  * Represents a generic statement within the interpreted language.
  * This interface defines the fundamental behavior for all types of statements
@@ -9,6 +12,10 @@ import org.interpreter.runtime.RuntimeEnvironment;
  * runtime environment. Implementations of this interface are responsible for
  * defining specific execution behaviors for different kinds of statements,
  * such as assignment, loops, conditionals, etc.
+ *
+ * <p>Statements that contain nested blocks do not execute them directly. Instead they push a frame
+ * onto the environment's {@link org.interpreter.runtime.CallStack}, and the environment executes
+ * the frame's statements once the current statement returns.</p>
  */
 public interface Statement {
 
@@ -22,4 +29,45 @@ public interface Statement {
      *            the necessary context and state required for executing the statement.
      */
     void execute(RuntimeEnvironment env);
+
+    /**
+     * Returns the line of the source code on which this statement starts.
+     * Profilers and diagnostics use it to attribute execution to the program text.
+     *
+     * @return the 1-based source line of the statement.
+     */
+    int getLineNumber();
+
+    /**
+     * Returns the slot of the variable this statement assigns, such as the target of an assignment or
+     * the control variable of a loop. Diagnostics like the execution trace use it to show the values
+     * a program writes.
+     *
+     * @return the slot of the assigned variable, or -1 if the statement assigns no variable.
+     */
+    default int getWrittenSlot() {
+        return -1;
+    }
+
+    /**
+     * Returns the expressions this statement evaluates itself, not counting the ones in its nested blocks,
+     * such as the value of an assignment or the condition of an IF. Tools that analyze a program, like the
+     * loop parallelizer, use this method to find every variable a statement reads.
+     *
+     * @return the expressions of this statement, in the order they are evaluated, or an empty list if it has none.
+     */
+    default List<Expression> getExpressions() {
+        return List.of();
+    }
+
+    /**
+     * Returns the nested blocks of statements contained in this statement, such as the body of a loop
+     * or the branches of a conditional. Tools that walk the whole program, like the linker, use this
+     * method to reach every statement.
+     *
+     * @return the nested blocks of this statement, or an empty list if it has none.
+     */
+    default List<List<Statement>> getBlocks() {
+        return List.of();
+    }
 }
@@ -0,0 +1,49 @@
+package org.interpreter.parser.statements;
+
+import org.interpreter.runtime.RuntimeEnvironment;
+
+/**
+ * Represents a WAIT statement, which blocks until every task that SPAWN started for a label has
+ * completed, for example {@code WAIT LoadA}. The variables the tasks share are copied back into the
+ * script in the order the tasks were started, and if a task failed, its exception is rethrown here.
+ */
+public class WaitStatement implements Statement {
+    private final String label;
+    private final int lineNumber;
+
+    /**
+     * Constructs a WaitStatement for the tasks of a label.
+     *
+     * @param label the label of the tasks to wait for
+     * @param lineNumber the source line on which the statement starts
+     */
+    public WaitStatement(String label, int lineNumber) {
+        this.label = label;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the label of the tasks this statement waits for.
+     *
+     * @return the label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Waits for the tasks of the label. Waiting for a label without running tasks has no effect.
+     *
+     * @param env the runtime environment that started the tasks
+     * @throws RuntimeException the exception the first failing task failed with
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        env.getTasks().join(label);
+    }
+}
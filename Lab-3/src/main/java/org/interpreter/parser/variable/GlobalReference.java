@@ -0,0 +1,46 @@
+package org.interpreter.parser.variable;
+
+import org.interpreter.parser.expressions.Expression;
+import org.interpreter.runtime.RuntimeEnvironment;
+
+/**
+ * Represents a reference to a variable declared with GLOBAL. Its value is read from the
+ * {@link org.interpreter.runtime.SharedGlobals} of the environment, so every task and parallel worker
+ * sees the latest value any of them assigned.
+ */
+public class GlobalReference implements Expression {
+    private final String variableName;
+    private final int slot;
+
+    /**
+     * Constructs a GlobalReference for a specific global variable.
+     *
+     * @param variableName the name of the variable this reference points to.
+     * @param slot the slot of the variable in the store of global variables.
+     */
+    public GlobalReference(String variableName, int slot) {
+        this.variableName = variableName;
+        this.slot = slot;
+    }
+
+    /**
+     * Reads the current value of the global variable.
+     *
+     * @param env the runtime environment whose global variables are read.
+     * @return the tagged value of the variable.
+     */
+    @Override
+    public long evaluate(RuntimeEnvironment env) {
+        return env.getGlobals().load(slot, env);
+    }
+
+    /**
+     * Returns the name of the referenced variable.
+     *
+     * @return the name of the referenced variable.
+     */
+    @Override
+    public String toString() {
+        return variableName;
+    }
+}
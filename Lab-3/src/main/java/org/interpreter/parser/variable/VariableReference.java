@@ -10,16 +10,18 @@ import org.interpreter.runtime.RuntimeEnvironment;
  */
 public class VariableReference implements Expression {
     private final String variableName;
+    private final int slot;
 
     /**
      * Constructs a VariableReference for a specific variable.
      *
-     * @param variableName the name of the variable this reference points to. This name
-     *                     is used to retrieve the variable's value from the runtime environment
-     *                     during expression evaluation.
+     * @param variableName the name of the variable this reference points to.
+     * @param slot the slot of the variable in the runtime environment, used to retrieve
+     *             the variable's value during expression evaluation.
      */
-    public VariableReference(String variableName) {
+    public VariableReference(String variableName, int slot) {
         this.variableName = variableName;
+        this.slot = slot;
     }
 
     /**
@@ -27,12 +29,11 @@ public class VariableReference implements Expression {
      * It retrieves and returns the value of the variable identified by {@code variableName}.
      *
      * @param env the runtime environment from which the variable's value is fetched.
-     * @return the value of the variable, which can be any Object depending on the variable's type
-     *         and current value.
+     * @return the tagged value of the variable, whose type depends on the variable's current value.
      */
     @Override
-    public Object evaluate(RuntimeEnvironment env) {
-        return env.getVariable(variableName);
+    public long evaluate(RuntimeEnvironment env) {
+        return env.load(slot);
     }
 
     /**
@@ -45,4 +46,22 @@ public class VariableReference implements Expression {
     public String toString() {
         return variableName;
     }
+
+    /**
+     * Returns the name of the referenced variable.
+     *
+     * @return the variable name
+     */
+    public String getVariableName() {
+        return variableName;
+    }
+
+    /**
+     * Returns the slot of the referenced variable in the runtime environment.
+     *
+     * @return the variable slot
+     */
+    public int getSlot() {
+        return slot;
+    }
 }
@@ -0,0 +1,78 @@
+package org.interpreter.profiler;
+
+/**
+ * Holds the bytes the {@link AllocationProfiler} attributed to the statements of one type on one
+ * source line, or to all statements of one type.
+ */
+public final class AllocationEntry {
+    private final String type;
+    private final int line;
+    private long executions;
+    private long bytes;
+
+    /**
+     * Constructs an empty entry.
+     *
+     * @param type the simple class name of the statements
+     * @param line the source line of the statements, or 0 for an entry that covers every line
+     */
+    AllocationEntry(String type, int line) {
+        this.type = type;
+        this.line = line;
+    }
+
+    /**
+     * Returns the simple class name of the statements this entry describes, such as {@code PrintStatement}.
+     *
+     * @return the statement type
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the source line of the statements this entry describes.
+     *
+     * @return the line number, or 0 if the entry covers every line
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns how often the statements were executed.
+     *
+     * @return the execution count
+     */
+    public long getExecutions() {
+        return executions;
+    }
+
+    /**
+     * Returns the bytes allocated while the statements executed, excluding their nested blocks.
+     *
+     * @return the allocated bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the average number of bytes allocated by one execution.
+     *
+     * @return the bytes per execution, or 0 if the statements were never executed
+     */
+    public double getBytesPerExecution() {
+        return executions == 0 ? 0 : (double) bytes / executions;
+    }
+
+    void add(long allocated) {
+        executions++;
+        bytes += allocated;
+    }
+
+    void add(AllocationEntry entry) {
+        executions += entry.executions;
+        bytes += entry.bytes;
+    }
+}
@@ -0,0 +1,57 @@
+package org.interpreter.profiler;
+
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.util.List;
+
+/**
+ * Wraps a statement to measure the bytes it allocates for the {@link AllocationProfiler}. Like the
+ * {@link ProfiledStatement}, it is swapped into the program in place of the original statement.
+ */
+final class AllocationTrackedStatement implements Statement {
+    private final Statement delegate;
+    private final AllocationProfiler profiler;
+    private final AllocationEntry entry;
+
+    /**
+     * Constructs a wrapper around a statement.
+     *
+     * @param delegate the statement to execute
+     * @param profiler the profiler that measures the allocations
+     * @param entry the entry of the statement's type and source line
+     */
+    AllocationTrackedStatement(Statement delegate, AllocationProfiler profiler, AllocationEntry entry) {
+        this.delegate = delegate;
+        this.profiler = profiler;
+        this.entry = entry;
+    }
+
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        profiler.execute(this, env);
+    }
+
+    @Override
+    public int getLineNumber() {
+        return delegate.getLineNumber();
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return delegate.getWrittenSlot();
+    }
+
+    @Override
+    public List<List<Statement>> getBlocks() {
+        return delegate.getBlocks();
+    }
+
+    Statement getDelegate() {
+        return delegate;
+    }
+
+    AllocationEntry getEntry() {
+        return entry;
+    }
+}
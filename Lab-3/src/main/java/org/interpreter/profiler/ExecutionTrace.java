@@ -0,0 +1,234 @@
+package org.interpreter.profiler;
+
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.Arithmetic;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.runtime.Value;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps a bounded trace of the last statements a program executed, for post-mortem debugging. Every entry
+ * holds the source line, the kind of statement, and the variable it assigned together with the new value.
+ * The entries are kept in a ring of arrays that are allocated once, when the trace is constructed, so
+ * recording an entry does not allocate.
+ *
+ * <p>Tracing costs nothing while it is off: {@link #enable(List, RuntimeEnvironment)} swaps a wrapper that
+ * records the statement into the program in place of every statement, and
+ * {@link #disable(List, RuntimeEnvironment)} swaps the original statements back. The interpreter thread
+ * picks up the swapped statements the next time it reaches them, so tracing can be switched while a
+ * program runs, although statements executed concurrently with the switch may or may not be traced.</p>
+ *
+ * <p>Strings are recorded by reference, so the trace keeps up to its capacity of strings reachable.</p>
+ */
+public class ExecutionTrace {
+    /** The default number of entries the trace keeps. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int[] lines;
+    private final int[] kinds;
+    private final int[] slots;
+    private final long[] values;
+    private final Object[] objects;
+    private final List<String> kindNames = new ArrayList<>();
+    private long recorded;
+    private volatile boolean enabled;
+    private RuntimeEnvironment environment;
+
+    /**
+     * Constructs a trace that keeps the last {@value #DEFAULT_CAPACITY} statements.
+     */
+    public ExecutionTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a trace that keeps the given number of statements.
+     *
+     * @param capacity the number of entries to keep
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ExecutionTrace(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Trace capacity must be positive: " + capacity);
+        }
+        lines = new int[capacity];
+        kinds = new int[capacity];
+        slots = new int[capacity];
+        values = new long[capacity];
+        objects = new Object[capacity];
+    }
+
+    /**
+     * Starts tracing a linked program and all labelled blocks registered in its environment.
+     * Enabling a trace that is already enabled has no further effect.
+     *
+     * @param program the statements of the main program
+     * @param env the runtime environment holding the labelled blocks and the variables
+     */
+    public synchronized void enable(List<Statement> program, RuntimeEnvironment env) {
+        environment = env;
+        swap(program, true);
+        env.getLabels().values().forEach(block -> swap(block, true));
+        enabled = true;
+    }
+
+    /**
+     * Stops tracing a program by restoring its original statements. The entries recorded so far are kept.
+     *
+     * @param program the statements of the main program
+     * @param env the runtime environment holding the labelled blocks
+     */
+    public synchronized void disable(List<Statement> program, RuntimeEnvironment env) {
+        swap(program, false);
+        env.getLabels().values().forEach(block -> swap(block, false));
+        enabled = false;
+    }
+
+    /**
+     * Returns whether the trace is currently swapped into a program.
+     *
+     * @return true if statements are being traced
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the number of statements recorded since the trace was constructed, including the ones
+     * that have been overwritten.
+     *
+     * @return the number of recorded statements
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Returns the entries that are kept, from the oldest to the most recent, as they are printed by
+     * {@link #dump(PrintStream)}. Call it on the interpreter thread or after the program ends.
+     *
+     * @return the formatted entries
+     */
+    public List<String> getEntries() {
+        int capacity = lines.length;
+        long first = Math.max(0, recorded - capacity);
+        List<String> entries = new ArrayList<>((int) (recorded - first));
+        for (long number = first; number < recorded; number++) {
+            entries.add(format(number, (int) (number % capacity)));
+        }
+        return entries;
+    }
+
+    /**
+     * Prints the entries that are kept, from the oldest to the most recent.
+     *
+     * @param out the stream to print the trace to
+     */
+    public void dump(PrintStream out) {
+        List<String> entries = getEntries();
+        out.println("Trace of the last " + entries.size() + " of " + recorded + " executed statements:");
+        entries.forEach(entry -> out.println("  " + entry));
+    }
+
+    /**
+     * Records the execution of a statement.
+     *
+     * @param line the source line of the statement
+     * @param kind the index of the statement's kind
+     * @return the index of the new entry
+     */
+    int record(int line, int kind) {
+        int index = (int) (recorded++ % lines.length);
+        lines[index] = line;
+        kinds[index] = kind;
+        slots[index] = -1;
+        objects[index] = null;
+        return index;
+    }
+
+    /**
+     * Records the value a statement assigned to a variable.
+     *
+     * @param index the index of the statement's entry
+     * @param slot the slot of the variable
+     * @param env the environment holding the variable
+     */
+    void written(int index, int slot, RuntimeEnvironment env) {
+        long value = env.peek(slot);
+        slots[index] = slot;
+        values[index] = value;
+        if (Value.isReference(value)) {
+            objects[index] = env.dereference(value);
+        }
+    }
+
+    /**
+     * Formats an entry as its number, line, statement kind and assignment.
+     */
+    private String format(long number, int index) {
+        StringBuilder entry = new StringBuilder()
+                .append('#').append(number + 1)
+                .append(" line ").append(lines[index])
+                .append(' ').append(kindNames.get(kinds[index]));
+        int slot = slots[index];
+        if (slot >= 0) {
+            entry.append(' ').append(environment.nameOf(slot)).append(" = ").append(text(values[index], objects[index]));
+        }
+        return entry.toString();
+    }
+
+    private static String text(long value, Object object) {
+        if (value == Value.UNDEFINED) {
+            return "<undefined>";
+        } else if (Value.isNumber(value)) {
+            return Arithmetic.toString(value);
+        } else if (Value.isBoolean(value)) {
+            return String.valueOf(value == Value.TRUE);
+        }
+        return "\"" + object + "\"";
+    }
+
+    /**
+     * Wraps or unwraps every statement of a block and its nested blocks.
+     */
+    private void swap(List<Statement> block, boolean trace) {
+        Deque<List<Statement>> pending = new ArrayDeque<>();
+        pending.push(block);
+        while (!pending.isEmpty()) {
+            List<Statement> statements = pending.pop();
+            for (int i = 0; i < statements.size(); i++) {
+                Statement statement = statements.get(i);
+                if (trace && !(statement instanceof TracedStatement)) {
+                    statements.set(i, new TracedStatement(statement, this, kindOf(statement)));
+                } else if (!trace && statement instanceof TracedStatement traced) {
+                    statements.set(i, traced.getDelegate());
+                }
+                statement.getBlocks().forEach(pending::push);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of a statement's kind, looking through the wrappers of the profilers.
+     */
+    private int kindOf(Statement statement) {
+        Statement original = statement;
+        while (original instanceof ProfiledStatement || original instanceof AllocationTrackedStatement) {
+            original = original instanceof ProfiledStatement profiled
+                    ? profiled.getDelegate()
+                    : ((AllocationTrackedStatement) original).getDelegate();
+        }
+        String kind = original.getClass().getSimpleName().replace("Statement", "");
+        int index = kindNames.indexOf(kind);
+        if (index < 0) {
+            kindNames.add(kind);
+            index = kindNames.size() - 1;
+        }
+        return index;
+    }
+}
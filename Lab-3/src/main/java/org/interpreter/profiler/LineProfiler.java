@@ -0,0 +1,212 @@
+package org.interpreter.profiler;
+
+import org.interpreter.parser.statements.GoToStatement;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.CallStack;
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Measures how often each source line and each label of a program runs and how much time it takes.
+ * Profiling is opt-in: {@link #instrument(List, RuntimeEnvironment)} replaces every statement of the
+ * parsed program with a {@link ProfiledStatement} that measures the original one, so programs that are
+ * not instrumented execute exactly as before.
+ *
+ * <p>The self time of a statement is the time spent in its own execution. Statements such as FOR, IF
+ * and GOSUB only schedule their nested blocks on the {@link CallStack}, so their total time also covers
+ * the frames they push, up to the moment those frames are popped. A frame is known to be complete when
+ * the next statement starts at a lower stack depth, or when the profiler is finished.</p>
+ */
+public class LineProfiler {
+    /** The name under which the statements outside any label are reported. */
+    public static final String MAIN = "<main>";
+
+    private final Map<Integer, ProfileEntry> lines = new TreeMap<>();
+    private final Map<String, ProfileEntry> labels = new LinkedHashMap<>();
+    private final Deque<Activation> activations = new ArrayDeque<>();
+    private long started;
+    private boolean running;
+
+    /**
+     * Constructs a profiler without any measurements.
+     */
+    public LineProfiler() {
+        // Default constructor
+    }
+
+    /**
+     * Instruments a linked program and all labelled blocks registered in its environment.
+     * Statements are replaced in place, so jumps that were linked to a block execute the
+     * instrumented statements as well. Instrumenting a program twice has no further effect.
+     *
+     * @param program the statements of the main program
+     * @param env the runtime environment holding the labelled blocks
+     */
+    public void instrument(List<Statement> program, RuntimeEnvironment env) {
+        wrap(program, labelEntry(MAIN));
+        env.getLabels().forEach((label, block) -> wrap(block, labelEntry(label)));
+    }
+
+    /**
+     * Closes every activation that is still open, such as the loops and calls that were interrupted
+     * by an exception, and records the total time of the main program. Call it once the program ends.
+     */
+    public void finish() {
+        if (running) {
+            long now = System.nanoTime();
+            closeCompleted(0, now);
+            labelEntry(MAIN).addTotal(now - started);
+            running = false;
+        }
+    }
+
+    /**
+     * Returns the statistics of every source line that contains a statement, by line number.
+     *
+     * @return an unmodifiable view of the line statistics
+     */
+    public Map<Integer, ProfileEntry> getLines() {
+        return Collections.unmodifiableMap(lines);
+    }
+
+    /**
+     * Returns the statistics of the main program and every label, in the order they were first seen.
+     *
+     * @return an unmodifiable view of the label statistics
+     */
+    public Map<String, ProfileEntry> getLabels() {
+        return Collections.unmodifiableMap(labels);
+    }
+
+    /**
+     * Prints the hot spots of the program: the lines that were executed, sorted by self time,
+     * followed by the labels, sorted by total time.
+     *
+     * @param out the stream to print the report to
+     */
+    public void report(PrintStream out) {
+        double programNanos = Math.max(1, labelEntry(MAIN).getTotalNanos());
+
+        List<ProfileEntry> hotLines = new ArrayList<>(lines.values());
+        hotLines.removeIf(entry -> entry.getCount() == 0);
+        hotLines.sort(Comparator.comparingLong(ProfileEntry::getSelfNanos).reversed());
+        out.println("Line profile, sorted by self time:");
+        out.printf("%8s %12s %12s %12s %8s%n", "Line", "Count", "Self ms", "Total ms", "Self %");
+        for (ProfileEntry entry : hotLines) {
+            out.printf("%8s %12d %12.3f %12.3f %7.1f%%%n", entry.getName(), entry.getCount(),
+                    entry.getSelfNanos() / 1e6, entry.getTotalNanos() / 1e6, entry.getSelfNanos() * 100 / programNanos);
+        }
+
+        List<ProfileEntry> hotLabels = new ArrayList<>(labels.values());
+        hotLabels.sort(Comparator.comparingLong(ProfileEntry::getTotalNanos).reversed());
+        out.println("Label profile, sorted by total time:");
+        out.printf("%-16s %12s %12s %12s%n", "Label", "Calls", "Self ms", "Total ms");
+        for (ProfileEntry entry : hotLabels) {
+            out.printf("%-16s %12d %12.3f %12.3f%n", entry.getName(), entry.getCount(),
+                    entry.getSelfNanos() / 1e6, entry.getTotalNanos() / 1e6);
+        }
+    }
+
+    /**
+     * Executes an instrumented statement and records its measurements.
+     *
+     * @param statement the instrumented statement
+     * @param env the runtime environment to execute the statement in
+     */
+    void execute(ProfiledStatement statement, RuntimeEnvironment env) {
+        CallStack stack = env.getCallStack();
+        int depth = stack.depth();
+        long start = System.nanoTime();
+        if (!running) {
+            running = true;
+            started = start;
+            labelEntry(MAIN).addCall();
+        }
+        closeCompleted(depth, start);
+
+        try {
+            statement.getDelegate().execute(env);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            ProfileEntry line = statement.getLine();
+            ProfileEntry callee = statement.getCallee();
+            line.addExecution(elapsed);
+            statement.getLabel().addSelf(elapsed);
+            if (callee != null) {
+                callee.addCall();
+            }
+
+            if (stack.depth() > depth) {
+                line.open();
+                if (callee != null) {
+                    callee.open();
+                }
+                activations.push(new Activation(statement, depth, start));
+            } else {
+                line.addTotal(elapsed);
+                if (callee != null) {
+                    callee.addTotal(elapsed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the activations whose frames have been popped, which is the case for every activation
+     * that was opened at the given stack depth or deeper.
+     */
+    private void closeCompleted(int depth, long now) {
+        while (!activations.isEmpty() && activations.peek().depth() >= depth) {
+            Activation activation = activations.pop();
+            long elapsed = now - activation.start();
+            activation.statement().getLine().close(elapsed);
+            if (activation.statement().getCallee() != null) {
+                activation.statement().getCallee().close(elapsed);
+            }
+        }
+    }
+
+    /**
+     * Replaces every statement of a block and its nested blocks with an instrumented wrapper.
+     */
+    private void wrap(List<Statement> block, ProfileEntry label) {
+        Deque<List<Statement>> pending = new ArrayDeque<>();
+        pending.push(block);
+        while (!pending.isEmpty()) {
+            List<Statement> statements = pending.pop();
+            for (int i = 0; i < statements.size(); i++) {
+                Statement statement = statements.get(i);
+                if (!(statement instanceof ProfiledStatement)) {
+                    ProfileEntry callee = statement instanceof GoToStatement jump ? labelEntry(jump.getLabel()) : null;
+                    ProfileEntry line = lines.computeIfAbsent(statement.getLineNumber(), number -> new ProfileEntry(String.valueOf(number)));
+                    statements.set(i, new ProfiledStatement(statement, this, line, label, callee));
+                }
+                statement.getBlocks().forEach(pending::push);
+            }
+        }
+    }
+
+    private ProfileEntry labelEntry(String label) {
+        return labels.computeIfAbsent(label, ProfileEntry::new);
+    }
+
+    /**
+     * An instrumented statement whose nested frames are still on the call stack.
+     *
+     * @param statement the statement that pushed the frames
+     * @param depth the stack depth at which the statement was executed
+     * @param start the time the statement started
+     */
+    private record Activation(ProfiledStatement statement, int depth, long start) {
+    }
+}
@@ -0,0 +1,92 @@
+package org.interpreter.profiler;
+
+/**
+ * Holds the statistics the {@link LineProfiler} collects for a source line or a label.
+ * Self time covers the execution of the statements themselves, while total time also covers
+ * the nested blocks and subroutines they run. Time spent in recursive calls is counted once
+ * in the total of the outermost activation.
+ */
+public final class ProfileEntry {
+    private final String name;
+    private long count;
+    private long selfNanos;
+    private long totalNanos;
+    private int active;
+
+    /**
+     * Constructs an empty entry.
+     *
+     * @param name the line number or label the entry describes
+     */
+    ProfileEntry(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the line number or label this entry describes.
+     *
+     * @return the name of the entry
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns how often the statements of a line were executed, or how often a label was called.
+     *
+     * @return the execution count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the time spent executing the statements themselves, excluding nested blocks and calls.
+     *
+     * @return the self time in nanoseconds
+     */
+    public long getSelfNanos() {
+        return selfNanos;
+    }
+
+    /**
+     * Returns the time spent executing the statements including the nested blocks and calls they run.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    void addExecution(long nanos) {
+        count++;
+        selfNanos += nanos;
+    }
+
+    void addCall() {
+        count++;
+    }
+
+    void addSelf(long nanos) {
+        selfNanos += nanos;
+    }
+
+    /**
+     * Adds the time of a completed activation to the total unless an enclosing activation of the
+     * same entry is still open, whose total will already include it.
+     */
+    void addTotal(long nanos) {
+        if (active == 0) {
+            totalNanos += nanos;
+        }
+    }
+
+    void open() {
+        active++;
+    }
+
+    void close(long nanos) {
+        active--;
+        addTotal(nanos);
+    }
+}
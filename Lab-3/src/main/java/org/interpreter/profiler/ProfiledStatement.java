@@ -0,0 +1,72 @@
+package org.interpreter.profiler;
+
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.util.List;
+
+/**
+ * Wraps a statement to measure its execution for the {@link LineProfiler}. The profiler swaps
+ * these wrappers into the program in place of the original statements, so a program that is not
+ * profiled runs without any instrumentation at all.
+ */
+final class ProfiledStatement implements Statement {
+    private final Statement delegate;
+    private final LineProfiler profiler;
+    private final ProfileEntry line;
+    private final ProfileEntry label;
+    private final ProfileEntry callee;
+
+    /**
+     * Constructs a wrapper around a statement.
+     *
+     * @param delegate the statement to execute
+     * @param profiler the profiler that records the measurements
+     * @param line the entry of the statement's source line
+     * @param label the entry of the label whose block contains the statement
+     * @param callee the entry of the label the statement calls, or null if it is not a GOSUB or GOTO
+     */
+    ProfiledStatement(Statement delegate, LineProfiler profiler, ProfileEntry line, ProfileEntry label, ProfileEntry callee) {
+        this.delegate = delegate;
+        this.profiler = profiler;
+        this.line = line;
+        this.label = label;
+        this.callee = callee;
+    }
+
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        profiler.execute(this, env);
+    }
+
+    @Override
+    public int getLineNumber() {
+        return delegate.getLineNumber();
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return delegate.getWrittenSlot();
+    }
+
+    @Override
+    public List<List<Statement>> getBlocks() {
+        return delegate.getBlocks();
+    }
+
+    Statement getDelegate() {
+        return delegate;
+    }
+
+    ProfileEntry getLine() {
+        return line;
+    }
+
+    ProfileEntry getLabel() {
+        return label;
+    }
+
+    ProfileEntry getCallee() {
+        return callee;
+    }
+}
@@ -0,0 +1,62 @@
+package org.interpreter.profiler;
+
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+
+import java.util.List;
+
+/**
+ * Wraps a statement to record its execution in an {@link ExecutionTrace}. The trace swaps these wrappers
+ * into the program when it is enabled and swaps the original statements back when it is disabled.
+ */
+final class TracedStatement implements Statement {
+    private final Statement delegate;
+    private final ExecutionTrace trace;
+    private final int kind;
+
+    /**
+     * Constructs a wrapper around a statement.
+     *
+     * @param delegate the statement to execute
+     * @param trace the trace that records the execution
+     * @param kind the index of the statement's kind in the trace
+     */
+    TracedStatement(Statement delegate, ExecutionTrace trace, int kind) {
+        this.delegate = delegate;
+        this.trace = trace;
+        this.kind = kind;
+    }
+
+    /**
+     * Records the statement before it executes, so that a statement that fails is the last one in the
+     * trace, and records the value it assigned once it completes.
+     */
+    @Override
+    public void execute(RuntimeEnvironment env) {
+        int entry = trace.record(delegate.getLineNumber(), kind);
+        delegate.execute(env);
+        int slot = delegate.getWrittenSlot();
+        if (slot >= 0) {
+            trace.written(entry, slot, env);
+        }
+    }
+
+    @Override
+    public int getLineNumber() {
+        return delegate.getLineNumber();
+    }
+
+    @Override
+    public int getWrittenSlot() {
+        return delegate.getWrittenSlot();
+    }
+
+    @Override
+    public List<List<Statement>> getBlocks() {
+        return delegate.getBlocks();
+    }
+
+    Statement getDelegate() {
+        return delegate;
+    }
+}
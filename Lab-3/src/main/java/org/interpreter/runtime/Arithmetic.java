@@ -0,0 +1,192 @@
+package org.interpreter.runtime;
+
+/**
+ * Implements the numeric semantics shared by the arithmetic and relational expressions.
+ * Numbers are tagged {@link Value}s held either as integers or as doubles. Operations on two
+ * integral operands stay on the integer fast path and are promoted to {@code double} only when
+ * the exact result cannot be represented, for example on overflow or when a division leaves
+ * a remainder.
+ *
+ * <p>Both representations describe the same language-level number type: {@code 2} and
+ * {@code 2.0} compare as equal and are printed identically.</p>
+ */
+public final class Arithmetic {
+
+    /** Absolute bound below which {@link Double#toString(double)} prints a whole number in plain notation. */
+    private static final long PLAIN_NOTATION_LIMIT = 10_000_000L;
+
+    private Arithmetic() {
+        // Utility class
+    }
+
+    /**
+     * Adds two numeric values.
+     *
+     * @param left the left operand.
+     * @param right the right operand.
+     * @return the exact sum as an integer, or the sum as a double on overflow or for fractional operands.
+     */
+    public static long add(long left, long right) {
+        if (Value.isInteger(left) && Value.isInteger(right)) {
+            return Value.ofInteger(Value.asInteger(left) + Value.asInteger(right));
+        }
+        return Value.ofDouble(Value.asDouble(left) + Value.asDouble(right));
+    }
+
+    /**
+     * Subtracts the right numeric value from the left one.
+     *
+     * @param left the minuend.
+     * @param right the subtrahend.
+     * @return the exact difference as an integer, or the difference as a double on overflow or for fractional operands.
+     */
+    public static long subtract(long left, long right) {
+        if (Value.isInteger(left) && Value.isInteger(right)) {
+            return Value.ofInteger(Value.asInteger(left) - Value.asInteger(right));
+        }
+        return Value.ofDouble(Value.asDouble(left) - Value.asDouble(right));
+    }
+
+    /**
+     * Multiplies two numeric values.
+     *
+     * @param left the left operand.
+     * @param right the right operand.
+     * @return the exact product as an integer, or the product as a double on overflow or for fractional operands.
+     */
+    public static long multiply(long left, long right) {
+        if (Value.isInteger(left) && Value.isInteger(right)) {
+            long a = Value.asInteger(left);
+            long b = Value.asInteger(right);
+            long result = a * b;
+            if (Math.multiplyHigh(a, b) == (result >> 63)) {
+                return Value.ofInteger(result);
+            }
+        }
+        return Value.ofDouble(Value.asDouble(left) * Value.asDouble(right));
+    }
+
+    /**
+     * Divides the left numeric value by the right one. The caller is responsible for rejecting a zero divisor.
+     *
+     * @param left the dividend.
+     * @param right the divisor, which must not be zero.
+     * @return the quotient as an integer if it is integral, otherwise as a double.
+     */
+    public static long divide(long left, long right) {
+        if (Value.isInteger(left) && Value.isInteger(right)) {
+            long a = Value.asInteger(left);
+            long b = Value.asInteger(right);
+            if (a % b == 0) {
+                return Value.ofInteger(a / b);
+            }
+        }
+        return Value.ofDouble(Value.asDouble(left) / Value.asDouble(right));
+    }
+
+    /**
+     * Computes the remainder of dividing the left numeric value by the right one.
+     * The caller is responsible for rejecting a zero divisor.
+     *
+     * @param left the dividend.
+     * @param right the divisor, which must not be zero.
+     * @return the remainder as an integer for integral operands, otherwise as a double.
+     */
+    public static long modulus(long left, long right) {
+        if (Value.isInteger(left) && Value.isInteger(right)) {
+            return Value.ofInteger(Value.asInteger(left) % Value.asInteger(right));
+        }
+        return Value.ofDouble(Value.asDouble(left) % Value.asDouble(right));
+    }
+
+    /**
+     * Checks whether a numeric value equals zero.
+     *
+     * @param value a tagged integer or double.
+     * @return true if the value is zero.
+     */
+    public static boolean isZero(long value) {
+        return Value.isInteger(value) ? Value.asInteger(value) == 0 : Value.asDouble(value) == 0;
+    }
+
+    /**
+     * Compares two numeric values.
+     *
+     * @param left the left operand.
+     * @param right the right operand.
+     * @return a negative number, zero, or a positive number as the left operand is less than,
+     *         equal to, or greater than the right operand.
+     */
+    public static int compare(long left, long right) {
+        if (Value.isInteger(left) && Value.isInteger(right)) {
+            return Long.compare(Value.asInteger(left), Value.asInteger(right));
+        }
+        double a = Value.asDouble(left);
+        double b = Value.asDouble(right);
+        return a < b ? -1 : (a > b ? 1 : 0);
+    }
+
+    /**
+     * Checks two values for language-level equality. Numbers are equal if they denote the same value
+     * regardless of representation, booleans if they are the same, strings and {@link Rope}s if they hold
+     * the same characters, and other referenced objects if they are equal according to
+     * {@link Object#equals(Object)}. Values of different types are never equal.
+     *
+     * @param env the runtime environment that resolves referenced objects.
+     * @param left the left operand.
+     * @param right the right operand.
+     * @return true if both values are equal.
+     */
+    public static boolean areEqual(RuntimeEnvironment env, long left, long right) {
+        if (Value.isNumber(left) && Value.isNumber(right)) {
+            if (Value.isInteger(left) && Value.isInteger(right)) {
+                return left == right;
+            }
+            return Double.doubleToLongBits(Value.asDouble(left)) == Double.doubleToLongBits(Value.asDouble(right));
+        }
+        if (Value.isReference(left) && Value.isReference(right)) {
+            Object a = env.dereference(left);
+            Object b = env.dereference(right);
+            if (a instanceof CharSequence && b instanceof CharSequence) {
+                return a.toString().equals(b.toString());
+            }
+            return a.equals(b);
+        }
+        return left == right;
+    }
+
+    /**
+     * Parses a numeric literal, keeping integral literals on the integer representation.
+     *
+     * @param text the literal text.
+     * @return the tagged number.
+     * @throws NumberFormatException if the text is not a number.
+     */
+    public static long parse(String text) {
+        if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            try {
+                return Value.ofInteger(Long.parseLong(text.trim()));
+            } catch (NumberFormatException ignored) {
+                // Falls through to the floating-point representation, e.g. on overflow
+            }
+        }
+        return Value.ofDouble(Double.parseDouble(text));
+    }
+
+    /**
+     * Converts a number to its printed form. Integral values are printed exactly like the equivalent
+     * double, so {@code 2} is shown as {@code 2.0}.
+     *
+     * @param value a tagged integer or double.
+     * @return the printed form of the number.
+     */
+    public static String toString(long value) {
+        if (Value.isInteger(value)) {
+            long v = Value.asInteger(value);
+            if (v > -PLAIN_NOTATION_LIMIT && v < PLAIN_NOTATION_LIMIT) {
+                return v + ".0";
+            }
+        }
+        return Double.toString(Value.asDouble(value));
+    }
+}
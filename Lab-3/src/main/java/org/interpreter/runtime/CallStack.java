@@ -0,0 +1,221 @@
+package org.interpreter.runtime;
+
+import org.interpreter.events.SubroutineEvent;
+import org.interpreter.exceptions.CallStackOverflowException;
+import org.interpreter.parser.statements.Statement;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the interpreter-managed stack of {@link Frame}s. Statements that execute nested blocks,
+ * such as FOR, IF and GOSUB, push a frame instead of recursing in Java, and the runtime environment
+ * executes the statements of the topmost frame until the stack unwinds. Deep GOSUB recursion is
+ * therefore limited by a configurable number of nested calls rather than by the JVM thread stack.
+ *
+ * <p>Frames are kept in the stack's array after they are popped and are reused by later pushes.</p>
+ *
+ * <p>The stack is owned by the thread that runs the program. Monitoring threads only read the number of
+ * subroutine calls, through {@link #sampleCallDepth()}.</p>
+ */
+public final class CallStack {
+
+    /** The default maximum number of nested subroutine calls. */
+    public static final int DEFAULT_MAX_DEPTH = 100_000;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final VarHandle CALL_DEPTH;
+
+    static {
+        try {
+            CALL_DEPTH = MethodHandles.lookup().findVarHandle(CallStack.class, "callDepth", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Frame[] frames = new Frame[INITIAL_CAPACITY];
+    private int depth;
+    private int callDepth;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+
+    /**
+     * Constructs an empty call stack with the default maximum depth.
+     */
+    public CallStack() {
+        // Default constructor
+    }
+
+    /**
+     * Pushes a frame for a plain block of statements.
+     *
+     * @param block the statements to execute
+     */
+    public void pushBlock(List<Statement> block) {
+        push(Frame.Kind.BLOCK, block, null, 0, 0, 0);
+    }
+
+    /**
+     * Pushes a frame for the body of a FOR loop. The caller assigns the first value to the loop variable.
+     *
+     * @param body the statements of the loop body
+     * @param slot the slot of the loop variable
+     * @param start the first value of the loop variable
+     * @param end the last value of the loop variable
+     */
+    public void pushLoop(List<Statement> body, int slot, long start, long end) {
+        push(Frame.Kind.LOOP, body, null, slot, start, end);
+    }
+
+    /**
+     * Pushes a frame for a subroutine call. The frame below it keeps the return address.
+     * While JDK Flight Recorder records subroutine events, the frame carries an event that is
+     * committed when the frame is popped.
+     *
+     * @param label the label of the subroutine
+     * @param block the statements of the subroutine
+     * @throws CallStackOverflowException if the call exceeds the maximum number of nested calls
+     */
+    public void pushCall(String label, List<Statement> block) {
+        if (callDepth == maxDepth) {
+            throw new CallStackOverflowException(label, maxDepth);
+        }
+        callDepth++;
+        push(Frame.Kind.CALL, block, label, 0, 0, 0);
+        if (SubroutineEvent.isTypeEnabled()) {
+            SubroutineEvent event = new SubroutineEvent();
+            event.label = label;
+            event.depth = callDepth;
+            event.begin();
+            frames[depth - 1].attach(event);
+        }
+    }
+
+    /**
+     * Pushes a frame of a suspended program in the state it was captured in.
+     *
+     * @param state the state of the frame
+     * @param block the statements of the frame
+     * @throws CallStackOverflowException if a call frame exceeds the maximum number of nested calls
+     */
+    void pushRestored(ExecutionState.FrameState state, List<Statement> block) {
+        if (state.kind() == Frame.Kind.CALL) {
+            pushCall(state.label(), block);
+        } else {
+            push(state.kind(), block, null, state.slot(), state.counter(), state.end());
+        }
+        peek().moveTo(state.position());
+    }
+
+    /**
+     * Removes the topmost frame.
+     */
+    public void pop() {
+        Frame frame = frames[depth - 1];
+        depth--;
+        if (frame.getKind() == Frame.Kind.CALL) {
+            callDepth--;
+            frame.commitEvent();
+        }
+        frame.reset(null, null, null, 0, 0, 0);
+    }
+
+    /**
+     * Returns the topmost frame.
+     *
+     * @return the frame currently being executed
+     */
+    public Frame peek() {
+        return frames[depth - 1];
+    }
+
+    /**
+     * Returns the frame at a given depth, counted from the bottom of the stack.
+     *
+     * @param index the index of the frame, from 0 to {@link #depth()} - 1
+     * @return the frame at the index
+     */
+    public Frame get(int index) {
+        return frames[index];
+    }
+
+    /**
+     * Returns the number of frames on the stack.
+     *
+     * @return the depth of the stack
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of subroutine calls on the stack.
+     *
+     * @return the number of call frames
+     */
+    public int callDepth() {
+        return callDepth;
+    }
+
+    /**
+     * Returns the number of subroutine calls on the stack as seen from another thread, for monitoring.
+     * The value is not synchronized with the interpreter and may be slightly out of date.
+     *
+     * @return a recent number of call frames
+     */
+    public int sampleCallDepth() {
+        return (int) CALL_DEPTH.getOpaque(this);
+    }
+
+    /**
+     * Returns the maximum number of nested subroutine calls.
+     *
+     * @return the maximum call depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the maximum number of nested subroutine calls.
+     *
+     * @param maxDepth the maximum call depth, which must be positive
+     * @throws IllegalArgumentException if the depth is not positive
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("Maximum call depth must be positive: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Removes all frames above a given depth, for example after an error aborted execution.
+     *
+     * @param base the depth to unwind to
+     */
+    public void unwind(int base) {
+        while (depth > base) {
+            pop();
+        }
+    }
+
+    /**
+     * Initializes a reusable frame at the next position, growing the stack if needed.
+     */
+    private void push(Frame.Kind kind, List<Statement> block, String label, int slot, long counter, long end) {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, depth * 2);
+        }
+        Frame frame = frames[depth];
+        if (frame == null) {
+            frame = new Frame();
+            frames[depth] = frame;
+        }
+        frame.reset(kind, block, label, slot, counter, end);
+        depth++;
+    }
+}
@@ -0,0 +1,213 @@
+package org.interpreter.runtime;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A channel that hands values from any number of senders to any number of receivers, in the order they
+ * were sent. Channels carry plain Java values, as returned by {@link RuntimeEnvironment#toObject(long)},
+ * because tagged references are only valid in the environment that created them.
+ *
+ * <p>Neither variant takes a lock. An unbounded channel is a {@link ConcurrentLinkedQueue}, and a bounded
+ * channel is an array-based queue in which every cell carries a sequence number: a sender claims a cell by
+ * advancing the tail with a compare-and-set once the cell's sequence shows it is free for the sender's
+ * position, and publishes the value by advancing the sequence, and a receiver does the same with the head.
+ * The sequence of the cell for position {@code p} is {@code 2p} while the cell is free and {@code 2p + 1}
+ * once it holds a value, so that a full cell is never mistaken for a free one, even in a channel of
+ * capacity 1.</p>
+ *
+ * <p>{@link #offer(Object)} and {@link #poll()} never block. {@link #send(Object)} and {@link #receive()}
+ * retry them, and park the thread while the channel is full or empty. A thread registers itself as waiting
+ * before it checks the channel one last time and parks, and every successful operation unparks one waiting
+ * thread on the other side, so a wake-up is not lost; parking is also bounded by {@value #PARK_NANOS}
+ * nanoseconds as a safety net.</p>
+ */
+public final class Channel {
+    /** The longest time a blocked thread parks before it checks the channel again. */
+    static final long PARK_NANOS = 1_000_000;
+
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Object> unbounded;
+    private final AtomicReferenceArray<Object> cells;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final ConcurrentLinkedQueue<Thread> receivers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Thread> senders = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs an empty channel.
+     *
+     * @param capacity the number of values the channel holds before senders block, or 0 for an unbounded channel
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public Channel(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Channel capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        if (capacity == 0) {
+            unbounded = new ConcurrentLinkedQueue<>();
+            cells = null;
+            sequences = null;
+        } else {
+            unbounded = null;
+            cells = new AtomicReferenceArray<>(capacity);
+            sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, 2L * i);
+            }
+        }
+    }
+
+    /**
+     * Returns the capacity of the channel.
+     *
+     * @return the number of values the channel holds, or 0 if it is unbounded
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of values in the channel. While other threads use the channel, the result is
+     * only an estimate.
+     *
+     * @return the number of values that have been sent and not received
+     */
+    public int size() {
+        if (unbounded != null) {
+            return unbounded.size();
+        }
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head.get()));
+    }
+
+    /**
+     * Sends a value if the channel has room for it.
+     *
+     * @param value the value to send
+     * @return true if the value was sent, false if the channel is full
+     */
+    public boolean offer(Object value) {
+        boolean sent = unbounded != null ? unbounded.offer(value) : offerBounded(value);
+        if (sent) {
+            wakeOne(receivers);
+        }
+        return sent;
+    }
+
+    /**
+     * Receives a value if the channel holds one.
+     *
+     * @return the oldest value, or null if the channel is empty
+     */
+    public Object poll() {
+        Object value = unbounded != null ? unbounded.poll() : pollBounded();
+        if (value != null) {
+            wakeOne(senders);
+        }
+        return value;
+    }
+
+    /**
+     * Sends a value, waiting while the channel is full.
+     *
+     * @param value the value to send
+     * @throws InterruptedException if the thread is interrupted while it waits
+     */
+    public void send(Object value) throws InterruptedException {
+        while (!offer(value)) {
+            Thread current = Thread.currentThread();
+            senders.add(current);
+            try {
+                if (offer(value)) {
+                    return;
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+            } finally {
+                senders.remove(current);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Receives a value, waiting while the channel is empty.
+     *
+     * @return the oldest value
+     * @throws InterruptedException if the thread is interrupted while it waits
+     */
+    public Object receive() throws InterruptedException {
+        Object value;
+        while ((value = poll()) == null) {
+            Thread current = Thread.currentThread();
+            receivers.add(current);
+            try {
+                value = poll();
+                if (value != null) {
+                    return value;
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+            } finally {
+                receivers.remove(current);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return value;
+    }
+
+    private boolean offerBounded(Object value) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position % capacity);
+            long difference = sequences.get(index) - 2 * position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    cells.set(index, value);
+                    sequences.set(index, 2 * position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private Object pollBounded() {
+        long position = head.get();
+        while (true) {
+            int index = (int) (position % capacity);
+            long difference = sequences.get(index) - (2 * position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    Object value = cells.get(index);
+                    cells.set(index, null);
+                    sequences.set(index, 2 * (position + capacity));
+                    return value;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    private static void wakeOne(ConcurrentLinkedQueue<Thread> waiting) {
+        Thread thread = waiting.poll();
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
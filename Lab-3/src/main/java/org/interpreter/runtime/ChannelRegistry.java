@@ -0,0 +1,138 @@
+package org.interpreter.runtime;
+
+import org.interpreter.exceptions.InterpreterRuntimeException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds the channels of a program. Like variables, channels are resolved to numbered slots while the
+ * program is parsed, so statements find their channel by index. The registry is shared by the
+ * environment of the script and the environments of its tasks and parallel loops, and the channels are
+ * created on first use, so a channel that is used without a CHANNEL declaration is unbounded.
+ *
+ * <p>Slots are allocated by the parser, before any task starts. Channels can be created and looked up
+ * from any thread: a slot holds its channel in an {@link AtomicReferenceArray} and is filled with a
+ * compare-and-set, so every thread sees the same channel.</p>
+ */
+public final class ChannelRegistry {
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private volatile AtomicReferenceArray<Channel> channels = new AtomicReferenceArray<>(0);
+
+    /**
+     * Constructs an empty registry.
+     */
+    public ChannelRegistry() {
+        // Default constructor
+    }
+
+    /**
+     * Creates a registry with the same channel slots as this one and no channels, for a new run of the
+     * program whose statements refer to these slots.
+     *
+     * @return an empty registry with the same slots
+     */
+    public synchronized ChannelRegistry copySlots() {
+        ChannelRegistry copy = new ChannelRegistry();
+        copy.slots.putAll(slots);
+        copy.names.addAll(names);
+        copy.channels = new AtomicReferenceArray<>(names.size());
+        return copy;
+    }
+
+    /**
+     * Returns the slot of a channel, allocating a new slot on first use. Call it while the program is parsed.
+     *
+     * @param name the name of the channel
+     * @return the slot of the channel
+     */
+    public synchronized int slotOf(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = names.size();
+            slots.put(name, slot);
+            names.add(name);
+            AtomicReferenceArray<Channel> grown = new AtomicReferenceArray<>(names.size());
+            for (int i = 0; i < channels.length(); i++) {
+                grown.set(i, channels.get(i));
+            }
+            channels = grown;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the name of the channel held in a slot.
+     *
+     * @param slot the slot of the channel
+     * @return the name of the channel
+     */
+    public synchronized String nameOf(int slot) {
+        return names.get(slot);
+    }
+
+    /**
+     * Creates the channel of a slot with the given capacity, unless it exists already.
+     *
+     * @param slot the slot of the channel
+     * @param capacity the number of values the channel holds, or 0 for an unbounded channel
+     * @return the channel of the slot
+     * @throws InterpreterRuntimeException if the capacity is negative, or the channel exists with another capacity
+     */
+    public Channel declare(int slot, int capacity) {
+        if (capacity < 0) {
+            throw new InterpreterRuntimeException(String.format("Capacity of channel '%s' must not be negative.", nameOf(slot)));
+        }
+        AtomicReferenceArray<Channel> current = channels;
+        Channel channel = current.get(slot);
+        if (channel == null) {
+            Channel created = new Channel(capacity);
+            channel = current.compareAndSet(slot, null, created) ? created : current.get(slot);
+        }
+        if (channel.getCapacity() != capacity) {
+            throw new InterpreterRuntimeException(String.format("Channel '%s' already exists with capacity %d.",
+                    nameOf(slot), channel.getCapacity()));
+        }
+        return channel;
+    }
+
+    /**
+     * Returns the channel of a slot, creating an unbounded channel if it does not exist yet.
+     *
+     * @param slot the slot of the channel
+     * @return the channel of the slot
+     */
+    public Channel get(int slot) {
+        AtomicReferenceArray<Channel> current = channels;
+        Channel channel = current.get(slot);
+        if (channel == null) {
+            Channel created = new Channel(0);
+            channel = current.compareAndSet(slot, null, created) ? created : current.get(slot);
+        }
+        return channel;
+    }
+
+    /**
+     * Returns the channel of a slot without creating it.
+     *
+     * @param slot the slot of the channel
+     * @return the channel of the slot, or null if the program has not used it yet
+     */
+    Channel find(int slot) {
+        AtomicReferenceArray<Channel> current = channels;
+        return slot < current.length() ? current.get(slot) : null;
+    }
+
+    /**
+     * Returns the number of channel slots.
+     *
+     * @return the number of channels the program uses
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,310 @@
+package org.interpreter.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot of a running program, taken at a statement boundary, that can be written to a file and restored
+ * into a fresh interpreter of the same program, for example in a new JVM after a deploy. It holds the
+ * {@link ExecutionState} of the program and the fingerprint of its source, so that a checkpoint is never
+ * restored into another program.
+ *
+ * <p>Checkpoints are written in a compact binary format: a magic number and a version, followed by the
+ * variables, globals, channels and frames of the state. Integers are written as variable-length numbers,
+ * so small counters, slots and positions take a byte or two, and texts as UTF-8. A checkpoint is first
+ * written next to its file and then moved over it, so a crash while writing leaves the previous checkpoint
+ * intact.</p>
+ */
+public final class Checkpoint {
+    /** Identifies a checkpoint file: "SBCP". */
+    private static final int MAGIC = 0x53424350;
+    private static final int VERSION = 1;
+
+    private static final int LONG = 0;
+    private static final int DOUBLE = 1;
+    private static final int FALSE = 2;
+    private static final int TRUE = 3;
+    private static final int TEXT = 4;
+
+    private static final Frame.Kind[] KINDS = Frame.Kind.values();
+
+    private final String fingerprint;
+    private final ExecutionState state;
+
+    /**
+     * Constructs a checkpoint.
+     *
+     * @param fingerprint the {@link #fingerprint(String) fingerprint} of the source of the program
+     * @param state the state of the program
+     */
+    public Checkpoint(String fingerprint, ExecutionState state) {
+        this.fingerprint = fingerprint;
+        this.state = state;
+    }
+
+    /**
+     * Returns the fingerprint of the source of the program.
+     *
+     * @return the fingerprint of the program
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the state of the program.
+     *
+     * @return the captured state
+     */
+    public ExecutionState getState() {
+        return state;
+    }
+
+    /**
+     * Computes the fingerprint of the source of a program.
+     *
+     * @param source the source code
+     * @return the SHA-256 digest of the source, in hexadecimal
+     */
+    public static String fingerprint(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Writes this checkpoint to a file, replacing the previous checkpoint only once it is complete.
+     *
+     * @param file the checkpoint file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            writeTo(out);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint from a file.
+     *
+     * @param file the checkpoint file
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public static Checkpoint read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return readFrom(in);
+        }
+    }
+
+    /**
+     * Writes this checkpoint to a stream in the binary format.
+     *
+     * @param stream the stream to write to, which is flushed but not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        writeNumber(out, VERSION);
+        writeText(out, fingerprint);
+
+        writeNumber(out, state.getVariables().size());
+        for (Map.Entry<String, Object> variable : state.getVariables().entrySet()) {
+            writeText(out, variable.getKey());
+            writeValue(out, variable.getValue());
+        }
+        writeNumber(out, state.getGlobals().size());
+        for (Map.Entry<String, Object> global : state.getGlobals().entrySet()) {
+            writeText(out, global.getKey());
+            writeValue(out, global.getValue());
+        }
+        writeNumber(out, state.getChannels().size());
+        for (Map.Entry<String, ExecutionState.ChannelState> channel : state.getChannels().entrySet()) {
+            writeText(out, channel.getKey());
+            writeNumber(out, channel.getValue().capacity());
+            writeNumber(out, channel.getValue().messages().size());
+            for (Object message : channel.getValue().messages()) {
+                writeValue(out, message);
+            }
+        }
+        writeNumber(out, state.getFrames().size());
+        for (ExecutionState.FrameState frame : state.getFrames()) {
+            out.writeByte(frame.kind().ordinal());
+            writeNumber(out, frame.block());
+            writeNumber(out, frame.position());
+            writeText(out, frame.label());
+            if (frame.kind() == Frame.Kind.LOOP) {
+                writeNumber(out, frame.slot());
+                writeSigned(out, frame.counter());
+                writeSigned(out, frame.end());
+            }
+        }
+        writeText(out, state.getAwaitedInput());
+        out.flush();
+    }
+
+    /**
+     * Reads a checkpoint from a stream in the binary format.
+     *
+     * @param stream the stream to read from
+     * @return the checkpoint
+     * @throws IOException if the stream cannot be read or does not hold a checkpoint
+     */
+    public static Checkpoint readFrom(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a checkpoint file.");
+        }
+        long version = readNumber(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported checkpoint version " + version + ".");
+        }
+        String fingerprint = readText(in);
+
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (long i = readNumber(in); i > 0; i--) {
+            variables.put(readText(in), readValue(in));
+        }
+        Map<String, Object> globals = new LinkedHashMap<>();
+        for (long i = readNumber(in); i > 0; i--) {
+            globals.put(readText(in), readValue(in));
+        }
+        Map<String, ExecutionState.ChannelState> channels = new LinkedHashMap<>();
+        for (long i = readNumber(in); i > 0; i--) {
+            String name = readText(in);
+            int capacity = (int) readNumber(in);
+            List<Object> messages = new ArrayList<>();
+            for (long j = readNumber(in); j > 0; j--) {
+                messages.add(readValue(in));
+            }
+            channels.put(name, new ExecutionState.ChannelState(capacity, messages));
+        }
+        List<ExecutionState.FrameState> frames = new ArrayList<>();
+        for (long i = readNumber(in); i > 0; i--) {
+            int kind = in.readUnsignedByte();
+            if (kind >= KINDS.length) {
+                throw new IOException("Unknown frame kind " + kind + ".");
+            }
+            int block = (int) readNumber(in);
+            int position = (int) readNumber(in);
+            String label = readText(in);
+            if (KINDS[kind] == Frame.Kind.LOOP) {
+                frames.add(new ExecutionState.FrameState(KINDS[kind], block, position, label, (int) readNumber(in),
+                        readSigned(in), readSigned(in)));
+            } else {
+                frames.add(new ExecutionState.FrameState(KINDS[kind], block, position, label, 0, 0, 0));
+            }
+        }
+        String awaitedInput = readText(in);
+        return new Checkpoint(fingerprint, new ExecutionState(variables, globals, channels, frames, awaitedInput));
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Long number) {
+            out.writeByte(LONG);
+            writeSigned(out, number);
+        } else if (value instanceof Double number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number);
+        } else if (value instanceof Boolean flag) {
+            out.writeByte(flag ? TRUE : FALSE);
+        } else {
+            out.writeByte(TEXT);
+            writeText(out, String.valueOf(value));
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        return switch (tag) {
+            case LONG -> readSigned(in);
+            case DOUBLE -> in.readDouble();
+            case FALSE -> false;
+            case TRUE -> true;
+            case TEXT -> readText(in);
+            default -> throw new IOException("Unknown value tag " + tag + ".");
+        };
+    }
+
+    /**
+     * Writes a text as its length in bytes plus one, or 0 for null, followed by its UTF-8 bytes.
+     */
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            writeNumber(out, 0);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeNumber(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        long length = readNumber(in);
+        if (length == 0) {
+            return null;
+        } else if (length - 1 > Integer.MAX_VALUE) {
+            throw new IOException("Text of " + (length - 1) + " bytes is too long.");
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a number that may be negative, zigzag-encoded so that small negative numbers stay short.
+     */
+    private static void writeSigned(DataOutputStream out, long value) throws IOException {
+        writeNumber(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readSigned(DataInputStream in) throws IOException {
+        long encoded = readNumber(in);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    /**
+     * Writes a non-negative number in groups of seven bits, least significant first.
+     */
+    private static void writeNumber(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readNumber(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int group = in.readUnsignedByte();
+            value |= (long) (group & 0x7F) << shift;
+            if ((group & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number.");
+    }
+}
@@ -0,0 +1,124 @@
+package org.interpreter.runtime;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of a suspended program: its variables, global variables and channels, the frames of its call
+ * stack, which hold the position of every block being executed, the return addresses of its subroutine calls
+ * and the counters of its loops, and the variable an INPUT statement waits for. A state holds no statements,
+ * only the numbers of their blocks in the program's {@link ProgramBlocks}, so it can be serialized and
+ * restored into an environment of the same program in another process.
+ *
+ * <p>Values are kept as plain Java objects: a {@link Long}, a {@link Double}, a {@link Boolean} or a
+ * {@link String}. A program is captured while none of its tasks is running, so its state is complete.</p>
+ */
+public final class ExecutionState implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The state of a frame of the call stack.
+     *
+     * @param kind the kind of block the frame executes
+     * @param block the number of the block in the program
+     * @param position the index of the next statement of the block
+     * @param label the label of a call frame, otherwise null
+     * @param slot the slot of the loop variable of a loop frame
+     * @param counter the current value of the loop variable of a loop frame
+     * @param end the last value of the loop variable of a loop frame
+     */
+    public record FrameState(Frame.Kind kind, int block, int position, String label, int slot, long counter,
+                             long end) implements Serializable {
+    }
+
+    /**
+     * The state of a channel.
+     *
+     * @param capacity the capacity of the channel, or 0 for an unbounded channel
+     * @param messages the values the channel holds, oldest first
+     */
+    public record ChannelState(int capacity, List<Object> messages) implements Serializable {
+    }
+
+    private final Map<String, Object> variables;
+    private final Map<String, Object> globals;
+    private final Map<String, ChannelState> channels;
+    private final List<FrameState> frames;
+    private final String awaitedInput;
+
+    /**
+     * Constructs a state.
+     *
+     * @param variables the assigned variables by name
+     * @param globals the assigned global variables by name
+     * @param channels the declared channels by name
+     * @param frames the frames of the call stack, from the bottom
+     * @param awaitedInput the variable an INPUT statement waits for, or null
+     */
+    public ExecutionState(Map<String, Object> variables, Map<String, Object> globals, Map<String, ChannelState> channels,
+                          List<FrameState> frames, String awaitedInput) {
+        this.variables = Collections.unmodifiableMap(new LinkedHashMap<>(variables));
+        this.globals = Collections.unmodifiableMap(new LinkedHashMap<>(globals));
+        this.channels = Collections.unmodifiableMap(new LinkedHashMap<>(channels));
+        this.frames = Collections.unmodifiableList(new ArrayList<>(frames));
+        this.awaitedInput = awaitedInput;
+    }
+
+    /**
+     * Returns the variables of the program that have been assigned.
+     *
+     * @return the values of the variables by name, in slot order
+     */
+    public Map<String, Object> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Returns the global variables of the program that have been assigned.
+     *
+     * @return the values of the global variables by name, in slot order
+     */
+    public Map<String, Object> getGlobals() {
+        return globals;
+    }
+
+    /**
+     * Returns the channels the program has used.
+     *
+     * @return the states of the channels by name, in slot order
+     */
+    public Map<String, ChannelState> getChannels() {
+        return channels;
+    }
+
+    /**
+     * Returns the frames of the call stack.
+     *
+     * @return the states of the frames, from the bottom of the stack
+     */
+    public List<FrameState> getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the variable an INPUT statement waits for.
+     *
+     * @return the name of the variable, or null if the program was not suspended at INPUT
+     */
+    public String getAwaitedInput() {
+        return awaitedInput;
+    }
+
+    /**
+     * Converts a value of a variable, a global or a channel to an object a state can hold.
+     */
+    static Object plain(Object value) {
+        return value instanceof Long || value instanceof Double || value instanceof Boolean ? value : String.valueOf(value);
+    }
+}
@@ -0,0 +1,184 @@
+package org.interpreter.runtime;
+
+import org.interpreter.events.SubroutineEvent;
+import org.interpreter.parser.statements.Statement;
+
+import java.util.List;
+
+/**
+ * Represents an activation of a block of statements on the interpreter's {@link CallStack}.
+ * A frame records the block being executed and the position of the next statement, which is
+ * the return address once a nested block completes. Loop frames additionally hold the state of
+ * a FOR loop, and call frames the label of the subroutine they execute.
+ *
+ * <p>Frames are owned and reused by the call stack, so pushing a frame in a hot loop does not allocate.</p>
+ */
+public final class Frame {
+
+    /**
+     * Distinguishes the kinds of blocks a frame can execute.
+     */
+    public enum Kind {
+        /** A plain block, such as the main program or a branch of an IF statement. */
+        BLOCK,
+
+        /** The body of a FOR loop. */
+        LOOP,
+
+        /** The block of a subroutine entered through GOSUB or GOTO. */
+        CALL
+    }
+
+    private Kind kind;
+    private List<Statement> block;
+    private int position;
+    private String label;
+    private int slot;
+    private long counter;
+    private long end;
+    private SubroutineEvent event;
+
+    /**
+     * Constructs an empty frame. Frames are initialized by the call stack when they are pushed.
+     */
+    Frame() {
+        // Initialized through reset
+    }
+
+    /**
+     * Reinitializes this frame for a new activation.
+     *
+     * @param kind the kind of block
+     * @param block the statements to execute
+     * @param label the subroutine label for call frames, otherwise null
+     * @param slot the slot of the loop variable for loop frames
+     * @param counter the current value of the loop variable for loop frames
+     * @param end the last value of the loop variable for loop frames
+     */
+    void reset(Kind kind, List<Statement> block, String label, int slot, long counter, long end) {
+        this.kind = kind;
+        this.block = block;
+        this.position = 0;
+        this.label = label;
+        this.slot = slot;
+        this.counter = counter;
+        this.end = end;
+        this.event = null;
+    }
+
+    /**
+     * Attaches the flight recorder event of a call frame, which is committed when the frame is popped.
+     *
+     * @param event the started event
+     */
+    void attach(SubroutineEvent event) {
+        this.event = event;
+    }
+
+    /**
+     * Commits the flight recorder event of a call frame, if one was attached.
+     */
+    void commitEvent() {
+        if (event != null) {
+            event.commit();
+            event = null;
+        }
+    }
+
+    /**
+     * Returns the next statement of the block and advances the position past it.
+     *
+     * @return the next statement, or null if the block is exhausted
+     */
+    Statement next() {
+        return position < block.size() ? block.get(position++) : null;
+    }
+
+    /**
+     * Advances a loop frame to its next iteration once its body is exhausted.
+     *
+     * @param env the runtime environment holding the loop variable
+     * @return true if the loop runs another iteration, false if the frame is complete
+     */
+    boolean repeat(RuntimeEnvironment env) {
+        if (kind != Kind.LOOP || counter >= end) {
+            return false;
+        }
+        counter++;
+        env.store(slot, Value.ofInteger(counter));
+        position = 0;
+        return true;
+    }
+
+    /**
+     * Returns the kind of block this frame executes.
+     *
+     * @return the kind of the frame
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the statements this frame executes.
+     *
+     * @return the block of the frame
+     */
+    public List<Statement> getBlock() {
+        return block;
+    }
+
+    /**
+     * Returns the position of the next statement to execute in the block.
+     *
+     * @return the index of the next statement
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the slot of the loop variable of a loop frame.
+     *
+     * @return the slot of the loop variable
+     */
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Returns the current value of the loop variable of a loop frame.
+     *
+     * @return the loop counter
+     */
+    long getCounter() {
+        return counter;
+    }
+
+    /**
+     * Returns the last value of the loop variable of a loop frame.
+     *
+     * @return the end of the loop
+     */
+    long getEnd() {
+        return end;
+    }
+
+    /**
+     * Moves this frame to a position in its block, for a frame restored from a suspended program.
+     *
+     * @param position the index of the next statement
+     */
+    void moveTo(int position) {
+        this.position = position;
+    }
+
+    /**
+     * Returns the label of the subroutine executed by a call frame.
+     *
+     * @return the subroutine label, or null if this is not a call frame
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,80 @@
+package org.interpreter.runtime;
+
+import org.interpreter.parser.statements.Statement;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers every block of statements of a program, so that the frames of a suspended program can refer to
+ * their blocks by number in an {@link ExecutionState}. The main program is block 0, followed by the labeled
+ * blocks in source order, and the nested blocks of every statement in the order they are reached. Parsing
+ * the same source again numbers its blocks the same way, so a state can be restored in another process.
+ */
+public final class ProgramBlocks {
+    private final List<List<Statement>> blocks = new ArrayList<>();
+    private final Map<List<Statement>, Integer> indexes = new IdentityHashMap<>();
+
+    /**
+     * Numbers the blocks of a linked program.
+     *
+     * @param program the statements of the main program
+     * @param labels the labeled blocks of the program, in source order
+     */
+    public ProgramBlocks(List<Statement> program, Map<String, List<Statement>> labels) {
+        Deque<List<Statement>> pending = new ArrayDeque<>();
+        pending.add(program);
+        pending.addAll(labels.values());
+        while (!pending.isEmpty()) {
+            List<Statement> block = pending.poll();
+            if (indexes.putIfAbsent(block, blocks.size()) == null) {
+                blocks.add(block);
+                for (Statement statement : block) {
+                    pending.addAll(statement.getBlocks());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of a block.
+     *
+     * @param block a block of the program
+     * @return the number of the block
+     * @throws IllegalArgumentException if the block does not belong to the program
+     */
+    public int indexOf(List<Statement> block) {
+        Integer index = indexes.get(block);
+        if (index == null) {
+            throw new IllegalArgumentException("The block does not belong to the program.");
+        }
+        return index;
+    }
+
+    /**
+     * Returns the block with a number.
+     *
+     * @param index the number of the block
+     * @return the statements of the block
+     * @throws IllegalArgumentException if the program has no block with the number
+     */
+    public List<Statement> get(int index) {
+        if (index < 0 || index >= blocks.size()) {
+            throw new IllegalArgumentException("The program has no block " + index + ".");
+        }
+        return blocks.get(index);
+    }
+
+    /**
+     * Returns the number of blocks of the program.
+     *
+     * @return the number of blocks
+     */
+    public int size() {
+        return blocks.size();
+    }
+}
@@ -0,0 +1,229 @@
+package org.interpreter.runtime;
+
+import org.interpreter.exceptions.QuotaExceededException;
+import org.interpreter.exceptions.QuotaExceededException.Resource;
+import org.interpreter.metrics.InterpreterMetrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the resources a run uses and stops it once it exceeds one of its limits. A quota is attached to
+ * the environment of a run with {@link RuntimeEnvironment#setQuota(Quota)}, and is shared with the
+ * environments of its tasks and parallel loops.
+ *
+ * <p>Checking a limit after every statement would slow down tight loops, so the environment counts
+ * statements and loop iterations locally and {@link #charge(long) charges} them in batches of
+ * {@value InterpreterMetrics#STATEMENT_BATCH}, the points where it also publishes its metrics. The
+ * instruction, wall time and allocation limits are therefore enforced within a batch of instructions,
+ * which is a few microseconds of execution. The output limit is enforced before every line is printed.
+ * Allocations are measured on the thread that runs the script, and on the threads that run the chunks of
+ * its parallel loops and its tasks while they {@link #enterWorker() work} for it. A run that a scheduler
+ * moves between threads {@link #detach() detaches} the quota from a thread when it is suspended and
+ * {@link #attach() attaches} it to the thread that resumes it.</p>
+ *
+ * <p>A run that is blocked, for example on a channel, does not reach a checkpoint. A supervisor can
+ * {@link #expire()} the quota and interrupt the run, which then fails with the wall time exceeded.</p>
+ */
+public final class Quota {
+    /** The limit of a resource that is not limited. */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final long maxInstructions;
+    private final long maxWallNanos;
+    private final long maxOutputBytes;
+    private final long maxAllocatedBytes;
+    private final long start = System.nanoTime();
+    private Thread owner = Thread.currentThread();
+    private long allocationBase;
+    private long allocated;
+    private final AtomicLong workerAllocated = new AtomicLong();
+    private final ThreadLocal<Long> workerBase = new ThreadLocal<>();
+    private final AtomicLong instructions = new AtomicLong();
+    private final AtomicLong outputBytes = new AtomicLong();
+    private volatile boolean expired;
+
+    /**
+     * Constructs a quota for a run that starts now, on the calling thread.
+     *
+     * @param maxInstructions the number of statements and loop iterations the run may execute
+     * @param maxWallNanos the time the run may take, in nanoseconds
+     * @param maxOutputBytes the number of bytes the run may print, in UTF-8 and including line separators
+     * @param maxAllocatedBytes the number of bytes the run may allocate, or {@link #UNLIMITED}
+     * @throws IllegalArgumentException if a limit is not positive
+     * @throws UnsupportedOperationException if allocations are limited on a JVM that cannot measure them
+     */
+    public Quota(long maxInstructions, long maxWallNanos, long maxOutputBytes, long maxAllocatedBytes) {
+        if (maxInstructions <= 0 || maxWallNanos <= 0 || maxOutputBytes <= 0 || maxAllocatedBytes <= 0) {
+            throw new IllegalArgumentException("Quota limits must be positive.");
+        }
+        if (maxAllocatedBytes != UNLIMITED && THREADS == null) {
+            throw new UnsupportedOperationException("This JVM cannot measure the memory allocated by a thread");
+        }
+        this.maxInstructions = maxInstructions;
+        this.maxWallNanos = maxWallNanos;
+        this.maxOutputBytes = maxOutputBytes;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+        this.allocationBase = THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * Adds executed instructions and checks every limit except the output.
+     *
+     * @param count the number of statements and loop iterations executed since the last charge
+     * @throws QuotaExceededException if the run exceeded a limit
+     */
+    public void charge(long count) {
+        if (instructions.addAndGet(count) > maxInstructions) {
+            throw new QuotaExceededException(Resource.INSTRUCTIONS, maxInstructions);
+        }
+        if (expired || System.nanoTime() - start > maxWallNanos) {
+            expired = true;
+            throw new QuotaExceededException(Resource.WALL_TIME, TimeUnit.NANOSECONDS.toMillis(maxWallNanos));
+        }
+        if (maxAllocatedBytes != UNLIMITED && getAllocatedBytes() > maxAllocatedBytes) {
+            throw new QuotaExceededException(Resource.ALLOCATED_BYTES, maxAllocatedBytes);
+        }
+    }
+
+    /**
+     * Adds executed instructions without checking the limits, for the instructions a block executed
+     * since its last checkpoint when it ends.
+     *
+     * @param count the number of statements and loop iterations
+     */
+    public void record(long count) {
+        instructions.addAndGet(count);
+    }
+
+    /**
+     * Adds printed output, unless it would exceed the output limit.
+     *
+     * @param bytes the number of bytes about to be printed, in UTF-8
+     * @throws QuotaExceededException if printing them would exceed the output limit
+     */
+    public void chargeOutput(long bytes) {
+        if (outputBytes.addAndGet(bytes) > maxOutputBytes) {
+            outputBytes.addAndGet(-bytes);
+            throw new QuotaExceededException(Resource.OUTPUT_BYTES, maxOutputBytes);
+        }
+    }
+
+    /**
+     * Measures the allocations of the run on the calling thread from now on, for a run that resumes on it.
+     * Call it on the thread that continues the run, after the quota was {@link #detach() detached}.
+     */
+    public void attach() {
+        owner = Thread.currentThread();
+        allocationBase = THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * Adds the allocations the calling thread made for the run, and stops measuring them, for a run that
+     * is suspended. Call it on the thread the quota is attached to.
+     */
+    public void detach() {
+        allocated = getAllocatedBytes();
+        owner = null;
+    }
+
+    /**
+     * Measures the allocations of the calling thread for the run, for a worker that runs a chunk of a parallel
+     * loop or a task of the run. A thread that already works for the run, such as the one it is attached
+     * to, is not measured twice.
+     *
+     * @return true if the thread is now measured, in which case it must call {@link #leaveWorker()} when done
+     */
+    public boolean enterWorker() {
+        if (THREADS == null || Thread.currentThread() == owner || workerBase.get() != null) {
+            return false;
+        }
+        workerBase.set(THREADS.getCurrentThreadAllocatedBytes());
+        return true;
+    }
+
+    /**
+     * Adds the allocations the calling worker made for the run, and stops measuring them.
+     */
+    public void leaveWorker() {
+        long base = workerBase.get();
+        workerBase.remove();
+        workerAllocated.addAndGet(THREADS.getCurrentThreadAllocatedBytes() - base);
+    }
+
+    /**
+     * Marks the wall time as exceeded, so the run fails at its next checkpoint. It can be called from any thread.
+     */
+    public void expire() {
+        expired = true;
+    }
+
+    /**
+     * Returns whether the wall time has been exceeded.
+     *
+     * @return true once the run has reached a checkpoint after its wall time, or the quota was expired
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Returns the number of instructions charged so far.
+     *
+     * @return the number of statements and loop iterations
+     */
+    public long getInstructions() {
+        return instructions.get();
+    }
+
+    /**
+     * Returns the output printed so far.
+     *
+     * @return the number of bytes printed, in UTF-8 and including line separators
+     */
+    public long getOutputBytes() {
+        return outputBytes.get();
+    }
+
+    /**
+     * Returns the bytes allocated by the threads that ran the script since the quota was created. Call it
+     * on the thread the quota is attached to, or on any thread once it is detached. On a worker, it includes
+     * the allocations of the worker so far.
+     *
+     * @return the allocated bytes, or 0 if the JVM cannot measure them
+     */
+    public long getAllocatedBytes() {
+        long total = allocated + workerAllocated.get();
+        if (THREADS == null) {
+            return total;
+        } else if (Thread.currentThread() == owner) {
+            return total + THREADS.getCurrentThreadAllocatedBytes() - allocationBase;
+        }
+        Long base = workerBase.get();
+        return base != null ? total + THREADS.getCurrentThreadAllocatedBytes() - base : total;
+    }
+
+    /**
+     * Returns the time since the quota was created.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the bean that measures thread allocations, or null if the JVM does not support it.
+     */
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+}
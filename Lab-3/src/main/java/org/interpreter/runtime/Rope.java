@@ -0,0 +1,121 @@
+package org.interpreter.runtime;
+
+/**
+ * Represents a string value built by concatenation. A rope is a view of the first {@code length}
+ * characters of a buffer that may be shared with other ropes. Appending to the rope that covers the
+ * whole buffer extends the buffer in place, so repeated appends such as {@code S = S + "..."} in a loop
+ * are amortized O(1) instead of copying the accumulated string every time. Appending to an older view
+ * copies its prefix into a new buffer, which leaves every existing view unchanged.
+ *
+ * <p>The characters are flattened into a {@link String} only when the value is printed or compared,
+ * and the flattened string is cached.</p>
+ */
+public final class Rope implements CharSequence {
+    private final StringBuilder buffer;
+    private final int length;
+    private String flattened;
+
+    /**
+     * Constructs a rope that views a prefix of a buffer.
+     *
+     * @param buffer the buffer holding the characters
+     * @param length the number of characters of the buffer that belong to this rope
+     */
+    private Rope(StringBuilder buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * Concatenates two character sequences, extending the left operand in place when it is the latest view of its buffer.
+     *
+     * @param left the left operand, which may be a rope
+     * @param right the right operand
+     * @return a rope holding the concatenation of both operands
+     */
+    public static Rope concat(CharSequence left, CharSequence right) {
+        if (left instanceof Rope rope) {
+            return rope.append(right);
+        }
+        StringBuilder buffer = new StringBuilder(left.length() + right.length() + 16);
+        buffer.append(left).append(right.toString());
+        return new Rope(buffer, buffer.length());
+    }
+
+    /**
+     * Appends a character sequence to this rope.
+     *
+     * @param suffix the characters to append
+     * @return a rope holding this rope's characters followed by the suffix
+     */
+    public Rope append(CharSequence suffix) {
+        String text = suffix.toString();
+        StringBuilder copy;
+        synchronized (buffer) {
+            if (buffer.length() == length) {
+                buffer.append(text);
+                return new Rope(buffer, buffer.length());
+            }
+            copy = new StringBuilder(Math.max(16, (length + text.length()) * 2));
+            copy.append(buffer, 0, length);
+        }
+        copy.append(text);
+        return new Rope(copy, copy.length());
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        synchronized (buffer) {
+            return buffer.charAt(index);
+        }
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Flattens the rope into a string. The result is cached, so the characters are copied at most once.
+     *
+     * @return the characters of this rope as a String
+     */
+    @Override
+    public String toString() {
+        String result = flattened;
+        if (result == null) {
+            synchronized (buffer) {
+                result = buffer.substring(0, length);
+            }
+            flattened = result;
+        }
+        return result;
+    }
+
+    /**
+     * Compares this rope with another object. A rope is equal to any other rope or string with the same characters.
+     *
+     * @param other the object to compare with
+     * @return true if the other object is a character sequence with the same characters
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return (other instanceof Rope || other instanceof String) && toString().contentEquals((CharSequence) other);
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
@@ -1,32 +1,466 @@
 package org.interpreter.runtime;
 
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.exceptions.TaskCancelledException;
 import org.interpreter.exceptions.UninitializedSubroutineException;
 import org.interpreter.exceptions.UninitializedVariableException;
+import org.interpreter.metrics.InterpreterMetrics;
 import org.interpreter.parser.statements.Statement;
+import org.interpreter.profiler.SamplingProfiler;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Manages the runtime environment of the interpreter, handling variable values and control flow mechanisms.
  * This class maintains mappings for both variables and labeled statements, allowing the interpreter
  * to execute based on dynamic control flow and variable values set during runtime.
+ *
+ * <p>Variables are resolved to numbered slots while the program is parsed, and their values are kept as
+ * tagged {@link Value}s in a primitive array. Objects such as strings are held next to the slots, or, for
+ * intermediate results of an expression, in a reference table that is released after every statement.</p>
  */
 public class RuntimeEnvironment {
+    private static final int INITIAL_CAPACITY = 16;
 
-    /** Stores variable names and their current values. */
-    private final Map<String, Object> variables = new HashMap<>();
+    /** The approximate size of an object header and a reference, used to estimate the footprint. */
+    private static final int OBJECT_BYTES = 16;
+    private static final int REFERENCE_BYTES = 8;
 
-    /** Maps labels to lists of statements, facilitating control flow changes such as GOTO or subroutine calls. */
-    private final Map<String, List<Statement>> statements = new HashMap<>();
+    /** Maps variable names to their slots. */
+    private final Map<String, Integer> slots;
+
+    /** Stores variable names by slot, for error messages. */
+    private String[] names = new String[INITIAL_CAPACITY];
+
+    /** Stores the current tagged value of each variable slot. */
+    private long[] values = newValues(INITIAL_CAPACITY);
+
+    /** Stores the objects referenced by variable slots that hold a reference. */
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+
+    /** Holds the objects referenced by intermediate values of the statement being executed. */
+    private Object[] references = new Object[INITIAL_CAPACITY];
+
+    /** Number of entries in use in the reference table. */
+    private int referenceCount;
+
+    /** Maps labels, in source order, to lists of statements, facilitating control flow changes such as GOTO or subroutine calls. */
+    private final Map<String, List<Statement>> statements;
+
+    /** Holds the frames of the blocks being executed, including the return addresses of subroutine calls. */
+    private final CallStack callStack = new CallStack();
+
+    /** Number of variables, published for monitoring threads. */
+    private volatile int variableCount;
+
+    /** Receives the counters of the programs executed in this environment. */
+    private final InterpreterMetrics metrics;
+
+    /** Executes the iterations of parallel loops, or null to use the common pool. */
+    private ForkJoinPool pool;
+
+    /** Holds the channels of the program, shared with the environments of its tasks. */
+    private final ChannelRegistry channels;
+
+    /** Holds the variables declared with GLOBAL, shared with the environments of its tasks and possibly other programs. */
+    private final SharedGlobals globals;
+
+    /** Holds the tasks this environment started with SPAWN that have not been waited for. */
+    private final TaskScope tasks = new TaskScope(this);
+
+    /** The label of the task this environment runs, or null for the script itself. */
+    private final String task;
+
+    /** Set when the task is cancelled; shared with the workers of the task's parallel loops. */
+    private final AtomicBoolean cancelled;
+
+    /** Limits the resources of the run, or null for a run without limits; shared with the environments it forks. */
+    private Quota quota;
+
+    /** Receives the output of PRINT, or null to write to the standard output stream. */
+    private PrintStream output;
+
+    /** Supplies the lines INPUT reads, or null to read the standard input stream. */
+    private BufferedReader input;
+
+    /** Whether INPUT suspends the program instead of reading the standard input stream. */
+    private boolean suspendOnInput;
+
+    /** The slot of the variable INPUT waits for while the program is suspended, or -1. */
+    private int awaitedSlot = -1;
+
+    /** Samples the call stack at checkpoints, or null; not inherited by forked environments. */
+    private SamplingProfiler sampler;
 
     /**
      * Default constructor for the RuntimeEnvironment class.
-     * Initializes the environment with empty maps for variables and subroutine statements.
+     * Initializes the environment with empty maps for variables and subroutine statements,
+     * and with metrics of its own.
      */
     public RuntimeEnvironment() {
-        // Default constructor
+        this(new InterpreterMetrics());
+    }
+
+    /**
+     * Constructs an empty environment that reports to the given metrics. The metrics are attached
+     * to the environment, so they report its call depth and variables from now on.
+     *
+     * @param metrics the metrics to update while programs execute
+     */
+    public RuntimeEnvironment(InterpreterMetrics metrics) {
+        this(metrics, new SharedGlobals());
+    }
+
+    /**
+     * Constructs an empty environment that reports to the given metrics and keeps its global variables in
+     * the given store, which other environments may share.
+     *
+     * @param metrics the metrics to update while programs execute
+     * @param globals the store of the variables declared with GLOBAL
+     */
+    public RuntimeEnvironment(InterpreterMetrics metrics, SharedGlobals globals) {
+        this.slots = new HashMap<>();
+        this.statements = new LinkedHashMap<>();
+        this.metrics = metrics;
+        this.channels = new ChannelRegistry();
+        this.globals = globals;
+        this.task = null;
+        this.cancelled = new AtomicBoolean();
+        metrics.attach(this);
+    }
+
+    /**
+     * Constructs a copy of an environment for a worker of a parallel loop or a spawned task. The copy shares
+     * the labels, variable slots, channels, globals, metrics and pool of its parent, and starts with a snapshot of
+     * its variables, but has a call stack, reference table and tasks of its own.
+     *
+     * @param parent the environment to copy
+     * @param task the label of the task the copy runs
+     * @param cancelled the flag that cancels the copy
+     */
+    private RuntimeEnvironment(RuntimeEnvironment parent, String task, AtomicBoolean cancelled) {
+        this.task = task;
+        this.cancelled = cancelled;
+        this.slots = parent.slots;
+        this.statements = parent.statements;
+        this.metrics = parent.metrics;
+        this.channels = parent.channels;
+        this.globals = parent.globals;
+        this.pool = parent.pool;
+        this.quota = parent.quota;
+        this.output = parent.output;
+        this.input = parent.input;
+        this.names = parent.names;
+        this.values = parent.values.clone();
+        this.objects = parent.objects.clone();
+        this.variableCount = parent.variableCount;
+        this.callStack.setMaxDepth(parent.callStack.getMaxDepth());
+    }
+
+    /**
+     * Constructs an environment for a new run of the program parsed into a prototype. The new environment
+     * shares the labels and the variable names and slots of the prototype, and has channels and global
+     * variables with the same slots, but every variable, channel and global starts empty.
+     *
+     * @param prototype the environment the program was parsed into
+     * @param metrics the metrics to update while the program executes
+     */
+    private RuntimeEnvironment(RuntimeEnvironment prototype, InterpreterMetrics metrics) {
+        this.task = null;
+        this.cancelled = new AtomicBoolean();
+        this.slots = prototype.slots;
+        this.statements = prototype.statements;
+        this.metrics = metrics;
+        this.channels = prototype.channels.copySlots();
+        this.globals = prototype.globals.copySlots();
+        this.names = prototype.names;
+        this.values = newValues(prototype.values.length);
+        this.objects = new Object[prototype.objects.length];
+        this.variableCount = prototype.variableCount;
+    }
+
+    /**
+     * Creates an environment for a new run of the program parsed into this one, so that a program can be
+     * parsed and linked once and then run many times, also concurrently. The new environment starts without
+     * variables, channels, global variables and tasks, and does not attach itself to the metrics, since
+     * several runs may report to the same metrics at the same time. No more variables may be added to this
+     * environment once it has been instantiated.
+     *
+     * @param metrics the metrics to update while the program executes
+     * @return a fresh environment for the program
+     */
+    public RuntimeEnvironment instantiate(InterpreterMetrics metrics) {
+        return new RuntimeEnvironment(this, metrics);
+    }
+
+    /**
+     * Creates an environment in which a worker thread executes iterations of a parallel loop.
+     * The worker sees the values the variables have now, and its assignments do not affect this
+     * environment. Call it on the thread that runs the program.
+     *
+     * @return a private copy of this environment
+     */
+    public RuntimeEnvironment fork() {
+        return new RuntimeEnvironment(this, task, cancelled);
+    }
+
+    /**
+     * Creates an environment in which a task started by SPAWN executes a labeled block. Like a
+     * {@link #fork()}, the task sees the values the variables have now and its assignments do not affect
+     * this environment, but it can be cancelled on its own. Call it on the thread that runs the program.
+     *
+     * @param label the label of the task
+     * @return a private copy of this environment
+     */
+    public RuntimeEnvironment forkTask(String label) {
+        return new RuntimeEnvironment(this, label, new AtomicBoolean());
+    }
+
+    /**
+     * Returns the channels of the program, which this environment shares with the environments it forks.
+     *
+     * @return the channel registry
+     */
+    public ChannelRegistry getChannels() {
+        return channels;
+    }
+
+    /**
+     * Returns the store of the global variables, which this environment shares with the environments it forks.
+     *
+     * @return the global variables
+     */
+    public SharedGlobals getGlobals() {
+        return globals;
+    }
+
+    /**
+     * Returns the tasks this environment started that have not been waited for yet.
+     *
+     * @return the task scope of this environment
+     */
+    public TaskScope getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Cancels the task this environment runs, together with the workers of its parallel loops. The task
+     * stops with a {@link TaskCancelledException} within {@value InterpreterMetrics#STATEMENT_BATCH}
+     * statements. It can be called from any thread.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Copies the value of a variable from another environment of the same program, such as a task that
+     * has completed, into this one.
+     *
+     * @param source the environment to copy the value from
+     * @param slot the slot of the variable
+     */
+    public void copyFrom(RuntimeEnvironment source, int slot) {
+        long value = source.peek(slot);
+        if (value != Value.UNDEFINED) {
+            objects[slot] = source.objects[slot];
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Returns the quota that limits the resources of the run.
+     *
+     * @return the quota, or null if the run is not limited
+     */
+    public Quota getQuota() {
+        return quota;
+    }
+
+    /**
+     * Sets the quota that limits the resources of the run. Set it before the run starts, since the
+     * environments forked before are not affected.
+     *
+     * @param quota the quota to enforce, or null to run without limits
+     */
+    public void setQuota(Quota quota) {
+        this.quota = quota;
+    }
+
+    /**
+     * Returns the stream that receives the output of PRINT.
+     *
+     * @return the output stream of this environment, or the standard output stream if none was set
+     */
+    public PrintStream getOutput() {
+        return output != null ? output : System.out;
+    }
+
+    /**
+     * Sets the stream that receives the output of PRINT. Set it before the run starts, since the
+     * environments forked before are not affected.
+     *
+     * @param output the stream to write to, or null to write to the standard output stream
+     */
+    public void setOutput(PrintStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Sets the reader that supplies the lines INPUT reads. Set it before the run starts, since the
+     * environments of tasks and parallel loops copy it when they are created.
+     *
+     * @param input the reader to read lines from, or null to read the standard input stream
+     */
+    public void setInput(BufferedReader input) {
+        this.input = input;
+    }
+
+    /**
+     * Reads a line for INPUT from the input of this environment.
+     *
+     * @return the line, without its line separator
+     * @throws java.util.NoSuchElementException if the standard input stream has no more lines
+     * @throws InterpreterRuntimeException if the reader of this environment has no more lines
+     * @throws UncheckedIOException if the line cannot be read
+     */
+    public String readLine() {
+        if (input == null) {
+            return new Scanner(System.in).nextLine();
+        }
+        try {
+            String line = input.readLine();
+            if (line == null) {
+                throw new InterpreterRuntimeException("INPUT reached the end of the input.");
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Prints a line of output, counting it in the metrics and charging it to the quota, both by its length
+     * in UTF-8.
+     *
+     * @param line the line to print, without a line separator
+     * @throws org.interpreter.exceptions.QuotaExceededException if the line would exceed the output limit of the quota
+     */
+    public void printLine(String line) {
+        long bytes = utf8Length(line) + System.lineSeparator().length();
+        if (quota != null) {
+            quota.chargeOutput(bytes);
+        }
+        getOutput().println(line);
+        metrics.printed(bytes);
+    }
+
+    /**
+     * Returns the number of bytes of a text encoded in UTF-8, without encoding it.
+     */
+    private static long utf8Length(String text) {
+        long length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x800) {
+                // Three bytes, or four for a surrogate pair, which is two chars
+                length += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Prints text without a line separator, such as the prompt of INPUT, counting it in the metrics and
+     * charging it to the quota, both by its length in UTF-8.
+     *
+     * @param text the text to print
+     * @throws org.interpreter.exceptions.QuotaExceededException if the text would exceed the output limit of the quota
+     */
+    public void print(String text) {
+        long bytes = utf8Length(text);
+        if (quota != null) {
+            quota.chargeOutput(bytes);
+        }
+        getOutput().print(text);
+        metrics.printed(bytes);
+    }
+
+    /**
+     * Returns the pool that executes the iterations of parallel loops.
+     *
+     * @return the pool of this environment, or the common pool if none was set
+     */
+    public ForkJoinPool getPool() {
+        return pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Sets the pool that executes the iterations of parallel loops, which determines their parallelism.
+     *
+     * @param pool the pool to use, or null to use the common pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the metrics that statements update while they execute.
+     *
+     * @return the metrics of this environment
+     */
+    public InterpreterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the number of variables of this environment. It can be called from any thread.
+     *
+     * @return the number of variables
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Estimates the memory held by the variables of this environment: the slot arrays, the reference
+     * table and the strings that variables refer to. It can be called from any thread while a program
+     * runs, in which case it reads the arrays without synchronization and the result is only a rough
+     * indication.
+     *
+     * @return the approximate footprint in bytes
+     */
+    public long estimateFootprint() {
+        Object[] held = objects;
+        long bytes = 4L * OBJECT_BYTES
+                + (long) names.length * REFERENCE_BYTES
+                + (long) values.length * Long.BYTES
+                + (long) held.length * REFERENCE_BYTES
+                + (long) references.length * REFERENCE_BYTES;
+        int count = Math.min(variableCount, held.length);
+        for (int i = 0; i < count; i++) {
+            Object object = held[i];
+            if (object instanceof CharSequence text) {
+                bytes += OBJECT_BYTES + REFERENCE_BYTES + text.length();
+            } else if (object != null) {
+                bytes += OBJECT_BYTES;
+            }
+        }
+        return bytes;
     }
 
     /**
@@ -57,6 +491,539 @@ public class RuntimeEnvironment {
         return statementList;
     }
 
+    /**
+     * Returns all registered labels with their blocks of statements, in the order they were registered.
+     *
+     * @return an unmodifiable view of the labels and their statements
+     */
+    public Map<String, List<Statement>> getLabels() {
+        return Collections.unmodifiableMap(statements);
+    }
+
+    /**
+     * Returns the call stack on which statements schedule nested blocks and subroutine calls.
+     *
+     * @return the call stack of this environment
+     */
+    public CallStack getCallStack() {
+        return callStack;
+    }
+
+    /**
+     * Sets the profiler that samples the call stack of the programs this environment executes. The run loop
+     * calls it at every checkpoint, on the thread that runs the program.
+     *
+     * @param sampler the sampling profiler, or null to stop sampling
+     */
+    public void setSamplingProfiler(SamplingProfiler sampler) {
+        this.sampler = sampler;
+    }
+
+    /**
+     * Executes a block of statements until it completes, including every nested block and subroutine
+     * it schedules on the call stack. The statements of the topmost frame are executed one at a time
+     * in a loop, so nesting does not consume the Java thread stack. The intermediate references of each
+     * statement are released once it completes.
+     *
+     * <p>Executed statements are counted locally and added to the metrics every
+     * {@value InterpreterMetrics#STATEMENT_BATCH} statements, or at the earlier checkpoint a
+     * {@link SamplingProfiler} asks for, and once more when the block ends. Loop
+     * iterations, the back-edges of the program, are counted the same way, so that a loop with an empty body
+     * also reaches a checkpoint. At every checkpoint a task checks whether it has been cancelled, and the
+     * statements and iterations are charged to the quota, if there is one. Jumps and GOSUB calls are
+     * statements themselves, so every path through a program reaches checkpoints.</p>
+     *
+     * @param block the statements to execute
+     * @throws TaskCancelledException if the task this environment runs has been cancelled
+     * @throws org.interpreter.exceptions.QuotaExceededException if the run exceeded a limit of its quota
+     */
+    public void execute(List<Statement> block) {
+        int base = callStack.depth();
+        callStack.pushBlock(block);
+        try {
+            run(base, Long.MAX_VALUE);
+        } finally {
+            callStack.unwind(base);
+        }
+    }
+
+    /**
+     * Executes the body of a loop for a range of values of its loop variable, as a FOR loop does, and returns
+     * once the range is done. The iterations run on a single loop frame, so they reach checkpoints like the
+     * iterations of any other loop; a worker of a parallel loop executes its chunk this way.
+     *
+     * @param body the statements of the loop body
+     * @param slot the slot of the loop variable
+     * @param first the first value of the loop variable
+     * @param last the last value of the loop variable, which must not be less than the first
+     * @throws TaskCancelledException if the task this environment runs has been cancelled
+     * @throws org.interpreter.exceptions.QuotaExceededException if the run exceeded a limit of its quota
+     */
+    public void executeLoop(List<Statement> body, int slot, long first, long last) {
+        int base = callStack.depth();
+        store(slot, Value.ofInteger(first));
+        callStack.pushLoop(body, slot, first, last);
+        try {
+            run(base, Long.MAX_VALUE);
+        } finally {
+            callStack.unwind(base);
+        }
+    }
+
+    /**
+     * Prepares a program to be executed in slices with {@link #resume(long)}, so that a scheduler can
+     * interleave many programs on few threads. The whole state of a suspended program is kept in the
+     * frames of the call stack and in the variables of this environment, so it can be resumed on any thread.
+     *
+     * @param block the statements of the program
+     * @throws IllegalStateException if this environment is already executing a program
+     */
+    public void start(List<Statement> block) {
+        if (callStack.depth() > 0) {
+            throw new IllegalStateException("The environment is already executing a program.");
+        }
+        callStack.pushBlock(block);
+    }
+
+    /**
+     * Continues the program started with {@link #start(List)} for at most a given number of instructions,
+     * then suspends it. A program is only suspended between two statements or at the back-edge of a loop,
+     * so every statement, including one that blocks, runs entirely within one slice. A program that
+     * {@link #setSuspendOnInput(boolean) suspends on input} is also suspended when it reaches INPUT, and
+     * continues once the input is {@link #provideInput(String) provided}.
+     *
+     * @param fuel the number of statements and loop iterations to execute before the program yields
+     * @return true if the program completed, false if it was suspended and can be resumed
+     * @throws TaskCancelledException if the task this environment runs has been cancelled
+     * @throws org.interpreter.exceptions.QuotaExceededException if the run exceeded a limit of its quota
+     */
+    public boolean resume(long fuel) {
+        try {
+            return run(0, fuel);
+        } catch (Suspension suspension) {
+            return false;
+        } catch (RuntimeException | Error e) {
+            callStack.unwind(0);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether a program started with {@link #start(List)} has been suspended before it completed.
+     *
+     * @return true if the program can be resumed
+     */
+    public boolean isSuspended() {
+        return callStack.depth() > 0;
+    }
+
+    /**
+     * Sets whether INPUT suspends a program run with {@link #resume(long)}, instead of blocking the thread
+     * until a line is read from the standard input stream. Tasks never suspend.
+     *
+     * @param suspendOnInput true to suspend the program when it reaches INPUT
+     */
+    public void setSuspendOnInput(boolean suspendOnInput) {
+        this.suspendOnInput = suspendOnInput;
+    }
+
+    /**
+     * Returns whether INPUT suspends the program instead of reading the standard input stream.
+     *
+     * @return true if the program suspends when it reaches INPUT
+     */
+    public boolean isSuspendingOnInput() {
+        return suspendOnInput;
+    }
+
+    /**
+     * Suspends the program until a value for a variable is {@link #provideInput(String) provided}. Called
+     * by INPUT when the program {@link #isSuspendingOnInput() suspends on input}; the statement after INPUT
+     * is the next one to execute.
+     *
+     * @param slot the slot of the variable that receives the input
+     * @param lineNumber the line of the INPUT statement
+     * @throws InterpreterRuntimeException if tasks the program spawned have not been waited for, since their
+     *         threads cannot be suspended
+     */
+    public void awaitInput(int slot, int lineNumber) {
+        if (tasks.size() > 0) {
+            throw new InterpreterRuntimeException(String.format(
+                    "INPUT at line %d cannot suspend the program while its tasks are running.", lineNumber));
+        }
+        awaitedSlot = slot;
+        throw Suspension.INSTANCE;
+    }
+
+    /**
+     * Returns whether the program is suspended at INPUT.
+     *
+     * @return true if the program waits for input
+     */
+    public boolean isAwaitingInput() {
+        return awaitedSlot >= 0;
+    }
+
+    /**
+     * Assigns the input a suspended INPUT statement waits for, so that the program can be resumed.
+     *
+     * @param input the line of input
+     * @throws IllegalStateException if the program is not waiting for input
+     * @throws InterpreterRuntimeException if the input is not a valid number
+     */
+    public void provideInput(String input) {
+        if (awaitedSlot < 0) {
+            throw new IllegalStateException("The program is not waiting for input.");
+        }
+        int slot = awaitedSlot;
+        awaitedSlot = -1;
+        assignInput(slot, input);
+    }
+
+    /**
+     * Assigns a line of input to a variable, as a number. Integral input is stored as an integer, any other
+     * number as a double.
+     *
+     * @param slot the slot of the variable
+     * @param input the line of input
+     * @throws InterpreterRuntimeException if the input is not a valid number
+     */
+    public void assignInput(int slot, String input) {
+        try {
+            store(slot, Arithmetic.parse(input));
+        } catch (NumberFormatException e) {
+            throw new InterpreterRuntimeException("Invalid input for a number: " + input);
+        }
+    }
+
+    /**
+     * Captures the state of a suspended program, so that it can be restored into another environment of the
+     * same program with {@link #restore(ExecutionState, ProgramBlocks)}.
+     *
+     * @param blocks the numbered blocks of the program
+     * @return the state of the program
+     * @throws IllegalStateException if tasks the program spawned have not been waited for
+     */
+    public ExecutionState capture(ProgramBlocks blocks) {
+        if (tasks.size() > 0) {
+            throw new IllegalStateException("A program cannot be captured while its tasks are running.");
+        }
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (int slot = 0; slot < variableCount; slot++) {
+            if (values[slot] != Value.UNDEFINED) {
+                variables.put(names[slot], ExecutionState.plain(toObject(values[slot])));
+            }
+        }
+        Map<String, Object> globalValues = new LinkedHashMap<>();
+        for (int slot = 0; slot < globals.size(); slot++) {
+            Object value = globals.valueOf(slot);
+            if (value != null) {
+                globalValues.put(globals.nameOf(slot), value);
+            }
+        }
+        Map<String, ExecutionState.ChannelState> channelStates = new LinkedHashMap<>();
+        for (int slot = 0; slot < channels.size(); slot++) {
+            Channel channel = channels.find(slot);
+            if (channel != null) {
+                List<Object> messages = new ArrayList<>();
+                for (Object message = channel.poll(); message != null; message = channel.poll()) {
+                    messages.add(message);
+                }
+                messages.forEach(channel::offer);
+                messages.replaceAll(ExecutionState::plain);
+                channelStates.put(channels.nameOf(slot), new ExecutionState.ChannelState(channel.getCapacity(), messages));
+            }
+        }
+        List<ExecutionState.FrameState> frames = new ArrayList<>();
+        for (int i = 0; i < callStack.depth(); i++) {
+            Frame frame = callStack.get(i);
+            frames.add(new ExecutionState.FrameState(frame.getKind(), blocks.indexOf(frame.getBlock()),
+                    frame.getPosition(), frame.getLabel(), frame.getSlot(), frame.getCounter(), frame.getEnd()));
+        }
+        return new ExecutionState(variables, globalValues, channelStates, frames,
+                awaitedSlot >= 0 ? names[awaitedSlot] : null);
+    }
+
+    /**
+     * Restores the state of a suspended program into this environment, which must be a fresh environment of
+     * the same program, so that it continues with {@link #resume(long)} where it was captured.
+     *
+     * @param state the captured state
+     * @param blocks the numbered blocks of the program
+     * @throws IllegalStateException if this environment is already executing a program
+     * @throws IllegalArgumentException if the state does not belong to the program
+     */
+    public void restore(ExecutionState state, ProgramBlocks blocks) {
+        if (callStack.depth() > 0) {
+            throw new IllegalStateException("The environment is already executing a program.");
+        }
+        for (Map.Entry<String, Object> variable : state.getVariables().entrySet()) {
+            assign(knownSlot(variable.getKey()), variable.getValue());
+        }
+        state.getGlobals().forEach(globals::set);
+        for (Map.Entry<String, ExecutionState.ChannelState> entry : state.getChannels().entrySet()) {
+            ExecutionState.ChannelState channelState = entry.getValue();
+            Channel channel = channels.declare(channels.slotOf(entry.getKey()), channelState.capacity());
+            channelState.messages().forEach(channel::offer);
+        }
+        for (ExecutionState.FrameState frame : state.getFrames()) {
+            callStack.pushRestored(frame, blocks.get(frame.block()));
+        }
+        awaitedSlot = state.getAwaitedInput() != null ? knownSlot(state.getAwaitedInput()) : -1;
+    }
+
+    /**
+     * Returns the slot of a variable the program already knows.
+     */
+    private int knownSlot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            throw new IllegalArgumentException("The program has no variable '" + name + "'.");
+        }
+        return slot;
+    }
+
+    /**
+     * Unwinds a program that suspends itself out of the statement that suspends it. It is thrown without a
+     * stack trace, and caught by {@link #resume(long)}, which leaves the frames of the program in place.
+     */
+    private static final class Suspension extends RuntimeException {
+        static final Suspension INSTANCE = new Suspension();
+
+        private Suspension() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Executes the statements of the topmost frames until the stack unwinds to a base depth or the fuel
+     * runs out, and reports the statements and iterations it executed.
+     *
+     * @return true if the stack unwound to its base, false if the fuel ran out first
+     */
+    private boolean run(int base, long fuel) {
+        int executed = 0;
+        int iterations = 0;
+        int batch = InterpreterMetrics.STATEMENT_BATCH;
+        try {
+            while (callStack.depth() > base) {
+                if (fuel-- == 0) {
+                    return false;
+                }
+                Frame frame = callStack.peek();
+                Statement statement = frame.next();
+                if (statement != null) {
+                    statement.execute(this);
+                    releaseReferences();
+                    if (++executed == batch) {
+                        metrics.statementsExecuted(executed);
+                        executed = 0;
+                        checkpoint(batch);
+                        batch = sampler != null ? sampler.checkpoint(callStack) : InterpreterMetrics.STATEMENT_BATCH;
+                    }
+                } else if (frame.repeat(this)) {
+                    if (++iterations == InterpreterMetrics.STATEMENT_BATCH) {
+                        iterations = 0;
+                        checkpoint(InterpreterMetrics.STATEMENT_BATCH);
+                    }
+                } else {
+                    callStack.pop();
+                }
+            }
+            return true;
+        } finally {
+            metrics.statementsExecuted(executed);
+            if (quota != null) {
+                quota.record(executed + iterations);
+            }
+        }
+    }
+
+    /**
+     * Checks for cancellation and charges a batch of instructions to the quota.
+     *
+     * @param instructions the number of statements or loop iterations executed since the last checkpoint
+     */
+    private void checkpoint(int instructions) {
+        if (cancelled.get()) {
+            throw new TaskCancelledException(task);
+        }
+        if (quota != null) {
+            quota.charge(instructions);
+        }
+    }
+
+    /**
+     * Returns the slot of a variable, allocating a new slot on first use.
+     * The parser resolves every variable name through this method, so that statements and expressions
+     * can access variables by index during execution.
+     *
+     * @param name the name of the variable
+     * @return the slot of the variable
+     */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) {
+            return slot;
+        }
+
+        int newSlot = slots.size();
+        if (newSlot == values.length) {
+            int capacity = newSlot * 2;
+            names = Arrays.copyOf(names, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+            long[] grown = newValues(capacity);
+            System.arraycopy(values, 0, grown, 0, newSlot);
+            values = grown;
+        }
+        names[newSlot] = name;
+        slots.put(name, newSlot);
+        variableCount = newSlot + 1;
+        return newSlot;
+    }
+
+    /**
+     * Reads the tagged value of a variable slot.
+     *
+     * @param slot the slot of the variable
+     * @return the tagged value of the variable
+     * @throws UninitializedVariableException if the variable has not been assigned yet
+     */
+    public long load(int slot) {
+        long value = values[slot];
+        if (value == Value.UNDEFINED) {
+            throw new UninitializedVariableException(names[slot]);
+        }
+        return value;
+    }
+
+    /**
+     * Reads the tagged value of a variable slot without checking that it has been assigned,
+     * for diagnostics that inspect variables after the fact.
+     *
+     * @param slot the slot of the variable
+     * @return the tagged value of the variable, or {@link Value#UNDEFINED} if it has not been assigned
+     */
+    public long peek(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Returns the name of the variable held in a slot.
+     *
+     * @param slot the slot of the variable
+     * @return the name of the variable
+     */
+    public String nameOf(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * Assigns a tagged value to a variable slot. A referenced object is moved out of the
+     * reference table into the slot, so it outlives the statement that produced it.
+     *
+     * @param slot the slot of the variable
+     * @param value the tagged value to assign
+     */
+    public void store(int slot, long value) {
+        if (Value.isReference(value)) {
+            objects[slot] = dereference(value);
+            values[slot] = Value.slotReference(slot);
+        } else {
+            objects[slot] = null;
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Adds an object to the reference table for the duration of the current statement.
+     *
+     * @param object the object to reference
+     * @return a tagged reference to the object
+     */
+    public long reference(Object object) {
+        if (referenceCount == references.length) {
+            references = Arrays.copyOf(references, referenceCount * 2);
+        }
+        references[referenceCount] = object;
+        return Value.reference(referenceCount++);
+    }
+
+    /**
+     * Resolves a tagged reference to the object it refers to.
+     *
+     * @param value a tagged reference
+     * @return the referenced object
+     */
+    public Object dereference(long value) {
+        int index = Value.index(value);
+        return Value.isSlotReference(value) ? objects[index] : references[index];
+    }
+
+    /**
+     * Releases the intermediate references created while executing a statement.
+     * Values that were assigned to variables are not affected.
+     */
+    public void releaseReferences() {
+        if (referenceCount > 0) {
+            Arrays.fill(references, 0, referenceCount, null);
+            referenceCount = 0;
+        }
+    }
+
+    /**
+     * Converts a tagged value to its printed form.
+     *
+     * @param value the tagged value
+     * @return the text that PRINT shows for the value
+     */
+    public String toText(long value) {
+        if (Value.isNumber(value)) {
+            return Arithmetic.toString(value);
+        } else if (Value.isBoolean(value)) {
+            return String.valueOf(value == Value.TRUE);
+        }
+        return String.valueOf(dereference(value));
+    }
+
+    /**
+     * Converts a tagged value to a plain Java object.
+     *
+     * @param value the tagged value
+     * @return a {@link Long} for integers, a {@link Double} for other numbers, a {@link Boolean}, a {@link String}
+     *         for strings and ropes, or the referenced object
+     */
+    public Object toObject(long value) {
+        if (Value.isInteger(value)) {
+            return Value.asInteger(value);
+        } else if (Value.isDouble(value)) {
+            return Value.asDouble(value);
+        } else if (Value.isBoolean(value)) {
+            return value == Value.TRUE;
+        }
+        Object object = dereference(value);
+        return object instanceof Rope ? object.toString() : object;
+    }
+
+    /**
+     * Converts a plain Java object to a tagged value.
+     *
+     * @param object a {@link Number}, a {@link Boolean}, or any other object to be held by reference
+     * @return the tagged value
+     */
+    public long toValue(Object object) {
+        if (object instanceof Long || object instanceof Integer) {
+            return Value.ofInteger(((Number) object).longValue());
+        } else if (object instanceof Number) {
+            return Value.ofDouble(((Number) object).doubleValue());
+        } else if (object instanceof Boolean) {
+            return Value.ofBoolean((Boolean) object);
+        } else if (object == null) {
+            throw new InterpreterRuntimeException("Variables cannot hold a null value.");
+        }
+        return reference(object);
+    }
+
     /**
      * Sets the value of a variable in the runtime environment.
      * This method updates the variable's value if it already exists, or creates a new variable entry if it does not.
@@ -65,7 +1032,32 @@ public class RuntimeEnvironment {
      * @param value the value to be set for the variable
      */
     public void setVariable(String name, Object value) {
-        variables.put(name, value);
+        assign(slotOf(name), value);
+    }
+
+    /**
+     * Assigns a plain Java object to a variable slot.
+     */
+    private void assign(int slot, Object value) {
+        if (value instanceof Number || value instanceof Boolean) {
+            store(slot, toValue(value));
+        } else if (value != null) {
+            objects[slot] = value;
+            values[slot] = Value.slotReference(slot);
+        } else {
+            throw new InterpreterRuntimeException("Variables cannot hold a null value.");
+        }
+    }
+
+    /**
+     * Returns whether the program refers to a variable, so that a host can assign the variables a program
+     * reads before it runs, also in an environment that no more variables may be added to.
+     *
+     * @param name the name of the variable
+     * @return true if the variable has a slot
+     */
+    public boolean usesVariable(String name) {
+        return slots.containsKey(name);
     }
 
     /**
@@ -78,9 +1070,22 @@ public class RuntimeEnvironment {
      * @throws UninitializedVariableException if the variable does not exist
      */
     public Object getVariable(String name) {
-        if (!variables.containsKey(name)) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
             throw new UninitializedVariableException(name);
         }
-        return variables.get(name);
+        return toObject(load(slot));
+    }
+
+    /**
+     * Allocates a value array with every slot marked as undefined.
+     *
+     * @param capacity the length of the array
+     * @return the new array
+     */
+    private static long[] newValues(int capacity) {
+        long[] array = new long[capacity];
+        Arrays.fill(array, Value.UNDEFINED);
+        return array;
     }
 }
@@ -0,0 +1,360 @@
+package org.interpreter.runtime;
+
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.exceptions.UninitializedVariableException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Holds the variables a program declares with GLOBAL. Unlike the variables of a {@link RuntimeEnvironment},
+ * which every task and parallel worker copies, a global variable is a single cell that every thread of the
+ * program reads and writes, and a store can also be handed to several interpreters so that their scripts
+ * share it. Like variables and channels, globals are resolved to numbered slots while a program is parsed.
+ *
+ * <p>Numbers and booleans are kept as tagged {@link Value}s in atomic cells, so reading, assigning,
+ * {@link #add(int, long) incrementing} and {@link #compareAndSet(int, long, long, RuntimeEnvironment) comparing
+ * and setting} a numeric global never takes a lock; a thread that loses a race retries its compare-and-set
+ * at once. Each cell sits on a cache line of its own, so that threads updating different counters do not
+ * slow each other down. Text cannot be held in a cell, so a cell that holds text is marked, and the text is
+ * written and read under one of {@value #STRIPES} locks, chosen by slot.</p>
+ *
+ * <p>The cells are allocated in segments that are never moved, so slots can be added while other scripts
+ * that share the store are running.</p>
+ */
+public final class SharedGlobals {
+    /** The number of locks that guard the text held by globals. */
+    static final int STRIPES = 16;
+
+    /** The number of longs between two cells, so that every cell has a 64-byte cache line of its own. */
+    private static final int STRIDE = 8;
+
+    private static final int SEGMENT_SHIFT = 6;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    /** Marks a cell whose value is the text held next to it. */
+    private static final long TEXT = Value.slotReference(0);
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final Object[] locks = new Object[STRIPES];
+    private volatile Segment[] segments = new Segment[0];
+
+    /**
+     * A fixed block of cells, with the text of the cells that hold text.
+     */
+    private static final class Segment {
+        private final AtomicLongArray cells = new AtomicLongArray(SEGMENT_SIZE * STRIDE);
+        private final Object[] texts = new Object[SEGMENT_SIZE];
+
+        Segment() {
+            for (int i = 0; i < SEGMENT_SIZE; i++) {
+                cells.set(i * STRIDE, Value.UNDEFINED);
+            }
+        }
+    }
+
+    /**
+     * Constructs an empty store.
+     */
+    public SharedGlobals() {
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    /**
+     * Creates a store with the same slots as this one and no values, for a new run of the program whose
+     * statements refer to these slots.
+     *
+     * @return an empty store with the same slots
+     */
+    public synchronized SharedGlobals copySlots() {
+        SharedGlobals copy = new SharedGlobals();
+        copy.slots.putAll(slots);
+        copy.names.addAll(names);
+        Segment[] empty = new Segment[segments.length];
+        Arrays.setAll(empty, i -> new Segment());
+        copy.segments = empty;
+        return copy;
+    }
+
+    /**
+     * Returns the slot of a global variable, allocating a new slot on first use. Call it while the program
+     * is parsed.
+     *
+     * @param name the name of the variable
+     * @return the slot of the variable
+     */
+    public synchronized int slotOf(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = names.size();
+            if (slot == segments.length * SEGMENT_SIZE) {
+                Segment[] grown = Arrays.copyOf(segments, segments.length + 1);
+                grown[segments.length] = new Segment();
+                segments = grown;
+            }
+            slots.put(name, slot);
+            names.add(name);
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the name of the global variable held in a slot.
+     *
+     * @param slot the slot of the variable
+     * @return the name of the variable
+     */
+    public synchronized String nameOf(int slot) {
+        return names.get(slot);
+    }
+
+    /**
+     * Returns the number of global variables.
+     *
+     * @return the number of slots
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+
+    /**
+     * Reads the value of a global variable.
+     *
+     * @param slot the slot of the variable
+     * @param env the environment of the reading thread, which references text for the current statement
+     * @return the tagged value of the variable
+     * @throws UninitializedVariableException if the variable has not been assigned yet
+     */
+    public long load(int slot, RuntimeEnvironment env) {
+        Segment segment = segment(slot);
+        int cell = cell(slot);
+        long value = segment.cells.get(cell);
+        if (value == TEXT) {
+            Object text;
+            synchronized (lock(slot)) {
+                value = segment.cells.get(cell);
+                text = segment.texts[index(slot)];
+            }
+            if (value == TEXT) {
+                return env.reference(text);
+            }
+        }
+        if (value == Value.UNDEFINED) {
+            throw new UninitializedVariableException(nameOf(slot));
+        }
+        return value;
+    }
+
+    /**
+     * Assigns a value to a global variable.
+     *
+     * @param slot the slot of the variable
+     * @param value the tagged value to assign
+     * @param env the environment that produced the value
+     */
+    public void store(int slot, long value, RuntimeEnvironment env) {
+        Segment segment = segment(slot);
+        if (Value.isReference(value)) {
+            Object text = env.toObject(value);
+            synchronized (lock(slot)) {
+                segment.texts[index(slot)] = text;
+                segment.cells.set(cell(slot), TEXT);
+            }
+        } else {
+            segment.cells.set(cell(slot), value);
+        }
+    }
+
+    /**
+     * Atomically adds a number to a numeric global variable.
+     *
+     * @param slot the slot of the variable
+     * @param delta the tagged number to add
+     * @return the new value of the variable
+     * @throws UninitializedVariableException if the variable has not been assigned yet
+     * @throws InterpreterRuntimeException if the variable does not hold a number
+     */
+    public long add(int slot, long delta) {
+        AtomicLongArray cells = segment(slot).cells;
+        int cell = cell(slot);
+        while (true) {
+            long current = cells.get(cell);
+            ensureNumeric(slot, current);
+            long next = Arithmetic.add(current, delta);
+            if (cells.compareAndSet(cell, current, next)) {
+                return next;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Atomically assigns a value to a global variable if it is equal to an expected value. Values are
+     * compared as the = operator compares them, so {@code 2} matches {@code 2.0}.
+     *
+     * @param slot the slot of the variable
+     * @param expected the tagged value the variable must hold
+     * @param update the tagged value to assign
+     * @param env the environment that produced the values
+     * @return true if the variable held the expected value and was updated
+     * @throws UninitializedVariableException if the variable has not been assigned yet
+     */
+    public boolean compareAndSet(int slot, long expected, long update, RuntimeEnvironment env) {
+        Segment segment = segment(slot);
+        int cell = cell(slot);
+        int index = index(slot);
+        Object text = Value.isReference(update) ? env.toObject(update) : null;
+        while (true) {
+            long current = segment.cells.get(cell);
+            if (current == Value.UNDEFINED) {
+                throw new UninitializedVariableException(nameOf(slot));
+            }
+            if (current == TEXT) {
+                synchronized (lock(slot)) {
+                    if (segment.cells.get(cell) != TEXT) {
+                        continue;
+                    }
+                    if (!Value.isReference(expected)
+                            || !String.valueOf(segment.texts[index]).equals(String.valueOf(env.toObject(expected)))) {
+                        return false;
+                    }
+                    if (text != null) {
+                        segment.texts[index] = text;
+                    } else {
+                        // A number assigned since the comparison overrides this update, as if it came later
+                        segment.cells.compareAndSet(cell, TEXT, update);
+                    }
+                    return true;
+                }
+            }
+            if (!Arithmetic.areEqual(env, current, expected)) {
+                return false;
+            }
+            if (text == null) {
+                if (segment.cells.compareAndSet(cell, current, update)) {
+                    return true;
+                }
+            } else {
+                synchronized (lock(slot)) {
+                    Object previous = segment.texts[index];
+                    segment.texts[index] = text;
+                    if (segment.cells.compareAndSet(cell, current, TEXT)) {
+                        return true;
+                    }
+                    segment.texts[index] = previous;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns the value of a global variable as a plain Java object, for programs that embed the interpreter.
+     *
+     * @param name the name of the variable
+     * @return a {@link Long}, a {@link Double}, a {@link Boolean} or a {@link String}
+     * @throws UninitializedVariableException if the variable does not exist or has not been assigned yet
+     */
+    public Object get(String name) {
+        int slot;
+        synchronized (this) {
+            Integer known = slots.get(name);
+            if (known == null) {
+                throw new UninitializedVariableException(name);
+            }
+            slot = known;
+        }
+        Object value = valueOf(slot);
+        if (value == null) {
+            throw new UninitializedVariableException(name);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value of a global variable as a plain Java object.
+     *
+     * @param slot the slot of the variable
+     * @return a {@link Long}, a {@link Double}, a {@link Boolean} or a {@link String}, or null if the variable
+     *         has not been assigned yet
+     */
+    Object valueOf(int slot) {
+        Segment segment = segment(slot);
+        long value = segment.cells.get(cell(slot));
+        if (value == TEXT) {
+            synchronized (lock(slot)) {
+                value = segment.cells.get(cell(slot));
+                if (value == TEXT) {
+                    return String.valueOf(segment.texts[index(slot)]);
+                }
+            }
+        }
+        if (value == Value.UNDEFINED) {
+            return null;
+        } else if (Value.isInteger(value)) {
+            return Value.asInteger(value);
+        } else if (Value.isDouble(value)) {
+            return Value.asDouble(value);
+        }
+        return value == Value.TRUE;
+    }
+
+    /**
+     * Assigns a plain Java object to a global variable, creating it if it does not exist, for programs
+     * that embed the interpreter.
+     *
+     * @param name the name of the variable
+     * @param value a {@link Number}, a {@link Boolean}, or any other object, which is held as its text
+     * @throws InterpreterRuntimeException if the value is null
+     */
+    public void set(String name, Object value) {
+        int slot = slotOf(name);
+        Segment segment = segment(slot);
+        if (value instanceof Long || value instanceof Integer) {
+            segment.cells.set(cell(slot), Value.ofInteger(((Number) value).longValue()));
+        } else if (value instanceof Number number) {
+            segment.cells.set(cell(slot), Value.ofDouble(number.doubleValue()));
+        } else if (value instanceof Boolean flag) {
+            segment.cells.set(cell(slot), Value.ofBoolean(flag));
+        } else if (value != null) {
+            synchronized (lock(slot)) {
+                segment.texts[index(slot)] = value.toString();
+                segment.cells.set(cell(slot), TEXT);
+            }
+        } else {
+            throw new InterpreterRuntimeException("Variables cannot hold a null value.");
+        }
+    }
+
+    /**
+     * Throws if a cell does not hold a number.
+     */
+    private void ensureNumeric(int slot, long value) {
+        if (value == Value.UNDEFINED) {
+            throw new UninitializedVariableException(nameOf(slot));
+        } else if (!Value.isNumber(value)) {
+            throw new InterpreterRuntimeException(String.format("Variable '%s' does not hold a number.", nameOf(slot)));
+        }
+    }
+
+    private Segment segment(int slot) {
+        return segments[slot >>> SEGMENT_SHIFT];
+    }
+
+    private static int index(int slot) {
+        return slot & (SEGMENT_SIZE - 1);
+    }
+
+    private static int cell(int slot) {
+        return index(slot) * STRIDE;
+    }
+
+    private Object lock(int slot) {
+        return locks[slot & (STRIPES - 1)];
+    }
+}
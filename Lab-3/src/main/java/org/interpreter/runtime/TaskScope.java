@@ -0,0 +1,186 @@
+package org.interpreter.runtime;
+
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.exceptions.TaskCancelledException;
+import org.interpreter.parser.statements.Statement;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the tasks that a script, or a task, started with SPAWN and has not waited for yet. Tasks are
+ * structured: each runs a labeled block in a {@link RuntimeEnvironment#forkTask(String) copy} of the
+ * environment that started it, cannot outlive it, and reports its failure back to it.
+ *
+ * <ul>
+ *     <li>{@link #join(String)} waits for the tasks of a label, in the order they were started, copies the
+ *     variables they share back into the owner, and rethrows the exception of the first task that failed.</li>
+ *     <li>{@link #joinAll()} does the same for every task; the owner calls it when its block ends, so a
+ *     script does not finish while its tasks run.</li>
+ *     <li>{@link #cancelAll()} cancels every task; the owner calls it when it fails. A cancelled task
+ *     cancels the tasks it started in turn.</li>
+ * </ul>
+ *
+ * <p>The tasks mostly wait for input or output, so they run on a cached pool of daemon threads that grows
+ * with the number of waiting tasks. The scope itself is used by the owner's thread only.</p>
+ */
+public final class TaskScope {
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "sbasic-task-" + THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RuntimeEnvironment owner;
+    private final List<Task> tasks = new ArrayList<>();
+
+    /**
+     * A task that has been started and not waited for.
+     *
+     * @param label the label whose block the task runs
+     * @param environment the environment of the task
+     * @param shared the slots of the variables that are copied back once the task completes
+     * @param future the result of the task
+     */
+    private record Task(String label, RuntimeEnvironment environment, int[] shared, Future<?> future) {
+    }
+
+    /**
+     * Constructs an empty scope for the tasks of an environment.
+     *
+     * @param owner the environment that starts the tasks
+     */
+    TaskScope(RuntimeEnvironment owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Starts a task that executes a labeled block concurrently with the owner. The task starts with the
+     * values the owner's variables have now.
+     *
+     * @param label the label of the block
+     * @param block the statements to execute
+     * @param shared the slots of the variables to copy back into the owner when the task is waited for
+     */
+    public void spawn(String label, List<Statement> block, int[] shared) {
+        RuntimeEnvironment worker = owner.forkTask(label);
+        Future<?> future = EXECUTOR.submit(() -> {
+            Quota quota = worker.getQuota();
+            boolean measured = quota != null && quota.enterWorker();
+            try {
+                worker.execute(block);
+                worker.getTasks().joinAll();
+            } catch (RuntimeException | Error e) {
+                worker.getTasks().cancelAll();
+                throw e;
+            } finally {
+                if (measured) {
+                    quota.leaveWorker();
+                }
+            }
+        });
+        tasks.add(new Task(label, worker, shared, future));
+    }
+
+    /**
+     * Waits for every task started for a label. Waiting for a label without tasks has no effect.
+     *
+     * @param label the label of the tasks
+     * @throws RuntimeException the exception the first failing task failed with; the tasks of the label
+     *                          that were started after it are cancelled
+     */
+    public void join(String label) {
+        Iterator<Task> pending = tasks.iterator();
+        List<Task> joined = new ArrayList<>();
+        while (pending.hasNext()) {
+            Task task = pending.next();
+            if (task.label().equals(label)) {
+                pending.remove();
+                joined.add(task);
+            }
+        }
+        awaitAll(joined);
+    }
+
+    /**
+     * Waits for every task that has not been waited for, in the order they were started.
+     *
+     * @throws RuntimeException the exception the first failing task failed with
+     */
+    public void joinAll() {
+        List<Task> joined = new ArrayList<>(tasks);
+        tasks.clear();
+        awaitAll(joined);
+    }
+
+    /**
+     * Cancels every task that has not been waited for. The tasks are not waited for, since a task that
+     * is blocked reading INPUT only notices the cancellation once the read completes.
+     */
+    public void cancelAll() {
+        tasks.forEach(TaskScope::cancel);
+        tasks.clear();
+    }
+
+    /**
+     * Returns the number of tasks that have not been waited for.
+     *
+     * @return the number of pending tasks
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Waits for tasks in order. If one fails, it and the tasks after it are cancelled.
+     */
+    private void awaitAll(List<Task> joined) {
+        for (int i = 0; i < joined.size(); i++) {
+            try {
+                await(joined.get(i));
+            } catch (RuntimeException | Error e) {
+                joined.subList(i, joined.size()).forEach(TaskScope::cancel);
+                throw e;
+            }
+        }
+    }
+
+    private static void cancel(Task task) {
+        task.environment().cancel();
+        task.future().cancel(true);
+    }
+
+    /**
+     * Waits for a task and copies its shared variables into the owner, rethrowing the exception the
+     * task failed with.
+     */
+    private void await(Task task) {
+        try {
+            task.future().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TaskCancelledException(task.label());
+        } catch (CancellationException e) {
+            throw new TaskCancelledException(task.label());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new InterpreterRuntimeException(e.getCause().getMessage());
+        }
+        for (int slot : task.shared()) {
+            owner.copyFrom(task.environment(), slot);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.interpreter.runtime;
+
+/**
+ * Defines the tagged encoding of runtime values. Every value produced by an expression or stored in
+ * the {@link RuntimeEnvironment} is a single {@code long}, so numbers and booleans are never boxed.
+ *
+ * <p>The encoding is NaN-boxing: any {@code long} that is not in the negative quiet NaN space holds the
+ * raw bits of a {@code double}. All NaNs produced by arithmetic are canonicalized to the positive quiet
+ * NaN, which leaves the negative quiet NaN space free for tagged values. In that space the upper
+ * 16 bits select the tag and the lower 48 bits carry the payload:</p>
+ * <ul>
+ *     <li>integers, held as 48-bit two's complement values;</li>
+ *     <li>booleans, with a payload of 0 or 1;</li>
+ *     <li>references to objects, such as strings, held in the environment's reference table;</li>
+ *     <li>references to objects held directly by a variable slot;</li>
+ *     <li>the undefined marker of a variable that has not been assigned yet.</li>
+ * </ul>
+ *
+ * <p>Integers outside the 48-bit range are held as doubles, which represent them exactly up to 2<sup>53</sup>.</p>
+ */
+public final class Value {
+    private static final long TAG_MASK = 0xFFFF_0000_0000_0000L;
+    private static final long BOXED_MASK = 0xFFF8_0000_0000_0000L;
+    private static final long PAYLOAD_MASK = 0x0000_FFFF_FFFF_FFFFL;
+    private static final long CANONICAL_NAN = 0x7FF8_0000_0000_0000L;
+
+    private static final long INTEGER_TAG = 0xFFF9_0000_0000_0000L;
+    private static final long BOOLEAN_TAG = 0xFFFA_0000_0000_0000L;
+    private static final long REFERENCE_TAG = 0xFFFB_0000_0000_0000L;
+    private static final long SLOT_TAG = 0xFFFC_0000_0000_0000L;
+
+    /** The smallest integer that is held in the integer representation. */
+    public static final long MIN_INTEGER = -(1L << 47);
+
+    /** The largest integer that is held in the integer representation. */
+    public static final long MAX_INTEGER = (1L << 47) - 1;
+
+    /** The boolean value {@code true}. */
+    public static final long TRUE = BOOLEAN_TAG | 1;
+
+    /** The boolean value {@code false}. */
+    public static final long FALSE = BOOLEAN_TAG;
+
+    /** Marks a variable slot that has not been assigned yet. */
+    public static final long UNDEFINED = 0xFFFF_0000_0000_0000L;
+
+    private Value() {
+        // Utility class
+    }
+
+    /**
+     * Encodes a double value.
+     *
+     * @param value the double to encode.
+     * @return the tagged value.
+     */
+    public static long ofDouble(double value) {
+        return Double.isNaN(value) ? CANONICAL_NAN : Double.doubleToRawLongBits(value);
+    }
+
+    /**
+     * Encodes an integral value, falling back to the double representation if it is outside the integer range.
+     *
+     * @param value the integer to encode.
+     * @return the tagged value.
+     */
+    public static long ofInteger(long value) {
+        if (value < MIN_INTEGER || value > MAX_INTEGER) {
+            return ofDouble((double) value);
+        }
+        return INTEGER_TAG | (value & PAYLOAD_MASK);
+    }
+
+    /**
+     * Encodes a boolean value.
+     *
+     * @param value the boolean to encode.
+     * @return {@link #TRUE} or {@link #FALSE}.
+     */
+    public static long ofBoolean(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Encodes a reference to an entry of the environment's reference table.
+     *
+     * @param index the index of the entry.
+     * @return the tagged value.
+     */
+    static long reference(int index) {
+        return REFERENCE_TAG | index;
+    }
+
+    /**
+     * Encodes a reference to the object held by a variable slot.
+     *
+     * @param slot the variable slot.
+     * @return the tagged value.
+     */
+    static long slotReference(int slot) {
+        return SLOT_TAG | slot;
+    }
+
+    /**
+     * Checks whether a value holds a double.
+     *
+     * @param value the tagged value.
+     * @return true if the value is a double.
+     */
+    public static boolean isDouble(long value) {
+        return (value & BOXED_MASK) != BOXED_MASK;
+    }
+
+    /**
+     * Checks whether a value holds an integer.
+     *
+     * @param value the tagged value.
+     * @return true if the value is an integer.
+     */
+    public static boolean isInteger(long value) {
+        return (value & TAG_MASK) == INTEGER_TAG;
+    }
+
+    /**
+     * Checks whether a value is a number in either of its representations.
+     *
+     * @param value the tagged value.
+     * @return true if the value is an integer or a double.
+     */
+    public static boolean isNumber(long value) {
+        return isInteger(value) || isDouble(value);
+    }
+
+    /**
+     * Checks whether a value holds a boolean.
+     *
+     * @param value the tagged value.
+     * @return true if the value is a boolean.
+     */
+    public static boolean isBoolean(long value) {
+        return (value & TAG_MASK) == BOOLEAN_TAG;
+    }
+
+    /**
+     * Checks whether a value refers to an object, either in the reference table or in a variable slot.
+     *
+     * @param value the tagged value.
+     * @return true if the value is a reference.
+     */
+    public static boolean isReference(long value) {
+        long tag = value & TAG_MASK;
+        return tag == REFERENCE_TAG || tag == SLOT_TAG;
+    }
+
+    /**
+     * Checks whether a value refers to the object held by a variable slot.
+     *
+     * @param value the tagged value.
+     * @return true if the value is a slot reference.
+     */
+    static boolean isSlotReference(long value) {
+        return (value & TAG_MASK) == SLOT_TAG;
+    }
+
+    /**
+     * Decodes the index carried by a reference.
+     *
+     * @param value a tagged reference.
+     * @return the reference table index or the variable slot.
+     */
+    static int index(long value) {
+        return (int) (value & PAYLOAD_MASK);
+    }
+
+    /**
+     * Decodes an integer value.
+     *
+     * @param value a tagged integer.
+     * @return the integer.
+     */
+    public static long asInteger(long value) {
+        return (value << 16) >> 16;
+    }
+
+    /**
+     * Decodes a numeric value as a double.
+     *
+     * @param value a tagged integer or double.
+     * @return the number as a double.
+     */
+    public static double asDouble(long value) {
+        return isInteger(value) ? (double) asInteger(value) : Double.longBitsToDouble(value);
+    }
+
+    /**
+     * Decodes a numeric value as a long, truncating any fractional part.
+     *
+     * @param value a tagged integer or double.
+     * @return the number as a long.
+     */
+    public static long asLong(long value) {
+        return isInteger(value) ? asInteger(value) : (long) Double.longBitsToDouble(value);
+    }
+}
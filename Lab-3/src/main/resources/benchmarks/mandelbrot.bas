@@ -0,0 +1,22 @@
+FOR Y = 0 TO 30
+    CI = 1.2 - Y * 0.08
+    L = "|"
+    FOR X = 0 TO 70
+        CR = X * 0.04 - 2.1
+        ZR = 0
+        ZI = 0
+        M = 0
+        FOR K = 1 TO 40
+            IF M = 0 THEN
+                T = ZR * ZR - ZI * ZI + CR
+                ZI = 2 * ZR * ZI + CI
+                ZR = T
+                IF ZR * ZR + ZI * ZI > 4 THEN M = K ENDIF
+            ENDIF
+        NEXT
+        IF M = 0 THEN L = L + "#" ELSE
+            IF M > 8 THEN L = L + "+" ELSE L = L + "." ENDIF
+        ENDIF
+    NEXT
+    PRINT L
+NEXT
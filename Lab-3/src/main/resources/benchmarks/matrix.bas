@@ -0,0 +1,14 @@
+T = 0
+FOR I = 1 TO 40
+    R = 0
+    FOR J = 1 TO 40
+        E = 0
+        FOR K = 1 TO 40
+            E = E + ((I + K) % 7) * ((K * J) % 5)
+        NEXT
+        IF I = J THEN T = T + E ENDIF
+        R = R + E
+    NEXT
+    PRINT "Row", I, R
+NEXT
+PRINT "Trace", T
@@ -0,0 +1,11 @@
+C = 0
+FOR N = 2 TO 1500
+    P = 1
+    FOR D = 2 TO N / 2
+        IF P = 1 THEN
+            IF N % D = 0 THEN P = 0 ENDIF
+        ENDIF
+    NEXT
+    IF P = 1 THEN C = C + 1 ENDIF
+NEXT
+PRINT "Primes below 1500:", C
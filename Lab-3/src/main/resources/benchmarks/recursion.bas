@@ -0,0 +1,28 @@
+S = 0
+C = 0
+D = 0
+FOR R = 1 TO 200
+    N = 500
+    GOSUB Down
+NEXT
+PRINT "Sum", S
+GOSUB Tree
+PRINT "Nodes", C
+
+Down:
+IF N > 0 THEN
+    S = S + N
+    N = N - 1
+    GOSUB Down
+ENDIF
+RETURN
+
+Tree:
+C = C + 1
+IF D < 14 THEN
+    D = D + 1
+    GOSUB Tree
+    GOSUB Tree
+    D = D - 1
+ENDIF
+RETURN
@@ -0,0 +1,5 @@
+PRINT "Item", "Square", "Half", "Label"
+FOR I = 1 TO 5000
+    PRINT I, I * I, I / 2, "row " + I
+NEXT
+PRINT "End of report"
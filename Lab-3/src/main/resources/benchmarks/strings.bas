@@ -0,0 +1,15 @@
+S = ""
+FOR I = 1 TO 20000
+    S = S + "item " + I + ", "
+NEXT
+T = ""
+FOR I = 1 TO 200
+    W = "<"
+    FOR J = 1 TO 50
+        W = W + J % 10
+    NEXT
+    T = T + W + ">"
+    IF T = S THEN PRINT "unexpected" ENDIF
+NEXT
+PRINT T
+PRINT S
@@ -0,0 +1,152 @@
+import org.interpreter.SBasicInterpreter;
+import org.interpreter.runtime.Checkpoint;
+import org.interpreter.runtime.ExecutionState;
+import org.interpreter.runtime.Frame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckpointTest {
+    private ByteArrayOutputStream buffer;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer));
+        file = Files.createTempFile("sbasic", ".checkpoint");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private String getAssertValue(String expected) {
+        return expected.replaceAll("\r\n", System.lineSeparator());
+    }
+
+    @Test
+    public void checkpoint_ContinuesFailedRunFromLastCheckpoint() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 100000
+                    GOSUB Add
+                NEXT
+                INPUT N
+                PRINT S + N
+
+                Add:
+                S = S + 1
+                RETURN
+                """;
+        var crashed = new SBasicInterpreter(program);
+        crashed.setCheckpointing(file, Duration.ZERO);
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+        assertThrows(RuntimeException.class, crashed::run);
+        var restored = new SBasicInterpreter(program);
+        restored.restoreFrom(file);
+        restored.setCheckpointing(file, Duration.ZERO);
+        System.setIn(new ByteArrayInputStream("5".getBytes()));
+
+        //Act
+        restored.run();
+
+        //Assert
+        assertEquals(getAssertValue("100005.0\r\n"), buffer.toString());
+        assertTrue(restored.getMetrics().getStatementsExecuted() < 100_000);
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void checkpoint_TakesCheckpointsInsideLongIndependentLoop() throws IOException {
+        //Arrange
+        var program = """
+                FOR I = 1 TO 300000
+                    X = I * 2
+                    IF I = 250000 THEN
+                        GOSUB Outer
+                    ENDIF
+                NEXT
+
+                Outer:
+                GOSUB Inner
+                RETURN
+
+                Inner:
+                Y = 1
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        interpreter.setParallelism(4);
+        interpreter.setMaxCallDepth(1);
+        interpreter.setCheckpointing(file, Duration.ZERO);
+
+        //Act
+        assertThrows(RuntimeException.class, interpreter::run);
+        var checkpoint = Checkpoint.read(file);
+
+        //Assert
+        ExecutionState.FrameState loop = checkpoint.getState().getFrames().stream()
+                .filter(frame -> frame.kind() == Frame.Kind.LOOP)
+                .findFirst()
+                .orElseThrow();
+        assertTrue(loop.counter() > 100_000, "Last checkpoint was taken at I = " + loop.counter());
+        assertEquals(List.of(), interpreter.getParallelizationReport());
+    }
+
+    @Test
+    public void checkpoint_WritesStateInCompactBinaryFormat() throws IOException {
+        //Arrange
+        var state = new ExecutionState(
+                Map.of("I", 7L, "X", 2.5, "F", true, "S", "text"),
+                Map.of("G", -3L),
+                Map.of("Q", new ExecutionState.ChannelState(4, List.of(1L, "two"))),
+                List.of(new ExecutionState.FrameState(Frame.Kind.BLOCK, 0, 3, null, 0, 0, 0),
+                        new ExecutionState.FrameState(Frame.Kind.LOOP, 2, 1, null, 1, 7, 100_000),
+                        new ExecutionState.FrameState(Frame.Kind.CALL, 1, 0, "Add", 0, 0, 0)),
+                null);
+        var bytes = new ByteArrayOutputStream();
+
+        //Act
+        new Checkpoint("fingerprint", state).writeTo(bytes);
+        var read = Checkpoint.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+        //Assert
+        assertEquals("fingerprint", read.getFingerprint());
+        assertEquals(state.getVariables(), read.getState().getVariables());
+        assertEquals(state.getGlobals(), read.getState().getGlobals());
+        assertEquals(state.getChannels(), read.getState().getChannels());
+        assertEquals(state.getFrames(), read.getState().getFrames());
+        assertTrue(bytes.size() < 160);
+    }
+
+    @Test
+    public void checkpoint_CannotBeRestoredIntoAnotherProgram() throws IOException {
+        //Arrange
+        new Checkpoint(Checkpoint.fingerprint("PRINT 1"), new ExecutionState(Map.of(), Map.of(), Map.of(),
+                List.of(), null)).write(file);
+        var interpreter = new SBasicInterpreter("PRINT 2");
+        interpreter.restoreFrom(file);
+
+        //Act & Assert
+        assertThrows(IllegalArgumentException.class, interpreter::run);
+    }
+}
@@ -0,0 +1,378 @@
+import org.interpreter.SBasicInterpreter;
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.exceptions.UninitializedSubroutineException;
+import org.interpreter.runtime.SharedGlobals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyTest {
+    private ByteArrayOutputStream buffer;
+
+    @BeforeEach
+    public void setUp() {
+        buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer));
+    }
+
+    private String getAssertValue(String expected) {
+        return expected.replaceAll("\r\n", System.lineSeparator());
+    }
+
+    @Test
+    public void spawn_RunsSubroutinesConcurrentlyAndCopiesSharedVariablesBack() {
+        //Arrange
+        var program = """
+                A = 1
+                B = 2
+                SPAWN LoadA SHARE A, T
+                SPAWN LoadB
+                WAIT LoadA
+                WAIT LoadB
+                PRINT A
+                PRINT B
+                PRINT T
+
+                LoadA:
+                A = A + 10
+                B = 100
+                T = "loaded"
+                RETURN
+
+                LoadB:
+                B = 50
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(getAssertValue("11.0\r\n2.0\r\nloaded\r\n"), buffer.toString());
+    }
+
+    @Test
+    public void spawn_WaitsForTasksWhenScriptEnds() {
+        //Arrange
+        var program = """
+                SPAWN Worker
+                SPAWN Worker
+
+                Worker:
+                S = 0
+                FOR I = 1 TO 1000
+                    S = S + I
+                NEXT
+                PRINT S
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(getAssertValue("500500.0\r\n500500.0\r\n"), buffer.toString());
+    }
+
+    @Test
+    public void spawn_RethrowsFailureOfTaskAtWait() {
+        //Arrange
+        var program = """
+                SPAWN Broken
+                WAIT Broken
+                PRINT "after"
+
+                Broken:
+                X = 1 / 0
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        assertThrows(InterpreterRuntimeException.class, interpreter::run);
+
+        //Assert
+        assertEquals("", buffer.toString());
+    }
+
+    @Test
+    public void spawn_CancelsTasksWhenScriptFails() throws InterruptedException {
+        //Arrange
+        var program = """
+                SPAWN Spin
+                X = 1 / 0
+
+                Spin:
+                FOR I = 1 TO 1000000000
+                    X = I
+                NEXT
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        interpreter.setAutoParallelization(false);
+
+        //Act
+        assertThrows(InterpreterRuntimeException.class, interpreter::run);
+        long executed = -1;
+        for (int attempt = 0; attempt < 100 && executed != interpreter.getMetrics().getStatementsExecuted(); attempt++) {
+            executed = interpreter.getMetrics().getStatementsExecuted();
+            Thread.sleep(50);
+        }
+
+        //Assert
+        assertEquals(executed, interpreter.getMetrics().getStatementsExecuted());
+        assertTrue(executed < 1_000_000_000L);
+    }
+
+    @Test
+    public void spawn_ReportsUnknownLabels() {
+        //Arrange
+        var interpreter = new SBasicInterpreter("""
+                SPAWN Missing
+                WAIT Other
+                """);
+
+        //Act
+        Throwable exception = assertThrows(UninitializedSubroutineException.class, interpreter::run);
+
+        //Assert
+        assertEquals("Runtime error: Subroutines 'Missing', 'Other' not initialized", exception.getMessage());
+    }
+
+    @Test
+    public void channel_HandsValuesFromProducerToConsumerInOrder() {
+        //Arrange
+        var program = """
+                CHANNEL Q, 4
+                SPAWN Produce
+                S = 0
+                O = ""
+                FOR I = 1 TO 100
+                    RECEIVE Q, V
+                    S = S + V
+                    IF V <= 5 THEN
+                        O = O + V + ","
+                    ENDIF
+                NEXT
+                RECEIVE Q, T
+                PRINT S
+                PRINT O
+                PRINT T
+
+                Produce:
+                FOR J = 1 TO 100
+                    SEND Q, J
+                NEXT
+                SEND Q, "done"
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(getAssertValue("5050.0\r\n1.0,2.0,3.0,4.0,5.0,\r\ndone\r\n"), buffer.toString());
+    }
+
+    @Test
+    public void channel_NonBlockingVariantsReportOutcome() {
+        //Arrange
+        var program = """
+                CHANNEL Q, 1
+                TRYSEND Q, 1, A
+                TRYSEND Q, 2, B
+                TRYRECEIVE Q, X, C
+                TRYRECEIVE Q, X, D
+                PRINT A
+                PRINT B
+                PRINT C
+                PRINT D
+                PRINT X
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(getAssertValue("true\r\nfalse\r\ntrue\r\nfalse\r\n1.0\r\n"), buffer.toString());
+    }
+
+    @Test
+    public void channel_DeliversEveryValueToManyConsumers() {
+        //Arrange
+        var program = """
+                CHANNEL Q, 8
+                SPAWN Produce
+                SPAWN Produce
+                SPAWN Produce
+                SPAWN Produce
+                SPAWN ConsumeA SHARE A
+                SPAWN ConsumeB SHARE B
+                WAIT ConsumeA
+                WAIT ConsumeB
+                PRINT A + B
+
+                Produce:
+                FOR J = 1 TO 1000
+                    SEND Q, J
+                NEXT
+                RETURN
+
+                ConsumeA:
+                GOSUB Consume
+                A = S
+                RETURN
+
+                ConsumeB:
+                GOSUB Consume
+                B = S
+                RETURN
+
+                Consume:
+                S = 0
+                FOR K = 1 TO 2000
+                    RECEIVE Q, V
+                    S = S + V
+                NEXT
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(getAssertValue("2002000.0\r\n"), buffer.toString());
+    }
+
+    @Test
+    public void channel_RejectsRedeclarationWithAnotherCapacity() {
+        //Arrange
+        var interpreter = new SBasicInterpreter("""
+                CHANNEL Q, 2
+                CHANNEL Q, 3
+                """);
+
+        //Act
+        Throwable exception = assertThrows(InterpreterRuntimeException.class, interpreter::run);
+
+        //Assert
+        assertEquals("Runtime error: Channel 'Q' already exists with capacity 2.", exception.getMessage());
+    }
+
+    @Test
+    public void global_IncrementsFromManyTasksWithoutLosingUpdates() {
+        //Arrange
+        var program = """
+                GLOBAL C, S
+                C = 0
+                S = 0
+                FOR T = 1 TO 4
+                    SPAWN Count
+                NEXT
+                WAIT Count
+                PARALLEL FOR I = 1 TO 1000
+                    INCREMENT S BY I
+                NEXT
+                PRINT C
+                PRINT S
+
+                Count:
+                FOR J = 1 TO 1000
+                    INCREMENT C
+                NEXT
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        interpreter.setParallelism(4);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(getAssertValue("4000.0\r\n500500.0\r\n"), buffer.toString());
+    }
+
+    @Test
+    public void global_CompareAndSetLetsOneTaskClaimAValue() {
+        //Arrange
+        var program = """
+                GLOBAL Owner, Claims
+                Owner = 0
+                Claims = 0
+                FOR Id = 1 TO 8
+                    SPAWN Claim
+                NEXT
+                WAIT Claim
+                PRINT Claims
+                PRINT Owner > 0
+
+                Claim:
+                CAS Owner, 0, Id, OK
+                IF OK THEN
+                    INCREMENT Claims
+                ENDIF
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(getAssertValue("1.0\r\ntrue\r\n"), buffer.toString());
+    }
+
+    @Test
+    public void global_IsSharedByInterpretersWithTheSameStore() {
+        //Arrange
+        var globals = new SharedGlobals();
+        var first = new SBasicInterpreter("""
+                GLOBAL Total, Status
+                Total = 5
+                Status = "running"
+                """, globals);
+        var second = new SBasicInterpreter("""
+                GLOBAL Total, Status
+                INCREMENT Total BY 2.5
+                CAS Status, "running", "done", OK
+                PRINT Total
+                PRINT OK
+                """, globals);
+
+        //Act
+        first.run();
+        second.run();
+
+        //Assert
+        assertEquals(getAssertValue("7.5\r\ntrue\r\n"), buffer.toString());
+        assertEquals(7.5, globals.get("Total"));
+        assertEquals("done", globals.get("Status"));
+    }
+
+    @Test
+    public void global_CannotBeWrittenByOtherStatements() {
+        //Arrange
+        var interpreter = new SBasicInterpreter("""
+                GLOBAL I
+                FOR I = 1 TO 3
+                NEXT
+                """);
+
+        //Act
+        Throwable exception = assertThrows(InterpreterRuntimeException.class, interpreter::run);
+
+        //Assert
+        assertEquals("Runtime error: Global variable 'I' can only be assigned with '=', INCREMENT or CAS at line 2", exception.getMessage());
+    }
+}
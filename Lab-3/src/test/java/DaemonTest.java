@@ -0,0 +1,138 @@
+import org.interpreter.daemon.DaemonClient;
+import org.interpreter.daemon.InterpreterDaemon;
+import org.interpreter.engine.Limits;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DaemonTest {
+    private Path directory;
+    private Path socket;
+    private InterpreterDaemon daemon;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("sbasic");
+        socket = directory.resolve("daemon.sock");
+        daemon = new InterpreterDaemon(socket, Limits.UNLIMITED);
+        daemon.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        daemon.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private String getAssertValue(String expected) {
+        return expected.replaceAll("\r\n", System.lineSeparator());
+    }
+
+    @Test
+    public void daemon_RunsScriptWithArgumentsAndInput() throws IOException {
+        //Arrange
+        var script = Files.writeString(directory.resolve("scale.bas"), """
+                INPUT N
+                PRINT N * ARG1
+                PRINT ARGC
+                """);
+        var stdout = new ByteArrayOutputStream();
+        var stderr = new ByteArrayOutputStream();
+
+        //Act
+        int status = DaemonClient.run(socket, script, List.of("3"), new ByteArrayInputStream("4\n".getBytes()),
+                stdout, stderr);
+
+        //Assert
+        assertEquals(0, status);
+        assertEquals(getAssertValue("12.0\r\n1.0\r\n"), stdout.toString());
+        assertEquals("", stderr.toString());
+    }
+
+    @Test
+    public void daemon_RecompilesScriptWhenItChanges() throws IOException {
+        //Arrange
+        var script = Files.writeString(directory.resolve("version.bas"), "PRINT 1");
+        var first = new ByteArrayOutputStream();
+        var second = new ByteArrayOutputStream();
+        DaemonClient.run(socket, script, List.of(), new ByteArrayInputStream(new byte[0]), first,
+                new ByteArrayOutputStream());
+        Files.writeString(script, "PRINT 2");
+
+        //Act
+        DaemonClient.run(socket, script, List.of(), new ByteArrayInputStream(new byte[0]), second,
+                new ByteArrayOutputStream());
+
+        //Assert
+        assertEquals(getAssertValue("1.0\r\n"), first.toString());
+        assertEquals(getAssertValue("2.0\r\n"), second.toString());
+    }
+
+    @Test
+    public void daemon_ReportsFailedScriptOnStandardError() throws IOException {
+        //Arrange
+        var script = Files.writeString(directory.resolve("failing.bas"), """
+                PRINT 1
+                PRINT X
+                """);
+        var stdout = new ByteArrayOutputStream();
+        var stderr = new ByteArrayOutputStream();
+
+        //Act
+        int status = DaemonClient.run(socket, script, List.of(), new ByteArrayInputStream(new byte[0]), stdout,
+                stderr);
+
+        //Assert
+        assertEquals(1, status);
+        assertEquals(getAssertValue("1.0\r\n"), stdout.toString());
+        assertTrue(stderr.toString().contains("Variable 'X' not initialized"));
+    }
+
+    @Test
+    public void daemon_RestrictsSocketToItsOwner() throws IOException {
+        //Act
+        var permissions = Files.getPosixFilePermissions(socket);
+
+        //Assert
+        assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE), permissions);
+    }
+
+    @Test
+    public void daemon_HoldsRunsToItsLimits() throws IOException {
+        //Arrange
+        daemon.close();
+        daemon = new InterpreterDaemon(socket, Limits.UNLIMITED.withMaxInstructions(10_000), 1);
+        daemon.start();
+        var script = Files.writeString(directory.resolve("endless.bas"), """
+                FOR I = 1 TO 1000000000
+                    X = I
+                NEXT
+                """);
+        var stderr = new ByteArrayOutputStream();
+
+        //Act
+        int status = DaemonClient.run(socket, script, List.of(), new ByteArrayInputStream(new byte[0]),
+                new ByteArrayOutputStream(), stderr);
+
+        //Assert
+        assertEquals(1, status);
+        assertTrue(stderr.toString().contains("limit of 10000 instructions"), stderr.toString());
+    }
+}
@@ -0,0 +1,404 @@
+import org.interpreter.engine.Continuation;
+import org.interpreter.engine.InterpreterEngine;
+import org.interpreter.engine.Limits;
+import org.interpreter.engine.RunResult;
+import org.interpreter.exceptions.QuotaExceededException;
+import org.interpreter.exceptions.UninitializedVariableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EngineTest {
+    private InterpreterEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        engine = new InterpreterEngine(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        engine.close();
+    }
+
+    private String getAssertValue(String expected) {
+        return expected.replaceAll("\r\n", System.lineSeparator());
+    }
+
+    private static QuotaExceededException.Resource resourceOf(RunResult result) {
+        return ((QuotaExceededException) result.error()).getResource();
+    }
+
+    @Test
+    public void engine_RunsCompiledScriptWithFreshStateEveryTime() throws ExecutionException, InterruptedException {
+        //Arrange
+        var script = engine.compile("""
+                GLOBAL C
+                CHANNEL Q
+                S = 0
+                C = 0
+                FOR I = 1 TO 10
+                    S = S + I
+                    INCREMENT C
+                NEXT
+                SEND Q, S
+                RECEIVE Q, R
+                PRINT R
+                PRINT C
+                """);
+        List<Future<RunResult>> runs = new ArrayList<>();
+
+        //Act
+        for (int i = 0; i < 8; i++) {
+            runs.add(engine.submit(script, Limits.UNLIMITED));
+        }
+
+        //Assert
+        for (Future<RunResult> run : runs) {
+            RunResult result = run.get();
+            assertEquals(RunResult.Status.COMPLETED, result.status());
+            assertEquals(getAssertValue("55.0\r\n10.0\r\n"), result.output());
+            assertTrue(result.instructions() > 0);
+        }
+    }
+
+    @Test
+    public void engine_StopsScriptThatExceedsItsInstructions() {
+        //Arrange
+        var script = engine.compile("""
+                FOR I = 1 TO 100000000
+                NEXT
+                PRINT "done"
+                """);
+        var limits = Limits.UNLIMITED.withMaxInstructions(10_000);
+
+        //Act
+        var result = engine.run(script, limits);
+
+        //Assert
+        assertEquals(RunResult.Status.QUOTA_EXCEEDED, result.status());
+        assertEquals(QuotaExceededException.Resource.INSTRUCTIONS, resourceOf(result));
+        assertEquals("", result.output());
+        assertTrue(result.instructions() < 20_000);
+    }
+
+    @Test
+    public void engine_StopsScriptThatExceedsItsWallTime() throws ExecutionException, InterruptedException {
+        //Arrange
+        var looping = engine.compile("""
+                S = 0
+                FOR I = 1 TO 1000000000
+                    S = S + 1
+                NEXT
+                """);
+        var blocked = engine.compile("""
+                CHANNEL Q
+                RECEIVE Q, V
+                """);
+        var limits = Limits.UNLIMITED.withMaxWallTime(Duration.ofMillis(100));
+
+        //Act
+        var loopingResult = engine.submit(looping, limits).get();
+        var blockedResult = engine.submit(blocked, limits).get();
+
+        //Assert
+        assertEquals(RunResult.Status.QUOTA_EXCEEDED, loopingResult.status());
+        assertEquals(QuotaExceededException.Resource.WALL_TIME, resourceOf(loopingResult));
+        assertEquals(RunResult.Status.QUOTA_EXCEEDED, blockedResult.status());
+        assertEquals(QuotaExceededException.Resource.WALL_TIME, resourceOf(blockedResult));
+        assertEquals("Runtime error: Script exceeded its limit of 100 ms of wall time", blockedResult.error().getMessage());
+    }
+
+    @Test
+    public void engine_StopsScriptBeforeItExceedsItsOutput() {
+        //Arrange
+        var script = engine.compile("""
+                FOR I = 1 TO 1000
+                    PRINT "line"
+                NEXT
+                """);
+        var line = "line" + System.lineSeparator();
+        var limits = Limits.UNLIMITED.withMaxOutputBytes(line.length() * 3L + 1);
+
+        //Act
+        var result = engine.run(script, limits);
+
+        //Assert
+        assertEquals(RunResult.Status.QUOTA_EXCEEDED, result.status());
+        assertEquals(QuotaExceededException.Resource.OUTPUT_BYTES, resourceOf(result));
+        assertEquals(line.repeat(3), result.output());
+        assertEquals(line.length() * 3L, result.outputBytes());
+    }
+
+    @Test
+    public void engine_StopsScriptThatExceedsItsAllocations() {
+        //Arrange
+        var script = engine.compile("""
+                S = ""
+                FOR I = 1 TO 1000000000
+                    S = S + "0123456789"
+                NEXT
+                """);
+        var limits = Limits.UNLIMITED.withMaxAllocatedBytes(1_000_000);
+
+        //Act
+        var result = engine.run(script, limits);
+
+        //Assert
+        assertEquals(RunResult.Status.QUOTA_EXCEEDED, result.status());
+        assertEquals(QuotaExceededException.Resource.ALLOCATED_BYTES, resourceOf(result));
+        assertTrue(result.allocatedBytes() > 1_000_000);
+    }
+
+    @Test
+    public void engine_ChargesAllocationsOfParallelLoopWorkersToTheRun() {
+        //Arrange
+        var script = engine.compile("""
+                PARALLEL FOR I = 1 TO 1000000000
+                    S = "0123456789" + I
+                NEXT
+                """);
+        var limits = Limits.UNLIMITED.withMaxAllocatedBytes(1_000_000).withMaxParallelism(2);
+
+        //Act
+        var result = engine.run(script, limits);
+
+        //Assert
+        assertEquals(RunResult.Status.QUOTA_EXCEEDED, result.status());
+        assertEquals(QuotaExceededException.Resource.ALLOCATED_BYTES, resourceOf(result));
+        assertTrue(result.allocatedBytes() > 1_000_000);
+    }
+
+    @Test
+    public void engine_StopsParallelLoopThatExceedsItsInstructions() {
+        //Arrange
+        var script = engine.compile("""
+                S = 0
+                PARALLEL FOR I = 1 TO 1000000000 REDUCE SUM S
+                    S = S + I
+                NEXT
+                PRINT S
+                """);
+        var limits = Limits.UNLIMITED.withMaxInstructions(100_000).withMaxParallelism(2);
+
+        //Act
+        var result = engine.run(script, limits);
+
+        //Assert
+        assertEquals(RunResult.Status.QUOTA_EXCEEDED, result.status());
+        assertEquals(QuotaExceededException.Resource.INSTRUCTIONS, resourceOf(result));
+        assertEquals("", result.output());
+    }
+
+    @Test
+    public void engine_ChargesOutputInUtf8Bytes() {
+        //Arrange
+        var script = engine.compile("""
+                PRINT "\u00e9t\u00e9"
+                PRINT "\u00e9t\u00e9"
+                """);
+        var line = "\u00e9t\u00e9" + System.lineSeparator();
+        var limits = Limits.UNLIMITED.withMaxOutputBytes(line.length() * 2L + 2);
+
+        //Act
+        var result = engine.run(script, limits);
+
+        //Assert
+        assertEquals(RunResult.Status.QUOTA_EXCEEDED, result.status());
+        assertEquals(QuotaExceededException.Resource.OUTPUT_BYTES, resourceOf(result));
+        assertEquals(line, result.output());
+        assertEquals(line.length() + 2L, result.outputBytes());
+    }
+
+    @Test
+    public void engine_ChargesInputPromptsToTheOutputLimit() {
+        //Arrange
+        var script = engine.compile("""
+                FOR I = 1 TO 1000
+                    INPUT "0123456789012345678901234567890123456789", X
+                NEXT
+                """);
+        var input = new BufferedReader(new StringReader("1\n".repeat(1000)));
+        var output = new ByteArrayOutputStream();
+
+        //Act
+        var result = engine.run(script, Limits.UNLIMITED.withMaxOutputBytes(1000), List.of(), input,
+                new PrintStream(output, true));
+
+        //Assert
+        assertEquals(RunResult.Status.QUOTA_EXCEEDED, result.status());
+        assertEquals(QuotaExceededException.Resource.OUTPUT_BYTES, resourceOf(result));
+        assertEquals(1000, output.size());
+    }
+
+    @Test
+    public void engine_ReportsScriptErrorsWithoutAffectingOtherRuns() throws ExecutionException, InterruptedException {
+        //Arrange
+        var failing = engine.compile("""
+                PRINT "before"
+                PRINT X
+                """);
+        var passing = engine.compile("PRINT 1 + 1");
+
+        //Act
+        var failed = engine.submit(failing, Limits.UNLIMITED).get();
+        var completed = engine.submit(passing, Limits.UNLIMITED).get();
+
+        //Assert
+        assertEquals(RunResult.Status.FAILED, failed.status());
+        assertTrue(failed.error() instanceof UninitializedVariableException);
+        assertEquals(getAssertValue("before\r\n"), failed.output());
+        assertEquals(RunResult.Status.COMPLETED, completed.status());
+        assertEquals(getAssertValue("2.0\r\n"), completed.output());
+    }
+
+    @Test
+    public void engine_ResumesTimeSlicedScriptWhereItYielded() throws ExecutionException, InterruptedException {
+        //Arrange
+        try (var slicing = new InterpreterEngine(2, 3)) {
+            var script = slicing.compile("""
+                    S = 0
+                    FOR I = 1 TO 3
+                        FOR J = 1 TO 2
+                            GOSUB Add
+                        NEXT
+                        IF I = 2 THEN
+                            PRINT S
+                        ENDIF
+                    NEXT
+                    PRINT S
+
+                    Add:
+                    S = S + I * J
+                    RETURN
+                    """);
+
+            //Act
+            var first = slicing.submit(script, Limits.UNLIMITED);
+            var second = slicing.submit(script, Limits.UNLIMITED);
+
+            //Assert
+            assertEquals(getAssertValue("9.0\r\n18.0\r\n"), first.get().output());
+            assertEquals(getAssertValue("9.0\r\n18.0\r\n"), second.get().output());
+        }
+    }
+
+    @Test
+    public void engine_SharesThreadFairlyBetweenLongAndShortScripts() throws ExecutionException, InterruptedException {
+        //Arrange
+        try (var slicing = new InterpreterEngine(1, 1_000)) {
+            var looping = slicing.compile("""
+                    FOR I = 1 TO 1000000000
+                    NEXT
+                    """);
+            var shortScript = slicing.compile("PRINT \"short\"");
+
+            //Act
+            var longRun = slicing.submit(looping, Limits.UNLIMITED.withMaxInstructions(20_000_000));
+            var shortRun = slicing.submit(shortScript, Limits.UNLIMITED);
+            var shortResult = shortRun.get();
+            var longWasRunning = !longRun.isDone();
+
+            //Assert
+            assertEquals(getAssertValue("short\r\n"), shortResult.output());
+            assertTrue(longWasRunning);
+            assertEquals(RunResult.Status.QUOTA_EXCEEDED, longRun.get().status());
+        }
+    }
+
+    @Test
+    public void engine_SuspendsAtInputAndResumesWithTheProvidedValue() throws ExecutionException, InterruptedException {
+        //Arrange
+        var script = engine.compile("""
+                GLOBAL G
+                CHANNEL Q
+                G = 100
+                T = 0
+                FOR I = 1 TO 2
+                    INPUT "Value? ", V
+                    GOSUB Add
+                NEXT
+                RECEIVE Q, R
+                PRINT T + R + G
+
+                Add:
+                T = T + V * I
+                SEND Q, I
+                RETURN
+                """);
+
+        //Act
+        var first = engine.submit(script, Limits.UNLIMITED).get();
+        var second = engine.resume(script, first.continuation(), "5", Limits.UNLIMITED).get();
+        var third = engine.resume(script, second.continuation(), "7", Limits.UNLIMITED).get();
+
+        //Assert
+        assertEquals(RunResult.Status.AWAITING_INPUT, first.status());
+        assertEquals("Value? ", first.output());
+        assertEquals("V", first.continuation().getAwaitedInput());
+        assertEquals(RunResult.Status.AWAITING_INPUT, second.status());
+        assertEquals("Value? ", second.output());
+        assertEquals(RunResult.Status.COMPLETED, third.status());
+        assertEquals(getAssertValue("120.0\r\n"), third.output());
+    }
+
+    @Test
+    public void engine_ResumesSerializedContinuationWithRecompiledScript() throws Exception {
+        //Arrange
+        var source = """
+                S = "hello"
+                INPUT N
+                PRINT S
+                PRINT N * 2
+                """;
+        var suspended = engine.submit(engine.compile(source), Limits.UNLIMITED).get();
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(suspended.continuation());
+        }
+
+        //Act
+        Continuation restored;
+        try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (Continuation) input.readObject();
+        }
+        var result = engine.resume(engine.compile(source), restored, "21", Limits.UNLIMITED).get();
+
+        //Assert
+        assertEquals(RunResult.Status.COMPLETED, result.status());
+        assertEquals(getAssertValue("hello\r\n42.0\r\n"), result.output());
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.resume(engine.compile("INPUT N"), restored, "1", Limits.UNLIMITED));
+    }
+
+    @Test
+    public void engine_FailsResumedRunOnInvalidInput() throws ExecutionException, InterruptedException {
+        //Arrange
+        var script = engine.compile("INPUT N");
+        var suspended = engine.submit(script, Limits.UNLIMITED).get();
+
+        //Act
+        var result = engine.resume(script, suspended.continuation(), "abc", Limits.UNLIMITED).get();
+
+        //Assert
+        assertEquals(RunResult.Status.FAILED, result.status());
+        assertEquals("Runtime error: Invalid input for a number: abc", result.error().getMessage());
+    }
+}
@@ -0,0 +1,121 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.interpreter.SBasicInterpreter;
+import org.interpreter.exceptions.UninitializedVariableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventsTest {
+    private ByteArrayOutputStream buffer;
+
+    @BeforeEach
+    public void setUp() {
+        buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer));
+    }
+
+    @Test
+    public void events_RecordsPhasesAndSubroutineCalls() throws IOException {
+        //Arrange
+        var program = """
+                FOR I = 1 TO 3
+                    GOSUB Work
+                NEXT
+
+                Work:
+                A = I
+                RETURN
+                """;
+        Path source = Files.createTempFile("events", ".bas");
+        Files.writeString(source, program);
+
+        //Act
+        List<RecordedEvent> events = record(() -> {
+            var interpreter = new SBasicInterpreter();
+            interpreter.fromFile(source.toString());
+            interpreter.run();
+        });
+        Files.delete(source);
+
+        //Assert
+        List<String> phases = events.stream()
+                .map(event -> event.getEventType().getName())
+                .filter(name -> !name.equals("org.interpreter.Subroutine"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("org.interpreter.SourceLoad", "org.interpreter.Lex", "org.interpreter.Parse",
+                "org.interpreter.Link", "org.interpreter.Run"), phases);
+        assertEquals(1, named(events, "org.interpreter.Lex").getInt("labels"));
+        assertEquals(1, named(events, "org.interpreter.Parse").getInt("statements"));
+        assertTrue(named(events, "org.interpreter.Run").getBoolean("succeeded"));
+
+        List<RecordedEvent> calls = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.interpreter.Subroutine"))
+                .collect(Collectors.toList());
+        assertEquals(3, calls.size());
+        for (RecordedEvent call : calls) {
+            assertEquals("Work", call.getString("label"));
+            assertEquals(1, call.getInt("depth"));
+        }
+    }
+
+    @Test
+    public void events_RecordsExceptionThatEndsRun() throws IOException {
+        //Arrange
+        var interpreter = new SBasicInterpreter("PRINT X");
+
+        //Act
+        List<RecordedEvent> events = record(() ->
+                assertThrows(UninitializedVariableException.class, interpreter::run));
+
+        //Assert
+        RecordedEvent error = named(events, "org.interpreter.Error");
+        assertEquals(UninitializedVariableException.class.getName(), error.getClass("exceptionClass").getName());
+        assertEquals("Runtime error: Variable 'X' not initialized", error.getString("message"));
+        assertFalse(named(events, "org.interpreter.Run").getBoolean("succeeded"));
+    }
+
+    private interface Action {
+        void run() throws IOException;
+    }
+
+    /**
+     * Runs an action while recording the interpreter's events and returns them in the order they started.
+     */
+    private static List<RecordedEvent> record(Action action) throws IOException {
+        Path file = Files.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("SourceLoad", "Lex", "Parse", "Link", "Run", "Subroutine", "Input", "Error")) {
+                recording.enable("org.interpreter." + name);
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        return events;
+    }
+
+    private static RecordedEvent named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event in " + events));
+    }
+}
@@ -308,4 +308,87 @@ public class ExpressionsTest {
         String expected = getAssertValue("1.0\r\n");
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void expressions_DivisionWithRemainderPromotesToFraction() {
+        //Arrange
+        var program = "A = 7; B = 2; PRINT A / B; A / 7";
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        String actual = buffer.toString();
+        String expected = getAssertValue("3.5 1.0\r\n");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void expressions_IntegerOverflowPromotesToFraction() {
+        //Arrange
+        var program = "PRINT 9223372036854775807 + 1";
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        String actual = buffer.toString();
+        String expected = getAssertValue("9.223372036854776E18\r\n");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void expressions_IntegerEqualsFraction() {
+        //Arrange
+        var program = "IF 4 / 2 = 2.0 THEN PRINT \"Equal\" ENDIF; IF 3 < 3.5 THEN PRINT \"Less\" ENDIF";
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        String actual = buffer.toString();
+        String expected = getAssertValue("Equal\r\nLess\r\n");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void expressions_ModulusFractions() {
+        //Arrange
+        var program = "PRINT 7.5 % 2";
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        String actual = buffer.toString();
+        String expected = getAssertValue("1.5\r\n");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void expressions_ConcatInLoop() {
+        //Arrange
+        var program = """
+                S = "<"
+                FOR I = 1 TO 3
+                    S = S + I + ","
+                NEXT
+                T = S + "a"
+                U = S + "b"
+                IF T = "<1.0,2.0,3.0,a" THEN PRINT T; U ENDIF
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        String actual = buffer.toString();
+        String expected = getAssertValue("<1.0,2.0,3.0,a <1.0,2.0,3.0,b\r\n");
+        assertEquals(expected, actual);
+    }
 }
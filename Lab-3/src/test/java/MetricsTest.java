@@ -0,0 +1,249 @@
+import org.interpreter.SBasicInterpreter;
+import org.interpreter.exceptions.UninitializedVariableException;
+import org.interpreter.metrics.InterpreterMXBean;
+import org.interpreter.metrics.Histogram;
+import org.interpreter.metrics.InterpreterMetrics;
+import org.interpreter.metrics.MetricsServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsTest {
+    private ByteArrayOutputStream buffer;
+
+    @BeforeEach
+    public void setUp() {
+        buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer));
+    }
+
+    private String getAssertValue(String expected) {
+        return expected.replaceAll("\r\n", System.lineSeparator());
+    }
+
+    @Test
+    public void metrics_CountsStatementsCallsAndOutput() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 3
+                    GOSUB Add
+                NEXT
+                PRINT S
+
+                Add:
+                S = S + I
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        InterpreterMetrics metrics = interpreter.getMetrics();
+        assertEquals(getAssertValue("6.0\r\n"), buffer.toString());
+        assertEquals(1 + 1 + 3 * 2 + 1, metrics.getStatementsExecuted());
+        assertEquals(3, metrics.getSubroutineCalls());
+        assertEquals(buffer.size(), metrics.getBytesPrinted());
+        assertEquals(2, metrics.getVariableCount());
+        assertEquals(0, metrics.getCallDepth());
+        assertTrue(metrics.getApproximateFootprintBytes() > 0);
+        assertTrue(metrics.getExceptions().isEmpty());
+    }
+
+    @Test
+    public void metrics_CountsPrintedBytesInUtf8() {
+        //Arrange
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        var interpreter = new SBasicInterpreter("""
+                PRINT "Gr\u00fc\u00dfe, \u20ac5 \ud83d\ude00"
+                """);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(buffer.size(), interpreter.getMetrics().getBytesPrinted());
+    }
+
+    @Test
+    public void metrics_CountsExceptionsByType() {
+        //Arrange
+        var interpreter = new SBasicInterpreter("PRINT X");
+
+        //Act
+        assertThrows(UninitializedVariableException.class, interpreter::run);
+
+        //Assert
+        assertEquals(Map.of("UninitializedVariableException", 1L), interpreter.getMetrics().getExceptions());
+    }
+
+    @Test
+    public void metrics_ReadableThroughPlatformMBeanServer() throws Exception {
+        //Arrange
+        var program = """
+                D = 0
+                GOSUB Down
+                PRINT D
+
+                Down:
+                D = D + 1
+                IF D < 50 THEN
+                    GOSUB Down
+                ENDIF
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        //Act
+        ObjectName name = interpreter.registerMBean();
+        interpreter.run();
+        InterpreterMXBean proxy = JMX.newMXBeanProxy(server, name, InterpreterMXBean.class);
+        long statements = proxy.getStatementsExecuted();
+        long calls = (Long) server.getAttribute(name, "SubroutineCalls");
+        interpreter.unregisterMBean();
+
+        //Assert
+        assertEquals(getAssertValue("50.0\r\n"), buffer.toString());
+        assertEquals(interpreter.getMetrics().getStatementsExecuted(), statements);
+        assertEquals(50, calls);
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void metrics_ReadableWhileScriptRuns() throws Exception {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 300000
+                    GOSUB Add
+                NEXT
+                PRINT S
+
+                Add:
+                S = S + 1
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        InterpreterMetrics metrics = interpreter.getMetrics();
+        var maxObserved = new AtomicInteger();
+        var running = new AtomicBoolean(true);
+        var decreased = new AtomicBoolean();
+        var observer = new Thread(() -> {
+            long previous = 0;
+            while (running.get()) {
+                long statements = metrics.getStatementsExecuted();
+                if (statements < previous) {
+                    decreased.set(true);
+                }
+                previous = statements;
+                maxObserved.accumulateAndGet(metrics.getCallDepth(), Math::max);
+            }
+        });
+
+        //Act
+        observer.start();
+        interpreter.run();
+        running.set(false);
+        observer.join();
+
+        //Assert
+        assertEquals(getAssertValue("300000.0\r\n"), buffer.toString());
+        assertEquals(1 + 1 + 300000 * 2 + 1, metrics.getStatementsExecuted());
+        assertEquals(300000, metrics.getSubroutineCalls());
+        assertFalse(decreased.get(), "Statement count went backwards");
+        assertTrue(maxObserved.get() <= 1);
+    }
+
+    @Test
+    public void metrics_HistogramBucketsDurations() {
+        //Arrange
+        var histogram = new Histogram(new long[]{10, 100});
+
+        //Act
+        histogram.record(5);
+        histogram.record(10);
+        histogram.record(50);
+        histogram.record(1_000);
+
+        //Assert
+        assertEquals(2, histogram.bucket(0));
+        assertEquals(1, histogram.bucket(1));
+        assertEquals(1, histogram.bucket(2));
+        assertEquals(4, histogram.count());
+        assertEquals(1_065e-9, histogram.sumSeconds(), 1e-15);
+    }
+
+    @Test
+    public void metrics_PublishedInPrometheusFormat() throws Exception {
+        //Arrange
+        var interpreter = new SBasicInterpreter("""
+                S = 0
+                FOR I = 1 TO 100
+                    S = S + I
+                NEXT
+                PRINT S
+                """);
+        var failing = new SBasicInterpreter("GOSUB Missing");
+        var client = HttpClient.newHttpClient();
+
+        //Act
+        String body;
+        HttpResponse<String> response;
+        int rejected;
+        try (var server = new MetricsServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.register(interpreter.getMetrics());
+            server.register(failing.getMetrics());
+            server.start();
+            interpreter.run();
+            assertThrows(RuntimeException.class, failing::run);
+            URI uri = URI.create("http://localhost:" + server.getPort() + MetricsServer.PATH);
+            response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+            rejected = client.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+            body = response.body();
+        }
+
+        //Assert
+        String id = "interpreter=\"" + interpreter.getMetrics().getId() + "\"";
+        String failingId = "interpreter=\"" + failing.getMetrics().getId() + "\"";
+        assertEquals(getAssertValue("5050.0\r\n"), buffer.toString());
+        assertEquals(200, response.statusCode());
+        assertEquals(405, rejected);
+        assertEquals(MetricsServer.CONTENT_TYPE, response.headers().firstValue("Content-Type").orElse(""));
+        assertTrue(body.contains("# TYPE sbasic_run_duration_seconds histogram\n"));
+        assertTrue(body.contains("sbasic_statements_total{" + id + "} 103\n"));
+        assertTrue(body.contains("sbasic_output_bytes_total{" + id + "} " + buffer.size() + "\n"));
+        assertTrue(body.contains("sbasic_run_duration_seconds_bucket{" + id + ",le=\"+Inf\"} 1\n"));
+        assertTrue(body.contains("sbasic_parse_duration_seconds_count{" + id + "} 1\n"));
+        assertTrue(body.contains("sbasic_failures_total{" + id + ",exception=\"UninitializedVariableException\"} 0\n"));
+        assertTrue(body.contains("sbasic_failures_total{" + failingId + ",exception=\"UninitializedSubroutineException\"} 1\n"));
+        assertEquals(1, body.lines().filter(line -> line.equals("# TYPE sbasic_statements_total counter")).count());
+        for (String line : body.split("\n")) {
+            assertTrue(line.startsWith("#") || line.matches("sbasic_\\w+\\{[^}]*} [0-9.E+-]+"), "Malformed line " + line);
+        }
+    }
+}
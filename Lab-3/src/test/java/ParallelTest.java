@@ -0,0 +1,401 @@
+import org.interpreter.SBasicInterpreter;
+import org.interpreter.analysis.LoopDiagnostic;
+import org.interpreter.analysis.LoopParallelizer;
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.exceptions.QuotaExceededException;
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.linker.Linker;
+import org.interpreter.parser.Parser;
+import org.interpreter.parser.statements.ParallelForStatement;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.Quota;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelTest {
+    private ByteArrayOutputStream buffer;
+
+    @BeforeEach
+    public void setUp() {
+        buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer));
+    }
+
+    private String getAssertValue(String expected) {
+        return expected.replaceAll("\r\n", System.lineSeparator());
+    }
+
+    @Test
+    public void parallel_ForReducesSumMinAndMax() {
+        //Arrange
+        var program = """
+                S = 10
+                M = 1000
+                X = 0
+                PARALLEL FOR I = 1 TO 1000 REDUCE SUM S, MIN M, MAX X
+                    V = (I * 37) % 101
+                    S = S + V
+                    IF V < M THEN
+                        M = V
+                    ENDIF
+                    IF V > X THEN
+                        X = V
+                    ENDIF
+                NEXT
+                PRINT S
+                PRINT M
+                PRINT X
+                PRINT I
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        interpreter.setParallelism(4);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(getAssertValue("50054.0\r\n0.0\r\n100.0\r\n1000.0\r\n"), buffer.toString());
+    }
+
+    @Test
+    public void parallel_ConcatIsOrderedForEveryParallelism() {
+        //Arrange
+        var program = """
+                T = ">"
+                PARALLEL FOR I = 1 TO 200 REDUCE CONCAT T
+                    T = T + I + ","
+                NEXT
+                PRINT T
+                """;
+        StringBuilder expected = new StringBuilder(">");
+        for (int i = 1; i <= 200; i++) {
+            expected.append(i).append(".0,");
+        }
+
+        for (int parallelism : new int[]{1, 3, 8}) {
+            buffer.reset();
+            var interpreter = new SBasicInterpreter(program);
+            interpreter.setParallelism(parallelism);
+
+            //Act
+            interpreter.run();
+
+            //Assert
+            assertEquals(getAssertValue(expected + "\r\n"), buffer.toString());
+        }
+    }
+
+    @Test
+    public void parallel_WorkersKeepPrivateVariablesAndCallSubroutines() {
+        //Arrange
+        var program = """
+                A = 5
+                S = 0
+                PARALLEL FOR I = 1 TO 100 REDUCE SUM S
+                    A = I
+                    GOSUB Square
+                NEXT
+                PRINT S
+                PRINT A
+
+                Square:
+                S = S + A * A
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        assertEquals(getAssertValue("338350.0\r\n5.0\r\n"), buffer.toString());
+    }
+
+    @Test
+    public void parallel_RethrowsFailureOfIteration() {
+        //Arrange
+        var program = """
+                S = 0
+                PARALLEL FOR I = 1 TO 100 REDUCE SUM S
+                    S = S + 1 / (I - 50)
+                NEXT
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        interpreter.setParallelism(2);
+
+        //Act & Assert
+        assertThrows(InterpreterRuntimeException.class, interpreter::run);
+    }
+
+    @Test
+    public void parallel_RejectsUnknownReduction() {
+        //Arrange
+        var interpreter = new SBasicInterpreter("""
+                PARALLEL FOR I = 1 TO 10 REDUCE AVG S
+                NEXT
+                """);
+
+        //Act
+        Throwable exception = assertThrows(InterpreterRuntimeException.class, interpreter::run);
+
+        //Assert
+        assertEquals("Runtime error: Expected 'SUM', 'MIN', 'MAX' or 'CONCAT' but found 'AVG' at line 1", exception.getMessage());
+    }
+
+    @Test
+    public void parallel_AutoParallelizesIndependentLoopWithReductions() {
+        //Arrange
+        var program = """
+                S = 10
+                M = 1000
+                X = 0
+                FOR I = 1 TO 1000
+                    V = (I * 37) % 101
+                    S = S + V
+                    IF V < M THEN
+                        M = V
+                    ENDIF
+                    IF X < V THEN
+                        X = V
+                    ENDIF
+                NEXT
+                PRINT S
+                PRINT M
+                PRINT X
+                PRINT I
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        interpreter.setParallelism(4);
+
+        //Act
+        interpreter.run();
+        List<LoopDiagnostic> report = interpreter.getParallelizationReport();
+
+        //Assert
+        assertEquals(getAssertValue("50054.0\r\n0.0\r\n100.0\r\n1000.0\r\n"), buffer.toString());
+        assertEquals(List.of(new LoopDiagnostic(4, "I", true, 910, "reduces S with +, M with MIN, X with MAX")), report);
+    }
+
+    @Test
+    public void parallel_ExplainsWhyLoopsStaySequential() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 10
+                    S = S + I
+                    PRINT S
+                NEXT
+                T = 0
+                FOR I = 1 TO 10
+                    T = T * 2 + I
+                NEXT
+                FOR I = 1 TO 10
+                    U = I * I
+                NEXT
+                PRINT U
+                FOR I = 1 TO 10
+                    GOSUB Count
+                NEXT
+                FOR I = 1 TO 10
+                    FOR J = 1 TO I
+                        W = J
+                    NEXT
+                NEXT
+
+                Count:
+                C = 1
+                GOSUB Count
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        interpreter.setMaxCallDepth(10);
+
+        //Act
+        assertThrows(RuntimeException.class, interpreter::run);
+        List<String> report = interpreter.getParallelizationReport().stream().map(LoopDiagnostic::toString).toList();
+
+        //Assert
+        assertEquals(List.of(
+                "line 2: FOR I stays sequential: PRINT at line 4 writes output",
+                "line 7: FOR I stays sequential: T is read at line 8 before the iteration assigns it, so it depends on the previous iteration",
+                "line 10: FOR I stays sequential: U is assigned in the loop and read at line 13 outside of it",
+                "line 14: FOR I stays sequential: the jump to 'Count' at line 25 is recursive",
+                "line 17: FOR I runs in parallel from 1053 iterations (its iterations are independent)",
+                "line 18: FOR J stays sequential: it runs inside the parallel loop at line 17"), report);
+    }
+
+    @Test
+    public void parallel_AutoParallelLoopsMatchSequentialLoops() {
+        //Arrange
+        var program = """
+                S = 0
+                T = ""
+                FOR I = 1 TO 5000
+                    S = S + I * I
+                    T = T + I % 7
+                NEXT
+                PRINT S
+                PRINT T
+                """;
+        var sequential = new SBasicInterpreter(program);
+        sequential.setAutoParallelization(false);
+        sequential.run();
+        String expected = buffer.toString();
+        buffer.reset();
+        var parallel = new SBasicInterpreter(program);
+        parallel.setParallelism(4);
+
+        //Act
+        parallel.run();
+
+        //Assert
+        assertEquals(expected, buffer.toString());
+        assertEquals(true, parallel.getParallelizationReport().get(0).parallelized());
+    }
+
+    @Test
+    public void parallel_FractionalSumStaysSequential() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 5000
+                    S = S + I / 3
+                NEXT
+                PRINT S
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        interpreter.setParallelism(4);
+
+        //Act
+        interpreter.run();
+        List<String> report = interpreter.getParallelizationReport().stream().map(LoopDiagnostic::toString).toList();
+
+        //Assert
+        assertEquals(List.of("line 2: FOR I stays sequential: the sum S at line 3 may add fractional numbers, "
+                + "which parallel chunks would round differently"), report);
+    }
+
+    @Test
+    public void parallel_InexactAutoParallelLoopRunsSequentiallyFromThenOn() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 5000
+                    X = I / 3
+                    S = S + X
+                NEXT
+                """;
+        var sequential = new RuntimeEnvironment();
+        List<Statement> expected = new Parser(new BasicLexer(program), sequential).parse();
+        sequential.execute(expected);
+        var environment = new RuntimeEnvironment();
+        List<Statement> statements = new Parser(new BasicLexer(program), environment).parse();
+        new Linker(environment).link(statements);
+        new LoopParallelizer(environment).parallelize(statements);
+        var pool = new ForkJoinPool(4);
+        environment.setPool(pool);
+        var loop = (ParallelForStatement) statements.get(1);
+
+        //Act
+        boolean afterFirstRun;
+        try {
+            environment.execute(statements);
+            afterFirstRun = loop.isSequentialOnly();
+            environment.execute(statements);
+        } finally {
+            pool.shutdown();
+        }
+
+        //Assert
+        assertEquals(true, afterFirstRun);
+        assertEquals(true, loop.isSequentialOnly());
+        assertEquals(sequential.getVariable("S"), environment.getVariable("S"));
+    }
+
+    @Test
+    public void parallel_AutoParallelLoopFailsLikeSequentialLoop() {
+        //Arrange
+        var program = """
+                FOR I = 1 TO 5000
+                    V = 1 / (I - 4000)
+                NEXT
+                """;
+        var sequential = new SBasicInterpreter(program);
+        sequential.setAutoParallelization(false);
+        var parallel = new SBasicInterpreter(program);
+        parallel.setParallelism(4);
+
+        //Act
+        Throwable expected = assertThrows(InterpreterRuntimeException.class, sequential::run);
+        Throwable exception = assertThrows(InterpreterRuntimeException.class, parallel::run);
+
+        //Assert
+        assertEquals(expected.getMessage(), exception.getMessage());
+        assertEquals(true, parallel.getParallelizationReport().get(0).parallelized());
+    }
+
+    @Test
+    public void parallel_AnalyzesThousandsOfLoopsInLinearTime() {
+        //Arrange
+        var program = new StringBuilder();
+        for (int i = 0; i < 8000; i++) {
+            program.append("FOR I = 1 TO 2\n    X = I * 2\n    GOSUB Step\nNEXT\n");
+        }
+        program.append("PRINT 1\n\nStep:\nY = I + 1\nRETURN\n");
+        var sequential = new SBasicInterpreter(program.toString());
+        sequential.setAutoParallelization(false);
+        var parallel = new SBasicInterpreter(program.toString());
+
+        //Act
+        long start = System.nanoTime();
+        sequential.run();
+        long withoutAnalysis = System.nanoTime() - start;
+        start = System.nanoTime();
+        parallel.run();
+        long withAnalysis = System.nanoTime() - start;
+
+        //Assert
+        assertEquals(getAssertValue("1.0\r\n1.0\r\n"), buffer.toString());
+        assertEquals(8000, parallel.getParallelizationReport().size());
+        assertEquals(true, parallel.getParallelizationReport().get(7999).parallelized());
+        assertTrue(withAnalysis < 10 * withoutAnalysis + 2_000_000_000L,
+                "analysis took " + withAnalysis / 1_000_000 + " ms, the run alone " + withoutAnalysis / 1_000_000 + " ms");
+    }
+
+    @Test
+    public void parallel_AutoParallelLoopStopsAtQuotaWithoutRunningAgain() {
+        //Arrange
+        var environment = new RuntimeEnvironment();
+        List<Statement> statements = new Parser(new BasicLexer("""
+                I = 0
+                FOR I = 1 TO 200000
+                    X = I * 2
+                NEXT
+                """), environment).parse();
+        new Linker(environment).link(statements);
+        new LoopParallelizer(environment).parallelize(statements);
+        var pool = new ForkJoinPool(4);
+        environment.setPool(pool);
+        environment.setQuota(new Quota(50_000, Quota.UNLIMITED, Quota.UNLIMITED, Quota.UNLIMITED));
+
+        //Act
+        try {
+            assertThrows(QuotaExceededException.class, () -> environment.execute(statements));
+        } finally {
+            pool.shutdown();
+        }
+
+        //Assert
+        assertEquals(0L, environment.getVariable("I"));
+    }
+}
@@ -0,0 +1,301 @@
+import org.interpreter.SBasicInterpreter;
+import org.interpreter.exceptions.InterpreterRuntimeException;
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.parser.Parser;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.profiler.AllocationEntry;
+import org.interpreter.profiler.AllocationProfiler;
+import org.interpreter.profiler.ExecutionTrace;
+import org.interpreter.profiler.LineProfiler;
+import org.interpreter.profiler.ProfileEntry;
+import org.interpreter.profiler.SamplingProfiler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProfilerTest {
+    private ByteArrayOutputStream buffer;
+
+    @BeforeEach
+    public void setUp() {
+        buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer));
+    }
+
+    private String getAssertValue(String expected) {
+        return expected.replaceAll("\r\n", System.lineSeparator());
+    }
+
+    @Test
+    public void profiler_CountsExecutionsPerLine() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 10
+                    S = S + I
+                    IF I % 2 = 0 THEN
+                        S = S + 1
+                    ENDIF
+                NEXT
+                PRINT S
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        var profiler = new LineProfiler();
+        interpreter.setLineProfiler(profiler);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        Map<Integer, ProfileEntry> lines = profiler.getLines();
+        assertEquals(getAssertValue("60.0\r\n"), buffer.toString());
+        assertEquals(List.of(1, 2, 3, 4, 5, 8), List.copyOf(lines.keySet()));
+        assertEquals(1, lines.get(2).getCount());
+        assertEquals(10, lines.get(3).getCount());
+        assertEquals(10, lines.get(4).getCount());
+        assertEquals(5, lines.get(5).getCount());
+        assertTrue(lines.get(2).getTotalNanos() >= lines.get(3).getTotalNanos() + lines.get(4).getTotalNanos());
+        assertTrue(lines.get(4).getTotalNanos() >= lines.get(5).getTotalNanos());
+    }
+
+    @Test
+    public void profiler_AttributesRecursiveCallsToLabels() {
+        //Arrange
+        var program = """
+                N = 5
+                GOSUB Down
+                PRINT N
+
+                Down:
+                IF N > 0 THEN
+                    N = N - 1
+                    GOSUB Down
+                ENDIF
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        var profiler = new LineProfiler();
+        interpreter.setLineProfiler(profiler);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        ProfileEntry main = profiler.getLabels().get(LineProfiler.MAIN);
+        ProfileEntry down = profiler.getLabels().get("Down");
+        assertEquals(1, main.getCount());
+        assertEquals(6, down.getCount());
+        assertEquals(6, profiler.getLines().get(6).getCount());
+        assertTrue(down.getTotalNanos() >= down.getSelfNanos());
+        assertTrue(main.getTotalNanos() >= down.getTotalNanos());
+        assertTrue(profiler.getLines().get(2).getTotalNanos() >= down.getTotalNanos());
+    }
+
+    @Test
+    public void profiler_ReportListsLinesBySelfTime() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 1000
+                    S = S + I * I
+                NEXT
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        var profiler = new LineProfiler();
+        interpreter.setLineProfiler(profiler);
+        var report = new ByteArrayOutputStream();
+
+        //Act
+        interpreter.run();
+        profiler.report(new PrintStream(report));
+
+        //Assert
+        String[] rows = report.toString().split("\\R");
+        assertEquals("Line profile, sorted by self time:", rows[0]);
+        assertEquals(3, Integer.parseInt(rows[2].trim().split("\\s+")[0]));
+        assertTrue(report.toString().contains("Label profile, sorted by total time:"));
+        assertTrue(report.toString().contains(LineProfiler.MAIN));
+    }
+
+    @Test
+    public void profiler_SamplesCollapsedGoSubStacks() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 200000
+                    GOSUB Outer
+                NEXT
+                PRINT S
+
+                Outer:
+                GOSUB Inner
+                RETURN
+
+                Inner:
+                S = S + I % 3
+                RETURN
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        var sampler = new SamplingProfiler(1000);
+        interpreter.setSamplingProfiler(sampler);
+        var collapsed = new ByteArrayOutputStream();
+
+        //Act
+        interpreter.run();
+        sampler.writeCollapsed(new PrintStream(collapsed));
+
+        //Assert
+        Map<String, Long> samples = sampler.getSamples();
+        assertEquals(getAssertValue("200001.0\r\n"), buffer.toString());
+        assertTrue(!samples.isEmpty(), "No samples were taken");
+        for (String stack : samples.keySet()) {
+            assertTrue(stack.matches("<main>:\\d+(;\\w+:\\d+)*"), "Malformed stack " + stack);
+        }
+        assertTrue(samples.keySet().stream().anyMatch(stack -> stack.startsWith("<main>:3;Outer:8;Inner:")),
+                "Missing nested GOSUB stack in " + samples.keySet());
+        assertEquals(samples.size(), collapsed.toString().split("\\R").length);
+    }
+
+    @Test
+    public void profiler_SamplesEveryLineOfLoopWhoseBodyDividesTheBatch() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 500000
+                    A = I * 2
+                    B = A + 1
+                    C = B % 7
+                    S = S + C
+                NEXT
+                PRINT S
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        interpreter.setAutoParallelization(false);
+        var sampler = new SamplingProfiler(1000);
+        interpreter.setSamplingProfiler(sampler);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        Map<String, Long> samples = sampler.getSamples();
+        for (int line = 3; line <= 6; line++) {
+            assertTrue(samples.containsKey("<main>:" + line), "No samples of line " + line + " in " + samples);
+        }
+    }
+
+    @Test
+    public void profiler_AttributesAllocationsToStatementTypesAndLines() {
+        //Arrange
+        var program = """
+                S = 0
+                T = ""
+                FOR I = 1 TO 20000
+                    T = "item " + I
+                    S = S + I
+                NEXT
+                PRINT S
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        var profiler = new AllocationProfiler();
+        interpreter.setAllocationProfiler(profiler);
+        var report = new ByteArrayOutputStream();
+
+        //Act
+        interpreter.run();
+        profiler.report(new PrintStream(report));
+
+        //Assert
+        Map<Integer, AllocationEntry> lines = new HashMap<>();
+        profiler.getLines().forEach(entry -> lines.put(entry.getLine(), entry));
+        assertEquals(getAssertValue("2.0001E8\r\n"), buffer.toString());
+        assertEquals(List.of(1, 2, 3, 4, 5, 7), profiler.getLines().stream().map(AllocationEntry::getLine).toList());
+        assertEquals("AssignmentStatement", lines.get(4).getType());
+        assertEquals(20000, lines.get(4).getExecutions());
+        assertTrue(lines.get(4).getBytesPerExecution() >= 16, "Concatenation allocated " + lines.get(4).getBytesPerExecution());
+        assertTrue(lines.get(5).getBytes() < lines.get(4).getBytes());
+        assertEquals(1 + 1 + 20000 * 2, profiler.getTypes().get("AssignmentStatement").getExecutions());
+        assertTrue(report.toString().startsWith("Allocation by statement type, sorted by bytes:"));
+        assertTrue(report.toString().contains("Allocation by line, sorted by bytes:"));
+    }
+
+    @Test
+    public void profiler_DumpsTraceWhenRunFails() {
+        //Arrange
+        var program = """
+                T = "a"
+                FOR I = 1 TO 10
+                    T = T + "b"
+                    N = I * 2
+                NEXT
+                X = 1 / 0
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        var trace = new ExecutionTrace(4);
+        interpreter.setExecutionTrace(trace);
+        var err = new ByteArrayOutputStream();
+        PrintStream originalErr = System.err;
+        System.setErr(new PrintStream(err));
+
+        //Act
+        try {
+            assertThrows(InterpreterRuntimeException.class, interpreter::run);
+        } finally {
+            System.setErr(originalErr);
+        }
+
+        //Assert
+        assertEquals(23, trace.getRecorded());
+        assertEquals(List.of(
+                "#20 line 4 Assignment N = 18.0",
+                "#21 line 3 Assignment T = \"abbbbbbbbbb\"",
+                "#22 line 4 Assignment N = 20.0",
+                "#23 line 6 Assignment"), trace.getEntries());
+        assertEquals(getAssertValue("""
+                Trace of the last 4 of 23 executed statements:
+                  #20 line 4 Assignment N = 18.0
+                  #21 line 3 Assignment T = "abbbbbbbbbb"
+                  #22 line 4 Assignment N = 20.0
+                  #23 line 6 Assignment
+                """.replace("\n", "\r\n")), err.toString());
+    }
+
+    @Test
+    public void profiler_TraceSwitchesByRestoringStatements() {
+        //Arrange
+        var environment = new RuntimeEnvironment();
+        List<Statement> program = new Parser(new BasicLexer("""
+                S = 0
+                FOR I = 1 TO 3
+                    S = S + I
+                NEXT
+                """), environment).parse();
+        Statement original = program.get(1).getBlocks().get(0).get(0);
+        var trace = new ExecutionTrace();
+
+        //Act
+        trace.enable(program, environment);
+        environment.execute(program);
+        Statement traced = program.get(1).getBlocks().get(0).get(0);
+        trace.disable(program, environment);
+        environment.execute(program);
+
+        //Assert
+        assertNotSame(original, traced);
+        assertSame(original, program.get(1).getBlocks().get(0).get(0));
+        assertEquals(5, trace.getRecorded());
+        assertEquals("#2 line 2 For I = 1.0", trace.getEntries().get(1));
+    }
+}
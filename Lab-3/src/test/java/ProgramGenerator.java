@@ -0,0 +1,109 @@
+/**
+ * Generates synthetic BASIC programs of a given shape for the scaling tests.
+ * A program consists of a number of top-level statements, a number of labelled subroutines
+ * that are each called once, assignments whose expressions are nested to a given depth,
+ * a number of sibling FOR loops that each call a subroutine, and an optional nest of FOR loops
+ * around a counter.
+ */
+public class ProgramGenerator {
+    private static final int VARIABLES = 64;
+
+    private int statements;
+    private int labels;
+    private int expressionDepth = 1;
+    private int loopNesting;
+    private int siblingLoops;
+
+    public ProgramGenerator statements(int statements) {
+        this.statements = statements;
+        return this;
+    }
+
+    public ProgramGenerator labels(int labels) {
+        this.labels = labels;
+        return this;
+    }
+
+    public ProgramGenerator expressionDepth(int expressionDepth) {
+        this.expressionDepth = expressionDepth;
+        return this;
+    }
+
+    public ProgramGenerator loopNesting(int loopNesting) {
+        this.loopNesting = loopNesting;
+        return this;
+    }
+
+    public ProgramGenerator siblingLoops(int siblingLoops) {
+        this.siblingLoops = siblingLoops;
+        return this;
+    }
+
+    /**
+     * Builds the source of the program. Every variable is assigned before it is read, and the program
+     * prints nothing, so it can be executed as well as parsed.
+     *
+     * @return the generated source
+     */
+    public String generate() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < VARIABLES; i++) {
+            source.append('V').append(i).append(" = ").append(i).append('\n');
+        }
+        source.append("C = 0\n");
+
+        for (int i = 0; i < statements; i++) {
+            source.append('V').append(i % VARIABLES).append(" = ");
+            appendExpression(source, i, expressionDepth);
+            source.append('\n');
+        }
+
+        for (int i = 0; i < labels; i++) {
+            source.append("GOSUB S").append(i).append('\n');
+        }
+
+        for (int i = 0; i < siblingLoops; i++) {
+            source.append("FOR K = 1 TO 2\n")
+                    .append("V").append(i % VARIABLES).append(" = K * ").append(i % 7 + 1).append('\n');
+            if (labels > 0) {
+                source.append("GOSUB S").append(i % labels).append('\n');
+            }
+            source.append("NEXT\n");
+        }
+
+        for (int i = 0; i < loopNesting; i++) {
+            source.append("FOR L").append(i).append(" = 1 TO ").append(i < 10 ? 2 : 1).append('\n');
+        }
+        if (loopNesting > 0) {
+            source.append("C = C + 1\n");
+        }
+        source.append("NEXT\n".repeat(loopNesting));
+
+        for (int i = 0; i < labels; i++) {
+            source.append("\nS").append(i).append(":\n")
+                    .append("C = C + ").append(i % 10).append('\n')
+                    .append("RETURN\n");
+        }
+        return source.toString();
+    }
+
+    /**
+     * Appends an expression of the given depth: a depth of one is a single operation, and every further
+     * level wraps the expression in parentheses as the right operand of another operation.
+     */
+    private static void appendExpression(StringBuilder source, int seed, int depth) {
+        for (int level = 1; level < depth; level++) {
+            source.append('V').append((seed + level) % VARIABLES).append(operator(seed + level)).append('(');
+        }
+        source.append('V').append(seed % VARIABLES).append(" + ").append(seed % 7 + 1);
+        source.append(")".repeat(depth - 1));
+    }
+
+    private static String operator(int seed) {
+        return switch (seed % 3) {
+            case 0 -> " + ";
+            case 1 -> " - ";
+            default -> " * 1 + ";
+        };
+    }
+}
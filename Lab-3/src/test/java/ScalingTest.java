@@ -0,0 +1,183 @@
+import org.interpreter.SBasicInterpreter;
+import org.interpreter.analysis.LoopParallelizer;
+import org.interpreter.lexer.BasicLexer;
+import org.interpreter.linker.Linker;
+import org.interpreter.parser.Parser;
+import org.interpreter.parser.statements.Statement;
+import org.interpreter.runtime.RuntimeEnvironment;
+import org.interpreter.token.TokenType;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that lexing, parsing, the analysis of the loop parallelizer and a complete run scale linearly with
+ * the size of the program. The run goes through {@link SBasicInterpreter#run()} with automatic
+ * parallelization disabled, so that every phase executes on the test thread and the bytes that thread
+ * allocates cover all the work of the phase.
+ * Programs grow tenfold per step from 10^3 up to the size given by the {@code scaling.maxSize}
+ * system property, which defaults to 10^4 and is raised to 10^6 by the {@code scalingTest} task.
+ * A linear phase takes about ten times as long per step and a quadratic one a hundred times,
+ * so a step is allowed to grow by at most {@value #MAX_TIME_RATIO} in time and
+ * {@value #MAX_ALLOCATION_RATIO} in bytes allocated by the test thread.
+ */
+public class ScalingTest {
+    private static final int MIN_SIZE = 1_000;
+    private static final int MAX_SIZE = Integer.getInteger("scaling.maxSize", 10_000);
+    private static final double MAX_TIME_RATIO = 30;
+    private static final double MAX_ALLOCATION_RATIO = 15;
+
+    /** Phases faster than this are compared as if they took this long, since their timings are mostly noise. */
+    private static final long MIN_NANOS = 5_000_000;
+    private static final int RUNS = 3;
+
+    private static final String[] PHASES = {"lex", "parse", "analyze", "run"};
+
+    @Test
+    public void scaling_Statements() {
+        assertLinear("statements", size -> new ProgramGenerator()
+                .statements(size)
+                .expressionDepth(4)
+                .labels(size / 100)
+                .loopNesting(3)
+                .generate());
+    }
+
+    @Test
+    public void scaling_Labels() {
+        assertLinear("labels", size -> new ProgramGenerator()
+                .labels(size)
+                .generate());
+    }
+
+    @Test
+    public void scaling_SiblingLoops() {
+        assertLinear("sibling loops", size -> new ProgramGenerator()
+                .siblingLoops(size)
+                .labels(10)
+                .generate());
+    }
+
+    @Test
+    public void scaling_DeepExpressionNesting() {
+        //Arrange
+        var program = new ProgramGenerator().statements(10).expressionDepth(500).generate();
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act & Assert
+        assertDoesNotThrow(interpreter::run);
+    }
+
+    @Test
+    public void scaling_LongOperatorChain() {
+        //Arrange
+        var program = "A = 1" + " + 1".repeat(2_000) + "\nB = A" + " * 1 - 1".repeat(1_000);
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act & Assert
+        assertDoesNotThrow(interpreter::run);
+    }
+
+    @Test
+    public void scaling_DeepLoopNesting() {
+        //Arrange
+        var program = new ProgramGenerator().loopNesting(500).generate();
+        var interpreter = new SBasicInterpreter(program);
+
+        //Act & Assert
+        assertDoesNotThrow(interpreter::run);
+    }
+
+    /**
+     * Measures every phase for each program size and checks the growth between consecutive sizes.
+     */
+    private void assertLinear(String shape, IntFunction<String> generator) {
+        //Arrange
+        List<Integer> sizes = new ArrayList<>();
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size *= 10) {
+            sizes.add(size);
+        }
+
+        //Act
+        List<Measurement> measurements = new ArrayList<>();
+        for (int size : sizes) {
+            measurements.add(measure(generator.apply(size)));
+        }
+
+        //Assert
+        for (int i = 1; i < measurements.size(); i++) {
+            Measurement smaller = measurements.get(i - 1);
+            Measurement larger = measurements.get(i);
+            for (int phase = 0; phase < PHASES.length; phase++) {
+                double timeRatio = (double) larger.nanos[phase] / Math.max(smaller.nanos[phase], MIN_NANOS);
+                double allocationRatio = (double) larger.allocated[phase] / Math.max(smaller.allocated[phase], 1);
+                String step = String.format("%s %s from %d to %d", shape, PHASES[phase], sizes.get(i - 1), sizes.get(i));
+
+                assertTrue(timeRatio <= MAX_TIME_RATIO, String.format("%s grew %.1fx in time (%d ms to %d ms)",
+                        step, timeRatio, smaller.nanos[phase] / 1_000_000, larger.nanos[phase] / 1_000_000));
+                assertTrue(allocationRatio <= MAX_ALLOCATION_RATIO, String.format("%s grew %.1fx in thread allocation (%d to %d bytes)",
+                        step, allocationRatio, smaller.allocated[phase], larger.allocated[phase]));
+            }
+        }
+    }
+
+    /**
+     * Lexes, parses, analyzes and runs a program several times, keeping the fastest time of each phase.
+     */
+    private Measurement measure(String program) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Measurement measurement = new Measurement();
+
+        for (int run = 0; run < RUNS; run++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            var lexer = new BasicLexer(program);
+            while (lexer.nextToken().type() != TokenType.EOF) {
+                // Only the tokenization is measured
+            }
+            measurement.record(0, System.nanoTime() - start, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+
+            allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            start = System.nanoTime();
+            var environment = new RuntimeEnvironment();
+            List<Statement> statements = new Parser(new BasicLexer(program), environment).parse();
+            new Linker(environment).link(statements);
+            measurement.record(1, System.nanoTime() - start, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+
+            allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            start = System.nanoTime();
+            new LoopParallelizer(environment).parallelize(statements);
+            measurement.record(2, System.nanoTime() - start, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+
+            var interpreter = new SBasicInterpreter(program);
+            interpreter.setAutoParallelization(false);
+            allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            start = System.nanoTime();
+            interpreter.run();
+            measurement.record(3, System.nanoTime() - start, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+        }
+        return measurement;
+    }
+
+    private static class Measurement {
+        final long[] nanos = new long[PHASES.length];
+        final long[] allocated = new long[PHASES.length];
+
+        Measurement() {
+            Arrays.fill(nanos, Long.MAX_VALUE);
+        }
+
+        void record(int phase, long elapsed, long bytes) {
+            nanos[phase] = Math.min(nanos[phase], elapsed);
+            allocated[phase] = bytes;
+        }
+    }
+}
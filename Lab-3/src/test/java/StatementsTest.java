@@ -1,15 +1,19 @@
 import org.interpreter.SBasicInterpreter;
+import org.interpreter.exceptions.CallStackOverflowException;
+import org.interpreter.exceptions.UninitializedSubroutineException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StatementsTest {
     private ByteArrayOutputStream buffer;
@@ -410,4 +414,144 @@ public class StatementsTest {
                 """;
         assertEquals(getAssertValue(expected), actual);
     }
+
+    @Test
+    public void statements_NumericLoopDoesNotAllocatePerIteration() {
+        //Arrange
+        var program = """
+                S = 0
+                FOR I = 1 TO 100000
+                    S = S + I * 2 - 1
+                    IF S % 7 = 3 THEN S = S - 1 ENDIF
+                NEXT
+                """;
+        var interpreter = new SBasicInterpreter(program);
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        //Act
+        long before = threads.getThreadAllocatedBytes(threadId);
+        interpreter.run();
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        //Assert
+        assertTrue(allocated < 100_000, "Allocated " + allocated + " bytes for 100000 iterations");
+    }
+
+    @Test
+    public void statements_DeepRecursiveGoSub() {
+        //Arrange
+        var program = """
+            N = 99999
+            S = 0
+            GOSUB SUM
+
+            SUM:
+            IF N > 0 THEN
+                S = S + N
+                N = N - 1
+                GOSUB SUM
+            ENDIF
+            RETURN
+            PRINT S
+            """;
+        SBasicInterpreter interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        String actual = buffer.toString();
+        String expected = getAssertValue("4.99995E9\r\n");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void statements_GoSubExceedsMaxCallDepth() {
+        //Arrange
+        var program = """
+            GOSUB FOREVER
+
+            FOREVER:
+            GOSUB FOREVER
+            RETURN
+            """;
+        SBasicInterpreter interpreter = new SBasicInterpreter(program);
+        interpreter.setMaxCallDepth(50);
+
+        //Act
+        Throwable exception = assertThrows(CallStackOverflowException.class, interpreter::run);
+
+        //Assert
+        assertEquals("Runtime error: Call stack overflow: calling subroutine 'FOREVER' exceeds the maximum depth of 50 nested calls", exception.getMessage());
+    }
+
+    @Test
+    public void statements_GoSubToUndefinedLabelsFailsBeforeRunning() {
+        //Arrange
+        var program = """
+            PRINT "Start"
+            GOSUB FIRST
+            GOSUB SECOND
+            GOSUB EXISTS
+
+            EXISTS:
+            GOSUB THIRD
+            RETURN
+            """;
+        SBasicInterpreter interpreter = new SBasicInterpreter(program);
+
+        //Act
+        Throwable exception = assertThrows(UninitializedSubroutineException.class, interpreter::run);
+
+        //Assert
+        assertEquals("Runtime error: Subroutines 'FIRST', 'SECOND', 'THIRD' not initialized", exception.getMessage());
+        assertEquals("", buffer.toString());
+    }
+
+    @Test
+    public void statements_UndefinedLabelsInNestedBlocksAreReportedInSourceOrder() {
+        //Arrange
+        var program = """
+            GOSUB FIRST
+            FOR I = 1 TO 2
+                IF I = 1 THEN GOSUB SECOND ENDIF
+            NEXT
+            GOSUB THIRD
+            GOSUB EXISTS
+
+            EXISTS:
+            FOR J = 1 TO 2
+                GOSUB FOURTH
+            NEXT
+            GOSUB FIFTH
+            RETURN
+            """;
+        SBasicInterpreter interpreter = new SBasicInterpreter(program);
+
+        //Act
+        Throwable exception = assertThrows(UninitializedSubroutineException.class, interpreter::run);
+
+        //Assert
+        assertEquals("Runtime error: Subroutines 'FIRST', 'SECOND', 'THIRD', 'FOURTH', 'FIFTH' not initialized",
+                exception.getMessage());
+    }
+
+    @Test
+    public void statements_BenchmarkCorpusRecursion() throws Exception {
+        //Arrange
+        String program;
+        try (var input = StatementsTest.class.getResourceAsStream("/benchmarks/recursion.bas")) {
+            program = new String(input.readAllBytes());
+        }
+        SBasicInterpreter interpreter = new SBasicInterpreter(program);
+
+        //Act
+        interpreter.run();
+
+        //Assert
+        String actual = buffer.toString();
+        String expected = getAssertValue("Sum 2.505E7\r\nNodes 32767.0\r\n");
+        assertEquals(expected, actual);
+    }
 }